@@ -34,6 +34,7 @@ import org.jjazz.musiccontrol.api.MusicController;
 import org.jjazz.musiccontrol.api.MusicController.State;
 import org.jjazz.musiccontrol.api.playbacksession.UpdatableSongSession;
 import org.jjazz.musiccontrol.spi.ActiveSongBackgroundMusicBuilder;
+import org.jjazz.musiccontrol.spi.SpeculativeMusicBuilder;
 import org.jjazz.rhythmmusicgeneration.api.MusicGenerationQueue;
 import org.jjazz.song.api.Song;
 import org.jjazz.songcontext.api.SongContext;
@@ -332,6 +333,13 @@ public class ActiveSongBackgroundMusicBuilderImpl implements PropertyChangeListe
         if (songMusicBuilderTask != null)
         {
             LOGGER.fine("stopListeningToNonPlayingSong()");
+
+            // Don't throw away the generated music, song might be played again soon
+            if (songMusicBuilderTask.isLastResultUpToDate() && SpeculativeMusicBuilder.getDefault() instanceof SpeculativeMusicBuilderImpl smb)
+            {
+                smb.putPhrases(songMusicBuilderTask.getSong(), songMusicBuilderTask.getMidiMix(), songMusicBuilderTask.getLastTransposition(),
+                        songMusicBuilderTask.getLastResult().mapRvPhrases());
+            }
             songMusicBuilderTask.removeChangeListener(this);
             songMusicBuilderTask.stop();
             
@@ -267,6 +267,8 @@ public class ActiveSongManagerImpl implements PropertyChangeListener, VetoableCh
                 if (sendMidiMessagePolicy.contains(SendMidiMessagePolicy.PLAY))
                 {
                     OutputSynthManager.getDefault().getDefaultOutputSynth().getUserSettings().sendModeOnUponPlaySysexMessages();
+                    // Full resend before playback, in case the state of the Midi device was changed outside JJazzLab
+                    JJazzMidiSystem.getInstance().getMidiOutState().reset();
                     sendAllMidiMixMessages();
                 }
             }
@@ -303,7 +305,7 @@ public class ActiveSongManagerImpl implements PropertyChangeListener, VetoableCh
                     if (sendMidiMessagePolicy.contains(SendMidiMessagePolicy.MIX_CHANGE))
                     {
                         JJazzMidiSystem jms = JJazzMidiSystem.getInstance();
-                        jms.sendMidiMessagesOnJJazzMidiOut(insMix.getAllMidiMessages(channel));
+                        jms.sendChangedMidiMessagesOnJJazzMidiOut(insMix.getAllMidiMessages(channel));
 
                     }
                 } else
@@ -317,7 +319,7 @@ public class ActiveSongManagerImpl implements PropertyChangeListener, VetoableCh
                     int channel = (Integer) evt.getNewValue();
                     InstrumentMix insMix = mm.getInstrumentMix(channel);
                     JJazzMidiSystem jms = JJazzMidiSystem.getInstance();
-                    jms.sendMidiMessagesOnJJazzMidiOut(insMix.getAllMidiMessages(channel));
+                    jms.sendChangedMidiMessagesOnJJazzMidiOut(insMix.getAllMidiMessages(channel));
                 }
             }
             return;
@@ -367,7 +369,7 @@ public class ActiveSongManagerImpl implements PropertyChangeListener, VetoableCh
                     InstrumentMix.PROP_INSTRUMENT_ENABLED))
             {
                 JJazzMidiSystem jms = JJazzMidiSystem.getInstance();
-                jms.sendMidiMessagesOnJJazzMidiOut(insMix.getInstrumentMidiMessages(channel));
+                jms.sendChangedMidiMessagesOnJJazzMidiOut(insMix.getInstrumentMidiMessages(channel));
             }
         } else if (evt.getSource() instanceof InstrumentSettings insSet)
         {
@@ -378,13 +380,13 @@ public class ActiveSongManagerImpl implements PropertyChangeListener, VetoableCh
                 switch (evt.getPropertyName())
                 {
                     case InstrumentSettings.PROPERTY_CHORUS, InstrumentSettings.PROPERTY_CHORUS_ENABLED ->
-                        jms.sendMidiMessagesOnJJazzMidiOut(insSet.getChorusMidiMessages(channel));
+                        jms.sendRateLimitedMidiMessagesOnJJazzMidiOut(insSet.getChorusMidiMessages(channel));
                     case InstrumentSettings.PROPERTY_REVERB, InstrumentSettings.PROPERTY_REVERB_ENABLED ->
-                        jms.sendMidiMessagesOnJJazzMidiOut(insSet.getReverbMidiMessages(channel));
+                        jms.sendRateLimitedMidiMessagesOnJJazzMidiOut(insSet.getReverbMidiMessages(channel));
                     case InstrumentSettings.PROPERTY_VOLUME, InstrumentSettings.PROPERTY_VOLUME_ENABLED ->
-                        jms.sendMidiMessagesOnJJazzMidiOut(insSet.getVolumeMidiMessages(channel));
+                        jms.sendRateLimitedMidiMessagesOnJJazzMidiOut(insSet.getVolumeMidiMessages(channel));
                     case InstrumentSettings.PROPERTY_PANORAMIC, InstrumentSettings.PROPERTY_PANORAMIC_ENABLED ->
-                        jms.sendMidiMessagesOnJJazzMidiOut(insSet.getPanoramicMidiMessages(channel));
+                        jms.sendRateLimitedMidiMessagesOnJJazzMidiOut(insSet.getPanoramicMidiMessages(channel));
                     default ->
                     {
                     }
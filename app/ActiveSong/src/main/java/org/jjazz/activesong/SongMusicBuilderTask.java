@@ -70,6 +70,9 @@ public class SongMusicBuilderTask implements ChangeListener, PropertyChangeListe
     private final MidiMix midiMix;
     private final int preUpdateBufferTimeMs;
     private final int postUpdateSleepTimeMs;
+    private volatile long postedSongRevision = -1;
+    private volatile long postedMidiMixRevision = -1;
+    private volatile int postedTransposition;
     private ChangeSupport cs = new ChangeSupport(this);
     private static final Logger LOGGER = Logger.getLogger(SongMusicBuilderTask.class.getSimpleName());
 
@@ -104,6 +107,11 @@ public class SongMusicBuilderTask implements ChangeListener, PropertyChangeListe
         return song;
     }
 
+    public MidiMix getMidiMix()
+    {
+        return midiMix;
+    }
+
     /**
      * This task should be stopped via this method in order to release all resources.
      */
@@ -150,6 +158,33 @@ public class SongMusicBuilderTask implements ChangeListener, PropertyChangeListe
         return lastResult;
     }
 
+    /**
+     * Check if the last result corresponds to the current song state.
+     *
+     * @return True if the last result is not null, was generated without error, and song/midiMix/playback transposition have not
+     *         musically changed since.
+     */
+    public boolean isLastResultUpToDate()
+    {
+        var res = lastResult;
+        return res != null
+                && res.throwable() == null
+                && !isGeneratingMusic()
+                && postedSongRevision == song.getMusicGenerationRevision()
+                && postedMidiMixRevision == midiMix.getMusicGenerationRevision()
+                && postedTransposition == PlaybackSettings.getInstance().getPlaybackKeyTransposition();
+    }
+
+    /**
+     * The playback key transposition used for the last music generation request.
+     *
+     * @return
+     */
+    public int getLastTransposition()
+    {
+        return postedTransposition;
+    }
+
     /**
      * Check if task is being generating music to produce a future Result.
      *
@@ -225,9 +260,11 @@ public class SongMusicBuilderTask implements ChangeListener, PropertyChangeListe
                     song.getChordLeadSheet().toDebugString());
             return;
         }
+        postedSongRevision = song.getMusicGenerationRevision();
+        postedMidiMixRevision = midiMix.getMusicGenerationRevision();
+        postedTransposition = PlaybackSettings.getInstance().getPlaybackKeyTransposition();
         SongContextCopy sgContextCopy = new SongContextCopy(song, midiMix, false);
-        ClsUtilities.transpose(sgContextCopy.getSong().getChordLeadSheet(),
-                PlaybackSettings.getInstance().getPlaybackKeyTransposition());
+        ClsUtilities.transpose(sgContextCopy.getSong().getChordLeadSheet(), postedTransposition);
 
 
         // Request music generation
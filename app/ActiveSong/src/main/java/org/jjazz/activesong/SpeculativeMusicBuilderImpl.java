@@ -0,0 +1,467 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.activesong;
+
+import com.google.common.base.Preconditions;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jjazz.activesong.spi.ActiveSongManager;
+import org.jjazz.chordleadsheet.api.ClsUtilities;
+import org.jjazz.midimix.api.MidiMix;
+import org.jjazz.musiccontrol.api.PlaybackSettings;
+import org.jjazz.musiccontrol.api.SongMusicGenerationListener;
+import org.jjazz.musiccontrol.spi.ActiveSongBackgroundMusicBuilder;
+import org.jjazz.musiccontrol.spi.SpeculativeMusicBuilder;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythm.api.MusicGenerationException;
+import org.jjazz.rhythm.api.RhythmVoice;
+import org.jjazz.rhythmmusicgeneration.api.SongSequenceBuilder;
+import org.jjazz.rhythmmusicgeneration.spi.MusicGenerator;
+import org.jjazz.song.api.Song;
+import org.jjazz.songcontext.api.SongContext;
+import org.jjazz.songcontext.api.SongContextCopy;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Service implementation.
+ * <p>
+ * Candidate songs are the songs added via addCandidate() and the songs which were previously active. Music is generated for a
+ * candidate song when it is added and each time it is musically modified, except while it is the active song (which is handled by
+ * ActiveSongBackgroundMusicBuilder). When the active song changes, the last up-to-date ActiveSongBackgroundMusicBuilder result is
+ * reused to fill the cache.
+ * <p>
+ * Generation runs on a single low-priority thread and never delays the active song music generation:<br>
+ * - only songs whose rhythms use thread-safe MusicGenerators are generated, so no lock is shared with the active song generation<br>
+ * - generation is postponed while ActiveSongBackgroundMusicBuilder is generating music<br>
+ * - a running generation is interrupted when cancelled.
+ */
+@ServiceProvider(service = SpeculativeMusicBuilder.class)
+public class SpeculativeMusicBuilderImpl implements SpeculativeMusicBuilder, PropertyChangeListener
+{
+
+    /**
+     * Default memory budget, can be changed with the jjazz.speculativemusic.memoryBudgetMB system property.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = Long.getLong("jjazz.speculativemusic.memoryBudgetMB", 64) * 1024 * 1024;
+    /**
+     * @see SongMusicGenerationListener
+     */
+    private static final int PRE_CHANGE_EVENT_DELAY_MS = 1000;
+    private static final int ACTIVE_SONG_RETRY_DELAY_MS = 500;
+    private static final int PHRASE_ESTIMATED_SIZE = 200;
+    private static final int NOTE_EVENT_ESTIMATED_SIZE = 120;
+
+    private final Map<Song, Candidate> candidates = new HashMap<>();
+    private final LinkedHashMap<Song, CacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true);     // Access-order for LRU
+    private long cacheSize;
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    private Song lastActiveSong;
+    private MidiMix lastActiveMidiMix;
+    private final ScheduledExecutorService executor;
+    private static final Logger LOGGER = Logger.getLogger(SpeculativeMusicBuilderImpl.class.getSimpleName());
+
+    public SpeculativeMusicBuilderImpl()
+    {
+        executor = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread t = new Thread(r, "SpeculativeMusicBuilder");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+
+        var asm = ActiveSongManager.getDefault();
+        asm.addPropertyListener(ActiveSongManager.PROP_ACTIVE_SONG, this);
+        lastActiveSong = asm.getActiveSong();
+        lastActiveMidiMix = asm.getActiveMidiMix();
+
+        PlaybackSettings.getInstance().addPropertyChangeListener(PlaybackSettings.PROP_MUSIC_GENERATION, this);
+    }
+
+    @Override
+    public synchronized void addCandidate(Song song, MidiMix midiMix)
+    {
+        Preconditions.checkNotNull(song);
+        Preconditions.checkNotNull(midiMix);
+        if (song.isClosed())
+        {
+            return;
+        }
+
+        var c = candidates.get(song);
+        if (c == null || c.midiMix != midiMix)
+        {
+            if (c != null)
+            {
+                c.cleanup();
+            }
+            c = new Candidate(song, midiMix);
+            candidates.put(song, c);
+            LOGGER.log(Level.FINE, "addCandidate() song={0}", song.getName());
+        }
+        schedule(c);
+    }
+
+    @Override
+    public synchronized void removeCandidate(Song song)
+    {
+        var c = candidates.remove(song);
+        if (c != null)
+        {
+            c.cleanup();
+            LOGGER.log(Level.FINE, "removeCandidate() song={0}", song.getName());
+        }
+        synchronized (cache)
+        {
+            var entry = cache.remove(song);
+            if (entry != null)
+            {
+                cacheSize -= entry.size();
+            }
+        }
+    }
+
+    @Override
+    public Map<RhythmVoice, Phrase> getCachedPhrases(SongContext sgContext, int chordSymbolTransposition)
+    {
+        Preconditions.checkNotNull(sgContext);
+        var song = sgContext.getSong();
+        var midiMix = sgContext.getMidiMix();
+
+        CacheEntry entry;
+        synchronized (cache)
+        {
+            entry = cache.get(song);
+        }
+        if (entry == null
+                || !entry.key().equals(Key.of(song, midiMix, chordSymbolTransposition))
+                || !sgContext.getBarRange().equals(new SongContext(song, midiMix).getBarRange()))
+        {
+            return null;
+        }
+
+        Map<RhythmVoice, Phrase> res = new HashMap<>();
+        entry.mapRvPhrases().forEach((rv, p) -> res.put(rv, p.clone()));
+        LOGGER.log(Level.FINE, "getCachedPhrases() cache hit for song={0}", song.getName());
+        return res;
+    }
+
+    @Override
+    public long getMemoryBudget()
+    {
+        synchronized (cache)
+        {
+            return memoryBudget;
+        }
+    }
+
+    @Override
+    public void setMemoryBudget(long bytes)
+    {
+        Preconditions.checkArgument(bytes >= 0, "bytes=%s", bytes);
+        synchronized (cache)
+        {
+            memoryBudget = bytes;
+            trimToMemoryBudget();
+        }
+    }
+
+    /**
+     * Store phrases generated elsewhere for song.
+     *
+     * @param song
+     * @param midiMix
+     * @param chordSymbolTransposition
+     * @param mapRvPhrases             Must correspond to the current song and midiMix music generation revisions.
+     */
+    public void putPhrases(Song song, MidiMix midiMix, int chordSymbolTransposition, Map<RhythmVoice, Phrase> mapRvPhrases)
+    {
+        put(Key.of(song, midiMix, chordSymbolTransposition), mapRvPhrases);
+    }
+
+    // ==========================================================================================================
+    // PropertyChangeListener implementation
+    // ==========================================================================================================
+    @Override
+    public synchronized void propertyChange(PropertyChangeEvent evt)
+    {
+        if (evt.getSource() == ActiveSongManager.getDefault())
+        {
+            if (evt.getPropertyName().equals(ActiveSongManager.PROP_ACTIVE_SONG))
+            {
+                var asm = ActiveSongManager.getDefault();
+                Song prevSong = lastActiveSong;
+                MidiMix prevMidiMix = lastActiveMidiMix;
+                lastActiveSong = asm.getActiveSong();
+                lastActiveMidiMix = asm.getActiveMidiMix();
+
+                var c = lastActiveSong == null ? null : candidates.get(lastActiveSong);
+                if (c != null)
+                {
+                    // Active song is handled by ActiveSongBackgroundMusicBuilder
+                    c.cancel();
+                }
+
+                if (prevSong != null && prevSong != lastActiveSong && prevMidiMix != null)
+                {
+                    // A recently played song
+                    addCandidate(prevSong, prevMidiMix);
+                }
+            }
+        } else if (evt.getSource() == PlaybackSettings.getInstance())
+        {
+            if (evt.getPropertyName().equals(PlaybackSettings.PROP_MUSIC_GENERATION))
+            {
+                synchronized (cache)
+                {
+                    cache.clear();
+                    cacheSize = 0;
+                }
+                new ArrayList<>(candidates.values()).forEach(c -> schedule(c));
+            }
+        } else if (evt.getSource() instanceof Song song)
+        {
+            if (evt.getPropertyName().equals(Song.PROP_CLOSED))
+            {
+                removeCandidate(song);
+            }
+        } else if (evt.getSource() instanceof SongMusicGenerationListener smgl)
+        {
+            if (evt.getPropertyName().equals(SongMusicGenerationListener.PROP_CHANGED))
+            {
+                var c = candidates.get(smgl.getSong());
+                if (c != null)
+                {
+                    schedule(c);
+                }
+            }
+        }
+    }
+
+    // ==========================================================================================================
+    // Private methods
+    // ==========================================================================================================
+    /**
+     * Request a background generation for the candidate, if needed.
+     * <p>
+     * Must be called on the EDT: the song context copy can't be made on another thread.
+     *
+     * @param c
+     */
+    private synchronized void schedule(Candidate c)
+    {
+        c.cancel();
+
+        Song song = c.song;
+        if (song.isClosed() || song == ActiveSongManager.getDefault().getActiveSong() || song.getChordLeadSheet().getSection(0) == null)
+        {
+            return;
+        }
+        int transposition = PlaybackSettings.getInstance().getPlaybackKeyTransposition();
+        var key = Key.of(song, c.midiMix, transposition);
+        if (isUpToDateInCache(key) || !isThreadSafe(new SongContext(song, c.midiMix)))
+        {
+            return;
+        }
+
+        SongContextCopy sgContextCopy = new SongContextCopy(song, c.midiMix, false);
+        ClsUtilities.transpose(sgContextCopy.getSong().getChordLeadSheet(), transposition);
+        c.future = executor.submit(() -> generate(c, key, sgContextCopy));
+    }
+
+    /**
+     * Executed on the speculative thread.
+     *
+     * @param c
+     * @param key
+     * @param sgContextCopy
+     */
+    private void generate(Candidate c, Key key, SongContextCopy sgContextCopy)
+    {
+        if (!key.isUpToDate() || isUpToDateInCache(key))
+        {
+            return;
+        }
+
+        var asbmb = ActiveSongBackgroundMusicBuilder.getDefault();
+        if (asbmb != null && asbmb.isDirectlyGeneratingMusic())
+        {
+            // Don't compete with the active song update, retry later
+            synchronized (this)
+            {
+                if (!Thread.currentThread().isInterrupted())      // Not cancelled or rescheduled meanwhile
+                {
+                    c.future = executor.schedule(() -> generate(c, key, sgContextCopy), ACTIVE_SONG_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+            return;
+        }
+
+        Map<RhythmVoice, Phrase> mapRvPhrases;
+        try
+        {
+            mapRvPhrases = new SongSequenceBuilder(sgContextCopy).buildMapRvPhrase(true);
+        } catch (MusicGenerationException ex)
+        {
+            LOGGER.log(Level.FINE, "generate() song={0} ex={1}", new Object[]
+            {
+                key.song().getName(), ex.getMessage()
+            });
+            return;
+        }
+
+        if (key.isUpToDate())
+        {
+            put(key, mapRvPhrases);
+            LOGGER.log(Level.FINE, "generate() phrases generated for song={0}", key.song().getName());
+        }
+    }
+
+    /**
+     * Check that all the rhythms can generate music concurrently with the active song generation.
+     *
+     * @param sgContext
+     * @return
+     */
+    private boolean isThreadSafe(SongContext sgContext)
+    {
+        return sgContext.getUniqueRhythms().stream()
+                .allMatch(r -> r instanceof MusicGenerator mg && mg.isThreadSafe());
+    }
+
+    private boolean isUpToDateInCache(Key key)
+    {
+        synchronized (cache)
+        {
+            var entry = cache.get(key.song());
+            return entry != null && entry.key().equals(key);
+        }
+    }
+
+    private void put(Key key, Map<RhythmVoice, Phrase> mapRvPhrases)
+    {
+        long size = 0;
+        for (var p : mapRvPhrases.values())
+        {
+            size += PHRASE_ESTIMATED_SIZE + (long) p.size() * NOTE_EVENT_ESTIMATED_SIZE;
+        }
+        var entry = new CacheEntry(key, new HashMap<>(mapRvPhrases), size);
+        synchronized (cache)
+        {
+            var old = cache.put(key.song(), entry);
+            if (old != null)
+            {
+                cacheSize -= old.size();
+            }
+            cacheSize += size;
+            trimToMemoryBudget();
+        }
+    }
+
+    /**
+     * Remove the least recently used entries until we're within the memory budget.
+     * <p>
+     * Caller must hold the cache lock.
+     */
+    private void trimToMemoryBudget()
+    {
+        var it = cache.values().iterator();
+        while (cacheSize > memoryBudget && it.hasNext())
+        {
+            var entry = it.next();
+            it.remove();
+            cacheSize -= entry.size();
+            LOGGER.log(Level.FINE, "trimToMemoryBudget() discarded phrases of song={0}", entry.key().song().getName());
+        }
+    }
+
+    // ==========================================================================================================
+    // Private classes
+    // ==========================================================================================================
+    /**
+     * Identify the song content used to generate music.
+     */
+    private record Key(Song song, MidiMix midiMix, long songRevision, long midiMixRevision, int transposition)
+        {
+
+        static Key of(Song song, MidiMix midiMix, int transposition)
+        {
+            return new Key(song, midiMix, song.getMusicGenerationRevision(), midiMix.getMusicGenerationRevision(), transposition);
+        }
+
+        boolean isUpToDate()
+        {
+            return songRevision == song.getMusicGenerationRevision() && midiMixRevision == midiMix.getMusicGenerationRevision();
+        }
+    }
+
+    private record CacheEntry(Key key, Map<RhythmVoice, Phrase> mapRvPhrases, long size)
+        {
+
+    }
+
+    private class Candidate
+    {
+
+        private final Song song;
+        private final MidiMix midiMix;
+        private final SongMusicGenerationListener songMusicGenerationListener;
+        private Future<?> future;
+
+        private Candidate(Song song, MidiMix midiMix)
+        {
+            this.song = song;
+            this.midiMix = midiMix;
+            songMusicGenerationListener = new SongMusicGenerationListener(song, midiMix, PRE_CHANGE_EVENT_DELAY_MS);
+            songMusicGenerationListener.addPropertyChangeListener(SpeculativeMusicBuilderImpl.this);
+            song.addPropertyChangeListener(Song.PROP_CLOSED, SpeculativeMusicBuilderImpl.this);
+        }
+
+        private void cancel()
+        {
+            if (future != null)
+            {
+                future.cancel(true);       // Interrupt a running generation
+                future = null;
+            }
+        }
+
+        private void cleanup()
+        {
+            cancel();
+            songMusicGenerationListener.removePropertyChangeListener(SpeculativeMusicBuilderImpl.this);
+            songMusicGenerationListener.cleanup();
+            song.removePropertyChangeListener(Song.PROP_CLOSED, SpeculativeMusicBuilderImpl.this);
+        }
+    }
+}
@@ -44,6 +44,7 @@ import org.jjazz.chordleadsheet.api.item.CLI_Section;
 import org.jjazz.chordleadsheet.api.item.ChordLeadSheetItem;
 import org.jjazz.chordleadsheet.api.item.ExtChordSymbol;
 import org.jjazz.musiccontrol.api.MusicController;
+import org.jjazz.musiccontrol.api.playbacksession.PlaybackSession;
 import org.jjazz.musiccontrol.api.playbacksession.UpdateProviderSongSession;
 import org.jjazz.musiccontrol.api.playbacksession.UpdatableSongSession;
 import org.jjazz.musiccontrol.api.playbacksession.UpdatableSongSessionOnePlay;
@@ -81,6 +82,8 @@ public class Arranger implements SgsChangeListener, PropertyChangeListener
     private SongContext songContextWork;
     private SongPart songPartWork;
     private CLI_ChordSymbol firstChordSymbol;
+    private UpdatableSongSession updatableSession;
+    private ChordVariantCache chordVariantCache;
     private boolean playing;
     private SwingPropertyChangeSupport pcs = new SwingPropertyChangeSupport(this);
     private static final Logger LOGGER = Logger.getLogger(Arranger.class.getSimpleName());
@@ -170,10 +173,22 @@ public class Arranger implements SgsChangeListener, PropertyChangeListener
         dynSession.setPostUpdateSleepTimeMs(100);    // This allow user to change chord quickly
         dynSession.setUserErrorExceptionHandler(null);  // User execption may occur depending on timing, as we remove then add a chord symbol at section start
 
-        var updatableSession = new UpdatableSongSessionOnePlay(dynSession);
+        updatableSession = new UpdatableSongSessionOnePlay(dynSession);
         mc.setPlaybackSession(updatableSession, false); // Can raise MusicGenerationException
 
 
+        // Pre-generate music for the likely next chords
+        var refChords = songContextRef.getSong().getChordLeadSheet().getItems(songPartRef.getParentSection(), CLI_ChordSymbol.class).stream()
+                .map(cliCs -> (ChordSymbol) cliCs.getData())
+                .toList();
+        if (chordVariantCache != null)
+        {
+            chordVariantCache.cleanup();
+        }
+        chordVariantCache = new ChordVariantCache(songContextWork, refChords);
+        chordVariantCache.chordSymbolChanged(null, firstChordSymbol.getData());
+
+
         // Start playback        
         mc.play(0);
 
@@ -222,9 +237,18 @@ public class Arranger implements SgsChangeListener, PropertyChangeListener
         CLI_ChordSymbol newCliCs = CLI_Factory.getDefault().createChordSymbol(newEcs, firstChordSymbol.getPosition());
 
 
+        // Use pre-generated music if available. The update generated by the chord leadsheet change below will then bring no change.
+        var mapRvPhrases = chordVariantCache.get(newCs);
+        if (mapRvPhrases != null && updatableSession.isEnabled() && updatableSession.getState().equals(PlaybackSession.State.GENERATED))
+        {
+            updatableSession.updateSequence(new UpdatableSongSession.Update(mapRvPhrases, null));
+        }
+
+
         // Update the chord leadsheet
         cls.removeItem(firstChordSymbol);
         cls.addItem(newCliCs);
+        chordVariantCache.chordSymbolChanged(firstChordSymbol.getData(), newEcs);
         firstChordSymbol = newCliCs;
 
     }
@@ -234,9 +258,15 @@ public class Arranger implements SgsChangeListener, PropertyChangeListener
         stop();
         songContextRef.getSong().getSongStructure().removeSgsChangeListener(this);
         MusicController.getInstance().removePropertyChangeListener(this);
+        if (chordVariantCache != null)
+        {
+            chordVariantCache.cleanup();
+            chordVariantCache = null;
+        }
         songContextWork = null;
         songPartWork = null;
         firstChordSymbol = null;
+        updatableSession = null;
     }
 
     public void addPropertyListener(PropertyChangeListener l)
@@ -268,6 +298,8 @@ public class Arranger implements SgsChangeListener, PropertyChangeListener
             RpValueChangedEvent rpe = (RpValueChangedEvent) e;
             SongStructure sgs = songContextWork.getSong().getSongStructure();
             sgs.setRhythmParameterValue(songPartWork, (RhythmParameter) rpe.getRhythmParameter(), rpe.getNewValue());
+            chordVariantCache.clear();
+            chordVariantCache.chordSymbolChanged(null, firstChordSymbol.getData());
         }
     }
 
@@ -0,0 +1,348 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.arranger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jjazz.chordleadsheet.api.ClsUtilities;
+import org.jjazz.chordleadsheet.api.item.CLI_ChordSymbol;
+import org.jjazz.chordleadsheet.api.item.CLI_Factory;
+import org.jjazz.harmony.api.ChordSymbol;
+import org.jjazz.harmony.api.ChordType;
+import org.jjazz.musiccontrol.api.PlaybackSettings;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythm.api.MusicGenerationException;
+import org.jjazz.rhythm.api.RhythmVoice;
+import org.jjazz.rhythmmusicgeneration.api.SongSequenceBuilder;
+import org.jjazz.rhythmmusicgeneration.spi.MusicGenerator;
+import org.jjazz.songcontext.api.SongContext;
+
+/**
+ * Pre-generate the music of the arranger work song part for the chord symbols the user is likely to play next.
+ * <p>
+ * Candidate chord symbols are ranked: the most recently played chord symbols first, then the chord symbols of the original song part
+ * (the key context), then the chord symbols a fourth, a fifth or a whole tone away from the current chord symbol.
+ * <p>
+ * Generation runs on a single low-priority thread, on a private copy of the work context. It can run while the song session
+ * generates music for the same rhythm, without any shared lock: nothing is pre-generated if a rhythm of the work context is not a
+ * thread-safe MusicGenerator. A chord symbol change interrupts the running generation, which stops at the next song part or rhythm.
+ * <p>
+ * Pre-generated phrases can replace the regular generation only if they are identical to what it would produce: nothing is
+ * pre-generated if a rhythm of the work context is not a deterministic MusicGenerator.
+ * <p>
+ * Cached phrases are discarded when the playback transposition or the MidiMix change, and when clear() is called (e.g. on a rhythm
+ * parameter change).
+ */
+class ChordVariantCache
+{
+
+    /**
+     * Max number of pre-generated chord symbols, can be changed with the jjazz.arranger.maxChordVariants system property.
+     */
+    public static final int DEFAULT_MAX_VARIANTS = Integer.getInteger("jjazz.arranger.maxChordVariants", 12);
+    private static final int MAX_RECENT_CHORDS = 8;
+    private static final int[] NEIGHBOR_TRANSPOSITIONS =
+    {
+        5, 7, 2, 10
+    };
+    private final SongContext workContext;
+    private final List<ChordSymbol> contextChords;
+    private final LinkedList<ChordSymbol> recentChords = new LinkedList<>();
+    private final LinkedHashMap<ChordKey, Map<RhythmVoice, Phrase>> cache = new LinkedHashMap<>(16, 0.75f, true);     // Access-order for LRU
+    private Validity validity;
+    private Future<?> future;
+    private final ExecutorService executor;
+    private static final Logger LOGGER = Logger.getLogger(ChordVariantCache.class.getSimpleName());
+
+    /**
+     *
+     * @param workContext   The arranger work context, with only one song part starting with one chord symbol
+     * @param contextChords The chord symbols used in the original song part
+     */
+    public ChordVariantCache(SongContext workContext, List<? extends ChordSymbol> contextChords)
+    {
+        checkNotNull(workContext);
+        checkNotNull(contextChords);
+        this.workContext = workContext;
+        this.contextChords = new ArrayList<>(contextChords);
+        this.validity = Validity.of(workContext);
+        executor = Executors.newSingleThreadExecutor(r ->
+        {
+            Thread t = new Thread(r, "ChordVariantCache");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /**
+     * Get a copy of the pre-generated phrases for the specified chord symbol.
+     *
+     * @param cs
+     * @return Null if not available.
+     */
+    public synchronized Map<RhythmVoice, Phrase> get(ChordSymbol cs)
+    {
+        if (!validity.equals(Validity.of(workContext)))
+        {
+            return null;
+        }
+        var mapRvPhrases = cache.get(ChordKey.of(cs));
+        if (mapRvPhrases == null)
+        {
+            return null;
+        }
+        Map<RhythmVoice, Phrase> res = new HashMap<>();
+        mapRvPhrases.forEach((rv, p) -> res.put(rv, p.clone()));
+        LOGGER.log(Level.FINE, "get() cache hit for cs={0}", cs);
+        return res;
+    }
+
+    /**
+     * Notify that the work song chord symbol has changed.
+     * <p>
+     * Update the chord symbol ranking and start pre-generating music for the most likely next chord symbols. Must be called from the
+     * thread which modifies the work song.
+     *
+     * @param oldCs Can be null
+     * @param newCs
+     */
+    public synchronized void chordSymbolChanged(ChordSymbol oldCs, ChordSymbol newCs)
+    {
+        checkNotNull(newCs);
+        if (oldCs != null)
+        {
+            recentChords.remove(oldCs);
+            recentChords.addFirst(oldCs);
+            if (recentChords.size() > MAX_RECENT_CHORDS)
+            {
+                recentChords.removeLast();
+            }
+        }
+        schedule(newCs);
+    }
+
+    /**
+     * Discard all the pre-generated phrases.
+     * <p>
+     * Must be called when the work song is modified in a way which impacts music generation, other than the chord symbol change.
+     */
+    public synchronized void clear()
+    {
+        cancel();
+        cache.clear();
+    }
+
+    public synchronized void cleanup()
+    {
+        clear();
+        executor.shutdownNow();
+    }
+
+    // =========================================================================================
+    // Private methods
+    // =========================================================================================
+
+    private void cancel()
+    {
+        if (future != null)
+        {
+            future.cancel(true);
+            future = null;
+        }
+    }
+
+    /**
+     * Start the background generation for the best candidates which are not cached yet.
+     *
+     * @param currentCs
+     */
+    private void schedule(ChordSymbol currentCs)
+    {
+        cancel();
+
+        if (!canPreGenerate())
+        {
+            return;
+        }
+
+        var v = Validity.of(workContext);
+        if (!v.equals(validity))
+        {
+            cache.clear();
+            validity = v;
+        }
+
+        var candidates = getRankedCandidates(currentCs);
+        candidates.removeIf(cs -> cache.containsKey(ChordKey.of(cs)));
+        if (candidates.isEmpty())
+        {
+            return;
+        }
+
+        // Copy the context now, the work song must not be accessed from our thread
+        SongContext snapshot = workContext.deepClone(false);
+        future = executor.submit(() -> generate(snapshot, candidates, v));
+    }
+
+    /**
+     * Check that all the work context rhythms always produce the same music for the same context, and can generate music concurrently
+     * with the song session.
+     *
+     * @return
+     */
+    private boolean canPreGenerate()
+    {
+        return workContext.getUniqueRhythms().stream()
+                .allMatch(r -> r instanceof MusicGenerator mg && mg.isDeterministic() && mg.isThreadSafe());
+    }
+
+    /**
+     * Get the most likely chord symbols, the best first.
+     *
+     * @param currentCs Excluded from the result
+     * @return At most DEFAULT_MAX_VARIANTS elements
+     */
+    private List<ChordSymbol> getRankedCandidates(ChordSymbol currentCs)
+    {
+        var currentKey = ChordKey.of(currentCs);
+        LinkedHashMap<ChordKey, ChordSymbol> res = new LinkedHashMap<>();
+
+        List<ChordSymbol> all = new ArrayList<>(recentChords);
+        all.addAll(contextChords);
+        for (int t : NEIGHBOR_TRANSPOSITIONS)
+        {
+            all.add(currentCs.getTransposedChordSymbol(t, null));
+        }
+
+        for (var cs : all)
+        {
+            if (res.size() >= DEFAULT_MAX_VARIANTS)
+            {
+                break;
+            }
+            var key = ChordKey.of(cs);
+            if (!key.equals(currentKey))
+            {
+                res.putIfAbsent(key, cs);
+            }
+        }
+
+        return new ArrayList<>(res.values());
+    }
+
+    /**
+     * Executed on the ChordVariantCache thread.
+     *
+     * @param snapshot   A private copy of the work context
+     * @param candidates
+     * @param v          The validity of snapshot
+     */
+    private void generate(SongContext snapshot, List<ChordSymbol> candidates, Validity v)
+    {
+        for (var cs : candidates)
+        {
+            if (Thread.currentThread().isInterrupted())
+            {
+                return;
+            }
+
+            // Prepare a context with the candidate chord symbol
+            SongContext sgContext = snapshot.deepClone(false);
+            var cls = sgContext.getSong().getChordLeadSheet();
+            var section = sgContext.getSongParts().get(0).getParentSection();
+            var cliCs = cls.getItems(section, CLI_ChordSymbol.class).get(0);
+            var newEcs = cliCs.getData().getCopy(cs, null, null, null);
+            cls.removeItem(cliCs);
+            cls.addItem(CLI_Factory.getDefault().createChordSymbol(newEcs, cliCs.getPosition()));
+            ClsUtilities.transpose(cls, v.transposition());
+
+            Map<RhythmVoice, Phrase> mapRvPhrases;
+            try
+            {
+                mapRvPhrases = new SongSequenceBuilder(sgContext).buildMapRvPhrase(true);
+            } catch (MusicGenerationException ex)
+            {
+                LOGGER.log(Level.FINE, "generate() cs={0} ex={1}", new Object[]
+                {
+                    cs, ex.getMessage()
+                });
+                continue;       // Stops at the loop start if interrupted
+            }
+
+            synchronized (this)
+            {
+                if (Thread.currentThread().isInterrupted() || !v.equals(validity))
+                {
+                    return;
+                }
+                cache.put(ChordKey.of(cs), mapRvPhrases);
+                while (cache.size() > DEFAULT_MAX_VARIANTS + MAX_RECENT_CHORDS)
+                {
+                    var it = cache.keySet().iterator();
+                    it.next();
+                    it.remove();
+                }
+            }
+            LOGGER.log(Level.FINE, "generate() phrases generated for cs={0}", cs);
+        }
+    }
+
+    // =========================================================================================
+    // Private classes
+    // =========================================================================================
+
+    /**
+     * The chord symbol data which impacts music generation.
+     */
+    private record ChordKey(int rootPitch, int bassPitch, ChordType chordType)
+            {
+
+        static ChordKey of(ChordSymbol cs)
+        {
+            return new ChordKey(cs.getRootNote().getRelativePitch(), cs.getBassNote().getRelativePitch(), cs.getChordType());
+        }
+    }
+
+    /**
+     * The work context data, other than the chord symbol, which impacts music generation.
+     */
+    private record Validity(int transposition, long midiMixRevision)
+            {
+
+        static Validity of(SongContext sgContext)
+        {
+            return new Validity(PlaybackSettings.getInstance().getPlaybackKeyTransposition(), sgContext.getMidiMix().getMusicGenerationRevision());
+        }
+    }
+}
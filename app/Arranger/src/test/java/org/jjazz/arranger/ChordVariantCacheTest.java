@@ -0,0 +1,188 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.arranger;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+import org.jjazz.chordleadsheet.api.item.CLI_ChordSymbol;
+import org.jjazz.chordleadsheet.api.item.CLI_Factory;
+import org.jjazz.harmony.api.ChordSymbol;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.midimix.api.DefaultMidiMixManager;
+import org.jjazz.midimix.api.MidiMix;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythm.api.RhythmVoice;
+import org.jjazz.rhythmdatabase.api.DefaultRhythmDatabase;
+import org.jjazz.rhythmdatabase.api.RhythmDatabase;
+import org.jjazz.rhythmmusicgeneration.api.SongSequenceBuilder;
+import org.jjazz.song.api.Song;
+import org.jjazz.song.api.SongFactory;
+import org.jjazz.songcontext.api.SongContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the ChordVariantCache as used by Arranger.updateChordSymbol(): cache hits and invalidation.
+ */
+public class ChordVariantCacheTest
+{
+
+    private static final long TIMEOUT_MS = 10000;
+    private Song song;
+    private MidiMix midiMix;
+    private SongContext workContext;
+    private ChordVariantCache cache;
+
+    public ChordVariantCacheTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        var rdb = (DefaultRhythmDatabase) RhythmDatabase.getDefault();
+        rdb.addRhythmsFromRhythmProviders(false, true, false);
+    }
+
+    @Before
+    public void setUp() throws Exception
+    {
+        song = SongFactory.getInstance().createEmptySong("test", 4, "A", TimeSignature.FOUR_FOUR, "C");
+        midiMix = DefaultMidiMixManager.getInstance().createMix(song);
+        workContext = new SongContext(song, midiMix);
+        cache = new ChordVariantCache(workContext, List.of(cs("F"), cs("G7")));
+    }
+
+    @After
+    public void tearDown()
+    {
+        cache.cleanup();
+    }
+
+    /**
+     * Pre-generated phrases are the phrases the regular generation produces for the same chord symbol.
+     */
+    @Test
+    public void testCacheHit() throws Exception
+    {
+        System.out.println("testCacheHit");
+        cache.chordSymbolChanged(null, cs("C"));
+
+        for (String csName : List.of("F", "G7"))
+        {
+            var mapRvPhrases = waitForPhrases(cs(csName));
+            assertNotNull(csName, mapRvPhrases);
+            var expected = generate(cs(csName));
+            assertEquals(expected.keySet(), mapRvPhrases.keySet());
+            for (var rv : expected.keySet())
+            {
+                assertFalse(expected.get(rv).isEmpty());
+                assertTrue(csName + " rv=" + rv, expected.get(rv).equalsAsNoteNearPosition(mapRvPhrases.get(rv), 0.001f));
+            }
+        }
+
+
+        // The current chord symbol is not pre-generated
+        assertNull(cache.get(cs("C")));
+
+
+        // A copy is returned
+        var rv = workContext.getMidiMix().getRhythmVoices().get(0);
+        var map1 = cache.get(cs("F"));
+        map1.get(rv).clear();
+        assertFalse(cache.get(cs("F")).get(rv).isEmpty());
+
+
+        // Same chord key: F and F6 have different chord types, F and F/F have the same key
+        assertNull(cache.get(cs("F6")));
+        assertNotNull(cache.get(cs("F/F")));
+    }
+
+    /**
+     * Pre-generated phrases are discarded when the MidiMix is musically modified or when the cache is cleared (rhythm parameter change).
+     */
+    @Test
+    public void testInvalidation() throws Exception
+    {
+        System.out.println("testInvalidation");
+        cache.chordSymbolChanged(null, cs("C"));
+        assertNotNull(waitForPhrases(cs("F")));
+
+
+        // MidiMix change
+        long revision = midiMix.getMusicGenerationRevision();
+        var rvBass = midiMix.getRhythmVoices().stream().filter(rv -> !rv.isDrums()).findFirst().orElseThrow();
+        midiMix.getInstrumentMix(rvBass).getSettings().setVelocityShift(10);
+        assertNotEquals(revision, midiMix.getMusicGenerationRevision());
+        assertNull(cache.get(cs("F")));
+
+
+        // New generation for the new MidiMix state
+        cache.chordSymbolChanged(cs("C"), cs("D"));
+        assertNotNull(waitForPhrases(cs("F")));
+
+
+        // Rhythm parameter change
+        cache.clear();
+        assertNull(cache.get(cs("F")));
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    private ChordSymbol cs(String name) throws ParseException
+    {
+        return new ChordSymbol(name);
+    }
+
+    private Map<RhythmVoice, Phrase> waitForPhrases(ChordSymbol cs) throws InterruptedException
+    {
+        long start = System.currentTimeMillis();
+        Map<RhythmVoice, Phrase> res;
+        while ((res = cache.get(cs)) == null && System.currentTimeMillis() - start < TIMEOUT_MS)
+        {
+            Thread.sleep(20);
+        }
+        return res;
+    }
+
+    /**
+     * The regular generation of the work context with the specified chord symbol.
+     */
+    private Map<RhythmVoice, Phrase> generate(ChordSymbol cs) throws Exception
+    {
+        SongContext sgContext = workContext.deepClone(false);
+        var cls = sgContext.getSong().getChordLeadSheet();
+        var cliCs = cls.getItems(CLI_ChordSymbol.class).get(0);
+        cls.removeItem(cliCs);
+        cls.addItem(CLI_Factory.getDefault().createChordSymbol(cliCs.getData().getCopy(cs, null, null, null), cliCs.getPosition()));
+        return new SongSequenceBuilder(sgContext).buildMapRvPhrase(true);
+    }
+}
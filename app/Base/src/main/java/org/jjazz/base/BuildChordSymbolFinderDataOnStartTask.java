@@ -0,0 +1,71 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.base;
+
+import java.util.Collections;
+import java.util.Set;
+import org.jjazz.harmony.api.ChordSymbolFinder;
+import org.jjazz.startup.spi.OnStartTask;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Build the ChordSymbolFinder static data in the background, so that it is ready when the Arranger is used.
+ * <p>
+ * Does not depend on other tasks.
+ */
+@ServiceProvider(service = OnStartTask.class)
+public class BuildChordSymbolFinderDataOnStartTask implements OnStartTask
+{
+
+    public static final int ONSTART_TASK_PRIORITY = 500;
+
+    @Override
+    public void run()
+    {
+        ChordSymbolFinder.buildStaticData();
+    }
+
+    @Override
+    public int getPriority()
+    {
+        return ONSTART_TASK_PRIORITY;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Build ChordSymbolFinder data";
+    }
+
+    @Override
+    public Set<String> getDependencies()
+    {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public TaskType getTaskType()
+    {
+        return TaskType.CPU;
+    }
+}
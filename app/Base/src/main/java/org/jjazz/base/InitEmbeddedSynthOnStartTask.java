@@ -22,6 +22,7 @@
  */
 package org.jjazz.base;
 
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
@@ -112,4 +113,21 @@ public class InitEmbeddedSynthOnStartTask implements OnStartTask
     {
         return "InitEmbeddedSynthStartupTask";
     }
+
+    /**
+     * Upgrade tasks might import the embedded synth preferences.
+     *
+     * @return
+     */
+    @Override
+    public Set<String> getDependencies()
+    {
+        return Set.of(UpgradeManager.FreshStartUpgrader.ONSTART_TASK_NAME);
+    }
+
+    @Override
+    public TaskType getTaskType()
+    {
+        return TaskType.IO;
+    }
 }
@@ -88,6 +88,11 @@ public class BarBox extends JPanel implements FocusListener, PropertyChangeListe
     private Quantization displayQuantization;
     private int zoomVFactor = 50;
     private BarRendererFactory barRendererFactory;
+    /**
+     * False if BarRenderers are not created, see setRealized().
+     */
+    private boolean realized;
+    private Position playbackPointPosition;
 
     /**
      * Construct a BarBox.
@@ -101,13 +106,38 @@ public class BarBox extends JPanel implements FocusListener, PropertyChangeListe
      * @param brf
      * @param groupKey
      */
-    @SuppressWarnings("LeakingThisInConstructor")
     public BarBox(CL_Editor editor, int bbIndex, int modelBarIndex,
             ChordLeadSheet model,
             BarBoxConfig config,
             BarBoxSettings settings,
             BarRendererFactory brf,
             Object groupKey)
+    {
+        this(editor, bbIndex, modelBarIndex, model, config, settings, brf, groupKey, true);
+    }
+
+    /**
+     * Construct a BarBox.
+     *
+     * @param editor        Can be null
+     * @param bbIndex       The index of this BarBox.
+     * @param modelBarIndex Use -1 if this BarBox does not represent model data.
+     * @param model
+     * @param config
+     * @param settings
+     * @param brf
+     * @param groupKey
+     * @param realized      If false the BarRenderers are not created
+     * @see #setRealized(boolean)
+     */
+    @SuppressWarnings("LeakingThisInConstructor")
+    public BarBox(CL_Editor editor, int bbIndex, int modelBarIndex,
+            ChordLeadSheet model,
+            BarBoxConfig config,
+            BarBoxSettings settings,
+            BarRendererFactory brf,
+            Object groupKey,
+            boolean realized)
     {
         Preconditions.checkNotNull(model);
         Preconditions.checkNotNull(config);
@@ -122,6 +152,7 @@ public class BarBox extends JPanel implements FocusListener, PropertyChangeListe
         this.editor = editor;
         displayQuantization = Quantization.BEAT;
         this.groupKey = groupKey;
+        this.realized = realized;
 
         // Pile up BarRenderers
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
@@ -529,29 +560,76 @@ public class BarBox extends JPanel implements FocusListener, PropertyChangeListe
 
         barBoxConfig = bbConfig;
 
-        // Remove previous BarRenderers
-        for (BarRenderer br : getBarRenderers())
+        if (realized)
         {
-            removeBarRenderer(br);
+            // Remove previous BarRenderers
+            for (BarRenderer br : getBarRenderers())
+            {
+                removeBarRenderer(br);
+            }
+
+            // Add new ones
+            createBarRenderers();
         }
 
+        revalidate(); // Since components have been added/removed
+        return true;
+    }
 
-        // Add new ones
-        for (String brType : barBoxConfig.getActiveBarRenderers())
+    /**
+     * Check if the BarRenderers of this BarBox are created.
+     *
+     * @return
+     * @see #setRealized(boolean)
+     */
+    public boolean isRealized()
+    {
+        return realized;
+    }
+
+    /**
+     * Create or remove the BarRenderers (and their ItemRenderers) of this BarBox.
+     * <p>
+     * An unrealized BarBox is a lightweight placeholder: it keeps its state (config, selection, zoom, quantization, etc.) but it has no BarRenderer, so
+     * item-related methods such as addItem() or selectItem() do nothing. When realized again, BarRenderers are recreated from the model and the saved state.
+     * <p>
+     * This lets an editor only realize the visible BarBoxes of a large leadsheet. Note that an unrealized BarBox preferred size is reduced to its border
+     * insets, the container layout must take care of the size (e.g. a GridLayout with some realized BarBoxes). Caller is responsible for
+     * registering/unregistering the BarRenderers (e.g. mouse listeners) before unrealizing/after realizing.
+     *
+     * @param b
+     */
+    public void setRealized(boolean b)
+    {
+        if (b == realized)
         {
-            BarRenderer br = barRendererFactory.createBarRenderer(editor, brType, barIndex, bbSettings.getBarRendererSettings(),
-                    barRendererFactory.getItemRendererFactory(), groupKey);
-            br.setModelBarIndex(modelBarIndex);
-            br.setZoomVFactor(zoomVFactor);
-            br.setDisplayQuantizationValue(displayQuantization);
-            br.setEnabled(isEnabled());
-            add(br);
+            return;
         }
 
-        revalidate(); // Since components have been added/removed
-        return true;
+        if (!b)
+        {
+            for (BarRenderer br : getBarRenderers())
+            {
+                removeBarRenderer(br);
+            }
+            realized = false;
+        } else
+        {
+            realized = true;
+            createBarRenderers();
+            if (showPlaybackPoint && playbackPointPosition != null)
+            {
+                for (BarRenderer br : getBarRenderers())
+                {
+                    br.showPlaybackPoint(true, playbackPointPosition);
+                }
+            }
+        }
+
+        revalidate();
     }
 
+
     public void showInsertionPoint(boolean b, ChordLeadSheetItem<?> item, Position pos, boolean copyMode)
     {
         for (BarRenderer br : getBarRenderers())
@@ -580,6 +658,7 @@ public class BarBox extends JPanel implements FocusListener, PropertyChangeListe
             throw new IllegalArgumentException("b=" + b + " pos=" + pos+" getModelBarIndex()="+getModelBarIndex());
         }
         showPlaybackPoint = b;
+        playbackPointPosition = b ? pos : null;
         refreshBackground();
         for (BarRenderer br : getBarRenderers())
         {
@@ -659,6 +738,21 @@ public class BarBox extends JPanel implements FocusListener, PropertyChangeListe
     // ---------------------------------------------------------------
     // Private functions
     // ---------------------------------------------------------------
+    private void createBarRenderers()
+    {
+        for (String brType : barBoxConfig.getActiveBarRenderers())
+        {
+            BarRenderer br = barRendererFactory.createBarRenderer(editor, brType, barIndex, bbSettings.getBarRendererSettings(),
+                    barRendererFactory.getItemRendererFactory(), groupKey);
+            br.setModelBarIndex(modelBarIndex);
+            br.setZoomVFactor(zoomVFactor);
+            br.setDisplayQuantizationValue(displayQuantization);
+            br.setEnabled(isEnabled());
+            br.setSelected(isSelected);
+            add(br);
+        }
+    }
+
     private void removeBarRenderer(BarRenderer br)
     {
         br.cleanup();
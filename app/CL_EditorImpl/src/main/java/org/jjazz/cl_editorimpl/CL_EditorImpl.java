@@ -48,9 +48,11 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import javax.swing.JViewport;
 import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.SwingPropertyChangeSupport;
 import org.jjazz.harmony.api.TimeSignature;
 import org.jjazz.chordleadsheet.api.Section;
@@ -97,6 +99,10 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
 
 
     private static final int NB_EXTRA_LINES = 4;
+    /**
+     * Nb of BarBox rows realized when the editor is created, before the viewport is known.
+     */
+    private static final int NB_INITIAL_REALIZED_ROWS = 12;
 
     /**
      * The default BarRenderer types.
@@ -188,6 +194,11 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
     private final HashMap<TimeSignature, Quantization> mapTsQuantization = new HashMap<>();
     private final SongSpecificCL_EditorProperties songSpecificProperties;
     private final CL_EditorZoomable editorZoomable;
+    /**
+     * The enclosing viewport, if any. Used to realize only the BarBoxes around the visible area.
+     */
+    private JViewport viewport;
+    private final ChangeListener viewportListener = e -> updateRealizedBarBoxes();
     private static final Logger LOGGER = Logger.getLogger(CL_EditorImpl.class.getSimpleName());
 
     @SuppressWarnings("LeakingThisInConstructor")
@@ -895,6 +906,7 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
     public void setFocusOnItem(ChordLeadSheetItem<?> item, IR_Type irType)
     {
         BarBox bb = getBarBox(item.getPosition().getBar());
+        realizeBarBox(bb);
         bb.setFocusOnItem(item, irType);
     }
 
@@ -915,6 +927,10 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
             unregisterBarBox(bb);
             bb.setConfig(bbConfig);
             registerBarBox(bb);
+            if (isRealizationRequired(bb.getBarIndex(), bbConfig))
+            {
+                realizeBarBox(bb);
+            }
         }
     }
 
@@ -1016,6 +1032,7 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
             throw new IllegalArgumentException("item=" + item + " clsModel=" + clsModel);
         }
         BarBox bb = getBarBox(item.getPosition().getBar());
+        realizeBarBox(bb);
         for (BarRenderer br : bb.getBarRenderers())
         {
             if (br.isRegisteredItemClass(item))
@@ -1029,6 +1046,38 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
         }
     }
 
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        if (getParent() instanceof JViewport vp)
+        {
+            viewport = vp;
+            viewport.addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify()
+    {
+        if (viewport != null)
+        {
+            viewport.removeChangeListener(viewportListener);
+            viewport = null;
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * Overridden to update the realized BarBoxes once their bounds are known.
+     */
+    @Override
+    public void doLayout()
+    {
+        super.doLayout();
+        updateRealizedBarBoxes();
+    }
+
     // ----------------------------------------------------------------------------------
     // Lookup.Provider interface
     // ----------------------------------------------------------------------------------
@@ -1484,7 +1533,8 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
             throw new IllegalArgumentException(
                     "bbIndex=" + bbIndex + " getNbBarBoxes()=" + getNbBarBoxes() + " modelBarIndex=" + modelBarIndex + " config=" + config + " clsModel=" + clsModel);
         }
-        BarBox bb = new BarBox(this, bbIndex, modelBarIndex, clsModel, config, settings.getBarBoxSettings(), barRendererFactory, this);
+        boolean realized = isRealizationRequired(bbIndex, config) || (viewport == null && bbIndex < nbColumns * NB_INITIAL_REALIZED_ROWS);
+        BarBox bb = new BarBox(this, bbIndex, modelBarIndex, clsModel, config, settings.getBarBoxSettings(), barRendererFactory, this, realized);
         if (modelBarIndex >= 0)
         {
             // If bar represents the model set quantization value
@@ -1550,6 +1600,99 @@ public class CL_EditorImpl extends CL_Editor implements PropertyChangeListener,
         barBoxes.remove(bb);
     }
 
+    /**
+     * Realize the BarBoxes around the visible area, unrealize the other ones.
+     * <p>
+     * Only realized BarBoxes have BarRenderers/ItemRenderers, so model changes and repaints only cost for bars around the viewport. Visible area is
+     * extended by one viewport height above and below to keep scrolling smooth.
+     */
+    private void updateRealizedBarBoxes()
+    {
+        if (!isShowing())
+        {
+            return;
+        }
+        if (viewport == null)
+        {
+            // Not in a scrollpane, everything might be visible
+            barBoxes.forEach(bb -> realizeBarBox(bb));
+            return;
+        }
+        Rectangle r = getVisibleRect();
+        if (r.isEmpty())
+        {
+            return;
+        }
+        r.grow(0, r.height);
+
+        Component focusOwner = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+        for (BarBox bb : barBoxes)
+        {
+            Rectangle bounds = bb.getBounds();
+            if (bounds.isEmpty())
+            {
+                // Not laid out yet
+                continue;
+            }
+            boolean b = bounds.intersects(r)
+                    || isRealizationRequired(bb.getBarIndex(), bb.getConfig())
+                    || (focusOwner != null && SwingUtilities.isDescendingFrom(focusOwner, bb));
+            if (b)
+            {
+                realizeBarBox(bb);
+            } else if (bb.isRealized())
+            {
+                for (BarRenderer br : bb.getBarRenderers())
+                {
+                    unregisterBarRenderer(br);
+                }
+                bb.setRealized(false);
+            }
+        }
+    }
+
+    /**
+     * Make sure bb is realized, and that its BarRenderers are registered and show the current item selection.
+     *
+     * @param bb
+     */
+    private void realizeBarBox(BarBox bb)
+    {
+        if (bb.isRealized())
+        {
+            return;
+        }
+        bb.setRealized(true);
+        for (BarRenderer br : bb.getBarRenderers())
+        {
+            registerBarRenderer(br);
+        }
+        int modelBarIndex = bb.getModelBarIndex();
+        for (Object o : selectionLastContent)
+        {
+            if (o instanceof ChordLeadSheetItem<?> item && item.getPosition().getBar() == modelBarIndex)
+            {
+                bb.selectItem(item, true);
+            }
+        }
+    }
+
+    /**
+     * Check if a BarBox must remain realized whatever its visibility.
+     * <p>
+     * The first row is always realized because GridLayout uses it to compute the cell size, and BarBoxes using non-default BarRenderers (e.g.
+     * provided by another module) are not managed by the viewport-based realization.
+     *
+     * @param bbIndex
+     * @param config
+     * @return
+     */
+    private boolean isRealizationRequired(int bbIndex, BarBoxConfig config)
+    {
+        return bbIndex < nbColumns
+                || !List.of(DEFAULT_BAR_RENDERER_TYPES).containsAll(config.getActiveBarRenderers());
+    }
+
     /**
      * Register a BarBox and its BarRenderers and ItemRenderers.
      *
@@ -36,9 +36,7 @@ import javax.swing.TransferHandler;
 import org.jjazz.midi.api.Instrument;
 import org.jjazz.midi.api.MidiConst;
 import org.jjazz.midi.api.synths.GMSynth;
-import org.jjazz.musiccontrol.api.MusicController;
-import org.jjazz.musiccontrol.api.PlaybackListener;
-import org.jjazz.musiccontrol.api.PlaybackListenerAdapter;
+import org.jjazz.musiccontrol.api.PlaybackActivityMonitor;
 import org.jjazz.flatcomponents.api.FlatButton;
 import org.jjazz.flatcomponents.api.FlatIntegerKnob;
 import org.jjazz.flatcomponents.api.FlatIntegerVerticalSlider;
@@ -59,7 +57,7 @@ public class MixChannelPanel extends javax.swing.JPanel implements PropertyChang
     private MixConsoleSettings settings;
     private FlatButton fbtn_channelNameImpl;
     private boolean selected;
-    private final PlaybackListener playbackListener;
+    private final PlaybackActivityMonitor.ActivityListener activityListener;
     private final Font FONT = GeneralUISettings.getInstance().getStdCondensedFont();
     private static final Logger LOGGER = Logger.getLogger(MixChannelPanel.class.getSimpleName());
 
@@ -70,7 +68,7 @@ public class MixChannelPanel extends javax.swing.JPanel implements PropertyChang
     public MixChannelPanel()
     {
         model = new BaseMixChannelPanelModel();
-        playbackListener = null;
+        activityListener = null;
     }
 
     public MixChannelPanel(final MixChannelPanelModel model, final MixChannelPanelController controller, MixConsoleSettings settings)
@@ -88,18 +86,14 @@ public class MixChannelPanel extends javax.swing.JPanel implements PropertyChang
         this.model.addPropertyChangeListener(this);
 
 
-        playbackListener = new PlaybackListenerAdapter()
+        activityListener = snapshot -> 
         {
-            @Override
-            public void midiActivity(long tick, int channel)
+            if (snapshot.isChannelActive(model.getChannelId()))
             {
-                if (model.getChannelId() == channel)
-                {
-                    fled_midiActivity.showActivity();
-                }
+                fled_midiActivity.showActivity();
             }
         };
-        MusicController.getInstance().addPlaybackListener(playbackListener);
+        PlaybackActivityMonitor.getInstance().addActivityListener(activityListener);
 
 
         if (model.isUserChannel())
@@ -143,7 +137,7 @@ public class MixChannelPanel extends javax.swing.JPanel implements PropertyChang
 
     public void cleanup()
     {
-        MusicController.getInstance().removePlaybackListener(playbackListener);
+        PlaybackActivityMonitor.getInstance().removeActivityListener(activityListener);
         model.removePropertyChangeListener(this);
         settings.removePropertyChangeListener(this);
         model.cleanup();
@@ -0,0 +1,136 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.pianoroll;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.pianoroll.api.NoteView;
+import org.jjazz.utilities.api.FloatRange;
+import org.jjazz.utilities.api.IntRange;
+
+/**
+ * A spatial index of NoteViews by pitch and beat position.
+ * <p>
+ * Used to find the NoteViews which intersect a pitch/beat area without iterating over all the NoteViews.
+ */
+class NoteViewIndex
+{
+
+    @SuppressWarnings("unchecked")
+    private final TreeMap<NoteEvent, NoteView>[] pitchMaps = new TreeMap[128];
+    /**
+     * For each pitch, the longest note duration ever added, used to find notes starting before a beat range but crossing it.
+     */
+    private final float[] pitchMaxDurations = new float[128];
+    private int size;
+
+    public void add(NoteView nv)
+    {
+        Preconditions.checkNotNull(nv);
+        var ne = nv.getModel();
+        int pitch = ne.getPitch();
+        var map = pitchMaps[pitch];
+        if (map == null)
+        {
+            map = new TreeMap<>();
+            pitchMaps[pitch] = map;
+        }
+        if (map.put(ne, nv) == null)
+        {
+            size++;
+        }
+        pitchMaxDurations[pitch] = Math.max(pitchMaxDurations[pitch], ne.getDurationInBeats());
+    }
+
+    public void remove(NoteEvent ne)
+    {
+        Preconditions.checkNotNull(ne);
+        var map = pitchMaps[ne.getPitch()];
+        if (map != null && map.remove(ne) != null)
+        {
+            size--;
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public void clear()
+    {
+        for (int i = 0; i < pitchMaps.length; i++)
+        {
+            pitchMaps[i] = null;
+            pitchMaxDurations[i] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Get the NoteViews whose NoteEvent is within the pitch range and whose beat range intersects beatRange.
+     *
+     * @param pitchRange
+     * @param beatRange
+     * @return Unordered list
+     */
+    public List<NoteView> getNoteViews(IntRange pitchRange, FloatRange beatRange)
+    {
+        List<NoteView> res = new ArrayList<>();
+        if (pitchRange.isEmpty() || beatRange.isEmpty())
+        {
+            return res;
+        }
+
+        int pFrom = Math.max(0, pitchRange.from);
+        int pTo = Math.min(127, pitchRange.to);
+        for (int pitch = pFrom; pitch <= pTo; pitch++)
+        {
+            var map = pitchMaps[pitch];
+            if (map == null || map.isEmpty())
+            {
+                continue;
+            }
+
+            // Probe notes to restrict the search, positions are chosen so that probes are never equal to an indexed note 
+            float posFrom = beatRange.from - pitchMaxDurations[pitch] - 1;
+            NoteEvent neMax = new NoteEvent(pitch, 1, 0, beatRange.to + 1);
+            NavigableMap<NoteEvent, NoteView> subMap = posFrom < 0 ? map.headMap(neMax, false)
+                    : map.subMap(new NoteEvent(pitch, 1, 0, posFrom), false, neMax, false);
+
+            for (var nv : subMap.values())
+            {
+                if (nv.getModel().getBeatRange().intersects(beatRange))
+                {
+                    res.add(nv);
+                }
+            }
+        }
+
+        return res;
+    }
+}
@@ -39,16 +39,20 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JComponent;
 import javax.swing.JLayer;
+import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
 import org.jjazz.harmony.api.Position;
 import org.jjazz.phrase.api.NoteEvent;
 import org.jjazz.phrase.api.Phrase;
@@ -68,6 +72,10 @@ import org.jjazz.utilities.api.Utilities;
  * Y metrics are taken from the associated vertical keyboard. The XMapper and YMapper objects provide the methods to position notes.
  * <p>
  * NotesPanel has an associated JLayer to draw over it.
+ * <p>
+ * To scale with phrases with many notes, only the NoteViews which intersect the visible area (plus a margin) are actually added to the panel as Swing
+ * components. The other NoteViews are kept in a spatial index and are added when the visible area changes (or when they get selected). So layout, hit-testing
+ * and painting only depend on the number of visible notes.
  */
 public class NotesPanel extends EditorPanel implements PropertyChangeListener
 {
@@ -80,6 +88,10 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
     private Color nextGhostNoteColor = GHOST_NOTE_COLORS[0];
     private static final int GHOST_NOTE_ALPHA = 90;
     private static final int ONE_BEAT_SIZE_IN_PIXELS_AT_ZOOM_ONE = 50;
+    /**
+     * NoteViews within this distance from the visible area are also added to the panel, to avoid changing components on each small scroll.
+     */
+    private static final int VISIBLE_AREA_MARGIN_PIXELS = 300;
 
 
     private final KeyboardComponent keyboard;
@@ -92,6 +104,13 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
     private final JLayer layer;
     private int playbackPointX = -1;
     private final TreeMap<NoteEvent, NoteView> mapNoteViews = new TreeMap<>();
+    private final NoteViewIndex noteViewIndex = new NoteViewIndex();
+    /**
+     * The NoteViews which are currently added to this panel.
+     */
+    private final Set<NoteView> addedNoteViews = new HashSet<>();
+    private JViewport viewport;
+    private final ChangeListener viewportListener = e -> updateAddedNoteViews();
     private Map<Integer, Phrase> mapChannelGhostPhrase;
     private final Map<Integer, Color> mapNameGhostNoteColor = new HashMap<>();
 
@@ -122,6 +141,28 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
         return layer;
     }
 
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+        viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null)
+        {
+            viewport.addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify()
+    {
+        if (viewport != null)
+        {
+            viewport.removeChangeListener(viewportListener);
+            viewport = null;
+        }
+        super.removeNotify();
+    }
+
     /**
      * Early detection of size changes in order to update xMapper as soon as possible.
      * <p>
@@ -145,7 +186,9 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
     }
 
     /**
-     * Layout all the NoteEvents.
+     * Layout the NoteViews added to this panel.
+     * <p>
+     * The other NoteViews are laid out when they get added, see updateAddedNoteViews().
      */
     @Override
     public void doLayout()
@@ -157,49 +200,15 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
             return;
         }
 
-        NoteView nv0 = null;
-
-        if (!editor.isDrums())
+        for (NoteView nv : addedNoteViews)
         {
-            for (NoteView nv : mapNoteViews.values())
-            {
-                if (nv0 == null)
-                {
-                    nv0 = nv;
-                }
-                NoteEvent ne = nv.getModel();
-                FloatRange br = ne.getBeatRange();
-                int x = xMapper.getX(br.from);
-                int y = yMapper.getNoteViewChannelYRange(ne.getPitch()).from;
-                int w = xMapper.getX(br.to - 0.0001f) - x + 1;
-                int h = yMapper.getNoteViewHeight();
-                nv.setBounds(x, y, w, h);
-            }
-        } else
-        {
-            // Drum notes
-            int side = yMapper.getNoteViewHeight() + 2;
-            if (side % 2 == 0)
-            {
-                side++;     // Need an odd value so that NoteView will be perfectly centered
-            }
-            for (NoteView nv : mapNoteViews.values())
-            {
-                if (nv0 == null)
-                {
-                    nv0 = nv;
-                }
-                NoteEvent ne = nv.getModel();
-                int x = xMapper.getX(ne.getPositionInBeats()) - side / 2;
-                var yRange = yMapper.getNoteViewChannelYRange(ne.getPitch());
-                int y = yRange.from;
-                int w = side;
-                int h = side;
-                nv.setBounds(x, y, w, h);
-                // LOGGER.severe("doLayout() side=" + side + " yRange=" + yRange + " bounds=" + nv.getBounds());
-            }
+            nv.setBounds(computeNoteViewBounds(nv.getModel()));
         }
 
+        updateAddedNoteViews();
+
+        var nv0 = mapNoteViews.isEmpty() ? null : mapNoteViews.firstEntry().getValue();
+
         if (scrollToFirstNoteHack)
         {
             // Hack needed because a simple SwingUtilities.invokeLater(scrollToFirstNote()) is not enough, we must make sure that all NoteViews are placed            
@@ -216,7 +225,7 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
             } else
             {
                 // Center around the first note
-                r = nv0.getBounds();
+                r = computeNoteViewBounds(nv0.getModel());
                 r.x = Math.max(0, r.x - SIZE / 2);
                 r.y = Math.max(0, r.y - SIZE / 2);
                 r.height = SIZE;
@@ -410,7 +419,8 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
         var keymap = editor.getDrumKeyMap();
         NoteView nv = keymap == null ? new NoteView(ne) : new NoteViewDrum(ne);
         mapNoteViews.put(ne, nv);
-        add(nv);
+        noteViewIndex.add(nv);
+        // NoteView will be added to the panel by the next doLayout() if it's visible
         LOGGER.log(Level.FINE, "addNoteView() ne={0} ==> mapNoteViews={1}", new Object[]
         {
             ne, mapNoteViews
@@ -432,10 +442,14 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
         NoteView nv = getNoteView(ne);  // Might be null in some corner cases ? See Issue #399
         if (nv != null)
         {
-            remove(nv);
+            if (addedNoteViews.remove(nv))
+            {
+                remove(nv);
+            }
             nv.cleanup();
         }
         mapNoteViews.remove(ne);
+        noteViewIndex.remove(ne);
         LOGGER.log(Level.FINE, "removeNoteView() ne={0} ==> mapNoteViews={1}", new Object[]
         {
             ne, mapNoteViews
@@ -458,6 +472,8 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
         nv.setModel(newNe);
         mapNoteViews.remove(oldNe);
         mapNoteViews.put(newNe, nv);
+        noteViewIndex.remove(oldNe);
+        noteViewIndex.add(nv);
     }
 
 
@@ -526,10 +542,28 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
         {
             removeNoteView(nv.getModel());
         }
+        noteViewIndex.clear();
         editor.getSettings().removePropertyChangeListener(this);
     }
 
 
+    /**
+     * Get the bounds of a NoteView computed from its NoteEvent.
+     * <p>
+     * Unlike nv.getBounds(), the result is valid even if the NoteView is not currently added to this panel.
+     *
+     * @param nv
+     * @return
+     */
+    public Rectangle getNoteViewBounds(NoteView nv)
+    {
+        if (!xMapper.isUptodate() || !yMapper.isUptodate())
+        {
+            return nv.getBounds();
+        }
+        return computeNoteViewBounds(nv.getModel());
+    }
+
     /**
      * Get the NoteViews which intersect with the specified Rectangle, sorted by NoteEvent natural order.
      *
@@ -543,23 +577,22 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
             return Collections.emptyList();
         }
         Collection<NoteView> nvs;
-        if (xMapper.isUptodate())
+        if (xMapper.isUptodate() && yMapper.isUptodate())
         {
-            // We can limit the search to some NoteViews, useful when many many notes
+            // Use the spatial index to limit the search, useful when many many notes
+            r = new Rectangle(r);
             SwingUtilities.computeIntersection(0, 0, getWidth(), getHeight(), r);
-            float brFrom = xMapper.getBeatPosition(xMapper.getPositionFromX(r.x));
-            float brTo = xMapper.getBeatPosition(xMapper.getPositionFromX(r.x + r.width - 1));
-            NoteEvent neMin = new NoteEvent(0, 1, 0, Math.max(0, brFrom - 48f)); // we manage up to a 48 beats-long note that would cross our rectangle
-            NoteEvent neMax = new NoteEvent(0, 1, 0, brTo + 0.1f);
-            nvs = mapNoteViews.subMap(neMin, neMax).values();       // ordered by note position
+            nvs = getIndexedNoteViews(r);
         } else
         {
             // Check all NoteViews
             nvs = mapNoteViews.values();
         }
 
+        final Rectangle fr = r;
         var res = nvs.stream()
-                .filter(nv -> nv.getBounds().intersects(r))
+                .filter(nv -> getNoteViewBounds(nv).intersects(fr))
+                .sorted((nv1, nv2) -> nv1.getModel().compareTo(nv2.getModel()))
                 .toList();
 
         return res;
@@ -810,6 +843,111 @@ public class NotesPanel extends EditorPanel implements PropertyChangeListener
     }
 
 
+    /**
+     * Make sure that only the NoteViews within the visible area (plus a margin) are added to this panel.
+     * <p>
+     * Selected NoteViews are always kept, they might be used by an ongoing mouse drag operation.
+     */
+    private void updateAddedNoteViews()
+    {
+        if (!xMapper.isUptodate() || !yMapper.isUptodate() || getWidth() == 0)
+        {
+            return;
+        }
+
+        Rectangle r = getVisibleRect();
+        r.grow(VISIBLE_AREA_MARGIN_PIXELS, VISIBLE_AREA_MARGIN_PIXELS);
+        SwingUtilities.computeIntersection(0, 0, getWidth(), getHeight(), r);
+        Set<NoteView> targetNoteViews = new HashSet<>(getIndexedNoteViews(r));
+
+
+        boolean changed = false;
+        for (var it = addedNoteViews.iterator(); it.hasNext();)
+        {
+            var nv = it.next();
+            if (!targetNoteViews.remove(nv) && !nv.isSelected())
+            {
+                it.remove();
+                remove(nv);
+                changed = true;
+            }
+        }
+        for (var nv : targetNoteViews)
+        {
+            nv.setBounds(computeNoteViewBounds(nv.getModel()));
+            addedNoteViews.add(nv);
+            add(nv);
+            changed = true;
+        }
+
+        if (changed)
+        {
+            LOGGER.log(Level.FINE, "updateAddedNoteViews() addedNoteViews.size()={0} noteViewIndex.size()={1}", new Object[]
+            {
+                addedNoteViews.size(), noteViewIndex.size()
+            });
+            repaint(r);
+        }
+    }
+
+    /**
+     * Compute the NoteView bounds for a note.
+     * <p>
+     * xMapper and yMapper must be up to date.
+     *
+     * @param ne
+     * @return
+     */
+    private Rectangle computeNoteViewBounds(NoteEvent ne)
+    {
+        Rectangle r;
+        if (!editor.isDrums())
+        {
+            FloatRange br = ne.getBeatRange();
+            int x = xMapper.getX(br.from);
+            int y = yMapper.getNoteViewChannelYRange(ne.getPitch()).from;
+            int w = xMapper.getX(br.to - 0.0001f) - x + 1;
+            int h = yMapper.getNoteViewHeight();
+            r = new Rectangle(x, y, w, h);
+        } else
+        {
+            // Drum notes
+            int side = yMapper.getNoteViewHeight() + 2;
+            if (side % 2 == 0)
+            {
+                side++;     // Need an odd value so that NoteView will be perfectly centered
+            }
+            int x = xMapper.getX(ne.getPositionInBeats()) - side / 2;
+            int y = yMapper.getNoteViewChannelYRange(ne.getPitch()).from;
+            r = new Rectangle(x, y, side, side);
+        }
+        return r;
+    }
+
+    /**
+     * Get the indexed NoteViews which might intersect the specified rectangle.
+     *
+     * @param r Must be within this panel bounds
+     * @return
+     */
+    private List<NoteView> getIndexedNoteViews(Rectangle r)
+    {
+        if (r.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        var pitchRange = yMapper.getPitchRange(IntRange.ofY(r));
+        pitchRange = new IntRange(Math.max(0, pitchRange.from - 1), Math.min(127, pitchRange.to + 1));   // Drum NoteViews are a bit higher than their channel
+        float margin = editor.isDrums() ? yMapper.getNoteViewHeight() * xMapper.getOnePixelBeatSize() : 0;   // Drum NoteViews are centered on their position
+        var beatRange = xMapper.getBeatPositionRange(IntRange.ofX(r));
+        if (beatRange.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        beatRange = new FloatRange(Math.max(0, beatRange.from - margin), beatRange.to + margin);
+        return noteViewIndex.getNoteViews(pitchRange, beatRange);
+    }
+
     // =====================================================================================
     // Inner classes
     // =====================================================================================
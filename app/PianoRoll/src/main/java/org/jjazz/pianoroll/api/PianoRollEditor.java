@@ -2247,7 +2247,7 @@ public class PianoRollEditor extends JPanel implements PropertyChangeListener, C
 
 
                 final var nv0 = getNoteView(p.getNotes().get(0));
-                SwingUtilities.invokeLater(() -> notesPanel.scrollRectToVisible(nv0.getBounds()));     // invokeLater to make sure task is run after nv0 is layouted                
+                SwingUtilities.invokeLater(() -> notesPanel.scrollRectToVisible(notesPanel.getNoteViewBounds(nv0)));     // invokeLater to make sure task is run after mappers are updated                
             }
 
             return true;
@@ -0,0 +1,499 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.print;
+
+import com.google.common.base.Preconditions;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.PrinterException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+import org.jjazz.utilities.api.BackgroundFileSaver;
+
+/**
+ * Export the pages of one or more Pageables (e.g. a songbook) as PNG files or as a single PDF file.
+ * <p>
+ * Our Pageables paint Swing components, so each page is rendered on the EDT, one page per EDT task so that the UI remains responsive. Image
+ * encoding, compression and file writing are done in parallel on background threads while the next pages are rendered. The number of pages in
+ * progress is bounded to limit memory usage.
+ * <p>
+ * The PDF file contains one raster image per page.
+ */
+public class PageExporter
+{
+
+    /**
+     * Max number of encoding threads. Can be set with the "jjazz.print.exportThreads" system property.
+     */
+    public static final int MAX_THREADS = Math.max(1, Integer.getInteger("jjazz.print.exportThreads",
+            Math.min(4, Runtime.getRuntime().availableProcessors())));
+    public static final int DEFAULT_DPI = 200;
+
+    private record PageRef(Pageable pageable, int pageIndex)
+            {
+
+    }
+
+    /**
+     * A compressed page image ready to be written in a PDF file.
+     */
+    private record PdfPage(double widthPts, double heightPts, int imageWidth, int imageHeight, byte[] deflatedRgb)
+            {
+
+    }
+
+    @FunctionalInterface
+    private interface PageEncoder<T>
+    {
+
+        T encode(int pageNumber, PageFormat pageFormat, BufferedImage img) throws IOException;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(PageExporter.class.getSimpleName());
+
+    /**
+     * Export all pages as PNG files in a directory.
+     * <p>
+     * Files are named baseName-001.png, baseName-002.png, etc. Must be called on the EDT.
+     *
+     * @param pageables The pages of all pageables are exported one after the other
+     * @param dir
+     * @param baseName
+     * @param dpi
+     * @return The future completes with the created files once all pages are exported. Cancel it to stop the export.
+     */
+    static public CompletableFuture<List<File>> exportPng(List<? extends Pageable> pageables, File dir, String baseName, int dpi)
+    {
+        Preconditions.checkNotNull(dir);
+        Preconditions.checkNotNull(baseName);
+        Preconditions.checkArgument(dpi > 0, "dpi=%s", dpi);
+
+        ExecutorService executor = newExecutor();
+        PageEncoder<File> encoder = (pageNumber, pageFormat, img) ->
+        {
+            File f = getPngFile(dir, baseName, pageNumber);
+            BackgroundFileSaver.writeAtomically(f, os -> ImageIO.write(img, "png", os));
+            return f;
+        };
+
+        var job = new ExportJob<>(getPageRefs(pageables), dpi / 72d, encoder, executor);
+        var res = job.start();
+        res.whenComplete((files, ex) ->
+        {
+            job.cancel();       // No-op if job is complete
+            executor.shutdown();
+        });
+        return res;
+    }
+
+    /**
+     * Get the files which are created by exportPng().
+     *
+     * @param pageables
+     * @param dir
+     * @param baseName
+     * @return
+     */
+    static public List<File> getPngFiles(List<? extends Pageable> pageables, File dir, String baseName)
+    {
+        Preconditions.checkNotNull(dir);
+        Preconditions.checkNotNull(baseName);
+        int nbPages = getPageRefs(pageables).size();
+        List<File> res = new ArrayList<>(nbPages);
+        for (int i = 0; i < nbPages; i++)
+        {
+            res.add(getPngFile(dir, baseName, i));
+        }
+        return res;
+    }
+
+    /**
+     * Export all pages in a single PDF file.
+     * <p>
+     * Must be called on the EDT.
+     *
+     * @param pageables The pages of all pageables are exported one after the other
+     * @param pdfFile
+     * @param dpi       The resolution of the page images
+     * @return The future completes with pdfFile once it is written. Cancel it to stop the export.
+     */
+    static public CompletableFuture<File> exportPdf(List<? extends Pageable> pageables, File pdfFile, int dpi)
+    {
+        Preconditions.checkNotNull(pdfFile);
+        Preconditions.checkArgument(dpi > 0, "dpi=%s", dpi);
+
+        List<PageRef> pageRefs = getPageRefs(pageables);
+        ExecutorService executor = newExecutor();
+        PageEncoder<PdfPage> encoder = (pageNumber, pageFormat, img) -> new PdfPage(pageFormat.getWidth(), pageFormat.getHeight(),
+                img.getWidth(), img.getHeight(), deflateRgb(img));
+
+        var job = new ExportJob<>(pageRefs, dpi / 72d, encoder, executor);
+        var res = job.start().thenApplyAsync(pdfPages ->
+        {
+            try
+            {
+                BackgroundFileSaver.writeAtomically(pdfFile, os -> writePdf(os, pdfPages));
+            } catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+            return pdfFile;
+        }, executor);
+        res.whenComplete((f, ex) ->
+        {
+            job.cancel();       // No-op if job is complete
+            executor.shutdown();
+        });
+        return res;
+    }
+
+    // ===============================================================================================
+    // Private methods
+    // ===============================================================================================
+    static private List<PageRef> getPageRefs(List<? extends Pageable> pageables)
+    {
+        Preconditions.checkNotNull(pageables);
+        List<PageRef> res = new ArrayList<>();
+        for (var pageable : pageables)
+        {
+            for (int i = 0; i < pageable.getNumberOfPages(); i++)
+            {
+                res.add(new PageRef(pageable, i));
+            }
+        }
+        return res;
+    }
+
+    static private File getPngFile(File dir, String baseName, int pageNumber)
+    {
+        return new File(dir, String.format("%s-%03d.png", baseName, pageNumber + 1));
+    }
+
+    static private ExecutorService newExecutor()
+    {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(MAX_THREADS, r ->
+        {
+            Thread t = new Thread(r, "PageExporter-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Get the RGB bytes of the image compressed with the Deflate algorithm (PDF FlateDecode filter).
+     *
+     * @param img
+     * @return
+     * @throws IOException
+     */
+    static private byte[] deflateRgb(BufferedImage img) throws IOException
+    {
+        int w = img.getWidth();
+        int h = img.getHeight();
+        int[] row = new int[w];
+        byte[] rgbRow = new byte[w * 3];
+        var baos = new ByteArrayOutputStream(w * h / 4);
+        try (var dos = new DeflaterOutputStream(baos))
+        {
+            for (int y = 0; y < h; y++)
+            {
+                img.getRGB(0, y, w, 1, row, 0, w);
+                for (int x = 0; x < w; x++)
+                {
+                    int rgb = row[x];
+                    rgbRow[3 * x] = (byte) (rgb >> 16);
+                    rgbRow[3 * x + 1] = (byte) (rgb >> 8);
+                    rgbRow[3 * x + 2] = (byte) rgb;
+                }
+                dos.write(rgbRow);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Write a minimal PDF file with one image per page.
+     * <p>
+     * Object numbers: 1=catalog, 2=page tree, then for each page: page, content stream, image.
+     *
+     * @param os
+     * @param pdfPages
+     * @throws IOException
+     */
+    static private void writePdf(OutputStream os, List<PdfPage> pdfPages) throws IOException
+    {
+        var cos = new CountingOutputStream(os);
+        int nbObjects = 2 + 3 * pdfPages.size();
+        long[] offsets = new long[nbObjects + 1];
+
+        writeAscii(cos, "%PDF-1.4\n");
+        cos.write(new byte[]
+        {
+            '%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'
+        });
+
+        offsets[1] = cos.getCount();
+        writeAscii(cos, "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pdfPages.size(); i++)
+        {
+            kids.append(3 + 3 * i).append(" 0 R ");
+        }
+        offsets[2] = cos.getCount();
+        writeAscii(cos, "2 0 obj\n<< /Type /Pages /Kids [ " + kids + "] /Count " + pdfPages.size() + " >>\nendobj\n");
+
+        for (int i = 0; i < pdfPages.size(); i++)
+        {
+            PdfPage page = pdfPages.get(i);
+            int pageObj = 3 + 3 * i;
+            String w = toPdfNumber(page.widthPts());
+            String h = toPdfNumber(page.heightPts());
+
+            offsets[pageObj] = cos.getCount();
+            writeAscii(cos, pageObj + " 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + w + " " + h + "]"
+                    + " /Resources << /XObject << /Im0 " + (pageObj + 2) + " 0 R >> >>"
+                    + " /Contents " + (pageObj + 1) + " 0 R >>\nendobj\n");
+
+            String content = "q " + w + " 0 0 " + h + " 0 0 cm /Im0 Do Q\n";
+            offsets[pageObj + 1] = cos.getCount();
+            writeAscii(cos, (pageObj + 1) + " 0 obj\n<< /Length " + content.length() + " >>\nstream\n" + content + "endstream\nendobj\n");
+
+            offsets[pageObj + 2] = cos.getCount();
+            writeAscii(cos, (pageObj + 2) + " 0 obj\n<< /Type /XObject /Subtype /Image /Width " + page.imageWidth()
+                    + " /Height " + page.imageHeight() + " /ColorSpace /DeviceRGB /BitsPerComponent 8 /Filter /FlateDecode"
+                    + " /Length " + page.deflatedRgb().length + " >>\nstream\n");
+            cos.write(page.deflatedRgb());
+            writeAscii(cos, "\nendstream\nendobj\n");
+        }
+
+        long xrefOffset = cos.getCount();
+        StringBuilder xref = new StringBuilder();
+        xref.append("xref\n0 ").append(nbObjects + 1).append("\n0000000000 65535 f \n");
+        for (int i = 1; i <= nbObjects; i++)
+        {
+            xref.append(String.format("%010d 00000 n \n", offsets[i]));
+        }
+        xref.append("trailer\n<< /Size ").append(nbObjects + 1).append(" /Root 1 0 R >>\nstartxref\n").append(xrefOffset).append("\n%%EOF\n");
+        writeAscii(cos, xref.toString());
+        cos.flush();
+    }
+
+    static private String toPdfNumber(double d)
+    {
+        return String.format(Locale.ROOT, "%.2f", d);
+    }
+
+    static private void writeAscii(OutputStream os, String s) throws IOException
+    {
+        os.write(s.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // ===============================================================================================
+    // Private classes
+    // ===============================================================================================
+    /**
+     * Render pages one by one on the EDT and encode them in parallel on the executor.
+     * <p>
+     * All fields are accessed on the EDT only.
+     *
+     * @param <T>
+     */
+    static private class ExportJob<T>
+    {
+
+        private final List<PageRef> pageRefs;
+        private final double scale;
+        private final PageEncoder<T> encoder;
+        private final ExecutorService executor;
+        private final List<T> results;
+        private final CompletableFuture<List<T>> future = new CompletableFuture<>();
+        private final int maxInFlight = 2 * MAX_THREADS;
+        private int nextPage;
+        private int nbInFlight;
+        private boolean renderScheduled;
+
+        @SuppressWarnings("unchecked")
+        ExportJob(List<PageRef> pageRefs, double scale, PageEncoder<T> encoder, ExecutorService executor)
+        {
+            this.pageRefs = pageRefs;
+            this.scale = scale;
+            this.encoder = encoder;
+            this.executor = executor;
+            this.results = new ArrayList<>(Arrays.asList((T[]) new Object[pageRefs.size()]));
+        }
+
+        CompletableFuture<List<T>> start()
+        {
+            Preconditions.checkState(SwingUtilities.isEventDispatchThread(), "Not on the EDT");
+            renderNextPage();
+            return future;
+        }
+
+        private void renderNextPage()
+        {
+            if (future.isDone() || nbInFlight >= maxInFlight)
+            {
+                return;
+            }
+            if (nextPage == pageRefs.size())
+            {
+                if (nbInFlight == 0)
+                {
+                    future.complete(results);
+                }
+                return;
+            }
+
+            int pageNumber = nextPage++;
+            PageRef pageRef = pageRefs.get(pageNumber);
+            PageFormat pageFormat;
+            BufferedImage img;
+            try
+            {
+                pageFormat = pageRef.pageable().getPageFormat(pageRef.pageIndex());
+                img = PageImageCache.renderPage(pageRef.pageable(), pageRef.pageIndex(), scale);
+            } catch (PrinterException | RuntimeException ex)
+            {
+                LOGGER.log(Level.WARNING, "renderNextPage() pageNumber={0} ex={1}", new Object[]
+                {
+                    pageNumber, ex.getMessage()
+                });
+                future.completeExceptionally(ex);
+                return;
+            }
+
+            nbInFlight++;
+            CompletableFuture.supplyAsync(() -> encode(pageNumber, pageFormat, img), executor)
+                    .whenComplete((r, ex) -> SwingUtilities.invokeLater(() -> pageEncoded(pageNumber, r, ex)));
+
+            scheduleNextPage();
+        }
+
+        /**
+         * Render the next page in a later EDT task, so that the EDT can process other events in between.
+         */
+        private void scheduleNextPage()
+        {
+            if (!renderScheduled)
+            {
+                renderScheduled = true;
+                SwingUtilities.invokeLater(() ->
+                {
+                    renderScheduled = false;
+                    renderNextPage();
+                });
+            }
+        }
+
+        /**
+         * Stop rendering pages.
+         */
+        void cancel()
+        {
+            future.cancel(false);
+        }
+
+        private T encode(int pageNumber, PageFormat pageFormat, BufferedImage img)
+        {
+            try
+            {
+                return encoder.encode(pageNumber, pageFormat, img);
+            } catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void pageEncoded(int pageNumber, T result, Throwable ex)
+        {
+            nbInFlight--;
+            if (ex != null)
+            {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                LOGGER.log(Level.WARNING, "pageEncoded() pageNumber={0} ex={1}", new Object[]
+                {
+                    pageNumber, cause.getMessage()
+                });
+                future.completeExceptionally(cause);
+                return;
+            }
+            results.set(pageNumber, result);
+            scheduleNextPage();
+        }
+    }
+
+    /**
+     * Keep track of the number of written bytes, needed for the PDF cross-reference table.
+     */
+    static private class CountingOutputStream extends FilterOutputStream
+    {
+
+        private long count;
+
+        CountingOutputStream(OutputStream os)
+        {
+            super(os);
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount()
+        {
+            return count;
+        }
+    }
+}
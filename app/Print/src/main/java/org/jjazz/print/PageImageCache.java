@@ -0,0 +1,156 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.print;
+
+import com.google.common.base.Preconditions;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Pageable;
+import java.awt.print.PrinterException;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Cache the rendered page images of a Pageable.
+ * <p>
+ * Pages are rendered on demand into images, and reused as long as the Pageable content does not change (call invalidate() when it changes). Images
+ * are softly referenced so that they can be reclaimed if memory is low.
+ * <p>
+ * Our Pageables paint Swing components: methods must be called on the EDT.
+ */
+public class PageImageCache
+{
+
+    private record PageImage(double scale, SoftReference<BufferedImage> imageRef)
+            {
+
+    }
+
+    private final Pageable pageable;
+    private final Map<Integer, PageImage> mapIndexImage = new HashMap<>();
+    private static final Logger LOGGER = Logger.getLogger(PageImageCache.class.getSimpleName());
+
+    public PageImageCache(Pageable pageable)
+    {
+        Preconditions.checkNotNull(pageable);
+        this.pageable = pageable;
+    }
+
+    public Pageable getPageable()
+    {
+        return pageable;
+    }
+
+    /**
+     * Get the image of a page rendered with at least the specified scale.
+     * <p>
+     * If a cached image was rendered with a higher or equal scale it is returned, otherwise page is rendered again.
+     *
+     * @param pageIndex
+     * @param minScale  1 means 1 pixel per point (72 dpi)
+     * @return
+     * @throws PrinterException
+     */
+    public BufferedImage getPageImage(int pageIndex, double minScale) throws PrinterException
+    {
+        Preconditions.checkState(SwingUtilities.isEventDispatchThread(), "Not on the EDT");
+        Preconditions.checkArgument(minScale > 0, "minScale=%s", minScale);
+
+        PageImage pi = mapIndexImage.get(pageIndex);
+        BufferedImage img = pi == null ? null : pi.imageRef().get();
+        if (img == null || pi.scale() < minScale)
+        {
+            img = renderPage(pageable, pageIndex, minScale);
+            mapIndexImage.put(pageIndex, new PageImage(minScale, new SoftReference<>(img)));
+        }
+        return img;
+    }
+
+    /**
+     * Check if a page image with at least the specified scale is available without rendering.
+     *
+     * @param pageIndex
+     * @param minScale
+     * @return
+     */
+    public boolean isCached(int pageIndex, double minScale)
+    {
+        PageImage pi = mapIndexImage.get(pageIndex);
+        return pi != null && pi.scale() >= minScale && pi.imageRef().get() != null;
+    }
+
+    /**
+     * Discard all cached images.
+     * <p>
+     * Must be called when the Pageable content has changed.
+     */
+    public void invalidate()
+    {
+        mapIndexImage.clear();
+    }
+
+    /**
+     * Render a page into a new white-background image.
+     * <p>
+     * Must be called on the EDT.
+     *
+     * @param pageable
+     * @param pageIndex
+     * @param scale     1 means 1 pixel per point (72 dpi)
+     * @return
+     * @throws PrinterException
+     */
+    static public BufferedImage renderPage(Pageable pageable, int pageIndex, double scale) throws PrinterException
+    {
+        PageFormat pageFormat = pageable.getPageFormat(pageIndex);
+        int w = (int) Math.ceil(pageFormat.getWidth() * scale);
+        int h = (int) Math.ceil(pageFormat.getHeight() * scale);
+        LOGGER.log(Level.FINE, "renderPage() pageIndex={0} scale={1} w={2} h={3}", new Object[]
+        {
+            pageIndex, scale, w, h
+        });
+
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = img.createGraphics();
+        try
+        {
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, w, h);
+            g2d.setColor(Color.BLACK);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.scale(scale, scale);
+            pageable.getPrintable(pageIndex).print(g2d, pageFormat, pageIndex);
+        } finally
+        {
+            g2d.dispose();
+        }
+        return img;
+    }
+}
@@ -25,20 +25,25 @@ package org.jjazz.print;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.Pageable;
-import java.awt.print.Printable;
 import java.awt.print.PrinterException;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import org.jjazz.utilities.api.ResUtil;
 
 /**
  * A panel to render the print preview.
+ * <p>
+ * Rendered pages are cached: repaints only draw the cached page image. The next page is rendered in advance.
  */
 public class PreviewPanel extends JPanel
 {
 
     private Pageable pageable;
+    private PageImageCache pageImageCache;
     private int pageIndex;
 
     public void setPageIndex(int index)
@@ -53,6 +58,7 @@ public class PreviewPanel extends JPanel
     /**
      * Set the pageable.
      * <p>
+     * The pages cache is reset, even if pageable is unchanged: it must be called again when the pageable content has changed.
      *
      * @param pageable
      * @param pageIndex
@@ -60,11 +66,25 @@ public class PreviewPanel extends JPanel
     public void setPageable(Pageable pageable, int pageIndex)
     {
         this.pageable = pageable;
+        this.pageImageCache = new PageImageCache(pageable);
         this.pageIndex = Math.min(pageIndex, pageable.getNumberOfPages() - 1);
         revalidate();
         repaint();
     }
 
+    /**
+     * Must be called when the pageable content has changed.
+     */
+    public void pageableContentChanged()
+    {
+        if (pageImageCache != null)
+        {
+            pageImageCache.invalidate();
+        }
+        revalidate();
+        repaint();
+    }
+
     /**
      * Overridden to return an arbitrary dimension BUT with the RIGHT width/height ratio.
      * <p>
@@ -92,20 +112,21 @@ public class PreviewPanel extends JPanel
         }
 
 
-        PageFormat pageFormat = pageable.getPageFormat(pageIndex);
-        Printable printable = pageable.getPrintable(pageIndex);
-
         int w = getWidth();
         int h = getHeight();
-        double scaleFactor = w / pageFormat.getWidth();
 
 
         // Draw the preview
         Graphics2D g2d = (Graphics2D) g.create();
-        g2d.scale(scaleFactor, scaleFactor);
         try
         {
-            printable.print(g2d, pageFormat, pageIndex);
+            PageFormat pageFormat = pageable.getPageFormat(pageIndex);
+            double scaleFactor = w / pageFormat.getWidth();
+            double imageScale = scaleFactor * ((Graphics2D) g).getTransform().getScaleX();     // Take HiDPI screens into account
+            BufferedImage img = pageImageCache.getPageImage(pageIndex, imageScale);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(img, 0, 0, w, (int) Math.round(pageFormat.getHeight() * scaleFactor), null);
+            prefetch(pageIndex + 1, imageScale);
         } catch (IndexOutOfBoundsException e)
         {
             g2d.drawString(ResUtil.getString(getClass(), "PAGE_INDEX_OUT_OF_RANGE"), 10, 30);
@@ -122,4 +143,36 @@ public class PreviewPanel extends JPanel
 
     }
 
+    // ===============================================================================================
+    // Private methods
+    // ===============================================================================================
+    /**
+     * Render a page in a later EDT task, so that it's ready when user goes to that page.
+     *
+     * @param index
+     * @param scale
+     */
+    private void prefetch(int index, double scale)
+    {
+        if (index >= pageable.getNumberOfPages() || pageImageCache.isCached(index, scale))
+        {
+            return;
+        }
+        PageImageCache cache = pageImageCache;
+        SwingUtilities.invokeLater(() ->
+        {
+            if (cache != pageImageCache || cache.isCached(index, scale))
+            {
+                return;
+            }
+            try
+            {
+                cache.getPageImage(index, scale);
+            } catch (PrinterException | IndexOutOfBoundsException ex)
+            {
+                // Nothing, error will be reported when page is displayed
+            }
+        });
+    }
+
 }
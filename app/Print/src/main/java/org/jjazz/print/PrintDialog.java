@@ -22,17 +22,26 @@
  */
 package org.jjazz.print;
 
+import java.awt.Cursor;
 import java.awt.event.ActionEvent;
 import java.awt.print.PageFormat;
 import java.awt.print.Pageable;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.AbstractAction;
 import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JRootPane;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import org.jjazz.analytics.api.Analytics;
 import org.jjazz.song.api.Song;
 import org.jjazz.song.api.SongUtilities;
@@ -41,8 +50,11 @@ import org.jjazz.songeditormanager.spi.SongEditorManager;
 import org.jjazz.ss_editor.api.SS_Editor;
 import org.jjazz.uiutilities.api.SingleComponentAspectRatioKeeperLayout;
 import org.jjazz.uiutilities.api.UIUtilities;
+import org.jjazz.utilities.api.ResUtil;
+import org.jjazz.utilities.api.Utilities;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
+import org.openide.awt.StatusDisplayer;
 import org.openide.windows.WindowManager;
 
 /**
@@ -64,6 +76,7 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
     private Song refSong;
     private CL_Editor actualClEditor;
     private SS_Editor actualSsEditor;
+    private CompletableFuture<?> exportFuture;
 
     public static PrintDialog getInstance()
     {
@@ -248,7 +261,10 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
             @Override
             public void actionPerformed(ActionEvent e)
             {
-                spn_zoomVFactor.setValue(spn_zoomVFactor.getModel().getNextValue());
+                if (spn_zoomVFactor.isEnabled())
+                {
+                    spn_zoomVFactor.setValue(spn_zoomVFactor.getModel().getNextValue());
+                }
             }
 
         });
@@ -260,7 +276,10 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
             @Override
             public void actionPerformed(ActionEvent e)
             {
-                spn_zoomVFactor.setValue(spn_zoomVFactor.getModel().getPreviousValue());
+                if (spn_zoomVFactor.isEnabled())
+                {
+                    spn_zoomVFactor.setValue(spn_zoomVFactor.getModel().getPreviousValue());
+                }
             }
 
         });
@@ -274,8 +293,12 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
     @Override
     public void stateChanged(ChangeEvent e)
     {
-        pnl_previewComponent.revalidate();
-        pnl_previewComponent.repaint();
+        if (exportFuture != null && !exportFuture.isDone())
+        {
+            // Option controls are disabled during an export, but make sure we never export a mix of old and new pages
+            exportFuture.cancel(false);
+        }
+        pnl_previewComponent.pageableContentChanged();
     }
 
     // =========================================================================================
@@ -341,6 +364,120 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
         previewContextChanged();
     }
 
+    /**
+     * Export the pages in a PDF file or in PNG files, depending on the selected file extension.
+     */
+    private void exportPages()
+    {
+        File f = showExportFileChooser();
+        if (f == null)
+        {
+            return;
+        }
+
+        Analytics.logEvent("Export print pages");
+
+        if (Utilities.endsWithIgnoreCase(f.getName(), ".png"))
+        {
+            String baseName = Utilities.replaceExtension(f.getName(), "");
+            exportFuture = PageExporter.exportPng(List.of(currentPageable), f.getParentFile(), baseName, PageExporter.DEFAULT_DPI);
+        } else
+        {
+            exportFuture = PageExporter.exportPdf(List.of(currentPageable), f, PageExporter.DEFAULT_DPI);
+        }
+
+        setExportInProgress(true);
+
+        exportFuture.whenComplete((res, ex) -> SwingUtilities.invokeLater(() ->
+        {
+            setExportInProgress(false);
+            if (ex instanceof CancellationException)
+            {
+                return;
+            }
+            if (ex != null)
+            {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                String msg = ResUtil.getString(getClass(), "ERR_ExportFailed", f.getName()) + "\n" + cause.getLocalizedMessage();
+                NotifyDescriptor d = new NotifyDescriptor.Message(msg, NotifyDescriptor.ERROR_MESSAGE);
+                DialogDisplayer.getDefault().notify(d);
+            } else
+            {
+                StatusDisplayer.getDefault().setStatusText(ResUtil.getString(getClass(), "CTL_ExportDone", f.getAbsolutePath()));
+            }
+        }));
+    }
+
+    /**
+     * Enable or disable the controls which would change the pages being exported.
+     *
+     * @param b
+     */
+    private void setExportInProgress(boolean b)
+    {
+        setCursor(b ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+        btn_export.setEnabled(!b);
+        btn_print.setEnabled(!b);
+        btn_pageSetup.setEnabled(!b);
+        rbtn_printChordLeadsheet.setEnabled(!b);
+        rbtn_printSongStructure.setEnabled(!b);
+        UIUtilities.setRecursiveEnabled(!b && rbtn_printChordLeadsheet.isSelected(), pnl_leadsheet_settings);
+    }
+
+    /**
+     * Let user select a .pdf or .png file.
+     *
+     * @return Null if cancelled. Extension is added if required.
+     */
+    private File showExportFileChooser()
+    {
+        JFileChooser chooser = UIUtilities.getFileChooserInstance();
+        FileNameExtensionFilter pdfFilter = new FileNameExtensionFilter(ResUtil.getString(getClass(), "CTL_PdfFiles") + " (.pdf)", "pdf");
+        FileNameExtensionFilter pngFilter = new FileNameExtensionFilter(ResUtil.getString(getClass(), "CTL_PngFiles") + " (.png)", "png");
+        chooser.resetChoosableFileFilters();
+        chooser.addChoosableFileFilter(pdfFilter);
+        chooser.addChoosableFileFilter(pngFilter);
+        chooser.setFileFilter(pdfFilter);
+        chooser.setMultiSelectionEnabled(false);
+        chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        chooser.setDialogTitle(ResUtil.getString(getClass(), "CTL_ExportPages"));
+        File songFile = refSong.getFile();
+        File presetFile = songFile != null ? Utilities.replaceExtension(songFile, "pdf") : new File(refSong.getName() + ".pdf");
+        if (songFile != null)
+        {
+            chooser.setCurrentDirectory(songFile.getParentFile());  // required because if presetFile does not yet exist, setSelectedFile does not set the current directory
+        }
+        chooser.setSelectedFile(presetFile);
+
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+        {
+            return null;
+        }
+
+        File f = chooser.getSelectedFile();
+        String ext = chooser.getFileFilter() == pngFilter ? "png" : "pdf";
+        if (!Utilities.endsWithIgnoreCase(f.getName(), ".pdf") && !Utilities.endsWithIgnoreCase(f.getName(), ".png"))
+        {
+            f = new File(f.getParentFile(), f.getName() + "." + ext);
+        }
+
+        // PNG export creates one file per page
+        List<File> outputFiles = Utilities.endsWithIgnoreCase(f.getName(), ".png")
+                ? PageExporter.getPngFiles(List.of(currentPageable), f.getParentFile(), Utilities.replaceExtension(f.getName(), ""))
+                : List.of(f);
+        File existingFile = outputFiles.stream().filter(File::exists).findFirst().orElse(null);
+        if (existingFile != null)
+        {
+            NotifyDescriptor nd = new NotifyDescriptor.Confirmation(existingFile.getName() + " - " + ResUtil.getString(getClass(), "CTL_ConfirmFileReplace"),
+                    NotifyDescriptor.OK_CANCEL_OPTION);
+            if (DialogDisplayer.getDefault().notify(nd) != NotifyDescriptor.OK_OPTION)
+            {
+                f = null;
+            }
+        }
+        return f;
+    }
+
     /**
      * Ensure that pf does not have margins bigger than marginMax.
      *
@@ -463,6 +600,7 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
         btn_cancel = new javax.swing.JButton();
         btn_print = new javax.swing.JButton();
         btn_pageSetup = new javax.swing.JButton();
+        btn_export = new javax.swing.JButton();
 
         setTitle(org.openide.util.NbBundle.getMessage(PrintDialog.class, "PrintDialog.title")); // NOI18N
         addWindowListener(new java.awt.event.WindowAdapter()
@@ -693,6 +831,16 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
             }
         });
 
+        org.openide.awt.Mnemonics.setLocalizedText(btn_export, org.openide.util.NbBundle.getMessage(PrintDialog.class, "PrintDialog.btn_export.text")); // NOI18N
+        btn_export.setToolTipText(org.openide.util.NbBundle.getMessage(PrintDialog.class, "PrintDialog.btn_export.toolTipText")); // NOI18N
+        btn_export.addActionListener(new java.awt.event.ActionListener()
+        {
+            public void actionPerformed(java.awt.event.ActionEvent evt)
+            {
+                btn_exportActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -701,6 +849,8 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
             .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
                 .addContainerGap()
                 .addComponent(btn_pageSetup)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(btn_export)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(btn_print)
                 .addGap(18, 18, 18)
@@ -716,7 +866,9 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
                 .addComponent(pnl_main, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-                    .addComponent(btn_pageSetup)
+                    .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                        .addComponent(btn_pageSetup)
+                        .addComponent(btn_export))
                     .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                             .addComponent(btn_print)
@@ -734,6 +886,11 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
         songOrPageFormatChanged();
     }//GEN-LAST:event_btn_pageSetupActionPerformed
 
+    private void btn_exportActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_btn_exportActionPerformed
+    {//GEN-HEADEREND:event_btn_exportActionPerformed
+        exportPages();
+    }//GEN-LAST:event_btn_exportActionPerformed
+
     private void btn_cancelActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_btn_cancelActionPerformed
     {//GEN-HEADEREND:event_btn_cancelActionPerformed
         setVisible(false);
@@ -779,6 +936,11 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
 
     private void formWindowClosed(java.awt.event.WindowEvent evt)//GEN-FIRST:event_formWindowClosed
     {//GEN-HEADEREND:event_formWindowClosed
+        if (exportFuture != null)
+        {
+            exportFuture.cancel(false);     // Don't render pages anymore from the cleaned up editor
+            exportFuture = null;
+        }
         if (leadsheetPrinter != null)
         {
             leadsheetPrinter.cleanup();
@@ -788,6 +950,7 @@ public class PrintDialog extends javax.swing.JDialog implements ChangeListener
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton btn_cancel;
+    private javax.swing.JButton btn_export;
     private javax.swing.JButton btn_nextPage;
     private javax.swing.JButton btn_pageSetup;
     private javax.swing.JButton btn_previousPage;
@@ -42,6 +42,8 @@ import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import javax.swing.JLabel;
 import javax.swing.JTable;
 import javax.swing.table.AbstractTableModel;
@@ -64,6 +66,15 @@ import org.jjazz.utilities.api.Utilities;
 public class RhythmJTable extends JTable implements PropertyChangeListener
 {
 
+    /**
+     * Max number of rows measured when adjusting column widths.
+     */
+    private static final int MAX_SAMPLED_ROWS = 200;
+    /**
+     * Above this number of row ranges to delete or insert, fire a single table data changed event.
+     */
+    private static final int MAX_ROW_RANGE_EVENTS = 8;
+    private static final Pattern REGEX_CHARS = Pattern.compile("[.*+?|()\\[\\]{}^$\\\\]");
     private final Model model = new Model();
     private List<Integer> hiddenColumnIndexes = new ArrayList<>();
     private static final Logger LOGGER = Logger.getLogger(RhythmJTable.class.getSimpleName());
@@ -205,7 +216,24 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
             ResUtil.getString(getClass(), "COL_DefaultMixTooltip"),
             ResUtil.getString(getClass(), "COL_DirTooltip")
         };
-        private List<RhythmInfo> rhythms = new ArrayList<>();
+        /**
+         * All the rhythms, sorted.
+         */
+        private List<RhythmInfo> allRhythms = new ArrayList<>();
+        /**
+         * The rhythms which match the filter, in the allRhythms order. Always replaced, never modified in place.
+         */
+        private volatile List<RhythmInfo> rhythms = new ArrayList<>();
+        /**
+         * Precomputed lower-case search text and directory string for each rhythm.
+         */
+        private final Map<RhythmInfo, String> mapRhythmSearchText = new HashMap<>();
+        private final Map<RhythmInfo, String> mapRhythmDirString = new HashMap<>();
+        /**
+         * The lower-case filter string when filterPattern is null.
+         */
+        private String filterText = "";
+        private Pattern filterPattern;
         private final Set<RhythmInfo> highlightedRhythms = new HashSet<>();
         private final Map<RhythmInfo, File> mapRhythmDefaultMixFile = new HashMap<>();
 
@@ -222,8 +250,22 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
                 throw new NullPointerException("rhythms");
             }
             LOGGER.log(Level.FINE, "setRhythms() rhythms.size()={0}", rhythms.size());
-            this.rhythms = new ArrayList<>(rhythms);
-            this.rhythms.sort(new RhythmComparator());
+            allRhythms = new ArrayList<>(rhythms);
+            allRhythms.sort(new RhythmComparator());
+
+            // Build the search index once, so that filtering does not need to compute cell values
+            mapRhythmSearchText.clear();
+            mapRhythmDirString.clear();
+            for (var ri : allRhythms)
+            {
+                String dir = computeDirString(ri);
+                mapRhythmDirString.put(ri, dir);
+                mapRhythmSearchText.put(ri, computeSearchText(ri, dir));
+            }
+
+            this.rhythms = allRhythms.stream()
+                    .filter(ri -> matchesFilter(ri))
+                    .toList();
 
             highlightedRhythms.clear();
 
@@ -231,9 +273,71 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
             adjustWidths();
 
             // Start a background task to update the default rhythm mix column
-            Executors.newSingleThreadExecutor().submit((Runnable) () -> updateDefaultMixValues(this.rhythms));
+            final var ris = allRhythms;
+            Executors.newSingleThreadExecutor().submit((Runnable) () -> updateDefaultMixValues(ris));
+        }
+
+        /**
+         * Show only the rhythms which match the specified filter string.
+         * <p>
+         * A rhythm is shown if the filter string is found (ignoring case) in its name, description, one of its tags, directory, file name
+         * or feel. If the filter string contains regular expression characters, it is used as a case-insensitive regular expression which
+         * must be found in one of these fields.
+         * <p>
+         * When the new filter refines the current one (e.g. a character is appended), only the currently shown rows are checked. Row-range
+         * events are fired, or a single table data changed event if there are many ranges.
+         *
+         * @param filter If null or blank all rhythms are shown.
+         */
+        public void setFilter(String filter)
+        {
+            String f = filter == null ? "" : filter.trim();
+            Pattern newPattern = null;
+            if (REGEX_CHARS.matcher(f).find())
+            {
+                try
+                {
+                    // Multiline so that ^ and $ match the start and end of each searched field
+                    newPattern = Pattern.compile(f, Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+                } catch (PatternSyntaxException ex)
+                {
+                    // Use plain text
+                    LOGGER.log(Level.FINE, "setFilter() invalid regex, using plain text. ex={0}", ex.getMessage());
+                }
+            }
+            String newText = newPattern == null ? f.toLowerCase() : "";
+
+            if (newPattern == null && filterPattern == null && newText.equals(filterText))
+            {
+                return;
+            }
+            if (newPattern != null && filterPattern != null && newPattern.pattern().equals(filterPattern.pattern()))
+            {
+                return;
+            }
+
+            boolean refining = newPattern == null && filterPattern == null && newText.contains(filterText);
+            filterText = newText;
+            filterPattern = newPattern;
+
+            List<RhythmInfo> candidates = refining ? rhythms : allRhythms;
+            List<RhythmInfo> newRhythms = candidates.stream()
+                    .filter(ri -> matchesFilter(ri))
+                    .toList();
+
+            LOGGER.log(Level.FINE, "setFilter() filter={0} refining={1} nbRows={2}", new Object[]
+            {
+                filter, refining, newRhythms.size()
+            });
+
+            updateVisibleRhythms(newRhythms);
         }
 
+        /**
+         * The shown rhythms, in model order.
+         *
+         * @return
+         */
         List<? extends RhythmInfo> getRhythms()
         {
             return rhythms;
@@ -340,42 +444,7 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
                     ri.preferredTempo();
 
                 case COL_DIR ->
-                {
-                    // Show the file path relative to the user rhythm directory
-                    if (ri.file() == null || "".equals(ri.file().getPath()))
-                    {
-                        // Not file based
-                        yield " - ";
-                    }
-
-
-                    Path pUserRhythmDir = RhythmDirsLocator.getDefault().getUserRhythmsDirectory().toPath();
-                    Path pFile = ri.file().toPath();
-                    if (!pFile.startsWith(pUserRhythmDir))
-                    {
-                        // File-based but builtin rhythm: don't show path
-                        yield ResUtil.getString(getClass(), "DefaultRhythmsPath");
-                    }
-
-
-                    // User-defined file-based, show path relative to user rhythm directory
-                    Path pParentFile = ri.file().getParentFile().toPath();
-                    String s;
-                    try
-                    {
-                        Path relPath = pUserRhythmDir.relativize(pParentFile);
-                        s = "./" + relPath.toString();
-                    } catch (IllegalArgumentException ex)
-                    {
-                        LOGGER.log(Level.WARNING, "getValueAt() Can''t relativize pFile={0} to pDir={1}", new Object[]
-                        {
-                            pParentFile,
-                            pUserRhythmDir
-                        });
-                        s = pParentFile.toString();
-                    }
-                    yield s;
-                }
+                    mapRhythmDirString.get(ri);
 
                 case COL_NB_VOICES ->
                     ri.rvInfos().size();
@@ -384,22 +453,7 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
                     ri.name();
 
                 case COL_DIVISION ->
-                {
-                    var d = ri.rhythmFeatures().division();
-                    var sd = switch (d)
-                    {
-                        case BINARY ->
-                            "Binary";
-                        case EIGHTH_SHUFFLE ->
-                            "Shuffle";
-                        case EIGHTH_TRIPLET ->
-                            "Triplet";
-                        case UNKNOWN ->
-                            "Unknown";
-                        default -> throw new IllegalArgumentException("division=" + d);
-                    };
-                    yield sd;
-                }
+                    getDivisionString(ri);
 
                 case COL_DEFAULT_MIX ->
                     getDefaultMix(ri) != null ? "Yes" : "   ";
@@ -439,7 +493,7 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
                 int row = rhythms.indexOf(ri);
                 if (row == -1)
                 {
-                    LOGGER.log(Level.WARNING, "setDefaultMix() Unexpected ri={0} not found", ri);
+                    // Filtered out
                     return;
                 }
                 fireTableCellUpdated(row, COL_DEFAULT_MIX);
@@ -463,6 +517,182 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
             LOGGER.fine("updateDefaultMixValues() finished");
         }
 
+        /**
+         * Replace the shown rhythms by newRhythms.
+         * <p>
+         * Fire row-range deleted/inserted events, or a single table data changed event if there are more than MAX_ROW_RANGE_EVENTS ranges.
+         * Both lists must follow the allRhythms order.
+         *
+         * @param newRhythms
+         */
+        private void updateVisibleRhythms(List<RhythmInfo> newRhythms)
+        {
+            Set<RhythmInfo> newSet = new HashSet<>(newRhythms);
+            List<RhythmInfo> current = new ArrayList<>(rhythms);
+            Set<RhythmInfo> currentSet = new HashSet<>(current);
+
+            if (countRanges(current, newSet) + countRanges(newRhythms, currentSet) > MAX_ROW_RANGE_EVENTS)
+            {
+                rhythms = List.copyOf(newRhythms);
+                fireTableDataChanged();
+                return;
+            }
+
+
+            // Remove rows from the end so that indexes of the remaining ranges stay valid
+            int row = current.size() - 1;
+            while (row >= 0)
+            {
+                if (newSet.contains(current.get(row)))
+                {
+                    row--;
+                    continue;
+                }
+                int last = row;
+                while (row >= 0 && !newSet.contains(current.get(row)))
+                {
+                    row--;
+                }
+                current.subList(row + 1, last + 1).clear();
+                rhythms = List.copyOf(current);
+                fireTableRowsDeleted(row + 1, last);
+            }
+
+
+            // Insert the missing rows, current is now a subsequence of newRhythms
+            row = 0;
+            while (row < newRhythms.size())
+            {
+                if (row < current.size() && current.get(row) == newRhythms.get(row))
+                {
+                    row++;
+                    continue;
+                }
+                int first = row;
+                while (row < newRhythms.size() && (row >= current.size() || current.get(row) != newRhythms.get(row)))
+                {
+                    current.add(row, newRhythms.get(row));
+                    row++;
+                }
+                rhythms = List.copyOf(current);
+                fireTableRowsInserted(first, row - 1);
+            }
+
+            assert current.equals(newRhythms) : "current=" + current + " newRhythms=" + newRhythms;
+        }
+
+        private boolean matchesFilter(RhythmInfo ri)
+        {
+            String text = mapRhythmSearchText.get(ri);
+            if (filterPattern != null)
+            {
+                return filterPattern.matcher(text).find();
+            }
+            return text.contains(filterText);
+        }
+
+        /**
+         * Count the ranges of contiguous elements of list which are not in otherSet.
+         *
+         * @param list
+         * @param otherSet
+         * @return
+         */
+        private int countRanges(List<RhythmInfo> list, Set<RhythmInfo> otherSet)
+        {
+            int res = 0;
+            boolean inRange = false;
+            for (var ri : list)
+            {
+                boolean b = !otherSet.contains(ri);
+                if (b && !inRange)
+                {
+                    res++;
+                }
+                inRange = b;
+            }
+            return res;
+        }
+
+        private String computeSearchText(RhythmInfo ri, String dir)
+        {
+            StringBuilder sb = new StringBuilder();
+            sb.append(ri.name()).append('\n');
+            sb.append(ri.description()).append('\n');
+            for (String tag : ri.tags())
+            {
+                sb.append(tag).append('\n');
+            }
+            if (ri.file() != null)
+            {
+                sb.append(ri.file().getName()).append('\n');
+            }
+            sb.append(dir).append('\n');
+            sb.append(getDivisionString(ri));
+            return sb.toString().toLowerCase();
+        }
+
+        private String getDivisionString(RhythmInfo ri)
+        {
+            var d = ri.rhythmFeatures().division();
+            return switch (d)
+            {
+                case BINARY ->
+                    "Binary";
+                case EIGHTH_SHUFFLE ->
+                    "Shuffle";
+                case EIGHTH_TRIPLET ->
+                    "Triplet";
+                case UNKNOWN ->
+                    "Unknown";
+                default -> throw new IllegalArgumentException("division=" + d);
+            };
+        }
+
+        /**
+         * Get the string shown in the directory column.
+         *
+         * @param ri
+         * @return
+         */
+        private String computeDirString(RhythmInfo ri)
+        {
+            // Show the file path relative to the user rhythm directory
+            if (ri.file() == null || "".equals(ri.file().getPath()))
+            {
+                // Not file based
+                return " - ";
+            }
+
+
+            Path pUserRhythmDir = RhythmDirsLocator.getDefault().getUserRhythmsDirectory().toPath();
+            Path pFile = ri.file().toPath();
+            if (!pFile.startsWith(pUserRhythmDir))
+            {
+                // File-based but builtin rhythm: don't show path
+                return ResUtil.getString(getClass(), "DefaultRhythmsPath");
+            }
+
+
+            // User-defined file-based, show path relative to user rhythm directory
+            Path pParentFile = ri.file().getParentFile().toPath();
+            String s;
+            try
+            {
+                Path relPath = pUserRhythmDir.relativize(pParentFile);
+                s = "./" + relPath.toString();
+            } catch (IllegalArgumentException ex)
+            {
+                LOGGER.log(Level.WARNING, "computeDirString() Can''t relativize pFile={0} to pDir={1}", new Object[]
+                {
+                    pParentFile,
+                    pUserRhythmDir
+                });
+                s = pParentFile.toString();
+            }
+            return s;
+        }
+
         /**
          * Sort first by directory then by alphabetical order.
          */
@@ -548,8 +778,10 @@ public class RhythmJTable extends JTable implements PropertyChangeListener
 
             int width = 20; // Min width
 
-            // Handle data
-            for (int row = 0; row < getRowCount(); row++)
+            // Handle data: sample a bounded number of rows evenly spread, measuring every cell is too slow with large libraries
+            int rowCount = getRowCount();
+            int step = Math.max(1, rowCount / MAX_SAMPLED_ROWS);
+            for (int row = 0; row < rowCount; row += step)
             {
                 renderer = getCellRenderer(row, colIndex);
                 comp = prepareRenderer(renderer, row, colIndex);
@@ -0,0 +1,143 @@
+/*
+ * 
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *  
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ * 
+ *   This file is part of the JJazzLab software.
+ *    
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *   as published by the Free Software Foundation, either version 3 of the License, 
+ *   or (at your option) any later version.
+ * 
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *  
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *  
+ */
+package org.jjazz.rhythmselectiondialog.api.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.TableModelEvent;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.rhythmdatabase.api.RhythmInfo;
+import org.jjazz.rhythmdatabaseimpl.api.FavoriteRhythmProvider;
+import org.jjazz.rhythmstubs.api.RhythmStub;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RhythmJTableTest
+{
+
+    RhythmJTable.Model model;
+    List<TableModelEvent> events;
+
+    public RhythmJTableTest()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        model = new RhythmJTable().getModel();
+        events = new ArrayList<>();
+    }
+
+    @Test
+    public void testRegexKeepsCase()
+    {
+        System.out.println("testRegexKeepsCase");
+        model.setRhythms(List.of(createRhythmInfo("id1", "A1x"), createRhythmInfo("id2", "ABx")));
+
+        model.setFilter("\\Dx");
+        assertEquals(List.of("ABx"), getShownNames());
+    }
+
+    @Test
+    public void testFilterIsOneString()
+    {
+        System.out.println("testFilterIsOneString");
+        model.setRhythms(List.of(createRhythmInfo("id1", "Light Pop"), createRhythmInfo("id2", "Pop Light")));
+
+        model.setFilter("light pop");
+        assertEquals(List.of("Light Pop"), getShownNames());
+
+        model.setFilter("LIGHT");
+        assertEquals(List.of("Light Pop", "Pop Light"), getShownNames());
+    }
+
+    @Test
+    public void testTableEvents()
+    {
+        System.out.println("testTableEvents");
+        List<RhythmInfo> ris = new ArrayList<>();
+        for (int i = 0; i < 40; i++)
+        {
+            ris.add(createRhythmInfo("id" + i, String.format("r%02d-%s", i, i % 2 == 0 ? "even" : "odd")));
+        }
+        model.setRhythms(ris);
+        model.addTableModelListener(e -> events.add(e));
+
+
+        // One contiguous range removed
+        model.setFilter("r0");
+        assertEquals(10, model.getRowCount());
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.DELETE, events.get(0).getType());
+        assertEquals(10, events.get(0).getFirstRow());
+        assertEquals(39, events.get(0).getLastRow());
+
+
+        // One contiguous range inserted
+        events.clear();
+        model.setFilter("");
+        assertEquals(40, model.getRowCount());
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+
+
+        // Many ranges: a single data changed event
+        events.clear();
+        model.setFilter("even");
+        assertEquals(20, model.getRowCount());
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(0, events.get(0).getFirstRow());
+        assertEquals(Integer.MAX_VALUE, events.get(0).getLastRow());
+        assertEquals("r38-even", model.getValueAt(19, RhythmJTable.Model.COL_NAME));
+    }
+
+    // ===============================================================================
+    // Private methods
+    // ===============================================================================
+
+    private List<String> getShownNames()
+    {
+        List<String> res = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++)
+        {
+            res.add((String) model.getValueAt(row, RhythmJTable.Model.COL_NAME));
+        }
+        return res;
+    }
+
+    private RhythmInfo createRhythmInfo(String id, String name)
+    {
+        var r = new RhythmStub(id, TimeSignature.FOUR_FOUR)
+        {
+            @Override
+            public String getName()
+            {
+                return name;
+            }
+        };
+        return new RhythmInfo(r, FavoriteRhythmProvider.getInstance());
+    }
+}
@@ -41,12 +41,11 @@ import javax.swing.JComponent;
 import javax.swing.JRootPane;
 import javax.swing.JTable;
 import javax.swing.KeyStroke;
-import javax.swing.RowFilter;
 import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
-import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
 import org.jjazz.filedirectorymanager.api.FileDirectoryManager;
 import org.jjazz.harmony.api.TimeSignature;
 import org.jjazz.rhythm.api.MusicGenerationException;
@@ -98,6 +97,26 @@ public class RhythmSelectionDialogImpl extends RhythmSelectionDialog implements
 
         // Update UI
         UIUtilities.installSelectAllWhenFocused(tf_filter);
+        tf_filter.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                applyFilter(tf_filter.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                applyFilter(tf_filter.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+                // Nothing
+            }
+        });
         fbtn_autoPreviewMode.addActionListener(e -> toggleRhythmPreview());
         rhythmTable.getInputMap(JTable.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0), "PreviewRhythm");
         rhythmTable.getInputMap(JTable.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(KeyEvent.VK_F, 0), "ToggleFavorite");
@@ -390,6 +409,33 @@ public class RhythmSelectionDialogImpl extends RhythmSelectionDialog implements
         list_RhythmProviders.setSelectedValue(selRp, true);  // This will update the rhythm table and restore selection if possible
     }
 
+    /**
+     * Filter the rhythm table with the specified string and update the filter UI.
+     * <p>
+     * Called on each keystroke: the table model filters incrementally.
+     *
+     * @param filter
+     */
+    private void applyFilter(String filter)
+    {
+        boolean filtered = !filter.isBlank();
+        rhythmTable.getModel().setFilter(filter);
+        btn_Filter.setEnabled(!filtered);
+        btn_clearFilter.setEnabled(filtered);
+        String s = lbl_rhythms.getText();
+        int i = s.indexOf("*");
+        if (i != -1)
+        {
+            s = s.substring(0, i);
+        }
+        if (filtered)
+        {
+            String msg = ResUtil.getString(getClass(), "RhythmSelectionDialogImpl.filtered");
+            s = s + "* (" + msg + ")";
+        }
+        lbl_rhythms.setText(s);
+    }
+
     /**
      * Reset the rhythm table with rp's rhythms.
      * <p>
@@ -951,28 +997,7 @@ public class RhythmSelectionDialogImpl extends RhythmSelectionDialog implements
 
     private void btn_FilterActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_btn_FilterActionPerformed
     {//GEN-HEADEREND:event_btn_FilterActionPerformed
-        String s = tf_filter.getText().trim();
-        if (s.isEmpty())
-        {
-            return;
-        }
-        RowFilter<TableModel, Object> rf;
-        try
-        {
-            rf = RowFilter.regexFilter("(?i)" + s);
-        } catch (java.util.regex.PatternSyntaxException e)
-        {
-            LOGGER.log(Level.WARNING, "btn_FilterActionPerformed() invalid filter regex string e={0}", e.getMessage());
-            return;
-        }
-        TableRowSorter<? extends TableModel> sorter = (TableRowSorter<? extends TableModel>) rhythmTable.getRowSorter();
-        sorter.setRowFilter(rf);
-        btn_Filter.setEnabled(false);
-        btn_clearFilter.setEnabled(true);
-        tf_filter.setEnabled(false);
-        s = lbl_rhythms.getText();
-        String msg = ResUtil.getString(getClass(), "RhythmSelectionDialogImpl.filtered");
-        lbl_rhythms.setText(s + "* (" + msg + ")");
+        applyFilter(tf_filter.getText());
     }//GEN-LAST:event_btn_FilterActionPerformed
 
     private void tf_filterActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_tf_filterActionPerformed
@@ -983,17 +1008,8 @@ public class RhythmSelectionDialogImpl extends RhythmSelectionDialog implements
     private void btn_clearFilterActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_btn_clearFilterActionPerformed
     {//GEN-HEADEREND:event_btn_clearFilterActionPerformed
         LOGGER.fine("btn_clearFilterActionPerformed() --");
-        TableRowSorter<? extends TableModel> sorter = (TableRowSorter<? extends TableModel>) rhythmTable.getRowSorter();
-        sorter.setRowFilter(null);
-        btn_Filter.setEnabled(true);
-        btn_clearFilter.setEnabled(false);
-        tf_filter.setEnabled(true);
-        String s = lbl_rhythms.getText();
-        int i = s.indexOf("*");
-        if (i != -1)
-        {
-            lbl_rhythms.setText(s.substring(0, i));
-        }
+        tf_filter.setText("");      // This will reset the filter via the document listener
+        applyFilter("");
     }//GEN-LAST:event_btn_clearFilterActionPerformed
 
     private void btn_addRhythmsActionPerformed(java.awt.event.ActionEvent evt)//GEN-FIRST:event_btn_addRhythmsActionPerformed
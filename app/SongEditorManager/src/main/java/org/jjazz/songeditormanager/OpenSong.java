@@ -26,6 +26,7 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
@@ -36,6 +37,7 @@ import org.jjazz.filedirectorymanager.api.FileDirectoryManager;
 import org.jjazz.midi.api.JJazzMidiSystem;
 import org.jjazz.song.api.Song;
 import org.jjazz.song.api.SongCreationException;
+import org.jjazz.songeditormanager.api.ParallelSongLoader;
 import org.jjazz.songeditormanager.spi.SongEditorManager;
 import org.openide.awt.ActionID;
 import org.openide.awt.ActionReference;
@@ -84,13 +86,18 @@ public final class OpenSong implements ActionListener
         storePrefSize(chooser.getSize());
         chooser.setPreferredSize(null);
 
-        var songFiles = chooser.getSelectedFiles();
-        for (File songFile : songFiles)
+        var songFiles = Arrays.asList(chooser.getSelectedFiles());
+        if (songFiles.isEmpty())
         {
-            boolean last = (songFile == songFiles[songFiles.length - 1]);
-            LOGGER.log(Level.INFO, "actionPerformed() Loading song {0}", songFile.getAbsolutePath());
-            openSong(songFile, last, true);
+            return;
         }
+        LOGGER.log(Level.INFO, "actionPerformed() Loading songs {0}", songFiles);
+        ParallelSongLoader.showSongs(songFiles, true, true, (songFile, ex) -> notifyOpenError(songFile, ex))
+                .thenAccept(songs -> 
+                {
+                    Analytics.logEvent("Open Song");
+                    Analytics.incrementProperties("Nb Open Song", songs.size());
+                });
 
     }
 
@@ -116,16 +123,21 @@ public final class OpenSong implements ActionListener
 
         } catch (SongCreationException ex)
         {
-            String msg = ResUtil.getString(OpenSong.class, "ERR_CantOpenSongFile", songFile.getAbsolutePath(), ex.getLocalizedMessage());
-            LOGGER.log(Level.WARNING, "openSong() {0}", msg);
-            NotifyDescriptor nd = new NotifyDescriptor.Message(msg, NotifyDescriptor.ERROR_MESSAGE);
-            DialogDisplayer.getDefault().notify(nd);
+            notifyOpenError(songFile, ex);
             b = false;
         }
 
         return b;
     }
 
+    static private void notifyOpenError(File songFile, SongCreationException ex)
+    {
+        String msg = ResUtil.getString(OpenSong.class, "ERR_CantOpenSongFile", songFile.getAbsolutePath(), ex.getLocalizedMessage());
+        LOGGER.log(Level.WARNING, "openSong() {0}", msg);
+        NotifyDescriptor nd = new NotifyDescriptor.Message(msg, NotifyDescriptor.ERROR_MESSAGE);
+        DialogDisplayer.getDefault().notify(nd);
+    }
+
     private void storePrefSize(Dimension d)
     {
         prefs.putInt(PREF_OPEN_DIALOG_WIDTH, d.width);
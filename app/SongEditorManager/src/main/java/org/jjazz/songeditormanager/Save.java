@@ -27,6 +27,7 @@ import java.awt.event.ActionEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
@@ -83,26 +84,30 @@ public final class Save extends AbstractAction implements PropertyChangeListener
     @Override
     public void actionPerformed(ActionEvent ev)
     {
-        File songFile = song.getFile();
-        int res;
+        final Song sg = song;
+        File songFile = sg.getFile();
+        CompletableFuture<Integer> futureRes;
         if (songFile == null)
         {
             // Do like SaveAs
-            res = SaveUtils.SaveAs(song);
+            futureRes = SaveUtils.SaveAs(sg);
         } else
         {
-            res = SaveUtils.saveSongAndMix(song, songFile);
+            futureRes = SaveUtils.saveSongAndMix(sg, songFile);
         }
 
-        LOGGER.log(Level.FINE, "actionPerformed() song={0} res={1}", new Object[]
+        futureRes.thenAccept(res -> 
         {
-            song, res
-        });
+            LOGGER.log(Level.FINE, "actionPerformed() song={0} res={1}", new Object[]
+            {
+                sg, res
+            });
 
-        if (res == 0)
-        {
-            StatusDisplayer.getDefault().setStatusText(ResUtil.getString(getClass(), "CTL_Saved", song.getFile().getAbsolutePath()));
-        }
+            if (res == 0)
+            {
+                StatusDisplayer.getDefault().setStatusText(ResUtil.getString(getClass(), "CTL_Saved", sg.getFile().getAbsolutePath()));
+            }
+        });
     }
 
     // ======================================================================================================
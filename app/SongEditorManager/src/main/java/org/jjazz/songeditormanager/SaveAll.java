@@ -25,6 +25,9 @@ package org.jjazz.songeditormanager;
 import java.awt.event.ActionEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
 import org.jjazz.songeditormanager.spi.SongEditorManager;
@@ -60,27 +63,28 @@ public final class SaveAll extends AbstractAction implements PropertyChangeListe
     public void actionPerformed(ActionEvent ev)
     {
         var sem = SongEditorManager.getDefault();
-        int nbSavedFiles = 0;
+        List<CompletableFuture<Integer>> futureResults = new ArrayList<>();
         for (var song : sem.getOpenedSongs())
         {
             if (song.getFile() == null)
             {
-                if (SaveUtils.SaveAs(song) == 0)
-                {
-                    nbSavedFiles++;
-                }
+                futureResults.add(SaveUtils.SaveAs(song));
             } else
             {
-                if (SaveUtils.saveSongAndMix(song, song.getFile()) == 0)
-                {
-                    nbSavedFiles++;
-                }
+                futureResults.add(SaveUtils.saveSongAndMix(song, song.getFile()));
             }
         }
-        if (nbSavedFiles > 0)
+
+        CompletableFuture.allOf(futureResults.toArray(CompletableFuture[]::new)).thenRun(() -> 
         {
-            StatusDisplayer.getDefault().setStatusText(ResUtil.getString(getClass(), "CTL_Saved", nbSavedFiles + " songs"));
-        }
+            long nbSavedFiles = futureResults.stream()
+                    .filter(f -> f.join() == 0)
+                    .count();
+            if (nbSavedFiles > 0)
+            {
+                StatusDisplayer.getDefault().setStatusText(ResUtil.getString(getClass(), "CTL_Saved", nbSavedFiles + " songs"));
+            }
+        });
 
     }
 
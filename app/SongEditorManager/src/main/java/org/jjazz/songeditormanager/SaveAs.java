@@ -54,10 +54,12 @@ public final class SaveAs extends AbstractAction
     @Override
     public void actionPerformed(ActionEvent ev)
     {
-        int res = SaveUtils.SaveAs(song);
-        if (res == 0)
+        SaveUtils.SaveAs(song).thenAccept(res -> 
         {
-            StatusDisplayer.getDefault().setStatusText(ResUtil.getString(getClass(), "CTL_Saved", song.toString()));
-        }
+            if (res == 0)
+            {
+                StatusDisplayer.getDefault().setStatusText(ResUtil.getString(getClass(), "CTL_Saved", song.toString()));
+            }
+        });
     }
 }
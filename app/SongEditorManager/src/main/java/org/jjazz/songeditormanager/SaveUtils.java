@@ -24,10 +24,14 @@ package org.jjazz.songeditormanager;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.sound.midi.MidiUnavailableException;
 import javax.swing.JFileChooser;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import org.jjazz.analytics.api.Analytics;
 import org.jjazz.chordleadsheet.api.item.CLI_ChordSymbol;
@@ -37,6 +41,7 @@ import org.jjazz.midimix.api.MidiMix;
 import org.jjazz.midimix.spi.MidiMixManager;
 import org.jjazz.song.api.Song;
 import org.jjazz.uiutilities.api.UIUtilities;
+import org.jjazz.utilities.api.ResUtil;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
 import org.openide.util.Exceptions;
@@ -112,66 +117,85 @@ class SaveUtils
     }
 
     /**
-     * Save the song and the related midiMix file.
+     * Save the song and the related midiMix file in the background.
      * <p>
+     * Song and MidiMix snapshots are taken on the EDT, then serialized and atomically written on a background I/O thread, see Song.saveToFileAsync() and
+     * MidiMix.saveToFileAsync(). User is notified if problems.
+     * <p>
+     * Must be called on the EDT.
      *
      * @param song
      * @param songFile
-     * @return SAVE_CODE_OK, SAVE_CODE_ERROR_SONGMIX or SAVE_CODE_ERROR_SONGFILE
+     * @return A future completed on the EDT with SAVE_CODE_OK, SAVE_CODE_ERROR_SONGMIX or SAVE_CODE_ERROR_SONGFILE
      */
-    static public int saveSongAndMix(Song song, File songFile)
+    static public CompletableFuture<Integer> saveSongAndMix(Song song, File songFile)
     {
         if (song == null || songFile == null)
         {
             throw new IllegalArgumentException("song=" + song + " songFile=" + songFile);
         }
-        FileDirectoryManager fdm = FileDirectoryManager.getInstance();
-        int resSong;
-        int resMix;
+        CompletableFuture<Integer> futureMix;
+        CompletableFuture<Integer> futureSong;
 
         // Save Mix
         MidiMix songMix = MidiMixManager.getDefault().findExistingMix(song);
         if (songMix != null)
         {
             File songMixFile = MidiMix.getSongMixFile(songFile);
-            resMix = songMix.saveToFileNotify(songMixFile, false) ? SAVE_CODE_OK : SAVE_CODE_ERROR_SONGMIX;
+            if (isWritable(songMixFile, ResUtil.getString(MidiMix.class, "ERR_CantOverwrite", songMixFile.getAbsolutePath())))
+            {
+                String errMsg = ResUtil.getString(MidiMix.class, "ERR_ProblemSavingMixFile", songMixFile.getAbsolutePath());
+                futureMix = songMix.saveToFileAsync(songMixFile, false)
+                        .handle((f, ex) -> notifyIfError(ex, errMsg) ? SAVE_CODE_ERROR_SONGMIX : SAVE_CODE_OK);
+            } else
+            {
+                futureMix = CompletableFuture.completedFuture(SAVE_CODE_ERROR_SONGMIX);
+            }
         } else
         {
-            resMix = SAVE_CODE_ERROR_SONGMIX;
+            futureMix = CompletableFuture.completedFuture(SAVE_CODE_ERROR_SONGMIX);
         }
 
         // Save song
-        resSong = song.saveToFileNotify(songFile, false) ? SAVE_CODE_OK : SAVE_CODE_ERROR_SONGFILE;
-
-        if (resSong == SAVE_CODE_OK)
+        if (isWritable(songFile, ResUtil.getString(Song.class, "ErrCantOverrideSong", songFile.getName())))
+        {
+            String errMsg = ResUtil.getString(Song.class, "ERR_ProblemSavingSongFile", songFile.getName());
+            futureSong = song.saveToFileAsync(songFile, false)
+                    .handle((f, ex) -> notifyIfError(ex, errMsg) ? SAVE_CODE_ERROR_SONGFILE : SAVE_CODE_OK);
+        } else
         {
-            doAnalytics(song);
+            futureSong = CompletableFuture.completedFuture(SAVE_CODE_ERROR_SONGFILE);
         }
 
-        int res = (resSong != SAVE_CODE_OK) ? resSong : resMix;
-
 
-        return res;
+        return futureSong.thenCombineAsync(futureMix, (resSong, resMix) -> 
+        {
+            if (resSong == SAVE_CODE_OK)
+            {
+                doAnalytics(song);
+            }
+            return (resSong != SAVE_CODE_OK) ? resSong : resMix;
+        }, SwingUtilities::invokeLater);
     }
 
     /**
      * Save the song and the related MidiFile in a user-chosen file.
      *
      * @param song
-     * @return
+     * @return A future completed on the EDT with SAVE_CODE_CANCEL or a saveSongAndMix() return code
+     * @see #saveSongAndMix(org.jjazz.song.api.Song, java.io.File)
      */
-    static public int SaveAs(Song song)
+    static public CompletableFuture<Integer> SaveAs(Song song)
     {
         File songFile = getValidatedSaveFile(song);
         songFile = showSaveSongFileChooser(songFile);
         if (songFile == null)
         {
-            return SAVE_CODE_CANCEL;
+            return CompletableFuture.completedFuture(SAVE_CODE_CANCEL);
         }
 
         // Save song and related mix
-        int res = saveSongAndMix(song, songFile);
-        return res;
+        return saveSongAndMix(song, songFile);
     }
 
 
@@ -209,6 +233,52 @@ class SaveUtils
     }
 
 
+    /**
+     * Check that f can be overwritten, notify user if not.
+     *
+     * @param f
+     * @param errMsg
+     * @return
+     */
+    static private boolean isWritable(File f, String errMsg)
+    {
+        if (f.exists() && !f.canWrite())
+        {
+            LOGGER.log(Level.WARNING, "isWritable() {0}", errMsg);
+            NotifyDescriptor nd = new NotifyDescriptor.Message(errMsg, NotifyDescriptor.WARNING_MESSAGE);
+            DialogDisplayer.getDefault().notify(nd);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Notify user if a background save failed.
+     * <p>
+     * Can be called from any thread.
+     *
+     * @param ex     Can be null
+     * @param errMsg
+     * @return True if ex is not null
+     */
+    static private boolean notifyIfError(Throwable ex, String errMsg)
+    {
+        if (ex == null)
+        {
+            return false;
+        }
+        Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+        String msg = errMsg + " : " + cause.getLocalizedMessage();
+        if (cause.getCause() != null)
+        {
+            msg += "\n" + cause.getCause().getLocalizedMessage();
+        }
+        LOGGER.log(Level.WARNING, "notifyIfError() {0}", msg);
+        NotifyDescriptor nd = new NotifyDescriptor.Message(msg, NotifyDescriptor.WARNING_MESSAGE);
+        DialogDisplayer.getDefault().notifyLater(nd);
+        return true;
+    }
+
     /**
      * Compute some anonymous stats about feature usage.
      *
@@ -42,6 +42,7 @@ import org.jjazz.filedirectorymanager.api.FileDirectoryManager;
 import org.jjazz.midi.api.DrumKit;
 import org.jjazz.midimix.api.MidiMix;
 import org.jjazz.midimix.spi.MidiMixManager;
+import org.jjazz.musiccontrol.spi.SpeculativeMusicBuilder;
 import org.jjazz.midimix.api.UserRhythmVoice;
 import org.jjazz.phrase.api.Phrase;
 import org.jjazz.pianoroll.api.PianoRollEditor;
@@ -202,6 +203,14 @@ public class SongEditorManagerImpl implements SongEditorManager, PropertyChangeL
                 // To avoid problem (Issue #109 Tempo sometimes not right after 1st song auto-loaded), make sure activation
                 // comes AFTER the clTc.requestActive() above.
                 SwingUtilities.invokeLater(() -> asm.setActive(song, midiMix));
+            } else
+            {
+                // Song might be played soon, prepare its music in the background
+                var smb = SpeculativeMusicBuilder.getDefault();
+                if (smb != null)
+                {
+                    smb.addCandidate(song, midiMix);
+                }
             }
 
 
@@ -278,15 +287,41 @@ public class SongEditorManagerImpl implements SongEditorManager, PropertyChangeL
 
 
         // Open or import the song file
+        Song song = loadSong(f);
+
+
+        // Update last song directory
+        if (updateLastSongDirectory)
+        {
+            FileDirectoryManager.getInstance().setLastSongDirectory(f.getAbsoluteFile().getParentFile());
+        }
+
+
+        // Show the song
+        showSong(song, makeActive, isImportedSongFile(f));
+
+
+        return song;
+    }
+
+    /**
+     * Load or import the song from file and fix the MidiMix if required.
+     *
+     * @param f
+     * @return
+     * @throws SongCreationException
+     */
+    @Override
+    public Song loadSong(File f) throws SongCreationException
+    {
         Song song = null;
-        boolean savable = false;
-        String ext = Utilities.getExtension(f.getName());
-        if (ext.equalsIgnoreCase("sng"))
+        if (!isImportedSongFile(f))
         {
             song = Song.loadFromFile(f);       // throws SongCreationException
 
         } else
         {
+            String ext = Utilities.getExtension(f.getName());
             var songImporters = SongImporter.getMatchingImporters(SongImporter.getImporters(), ext);
             if (songImporters.isEmpty())
             {
@@ -300,11 +335,9 @@ public class SongEditorManagerImpl implements SongEditorManager, PropertyChangeL
             {
                 throw new SongCreationException(ex.getLocalizedMessage());
             }
-            savable = true;
         }
 
 
-        // Read song from file
         // Fix the MidiMix if needed
         try
         {
@@ -315,21 +348,14 @@ public class SongEditorManagerImpl implements SongEditorManager, PropertyChangeL
             Exceptions.printStackTrace(ex);
         }
 
-
-        // Update last song directory
-        if (updateLastSongDirectory)
-        {
-            FileDirectoryManager.getInstance().setLastSongDirectory(f.getAbsoluteFile().getParentFile());
-        }
-
-
-        // Show the song
-        showSong(song, makeActive, savable);
-
-
         return song;
     }
 
+    @Override
+    public boolean isImportedSongFile(File f)
+    {
+        return !Utilities.getExtension(f.getName()).equalsIgnoreCase("sng");
+    }
 
     /**
      * Open (or show) the song's PianoRollEditor and set it up to edit a user track associated to userRhythmVoice.
@@ -0,0 +1,291 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.songeditormanager.api;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import org.jjazz.filedirectorymanager.api.FileDirectoryManager;
+import org.jjazz.rhythm.api.MusicGenerationException;
+import org.jjazz.rhythm.api.Rhythm;
+import org.jjazz.song.api.Song;
+import org.jjazz.song.api.SongCreationException;
+import org.jjazz.songeditormanager.spi.SongEditorManager;
+
+/**
+ * Load several song files in parallel, then show them in order.
+ * <p>
+ * Song files are read (or imported), their MidiMix and rhythms resolved, and their rhythm resources loaded on background threads. Each
+ * rhythm's resources are loaded only once even if it is used by several songs. Songs are shown on the EDT in the order of the file list, as
+ * soon as a song and all its predecessors are ready. A song which fails to load does not block the others.
+ */
+public class ParallelSongLoader
+{
+
+    /**
+     * Max number of song files loaded concurrently.
+     */
+    public static final int MAX_THREADS = Integer.getInteger("jjazz.songloader.maxThreads", 4);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final Logger LOGGER = Logger.getLogger(ParallelSongLoader.class.getSimpleName());
+
+    private ParallelSongLoader()
+    {
+    }
+
+    /**
+     * Load the song files in parallel then show them in order.
+     * <p>
+     * Must be called on the EDT. If a file is already opened, its song is just shown again. A file which appears several times in
+     * the list is loaded and shown only once, at its first position.
+     *
+     * @param files
+     * @param makeLastActive          If true try to make the song of the last file active
+     * @param updateLastSongDirectory If true update the LastSongDirectory in FileDirectoryManager for each newly opened file
+     * @param errorHandler            Called on the EDT for each file which could not be loaded. If null errors are only logged.
+     * @return A future completed on the EDT when all files are processed, with the shown songs in the files order.
+     */
+    static public CompletableFuture<List<Song>> showSongs(List<File> files, boolean makeLastActive, boolean updateLastSongDirectory,
+            BiConsumer<File, SongCreationException> errorHandler)
+    {
+        return showSongs(SongEditorManager.getDefault(), files, makeLastActive, updateLastSongDirectory, errorHandler);
+    }
+
+    // =====================================================================================
+    // Package private methods
+    // =====================================================================================
+
+    /**
+     * Same as showSongs(files, makeLastActive, updateLastSongDirectory, errorHandler) but with the specified SongEditorManager.
+     */
+    static CompletableFuture<List<Song>> showSongs(SongEditorManager sem, List<File> allFiles, boolean makeLastActive,
+            boolean updateLastSongDirectory, BiConsumer<File, SongCreationException> errorHandler)
+    {
+        Preconditions.checkNotNull(sem);
+        Preconditions.checkNotNull(allFiles);
+        Preconditions.checkState(SwingUtilities.isEventDispatchThread(), "Not on the EDT");
+
+        List<File> files = removeDuplicates(allFiles);
+        if (files.isEmpty())
+        {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        int nbThreads = Math.max(1, Math.min(files.size(), MAX_THREADS));
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads, r -> 
+        {
+            Thread t = new Thread(r, "ParallelSongLoader-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Map<Rhythm, CompletableFuture<Void>> mapRhythmLoading = new ConcurrentHashMap<>();
+
+
+        // The opened songs, compared using the same path normalization as removeDuplicates()
+        Map<Path, Song> mapPathOpenedSong = new HashMap<>();
+        for (Song s : sem.getOpenedSongs())
+        {
+            if (s.getFile() != null)
+            {
+                mapPathOpenedSong.putIfAbsent(toNormalizedPath(s.getFile()), s);
+            }
+        }
+
+
+        // Start loading all files
+        List<CompletableFuture<Song>> loadings = new ArrayList<>();
+        for (File f : files)
+        {
+            Song openedSong = mapPathOpenedSong.get(toNormalizedPath(f));
+            CompletableFuture<Song> loading;
+            if (openedSong != null)
+            {
+                loading = CompletableFuture.completedFuture(openedSong);
+            } else
+            {
+                loading = CompletableFuture.supplyAsync(() -> loadSong(sem, f), executor)
+                        .thenCompose(song -> loadRhythmResources(song, mapRhythmLoading, executor));
+            }
+            loadings.add(loading);
+        }
+
+
+        // Show the songs on the EDT in order
+        List<Song> shownSongs = new ArrayList<>();
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < files.size(); i++)
+        {
+            final File f = files.get(i);
+            final boolean makeActive = makeLastActive && i == files.size() - 1;
+            final var loading = loadings.get(i);
+            chain = chain.thenCompose(v -> loading.handle((song, ex) -> ex == null ? song : null))
+                    .thenAcceptAsync(song -> 
+                    {
+                        if (song == null)
+                        {
+                            handleError(f, loading, errorHandler);
+                        } else
+                        {
+                            showSong(sem, f, song, makeActive, updateLastSongDirectory, shownSongs);
+                        }
+                    }, SwingUtilities::invokeLater);
+        }
+
+
+        return chain.handle((v, ex) -> 
+        {
+            executor.shutdown();
+            return shownSongs;
+        });
+    }
+
+    // =====================================================================================
+    // Private methods
+    // =====================================================================================
+
+    /**
+     * Remove the files which point to the same path as a previous file.
+     *
+     * @param files
+     * @return A new list
+     */
+    static private List<File> removeDuplicates(List<File> files)
+    {
+        Map<Path, File> res = new LinkedHashMap<>();
+        for (File f : files)
+        {
+            res.putIfAbsent(toNormalizedPath(f), f);
+        }
+        return new ArrayList<>(res.values());
+    }
+
+    static private Path toNormalizedPath(File f)
+    {
+        return f.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Called on a loading thread.
+     */
+    static private Song loadSong(SongEditorManager sem, File f)
+    {
+        long t = System.currentTimeMillis();
+        try
+        {
+            Song song = sem.loadSong(f);
+            LOGGER.log(Level.FINE, "loadSong() {0} loaded in {1}ms", new Object[]
+            {
+                f.getName(), System.currentTimeMillis() - t
+            });
+            return song;
+        } catch (SongCreationException ex)
+        {
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * Load the resources of all the song rhythms, a rhythm is loaded only once.
+     */
+    static private CompletableFuture<Song> loadRhythmResources(Song song, Map<Rhythm, CompletableFuture<Void>> mapRhythmLoading, ExecutorService executor)
+    {
+        var rhythmLoadings = song.getSongStructure().getUniqueRhythms(true, false).stream()
+                .map(r -> mapRhythmLoading.computeIfAbsent(r, rr -> CompletableFuture.runAsync(() -> loadRhythmResources(rr), executor)))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(rhythmLoadings).thenApply(v -> song);
+    }
+
+    static private void loadRhythmResources(Rhythm r)
+    {
+        try
+        {
+            r.loadResources();
+        } catch (MusicGenerationException ex)
+        {
+            // Not a problem for the song loading, it will be reported again when generating music
+            LOGGER.log(Level.WARNING, "loadRhythmResources() Can''t load resources of rhythm {0}. ex={1}", new Object[]
+            {
+                r.getName(), ex.getMessage()
+            });
+        }
+    }
+
+    /**
+     * Called on the EDT.
+     */
+    static private void showSong(SongEditorManager sem, File f, Song song, boolean makeActive, boolean updateLastSongDirectory, List<Song> shownSongs)
+    {
+        boolean isNew = !sem.getOpenedSongs().contains(song);
+        try
+        {
+            if (isNew && updateLastSongDirectory)
+            {
+                FileDirectoryManager.getInstance().setLastSongDirectory(f.getAbsoluteFile().getParentFile());
+            }
+            sem.showSong(song, makeActive, isNew && sem.isImportedSongFile(f));
+            shownSongs.add(song);
+        } catch (RuntimeException ex)
+        {
+            // Don't block the next songs
+            LOGGER.log(Level.SEVERE, "showSong() Unexpected error showing song file " + f.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Called on the EDT.
+     */
+    static private void handleError(File f, CompletableFuture<Song> loading, BiConsumer<File, SongCreationException> errorHandler)
+    {
+        Throwable cause = loading.handle((song, ex) -> ex instanceof CompletionException ? ex.getCause() : ex).join();
+        SongCreationException sce = cause instanceof SongCreationException e ? e : new SongCreationException(cause);
+        LOGGER.log(Level.WARNING, "showSongs() Problem opening song file: {0}. ex={1}", new Object[]
+        {
+            f.getAbsolutePath(),
+            sce.getMessage()
+        });
+        if (cause != sce)
+        {
+            LOGGER.log(Level.WARNING, "showSongs()", cause);
+        }
+        if (errorHandler != null)
+        {
+            errorHandler.accept(f, sce);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
@@ -38,6 +39,7 @@ import org.jjazz.midimix.api.MidiMix;
 import org.jjazz.song.api.Song;
 import org.jjazz.song.api.SongCreationException;
 import org.jjazz.songeditormanager.spi.SongEditorManager;
+import org.jjazz.utilities.api.BackgroundFileSaver;
 import org.jjazz.utilities.api.ResUtil;
 import org.netbeans.api.sendopts.CommandException;
 import org.netbeans.spi.sendopts.Env;
@@ -74,6 +76,7 @@ public class StartupShutdownSongManager extends OptionProcessor implements Calla
     private static final String PREF_FILES_TO_BE_REOPENED_UPON_STARTUP = "FilesToBeReOpenedUponStartup";
     private static final String NO_FILE = "__NO_FILE__";
     private static final int MAX_FILES = 20;
+    private static final int SAVE_TIMEOUT_SECONDS = 10;
     private final Option openOption = Option.defaultArguments();  // The command line arguments with no -x or --xyz option
     private final List<File> cmdLineFilesToOpen = new ArrayList<>();
     private boolean isUIready = false;
@@ -283,6 +286,13 @@ public class StartupShutdownSongManager extends OptionProcessor implements Calla
             }
             String s = sb.toString();
             prefs.put(PREF_FILES_TO_BE_REOPENED_UPON_STARTUP, s.isEmpty() ? NO_FILE : s);
+
+
+            // Make sure background song saves are complete before exiting
+            if (!BackgroundFileSaver.getInstance().waitForPendingSaves(SAVE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            {
+                LOGGER.warning("call() Some song files may not have been saved");
+            }
         } catch (Exception e)
         {
             e.printStackTrace();
@@ -324,23 +334,7 @@ public class StartupShutdownSongManager extends OptionProcessor implements Calla
             var filesToOpen = instance.getCmdLineFilesToOpen();
             if (!filesToOpen.isEmpty())
             {
-                var sem = SongEditorManager.getDefault();
-
-                for (File f : filesToOpen)
-                {
-                    boolean last = f == filesToOpen.get(filesToOpen.size() - 1);
-                    try
-                    {
-                        sem.showSong(f, last, true);
-                    } catch (SongCreationException ex)
-                    {
-                        LOGGER.log(Level.WARNING, "OpenFilesAtStartupTask.run() Problem opening song file: {0}. ex={1}", new Object[]
-                        {
-                            f.getAbsolutePath(),
-                            ex.getMessage()
-                        });
-                    }
-                }
+                ParallelSongLoader.showSongs(filesToOpen, true, true, null);
 
             } else if (instance.isOpenLastFilesUponStartup())
             {
@@ -369,25 +363,10 @@ public class StartupShutdownSongManager extends OptionProcessor implements Calla
             {
                 final List<String> strFiles = Arrays.asList(s.split(","));
                 final int max = Math.min(strFiles.size(), MAX_FILES);         // Robustness
-                Runnable run = () -> 
-                {
-                    for (int i = 0; i < max; i++)
-                    {
-                        File f = new File(strFiles.get(i).trim());
-                        boolean last = (i == max - 1);
-                        try
-                        {
-                            SongEditorManager.getDefault().showSong(f, last, true);
-                        } catch (SongCreationException ex)
-                        {
-                            LOGGER.log(Level.WARNING, "openRecentFilesUponStartup.run() Problem opening song file: {0}. ex={1}", new Object[]
-                            {
-                                f.getAbsolutePath(),
-                                ex.getMessage()
-                            });
-                        }
-                    }
-                };
+                final List<File> files = strFiles.subList(0, max).stream()
+                        .map(str -> new File(str.trim()))
+                        .toList();
+                Runnable run = () -> ParallelSongLoader.showSongs(files, true, true, null);
                 SwingUtilities.invokeLater(run);
             }
         }
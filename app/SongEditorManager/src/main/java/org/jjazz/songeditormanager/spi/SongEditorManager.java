@@ -108,6 +108,29 @@ public interface SongEditorManager
      */
     Song showSong(File f, boolean makeActive, boolean updateLastSongDirectory) throws SongCreationException;
 
+    /**
+     * Load or import a song from a file, and fix the MidiMix if required, without showing it.
+     * <p>
+     * Unlike the other methods, this method can be called from any thread.
+     *
+     * @param f
+     * @return
+     * @throws SongCreationException
+     * @see #showSong(org.jjazz.song.api.Song, boolean, boolean)
+     * @see #isImportedSongFile(java.io.File)
+     */
+    Song loadSong(File f) throws SongCreationException;
+
+    /**
+     * Check if the song file needs to be imported by a SongImporter.
+     * <p>
+     * An imported song should be shown as savable.
+     *
+     * @param f
+     * @return False if f is a JJazzLab song file
+     */
+    boolean isImportedSongFile(File f);
+
     /**
      * Programmatically close all the editors associated to a song.
      *
@@ -0,0 +1,270 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.songeditormanager.api;
+
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.midimix.api.MidiMix;
+import org.jjazz.midimix.api.UserRhythmVoice;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.pianoroll.api.PianoRollEditorTopComponent;
+import org.jjazz.rhythm.api.RhythmVoice;
+import org.jjazz.rhythmdatabase.api.DefaultRhythmDatabase;
+import org.jjazz.rhythmdatabase.api.RhythmDatabase;
+import org.jjazz.song.api.Song;
+import org.jjazz.song.api.SongCreationException;
+import org.jjazz.song.api.SongFactory;
+import org.jjazz.songeditormanager.spi.SongEditorManager;
+import org.jjazz.songstructure.api.SongPart;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the ParallelSongLoader ordering, error isolation and duplicate handling.
+ */
+public class ParallelSongLoaderTest
+{
+
+    private TestSongEditorManager sem;
+    private List<File> errorFiles;
+
+    public ParallelSongLoaderTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        var rdb = (DefaultRhythmDatabase) RhythmDatabase.getDefault();
+        rdb.addRhythmsFromRhythmProviders(false, true, false);
+    }
+
+    @Before
+    public void setUp()
+    {
+        sem = new TestSongEditorManager();
+        errorFiles = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Songs are shown in the files order whatever their loading time, a file which fails to load does not block the next ones.
+     */
+    @Test
+    public void testOrderAndErrorIsolation() throws Exception
+    {
+        System.out.println("testOrderAndErrorIsolation");
+        var slow = new File("songs/slow.sng");
+        var bad = new File("songs/bad.sng");
+        var fast = new File("songs/fast.sng");
+        sem.loadDelays.put("slow.sng", 300L);
+
+        List<Song> songs = showSongs(List.of(slow, bad, fast), true);
+
+        assertEquals(List.of("slow.sng", "fast.sng"), getNames(songs));
+        assertEquals(List.of("slow.sng", "fast.sng"), getNames(sem.shownSongs));
+        assertEquals(List.of(fast), sem.activeFiles);
+        assertEquals(List.of(bad), errorFiles);
+    }
+
+    /**
+     * A file present several times is loaded and shown once, an already opened song is not loaded again.
+     */
+    @Test
+    public void testDuplicates() throws Exception
+    {
+        System.out.println("testDuplicates");
+        var a = new File("songs/a.sng");
+        var aBis = new File("songs/../songs/./a.sng");
+        var b = new File("songs/b.sng");
+        var opened = new File("songs/opened.sng");
+        var openedBis = new File("songs/../songs/opened.sng");
+        Song openedSong = SongFactory.getInstance().createEmptySong(opened.getName());
+        openedSong.setFile(opened);
+        sem.openedSongs.add(openedSong);
+
+        List<Song> songs = showSongs(List.of(a, b, aBis, opened, a), false);
+
+        assertEquals(List.of("a.sng", "b.sng", "opened.sng"), getNames(songs));
+        assertSame(openedSong, songs.get(2));
+
+
+        // An opened song referenced with a different path
+        songs = showSongs(List.of(openedBis), false);
+        assertEquals(1, songs.size());
+        assertSame(openedSong, songs.get(0));
+        assertEquals(2, sem.loadedFiles.size());
+        assertEquals(List.of("a.sng", "b.sng"), sem.loadedFiles.stream().map(File::getName).sorted().toList());
+        assertEquals(List.of(), sem.activeFiles);
+        assertEquals(List.of(), errorFiles);
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    private List<Song> showSongs(List<File> files, boolean makeLastActive) throws Exception
+    {
+        AtomicReference<CompletableFuture<List<Song>>> future = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> future.set(ParallelSongLoader.showSongs(sem, files, makeLastActive, false,
+                (f, ex) -> errorFiles.add(f))));
+        return future.get().get(10, TimeUnit.SECONDS);
+    }
+
+    private List<String> getNames(List<Song> songs)
+    {
+        return songs.stream().map(s -> s.getName()).toList();
+    }
+
+    // ===================================================================================
+    // Private classes
+    // ===================================================================================
+
+    /**
+     * Create empty songs named after the file name, "bad.sng" can't be loaded.
+     */
+    private static class TestSongEditorManager implements SongEditorManager
+    {
+
+        private final Map<String, Long> loadDelays = new ConcurrentHashMap<>();
+        private final List<File> loadedFiles = new CopyOnWriteArrayList<>();
+        private final List<Song> openedSongs = new ArrayList<>();
+        private final List<Song> shownSongs = new ArrayList<>();
+        private final List<File> activeFiles = new ArrayList<>();
+
+        @Override
+        public Song loadSong(File f) throws SongCreationException
+        {
+            loadedFiles.add(f);
+            try
+            {
+                Thread.sleep(loadDelays.getOrDefault(f.getName(), 0L));
+            } catch (InterruptedException ex)
+            {
+                throw new SongCreationException(ex);
+            }
+            if (f.getName().equals("bad.sng"))
+            {
+                throw new SongCreationException("Can't read " + f);
+            }
+            Song song = SongFactory.getInstance().createEmptySong(f.getName(), 4, "A", TimeSignature.FOUR_FOUR, "C");
+            song.setFile(f);
+            return song;
+        }
+
+        @Override
+        public void showSong(Song song, boolean makeActive, boolean savable)
+        {
+            assertTrue(SwingUtilities.isEventDispatchThread());
+            if (!openedSongs.contains(song))
+            {
+                openedSongs.add(song);
+            }
+            shownSongs.add(song);
+            if (makeActive)
+            {
+                activeFiles.add(song.getFile());
+            }
+        }
+
+        @Override
+        public List<Song> getOpenedSongs()
+        {
+            return new ArrayList<>(openedSongs);
+        }
+
+        @Override
+        public boolean isImportedSongFile(File f)
+        {
+            return false;
+        }
+
+        @Override
+        public Song showSong(File f, boolean makeActive, boolean updateLastSongDirectory) throws SongCreationException
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean closeSong(Song song, boolean enforce)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SongEditorSet getSongEditorSet(Song s)
+        {
+            return null;
+        }
+
+        @Override
+        public PianoRollEditorTopComponent showPianoRollEditorForSptCustomPhrase(Song song, MidiMix midiMix, SongPart spt, RhythmVoice rv,
+                Phrase p)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PianoRollEditorTopComponent showPianoRollEditorForUserTrack(Song song, MidiMix midiMix, UserRhythmVoice userRhythmVoice)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setOpenLastFilesUponStartup(boolean b)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isOpenLastFilesUponStartup()
+        {
+            return false;
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener l)
+        {
+            // Nothing
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener l)
+        {
+            // Nothing
+        }
+    }
+}
@@ -24,37 +24,243 @@
  */
 package org.jjazz.startup;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jjazz.startup.spi.OnStartTask;
 import org.openide.modules.OnStart;
+import org.openide.modules.Places;
 import org.openide.util.Lookup;
 
 /**
- * Execute OnStart startup tasks based on ascending priority order.
+ * Execute OnStart startup tasks based on ascending priority order and declared dependencies.
+ * <p>
+ * A task is started as soon as all its dependencies are complete, so independent tasks run concurrently. CPU-bound tasks run on a pool
+ * sized on the number of processors, IO-bound tasks on a separate pool. The method returns when all tasks are complete.
+ * <p>
+ * A per-task timing report is logged and saved in the startup profile file (in the user directory log folder).
+ *
+ * @see OnStartTask#getDependencies()
  */
 @OnStart
 public class OnStartStartupManager implements Runnable
 {
 
+    public static final String STARTUP_PROFILE_FILENAME = "startup-profile.txt";
+
+    /**
+     * Execution data of a task.
+     */
+    private record TaskTiming(OnStartTask task, String threadName, long startMs, long durationMs)
+            {
+
+    }
+
+    private long startNanoTime;
+    private final List<TaskTiming> timings = Collections.synchronizedList(new ArrayList<>());
     private static final Logger LOGGER = Logger.getLogger(OnStartStartupManager.class.getSimpleName());
 
     @Override
     public void run()
     {
         // Get all tasks sorted by priority
-        var res = new ArrayList<>(Lookup.getDefault().lookupAll(OnStartTask.class));
+        List<OnStartTask> res = new ArrayList<>(Lookup.getDefault().lookupAll(OnStartTask.class));
         Collections.sort(res, (t1, t2) -> Integer.compare(t1.getPriority(), t2.getPriority()));
+
+
+        startNanoTime = System.nanoTime();
+        int nbCpuThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService cpuExecutor = Executors.newFixedThreadPool(nbCpuThreads, getThreadFactory("OnStartTask-cpu"));
+        ExecutorService ioExecutor = Executors.newCachedThreadPool(getThreadFactory("OnStartTask-io"));
+
+
+        // Chain the tasks depending on their dependencies
+        Map<OnStartTask, CompletableFuture<Void>> mapTaskFuture = new HashMap<>();
         for (var task : res)
         {
-            LOGGER.log(Level.INFO, "Starting task {1} : {0}", new Object[]
+            getFuture(task, res, mapTaskFuture, new HashSet<>(), cpuExecutor, ioExecutor);
+        }
+
+
+        // Wait for completion
+        try
+        {
+            CompletableFuture.allOf(mapTaskFuture.values().toArray(CompletableFuture[]::new)).join();
+        } finally
+        {
+            cpuExecutor.shutdown();
+            ioExecutor.shutdown();
+        }
+
+        saveReport(toReport(res));
+    }
+
+    // =================================================================================
+    // Private methods
+    // =================================================================================
+
+    /**
+     * Get the future of task, create it if required (and the futures of its dependencies).
+     *
+     * @param task
+     * @param tasks         All the tasks ordered by priority
+     * @param mapTaskFuture
+     * @param visiting      The tasks being processed, to detect dependency cycles
+     * @param cpuExecutor
+     * @param ioExecutor
+     * @return
+     */
+    private CompletableFuture<Void> getFuture(OnStartTask task, List<OnStartTask> tasks, Map<OnStartTask, CompletableFuture<Void>> mapTaskFuture,
+            Set<OnStartTask> visiting, ExecutorService cpuExecutor, ExecutorService ioExecutor)
+    {
+        var res = mapTaskFuture.get(task);
+        if (res != null)
+        {
+            return res;
+        }
+        visiting.add(task);
+
+
+        // Get the dependency futures
+        List<CompletableFuture<Void>> depFutures = new ArrayList<>();
+        for (var depTask : getDependencyTasks(task, tasks))
+        {
+            if (visiting.contains(depTask))
             {
-                task.getName(), task.getPriority()
-            });
+                LOGGER.log(Level.WARNING, "getFuture() Dependency cycle detected, ignoring dependency {0} of task {1}", new Object[]
+                {
+                    depTask.getName(), task.getName()
+                });
+                continue;
+            }
+            depFutures.add(getFuture(depTask, tasks, mapTaskFuture, visiting, cpuExecutor, ioExecutor));
+        }
+
+
+        var executor = task.getTaskType() == OnStartTask.TaskType.IO ? ioExecutor : cpuExecutor;
+        res = CompletableFuture.allOf(depFutures.toArray(CompletableFuture[]::new))
+                .handle((v, ex) -> null)        // A failed dependency should not prevent the execution of a task
+                .thenRunAsync(() -> runTask(task), executor);
+        mapTaskFuture.put(task, res);
+        visiting.remove(task);
+        return res;
+    }
+
+    private List<OnStartTask> getDependencyTasks(OnStartTask task, List<OnStartTask> tasks)
+    {
+        List<OnStartTask> res = new ArrayList<>();
+        var depNames = task.getDependencies();
+        if (depNames == null)
+        {
+            // Legacy behavior, depends on all the preceding tasks
+            res.addAll(tasks.subList(0, tasks.indexOf(task)));
+        } else
+        {
+            for (var depName : depNames)
+            {
+                var depTask = tasks.stream()
+                        .filter(t -> t.getName().equals(depName))
+                        .findAny()
+                        .orElse(null);
+                if (depTask == null)
+                {
+                    LOGGER.log(Level.WARNING, "getDependencyTasks() Unknown dependency {0} for task {1}, ignored", new Object[]
+                    {
+                        depName, task.getName()
+                    });
+                } else if (depTask != task)
+                {
+                    res.add(depTask);
+                }
+            }
+        }
+        return res;
+    }
+
+    private void runTask(OnStartTask task)
+    {
+        LOGGER.log(Level.INFO, "Starting task {1} : {0}", new Object[]
+        {
+            task.getName(), task.getPriority()
+        });
+        long start = System.nanoTime();
+        try
+        {
             task.run();
+        } catch (Throwable t)
+        {
+            LOGGER.log(Level.SEVERE, "runTask() Unexpected error in task " + task.getName(), t);
+        } finally
+        {
+            long end = System.nanoTime();
+            timings.add(new TaskTiming(task, Thread.currentThread().getName(), (start - startNanoTime) / 1000000, (end - start) / 1000000));
+        }
+    }
+
+    private String toReport(List<OnStartTask> tasks)
+    {
+        long totalMs = (System.nanoTime() - startNanoTime) / 1000000;
+        long sumMs = 0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("OnStart tasks: %d tasks, total=%dms%n", tasks.size(), totalMs));
+        synchronized (timings)
+        {
+            timings.sort((t1, t2) -> Long.compare(t1.startMs(), t2.startMs()));
+            for (var timing : timings)
+            {
+                var task = timing.task();
+                sb.append(String.format("  %-45s priority=%-5d type=%-3s start=%6dms duration=%6dms thread=%s%n",
+                        task.getName(), task.getPriority(), task.getTaskType(), timing.startMs(), timing.durationMs(), timing.threadName()));
+                sumMs += timing.durationMs();
+            }
+        }
+        sb.append(String.format("Sequential duration would be %dms", sumMs));
+        return sb.toString();
+    }
+
+    private void saveReport(String report)
+    {
+        LOGGER.log(Level.INFO, "run() {0}", report);
+
+        File userDir = Places.getUserDirectory();
+        if (userDir == null)
+        {
+            return;
         }
+        File logDir = new File(userDir, "var/log");
+        try
+        {
+            Files.createDirectories(logDir.toPath());
+            Files.writeString(new File(logDir, STARTUP_PROFILE_FILENAME).toPath(), report);
+        } catch (IOException ex)
+        {
+            LOGGER.log(Level.WARNING, "saveReport() Can''t save startup profile: {0}", ex.getMessage());
+        }
+    }
+
+    private ThreadFactory getThreadFactory(String baseName)
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return r ->
+        {
+            Thread t = new Thread(r, baseName + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
     }
 
 }
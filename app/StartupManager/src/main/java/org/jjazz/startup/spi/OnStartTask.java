@@ -22,9 +22,14 @@
  */
 package org.jjazz.startup.spi;
 
+import java.util.Set;
+
 /**
  * A startup task which will be executed by StartupManager in priority ascending order when platform is ready (see @onStart).
  * <p>
+ * A task can declare explicit dependencies with getDependencies(): it is then run as soon as its dependencies are complete,
+ * possibly in parallel with other tasks.
+ * <p>
  * If order of execution does not matter, you might directly use @OnStart instead.
  * <p>
  * NOTE: Do not directly use NotifyDialog in these tasks, use OnStartMessageNotifier instead.
@@ -34,6 +39,17 @@ package org.jjazz.startup.spi;
 public interface OnStartTask
 {
 
+    /**
+     * The kind of work done by a task.
+     * <p>
+     * Used to select the thread pool: CPU-bound tasks share a pool sized on the number of processors, IO-bound tasks get their own
+     * thread.
+     */
+    public enum TaskType
+    {
+        CPU, IO
+    }
+
     /**
      * This method is called upon startup when UI is ready.
      * <p>
@@ -43,7 +59,7 @@ public interface OnStartTask
     /**
      * Get the priority of the task.
      * <p>
-     * When UI is ready tasks are executed one after the other by priority ascending order.
+     * Tasks are started by priority ascending order, when their dependencies are complete.
      *
      * @return
      */
@@ -58,4 +74,28 @@ public interface OnStartTask
      */
     String getName();
 
+    /**
+     * The names of the tasks which must be complete before this task is run.
+     * <p>
+     * Unknown task names are ignored.
+     *
+     * @return Null (default) means this task depends on all the tasks which precede it in priority order (sequential execution). An
+     *         empty set means this task does not depend on any other task.
+     * @see #getName()
+     */
+    default Set<String> getDependencies()
+    {
+        return null;
+    }
+
+    /**
+     * The kind of work done by this task.
+     *
+     * @return Default is TaskType.CPU
+     */
+    default TaskType getTaskType()
+    {
+        return TaskType.CPU;
+    }
+
 }
@@ -9,12 +9,14 @@ import java.io.InputStream;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,7 +64,24 @@ public class WbpDatabase
     private final List<WbpSource> wbpSources;
     private final Map<String, WbpSource> mapIdWbpSource;
     private final Multimap<ChordType, WbpSource> mmapSimplifiedChordTypeOneBarWbpSource;
-    private final Map<KeyablePredicate<?>, List<WbpSource>> mapFilterSources = new HashMap<>();
+    /**
+     * Inverted index: rootProfile => WbpSources. Note that the root profile also encodes the bar count.
+     */
+    private final Map<String, List<WbpSource>> mapRootProfileWbpSources;
+    /**
+     * Inverted index: rootProfile => chord types sequence => WbpSources.
+     */
+    private final Map<String, Map<List<ChordType>, List<WbpSource>>> mapRootProfileChordTypesWbpSources;
+    private final Map<KeyablePredicate<?>, List<WbpSource>> mapFilterSources = new ConcurrentHashMap<>();
+    private final Map<ChordTypesQuery, List<WbpSource>> mapQueryWbpSources = new ConcurrentHashMap<>();
+
+    /**
+     * A key to cache the results of getWbpSources(SimpleChordSequence, float).
+     */
+    private record ChordTypesQuery(String rootProfile, List<ChordType> chordTypes, float minChordTypeScore)
+            {
+
+    }
 
     private static final Logger LOGGER = Logger.getLogger(WbpDatabase.class.getSimpleName());
 
@@ -84,6 +103,8 @@ public class WbpDatabase
         wbpSources = new ArrayList<>();
         mapIdWbpSource = new HashMap<>();
         mmapSimplifiedChordTypeOneBarWbpSource = MultimapBuilder.hashKeys().arrayListValues().build();
+        Map<String, List<WbpSource>> mapRp = new HashMap<>();
+        Map<String, Map<List<ChordType>, List<WbpSource>>> mapRpCts = new HashMap<>();
 
 
         for (var wbpSession : wbpSessions)
@@ -102,8 +123,25 @@ public class WbpDatabase
                     var ct = simplifyChordType(wbpSource.getSimpleChordSequence().first().getData().getChordType());
                     mmapSimplifiedChordTypeOneBarWbpSource.put(ct, wbpSource);
                 }
+                String rp = wbpSource.getRootProfile();
+                mapRp.computeIfAbsent(rp, k -> new ArrayList<>()).add(wbpSource);
+                mapRpCts.computeIfAbsent(rp, k -> new HashMap<>())
+                        .computeIfAbsent(getChordTypes(wbpSource.getSimpleChordSequence()), k -> new ArrayList<>())
+                        .add(wbpSource);
             }
         }
+
+
+        // Make the indexes immutable so they can be read concurrently
+        mapRootProfileWbpSources = new HashMap<>();
+        mapRp.forEach((rp, list) -> mapRootProfileWbpSources.put(rp, List.copyOf(list)));
+        mapRootProfileChordTypesWbpSources = new HashMap<>();
+        mapRpCts.forEach((rp, map) -> 
+        {
+            Map<List<ChordType>, List<WbpSource>> mapCts = new HashMap<>();
+            map.forEach((cts, list) -> mapCts.put(cts, List.copyOf(list)));
+            mapRootProfileChordTypesWbpSources.put(rp, mapCts);
+        });
     }
 
     public List<WbpSession> getWbpSessions()
@@ -210,9 +248,40 @@ public class WbpDatabase
      */
     public List<WbpSource> getWbpSources(String rootProfile)
     {
-        Predicate<WbpSource> tester = wbps -> wbps.getRootProfile().equals(rootProfile);
-        var dbTester = new KeyablePredicate(rootProfile, tester);
-        return getWbpSources(dbTester);
+        return mapRootProfileWbpSources.getOrDefault(rootProfile, Collections.emptyList());
+    }
+
+    /**
+     * Get the WbpSources which match the root profile of scs and whose chord types are similar enough to the chord types of scs.
+     * <p>
+     * A WbpSource is returned only if each of its chord types has a ChordType.getSimilarityScore() (with acceptAbsentDegrees=true) &gt;=
+     * minChordTypeScore with the corresponding chord type of scs. The similarity is computed once per distinct chord types sequence of
+     * the database. Results are cached. Method is thread-safe.
+     *
+     * @param scs
+     * @param minChordTypeScore
+     * @return An immutable list
+     * @see SimpleChordSequence#getChordTypeSimilarityScore(org.jjazz.rhythmmusicgeneration.api.SimpleChordSequence, float, boolean)
+     */
+    public List<WbpSource> getWbpSources(SimpleChordSequence scs, float minChordTypeScore)
+    {
+        var query = new ChordTypesQuery(scs.getRootProfile(), getChordTypes(scs), minChordTypeScore);
+        return mapQueryWbpSources.computeIfAbsent(query, q -> 
+        {
+            var mapCts = mapRootProfileChordTypesWbpSources.getOrDefault(q.rootProfile(), Collections.emptyMap());
+            Set<WbpSource> compatibleWbpSources = new HashSet<>();
+            for (var cts : mapCts.keySet())
+            {
+                if (isSimilarEnough(q.chordTypes(), cts, q.minChordTypeScore()))
+                {
+                    compatibleWbpSources.addAll(mapCts.get(cts));
+                }
+            }
+            // Keep the database order
+            return getWbpSources(q.rootProfile()).stream()
+                    .filter(wbps -> compatibleWbpSources.contains(wbps))
+                    .toList();
+        });
     }
 
     public void dump()
@@ -453,6 +522,37 @@ public class WbpDatabase
         return ct.getSimplified(4);
     }
 
+    private List<ChordType> getChordTypes(SimpleChordSequence scs)
+    {
+        return scs.stream()
+                .map(cliCs -> cliCs.getData().getChordType())
+                .toList();
+    }
+
+    /**
+     * Same test than SimpleChordSequence.getChordTypeSimilarityScore().
+     *
+     * @param cts1
+     * @param cts2
+     * @param minChordTypeScore
+     * @return
+     */
+    private boolean isSimilarEnough(List<ChordType> cts1, List<ChordType> cts2, float minChordTypeScore)
+    {
+        if (cts1.size() != cts2.size())
+        {
+            return false;
+        }
+        for (int i = 0; i < cts1.size(); i++)
+        {
+            if (cts1.get(i).getSimilarityScore(cts2.get(i), true) < minChordTypeScore)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
 
     // ==========================================================================================================
     // Inner classes
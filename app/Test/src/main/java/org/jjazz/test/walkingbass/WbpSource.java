@@ -1,9 +1,9 @@
 package org.jjazz.test.walkingbass;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jjazz.harmony.api.Chord;
@@ -60,7 +60,7 @@ public class WbpSource extends Wbp
         this.tags = session.getTags();
         this.firstNoteBeatShift = firstNoteBeatShift;
         this.rootProfile = cSeq.getRootProfile();
-        mapDestChordRootTransposibility = new HashMap<>();
+        mapDestChordRootTransposibility = new ConcurrentHashMap<>();     // Accessed by parallel BestWbpsaStore initialization
     }
 
     /**
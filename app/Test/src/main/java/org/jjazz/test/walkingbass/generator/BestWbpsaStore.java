@@ -28,8 +28,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SortedSetMultimap;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jjazz.rhythmmusicgeneration.api.SimpleChordSequence;
@@ -155,55 +158,77 @@ public class BestWbpsaStore
     // =================================================================================================================
     /**
      * For each usable bar add the most compatible WbpSourceAdptations of wbpSourceSize.
+     * <p>
+     * Bars are scored in parallel: each bar is processed independently, then results are merged in mmapWbpsAdaptations.
      */
     private void initialize()
     {
-        for (int bar : usableBars)
+        Set<Integer> usableBarsSet = new HashSet<>(usableBars);
+        var barResults = usableBars.parallelStream()
+                .map(bar -> getBestWbpSourceAdaptations(bar, usableBarsSet))
+                .toList();
+
+        for (int i = 0; i < usableBars.size(); i++)
         {
-            IntRange br = new IntRange(bar, bar + wbpSourceSize - 1);
-            if (isUsable(br))
-            {
-                SimpleChordSequence subSeq = simpleChordSequenceExt.subSequence(br, true);
-                List<WbpSource> rpWbpSources = getRootProfileCompatibleWbpSources(subSeq);
-                for (WbpSource wbpSource : rpWbpSources)
-                {
-                    WbpSourceAdaptation wbpsa = new WbpSourceAdaptation(wbpSource, subSeq);
-                    addIfCompatibleEnough(bar, wbpsa);
-                }
-                if (rpWbpSources.isEmpty())
-                {
-                    LOGGER.log(Level.FINE, "initialize() No {0}-bar rpSources found for {1}", new Object[]
-                    {
-                        wbpSourceSize, subSeq
-                    });
-                }
-            }
+            mmapWbpsAdaptations.putAll(usableBars.get(i), barResults.get(i));
         }
     }
 
     /**
-     * Add a WbpSourceAdaptation for the specified bar.
+     * Get the most compatible WbpSourceAdaptations for a bar.
      * <p>
+     * Candidate WbpSources are pruned using the WbpDatabase root profile and chord types indexes before being scored.
+     *
+     * @param bar
+     * @param usableBarsSet
+     * @return Sorted by descending compatibility score, max nbBestMax elements. Can be empty.
+     */
+    private SortedSet<WbpSourceAdaptation> getBestWbpSourceAdaptations(int bar, Set<Integer> usableBarsSet)
+    {
+        SortedSet<WbpSourceAdaptation> res = new TreeSet<>();
+        IntRange br = new IntRange(bar, bar + wbpSourceSize - 1);
+        if (!br.stream().allMatch(b -> usableBarsSet.contains(b)))
+        {
+            return res;
+        }
+
+        SimpleChordSequence subSeq = simpleChordSequenceExt.subSequence(br, true);
+        List<WbpSource> rpWbpSources = getCompatibleWbpSources(subSeq);
+        for (WbpSource wbpSource : rpWbpSources)
+        {
+            WbpSourceAdaptation wbpsa = new WbpSourceAdaptation(wbpSource, subSeq);
+            addIfCompatibleEnough(res, wbpsa);
+        }
+        if (rpWbpSources.isEmpty())
+        {
+            LOGGER.log(Level.FINE, "getBestWbpSourceAdaptations() No {0}-bar compatible sources found for {1}", new Object[]
+            {
+                wbpSourceSize, subSeq
+            });
+        }
+        return res;
+    }
+
+    /**
+     * Add a WbpSourceAdaptation to a bar result.
      * <p>
      * If absolute wbpsa compatibility score is not good enough, or is good enough but not in the getNbBestMax() best ones, wbpsa is not added.
      *
-     * @param bar
-     * @param wbpsa Can't be null
+     * @param wbpsas The bar result
+     * @param wbpsa  Can't be null
      * @return True if wbpsa was actually added.
-     * @throws IllegalArgumentException If bar is not a usable bar
      */
-    private boolean addIfCompatibleEnough(int bar, WbpSourceAdaptation wbpsa)
+    private boolean addIfCompatibleEnough(SortedSet<WbpSourceAdaptation> wbpsas, WbpSourceAdaptation wbpsa)
     {
         if (wbpsa.getCompatibilityScore().overall() < WbpSourceAdaptation.MIN_INDIVIDUAL_CHORDTYPE_COMPATIBILITY_SCORE)
         {
             return false;
         }
 
-        mmapWbpsAdaptations.put(bar, wbpsa);
+        wbpsas.add(wbpsa);
         boolean b = true;
 
         // Make sure we do not exceed nbBestMax values
-        SortedSet<WbpSourceAdaptation> wbpsas = mmapWbpsAdaptations.get(bar);
         if (wbpsas.size() > nbBestMax)
         {
             wbpsas.remove(wbpsa);
@@ -213,26 +238,21 @@ public class BestWbpsaStore
     }
 
     /**
-     * Get the WbpSources which match the root profile of scs.
+     * Get the WbpSources which match the root profile of scs and whose chord types are compatible enough.
      * <p>
+     * WbpSources rejected here would get a chord type score of 0, so they could not reach MIN_INDIVIDUAL_CHORDTYPE_COMPATIBILITY_SCORE.
      *
      * @param scs
      * @return
      */
-    private List<WbpSource> getRootProfileCompatibleWbpSources(SimpleChordSequence scs)
+    private List<WbpSource> getCompatibleWbpSources(SimpleChordSequence scs)
     {
-        String rp = scs.getRootProfile();
-        LOGGER.log(Level.FINE, "getRootProfileCompatibleWbpSources() -- scs={0} rp={1}", new Object[]
+        LOGGER.log(Level.FINE, "getCompatibleWbpSources() -- scs={0} rp={1}", new Object[]
         {
-            scs, rp
+            scs, scs.getRootProfile()
         });
-        List<WbpSource> res = WbpDatabase.getInstance().getWbpSources(rp);
+        List<WbpSource> res = WbpDatabase.getInstance().getWbpSources(scs, WbpSourceAdaptation.MIN_INDIVIDUAL_CHORDTYPE_COMPATIBILITY_SCORE);
         return res;
     }
 
-    private boolean isUsable(IntRange br)
-    {
-        return br.stream().allMatch(bar -> usableBars.contains(bar));
-    }
-
 }
@@ -27,7 +27,9 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Properties;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.BackingStoreException;
@@ -365,6 +367,7 @@ public class UpgradeManager
          * Should run early in order to update the modules preferences before instances are created
          */
         public static final int ONSTART_TASK_PRIORITY = 0;
+        public static final String ONSTART_TASK_NAME = "UpgradeManager";
 
         @Override
         public void run()
@@ -416,7 +419,19 @@ public class UpgradeManager
         @Override
         public String getName()
         {
-            return "UpgradeManager";
+            return ONSTART_TASK_NAME;
+        }
+
+        @Override
+        public Set<String> getDependencies()
+        {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public TaskType getTaskType()
+        {
+            return TaskType.IO;
         }
     }
 
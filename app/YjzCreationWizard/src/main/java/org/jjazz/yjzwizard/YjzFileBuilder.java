@@ -85,8 +85,8 @@ public class YjzFileBuilder
         // Get the base rhythm & style
         var r = RhythmDatabase.getDefault().getRhythmInstance(baseRhythmInfo);
         assert r instanceof YamJJazzRhythm : "r.getClass()=" + r.getClass();   //NOI18N
-        r.loadResources();  // Make source phrases are loaded
         baseRhythmInstance = (YamJJazzRhythm) r;
+        baseRhythmInstance.loadAllStylePartResources();  // Make source phrases are loaded
         assert !baseRhythmInstance.isExtendedRhythm() : "baseRhythm=" + baseRhythmInstance;   //NOI18N
         baseStyle = baseRhythmInstance.getStyle();
 
@@ -33,6 +33,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -47,6 +48,8 @@ import org.jjazz.harmony.api.TimeSignature;
 import org.jjazz.chordleadsheet.api.Section;
 import org.jjazz.chordleadsheet.api.ChordLeadSheet;
 import org.jjazz.chordleadsheet.api.event.*;
+import org.jjazz.chordleadsheet.api.item.CLI_BarAnnotation;
+import org.jjazz.chordleadsheet.api.item.CLI_ChordSymbol;
 import org.jjazz.chordleadsheet.api.item.CLI_Section;
 import org.jjazz.chordleadsheet.api.item.ChordLeadSheetItem;
 import org.jjazz.chordleadsheet.item.CLI_SectionImpl;
@@ -69,12 +72,21 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
     /**
      * The main data structure: store the items sorted.
+     * <p>
+     * Only accessed by writers (synchronized). Readers use the immutable snapshot.
      */
     private final TreeSet<ChordLeadSheetItem> items = new TreeSet<>();
     /**
      * The size of the leadsheet.
      */
     private int size;
+    /**
+     * Immutable read-only view of items and size, rebuilt lazily after a change.
+     * <p>
+     * Read methods don't lock: they only wait if the snapshot needs to be rebuilt after a change. Items are modified in place by writers, so the snapshot
+     * captures the item positions: searches never depend on a live item position.
+     */
+    private transient volatile ItemsSnapshot snapshot;
     /**
      * The listeners for changes in this LeadSheet.
      */
@@ -83,6 +95,15 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
      * The listeners for undoable edits in this LeadSheet.
      */
     protected transient List<UndoableEditListener> undoListeners = new ArrayList<>();
+    /**
+     * Estimated memory size of an undoable edit with its presentation name and undo/redo data references.
+     */
+    private static final long EDIT_ESTIMATED_SIZE = 150;
+    /**
+     * Estimated memory size of an item with its data and client properties, retained by an edit when the item is removed.
+     */
+    private static final long ITEM_ESTIMATED_SIZE = 400;
+    private static final long POSITION_ESTIMATED_SIZE = 32;
     private static final Logger LOGGER = Logger.getLogger(ChordLeadSheetImpl.class.getSimpleName());
 
     public ChordLeadSheetImpl(String initSection, TimeSignature ts, int size)
@@ -111,9 +132,9 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
     @Override
-    public synchronized int getSizeInBars()
+    public int getSizeInBars()
     {
-        return size;
+        return getSnapshot().size();
     }
 
     @Override
@@ -218,6 +239,39 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
     }
 
 
+    /**
+     * Overridden to use a binary search on the sections bar index.
+     *
+     * @param barIndex
+     * @return
+     */
+    @Override
+    public CLI_Section getSection(int barIndex)
+    {
+        Preconditions.checkArgument(barIndex >= 0, "barIndex=%s", barIndex);
+        var snap = getSnapshot();
+        int i = Arrays.binarySearch(snap.sectionBars(), barIndex);
+        if (i < 0)
+        {
+            i = -i - 2;         // Insertion point - 1
+        }
+        return i >= 0 ? (CLI_Section) snap.sections().items()[i] : null;        // i=-1 only possible while initial section is being replaced
+    }
+
+    @Override
+    public CLI_Section getSection(String sectionName)
+    {
+        for (var item : getSnapshot().sections().items())
+        {
+            var cliSection = (CLI_Section) item;
+            if (cliSection.getData().getName().equals(sectionName))
+            {
+                return cliSection;
+            }
+        }
+        return null;
+    }
+
     @Override
     public void cleanup()
     {
@@ -225,14 +279,19 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
     }
 
     @Override
-    public synchronized boolean contains(ChordLeadSheetItem<?> item)
+    public boolean contains(ChordLeadSheetItem<?> item)
     {
-        return items.contains(item);
+        if (item == null)
+        {
+            return false;
+        }
+        var index = getSnapshot().getIndex(item.getClass());
+        return index.binarySearch(item) >= 0;
     }
 
 
     @Override
-    public synchronized <T extends ChordLeadSheetItem<?>> T getFirstItemAfter(Position posFrom, boolean inclusiveFrom, Class<T> itemClass, Predicate<T> tester)
+    public <T extends ChordLeadSheetItem<?>> T getFirstItemAfter(Position posFrom, boolean inclusiveFrom, Class<T> itemClass, Predicate<T> tester)
     {
         var itemFrom = ChordLeadSheetItem.createItemFrom(posFrom, inclusiveFrom);
         T res = getFirstItemAfter(itemFrom, itemClass, tester);
@@ -240,7 +299,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
     }
 
     @Override
-    public synchronized <T extends ChordLeadSheetItem<?>> T getFirstItemAfter(ChordLeadSheetItem<?> cli, Class<T> itemClass, Predicate<T> tester)
+    public <T extends ChordLeadSheetItem<?>> T getFirstItemAfter(ChordLeadSheetItem<?> cli, Class<T> itemClass, Predicate<T> tester)
     {
         Preconditions.checkNotNull(cli);
         Preconditions.checkNotNull(tester);
@@ -248,9 +307,10 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
         T res = null;
 
-        var tailSet = items.tailSet(cli, false);
-        for (var item : tailSet)
+        var index = getSnapshot().getIndex(itemClass);
+        for (int i = index.indexAfter(cli); i < index.items().length; i++)
         {
+            var item = index.items()[i];
             if (itemClass.isAssignableFrom(item.getClass()))
             {
                 T itemT = (T) item;
@@ -267,7 +327,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
     @Override
-    public synchronized <T extends ChordLeadSheetItem<?>> T getLastItemBefore(Position posTo, boolean inclusiveTo, Class<T> itemClass, Predicate<T> tester)
+    public <T extends ChordLeadSheetItem<?>> T getLastItemBefore(Position posTo, boolean inclusiveTo, Class<T> itemClass, Predicate<T> tester)
     {
         var itemTo = ChordLeadSheetItem.createItemTo(posTo, inclusiveTo);
         T res = getLastItemBefore(itemTo, itemClass, tester);
@@ -275,18 +335,17 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
     }
 
     @Override
-    public synchronized <T extends ChordLeadSheetItem<?>> T getLastItemBefore(ChordLeadSheetItem<?> cli, Class<T> itemClass, Predicate<T> tester)
+    public <T extends ChordLeadSheetItem<?>> T getLastItemBefore(ChordLeadSheetItem<?> cli, Class<T> itemClass, Predicate<T> tester)
     {
         Preconditions.checkNotNull(cli);
         Preconditions.checkNotNull(tester);
         Preconditions.checkNotNull(itemClass);
         T res = null;
 
-        var headSet = items.headSet(cli, false);
-        var it = headSet.descendingIterator();
-        while (it.hasNext())
+        var index = getSnapshot().getIndex(itemClass);
+        for (int i = index.indexBefore(cli) - 1; i >= 0; i--)
         {
-            var item = it.next();
+            var item = index.items()[i];
             if (itemClass.isAssignableFrom(item.getClass()))
             {
                 T itemT = (T) item;
@@ -303,7 +362,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
     @Override
-    public synchronized <T extends ChordLeadSheetItem<?>> List<T> getItems(Position posFrom, boolean inclusiveFrom, Position posTo, boolean inclusiveTo,
+    public <T extends ChordLeadSheetItem<?>> List<T> getItems(Position posFrom, boolean inclusiveFrom, Position posTo, boolean inclusiveTo,
             Class<T> itemClass,
             Predicate<T> tester)
     {
@@ -312,12 +371,15 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         Preconditions.checkNotNull(tester);
         Preconditions.checkNotNull(itemClass);
 
-        var rangeItems = items.subSet(ChordLeadSheetItem.createItemFrom(posFrom, inclusiveFrom),
-                false, // useless because of createItemFrom
-                ChordLeadSheetItem.createItemTo(posTo, inclusiveTo),
-                false);   // useless because of createItemFrom
+        var index = getSnapshot().getIndex(itemClass);
+        int from = index.indexAfter(ChordLeadSheetItem.createItemFrom(posFrom, inclusiveFrom));
+        int to = index.indexBefore(ChordLeadSheetItem.createItemTo(posTo, inclusiveTo));
+        if (from >= to)
+        {
+            return List.of();
+        }
 
-        var res = rangeItems.stream()
+        var res = Arrays.stream(index.items(), from, to)
                 .filter(item -> itemClass.isAssignableFrom(item.getClass()))
                 .map(cli -> (T) cli)
                 .filter(cli -> tester.test(cli))
@@ -455,11 +517,12 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         synchronized (this)
         {
             size = newSize;
+            snapshot = null;
         }
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Set Size " + newSize)
+        UndoableEdit edit = new SimpleEdit("Set Size " + newSize, EDIT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -468,6 +531,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
                 synchronized (ChordLeadSheetImpl.this)
                 {
                     size = oldSize;
+                    snapshot = null;
                 }
                 fireAuthorizedChangeEvent(new SizeChangedEvent(ChordLeadSheetImpl.this, newSize, oldSize));
             }
@@ -479,6 +543,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
                 synchronized (ChordLeadSheetImpl.this)
                 {
                     size = newSize;
+                    snapshot = null;
                 }
                 fireAuthorizedChangeEvent(new SizeChangedEvent(ChordLeadSheetImpl.this, oldSize, newSize));
             }
@@ -531,7 +596,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Add " + wItem)
+        UndoableEdit edit = new SimpleEdit("Add " + wItem, EDIT_ESTIMATED_SIZE + ITEM_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -603,7 +668,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Add section " + wSection)
+        UndoableEdit edit = new SimpleEdit("Add section " + wSection, EDIT_ESTIMATED_SIZE + ITEM_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -667,7 +732,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Remove section " + cliSection)
+        UndoableEdit edit = new SimpleEdit("Remove section " + cliSection, EDIT_ESTIMATED_SIZE + ITEM_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -755,7 +820,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         changeItemPositionChecked(cliSection, new Position(newBarIndex));
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Move " + cliSection)
+        UndoableEdit edit = new SimpleEdit("Move " + cliSection, EDIT_ESTIMATED_SIZE + 2 * POSITION_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -803,7 +868,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         removeItemChecked(item);
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Remove " + item)
+        UndoableEdit edit = new SimpleEdit("Remove " + item, EDIT_ESTIMATED_SIZE + ITEM_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -858,7 +923,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Move " + item)
+        UndoableEdit edit = new SimpleEdit("Move " + item, EDIT_ESTIMATED_SIZE + 2 * POSITION_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -918,7 +983,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Change " + item)
+        UndoableEdit edit = new SimpleEdit("Change " + item, EDIT_ESTIMATED_SIZE + ITEM_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1218,7 +1283,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
             }
 
             // Create the undoable event        
-            UndoableEdit edit = new SimpleEdit("Remove items")
+            UndoableEdit edit = new SimpleEdit("Remove items", EDIT_ESTIMATED_SIZE + removedItems.size() * ITEM_ESTIMATED_SIZE)
             {
                 @Override
                 public void undoBody()
@@ -1334,7 +1399,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         }
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Move items " + nbBars + " bars")
+        UndoableEdit edit = new SimpleEdit("Move items " + nbBars + " bars", EDIT_ESTIMATED_SIZE + 2L * newPositions.size() * POSITION_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1421,7 +1486,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Change Section " + cliSection)
+        UndoableEdit edit = new SimpleEdit("Change Section " + cliSection, EDIT_ESTIMATED_SIZE + ITEM_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1468,7 +1533,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         removeItemChecked(cliSection);
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Remove initial section " + cliSection)
+        UndoableEdit edit = new SimpleEdit("Remove initial section " + cliSection, EDIT_ESTIMATED_SIZE + ITEM_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1502,6 +1567,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
     {
         var b = items.add(item);
         assert b : "item=" + item + " items=" + items;
+        snapshot = null;
 
         item.getClientProperties().addPropertyChangeListener(this);
     }
@@ -1510,6 +1576,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
     {
         var b = items.remove(item);
         assert b : "item=" + item + " items=" + items;
+        snapshot = null;
 
         item.getClientProperties().removePropertyChangeListener(this);
     }
@@ -1523,6 +1590,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         wItem.setData(newData);
         items.add(wItem);
         assert b : "wItem=" + wItem + " newData=" + newData + " items=" + items;
+        snapshot = null;
     }
 
     private synchronized <T> void changeItemPositionChecked(ChordLeadSheetItem<T> item, Position newPos)
@@ -1533,6 +1601,30 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         wItem.setPosition(newPos);
         items.add(wItem);
         assert b : "wItem=" + wItem + " newPos=" + newPos + " items=" + items;
+        snapshot = null;
+    }
+
+    /**
+     * Get the current snapshot, rebuild it if needed.
+     *
+     * @return
+     */
+    private ItemsSnapshot getSnapshot()
+    {
+        var res = snapshot;
+        if (res == null)
+        {
+            synchronized (this)
+            {
+                res = snapshot;
+                if (res == null)
+                {
+                    res = ItemsSnapshot.of(items, size);
+                    snapshot = res;
+                }
+            }
+        }
+        return res;
     }
 
     /**
@@ -1598,7 +1690,7 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
         }
 
         // Create an undoable event for this event which does nothing but refiring the ClsActionEvent
-        UndoableEdit edit = new SimpleEdit("ClsActionEventEdit(" + actionId + ")")
+        UndoableEdit edit = new SimpleEdit("ClsActionEventEdit(" + actionId + ")", EDIT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1619,6 +1711,151 @@ public class ChordLeadSheetImpl implements ChordLeadSheet, Serializable, Propert
 
     }
 
+    /**
+     * An immutable view of the items, with per-type indexes for the most common item types.
+     * <p>
+     * Frozen at snapshot time: the set of items, their order, their positions and the section bars. Not frozen: the item data (e.g. a chord symbol) which is
+     * read from the live item.
+     *
+     * @param size         The leadsheet size in bars
+     * @param all          All items
+     * @param chordSymbols
+     * @param sections
+     * @param sectionBars  The bar index of each section
+     * @param annotations
+     */
+    private record ItemsSnapshot(int size, ItemIndex all, ItemIndex chordSymbols, ItemIndex sections, int[] sectionBars, ItemIndex annotations)
+            {
+
+        static ItemsSnapshot of(Collection<ChordLeadSheetItem> items, int size)
+        {
+            var all = items.toArray(ChordLeadSheetItem[]::new);
+            var chordSymbols = Arrays.stream(all).filter(cli -> cli instanceof CLI_ChordSymbol).toArray(ChordLeadSheetItem[]::new);
+            var sections = Arrays.stream(all).filter(cli -> cli instanceof CLI_Section).toArray(ChordLeadSheetItem[]::new);
+            var sectionBars = Arrays.stream(sections).mapToInt(cli -> cli.getPosition().getBar()).toArray();
+            var annotations = Arrays.stream(all).filter(cli -> cli instanceof CLI_BarAnnotation).toArray(ChordLeadSheetItem[]::new);
+            return new ItemsSnapshot(size, ItemIndex.of(all), ItemIndex.of(chordSymbols), ItemIndex.of(sections), sectionBars, ItemIndex.of(annotations));
+        }
+
+        /**
+         * Get the smallest index which contains all the items of the specified class.
+         *
+         * @param itemClass
+         * @return
+         */
+        ItemIndex getIndex(Class<?> itemClass)
+        {
+            ItemIndex res = all;
+            if (CLI_ChordSymbol.class.isAssignableFrom(itemClass))
+            {
+                res = chordSymbols;
+            } else if (CLI_Section.class.isAssignableFrom(itemClass))
+            {
+                res = sections;
+            } else if (CLI_BarAnnotation.class.isAssignableFrom(itemClass))
+            {
+                res = annotations;
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Items sorted in the ChordLeadSheetItem natural order, with their positions captured at snapshot time.
+     * <p>
+     * Searches compare with the captured positions, so that they remain consistent while a writer changes an item position in place.
+     *
+     * @param items
+     * @param positions positions[i] is the position of items[i] at snapshot time
+     */
+    private record ItemIndex(ChordLeadSheetItem[] items, Position[] positions)
+            {
+
+        static ItemIndex of(ChordLeadSheetItem[] items)
+        {
+            var positions = Arrays.stream(items).map(cli -> cli.getPosition()).toArray(Position[]::new);
+            return new ItemIndex(items, positions);
+        }
+
+        /**
+         * Same as Arrays.binarySearch() but using the captured positions.
+         *
+         * @param cli
+         * @return
+         */
+        int binarySearch(ChordLeadSheetItem<?> cli)
+        {
+            int low = 0;
+            int high = items.length - 1;
+            while (low <= high)
+            {
+                int mid = (low + high) >>> 1;
+                int c = compare(mid, cli);
+                if (c < 0)
+                {
+                    low = mid + 1;
+                } else if (c > 0)
+                {
+                    high = mid - 1;
+                } else
+                {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * The index of the first item strictly after cli.
+         *
+         * @param cli
+         * @return A value in the [0;items.length] range
+         */
+        int indexAfter(ChordLeadSheetItem<?> cli)
+        {
+            int i = binarySearch(cli);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+
+        /**
+         * The index of the first item equal to or after cli.
+         *
+         * @param cli
+         * @return A value in the [0;items.length] range
+         */
+        int indexBefore(ChordLeadSheetItem<?> cli)
+        {
+            int i = binarySearch(cli);
+            return i >= 0 ? i : -i - 1;
+        }
+
+        /**
+         * Compare items[i] to cli like ChordLeadSheetItem.compareTo(), but using the captured position of items[i].
+         *
+         * @param i
+         * @param cli
+         * @return
+         */
+        private int compare(int i, ChordLeadSheetItem<?> cli)
+        {
+            var item = items[i];
+            if (item == cli)
+            {
+                return 0;
+            }
+            int res = positions[i].compareTo(cli.getPosition());
+            if (res == 0)
+            {
+                res = Integer.compare(item.getPositionOrder(), cli.getPositionOrder());
+                if (res == 0)
+                {
+                    res = Long.compare(System.identityHashCode(item), System.identityHashCode(cli));
+                }
+            }
+            return res;
+        }
+    }
+
     /**
      * This enables XStream instance configuration even for private classes or classes from non-public packages of Netbeans modules.
      * <p>
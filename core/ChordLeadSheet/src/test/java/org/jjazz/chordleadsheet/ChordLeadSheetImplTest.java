@@ -249,6 +249,29 @@ public class ChordLeadSheetImplTest
 
     }
 
+    @Test
+    public void testGetItemsByTypeAfterMove()
+    {
+        System.out.println("=== getItems() by type after moveItem()");
+        var chords = cls1.getItems(CLI_ChordSymbol.class);
+        assertEquals(7, chords.size());
+        assertEquals(3, cls1.getItems(CLI_Section.class).size());
+        assertEquals("Section2", cls1.getSection(4).getData().getName());
+        assertEquals("Section3", cls1.getSection(100).getData().getName());
+        assertSame(cls1.getSection(2), cls1.getSection("Section2"));
+
+        var cs = chords.get(0);
+        cls1.moveItem(cs, new Position(6, 2));
+        assertSame(cs, cls1.getBarFirstItem(6, CLI_ChordSymbol.class, cli -> true));
+        assertSame(cs, cls1.getLastItemBefore(new Position(7), true, CLI_ChordSymbol.class, cli -> true));
+        assertTrue(cls1.contains(cs));
+        assertTrue(cls1.getItems(0, 0, CLI_ChordSymbol.class).isEmpty());
+
+        cls1.removeItem(cs);
+        assertFalse(cls1.contains(cs));
+        assertEquals(6, cls1.getItems(CLI_ChordSymbol.class).size());
+    }
+
     // AddItem() --------------------------------------------------
     @Test
     public void testAddItem()
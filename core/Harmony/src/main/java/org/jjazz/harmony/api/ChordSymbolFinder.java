@@ -72,9 +72,10 @@ public class ChordSymbolFinder
     /**
      * This must be called once before using any ChordFinder instance.
      * <p>
-     * The method may take up to 2 or 3 seconds on very slow computers to complete. If called more than once, does nothing.
+     * The method may take up to 2 or 3 seconds on very slow computers to complete. If called more than once, does nothing. Method is
+     * thread-safe: it is called by a startup task and might be called again by the client.
      */
-    static public void buildStaticData()
+    static public synchronized void buildStaticData()
     {
         if (allChordTypes == null)
         {
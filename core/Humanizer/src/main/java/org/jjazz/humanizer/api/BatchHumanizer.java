@@ -0,0 +1,413 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.humanizer.api;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jjazz.midi.api.MidiUtilities;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.utilities.api.FloatRange;
+
+/**
+ * Humanize all the phrases of a song in one pass.
+ * <p>
+ * Unlike Humanizer, which keeps per-note state to let the user interactively tune a single phrase, BatchHumanizer is a one-shot operation:
+ * <p>
+ * - Notes are copied into primitive arrays, then phrases are processed in parallel.<br>
+ * - Random values come from counter-based random streams. Each value is derived from the seed, the track stream id, and the note's pitch and
+ * position. Results are reproducible for a given seed, whatever the processing order or the number of threads.<br>
+ * - Overlapping same-pitch notes are fixed in the arrays, like Phrases.fixOverlappedNotes() does.<br>
+ * - Changes are committed to each phrase on the calling thread, with one bulk Phrase.replaceAll() and, if needed, one Phrase.removeAll(). This limits
+ * property change events and undoable edits to at most 2 per phrase.
+ * <p>
+ * Humanization formulas are the same as Humanizer.humanize(). Adjusting notes are ignored.
+ *
+ * @see Humanizer
+ */
+public class BatchHumanizer
+{
+
+    /**
+     * A phrase to be humanized.
+     *
+     * @param phrase
+     * @param allowedBeatRange The allowed boundaries for the notes
+     * @param streamId         Identify the random stream used for this phrase, e.g. the phrase channel. Use the same value to get the same results.
+     */
+    public record Track(Phrase phrase, FloatRange allowedBeatRange, int streamId)
+            {
+
+        public Track  
+        {
+            Objects.requireNonNull(phrase);
+            Objects.requireNonNull(allowedBeatRange);
+            Preconditions.checkArgument(phrase.isEmpty() || allowedBeatRange.contains(phrase.getBeatRange(), false), "phrase=%s allowedBeatRange=%s",
+                    phrase, allowedBeatRange);
+        }
+
+        /**
+         * Create a Track with an allowed beat range of [0;Float.MAX_VALUE] and the phrase channel as stream id.
+         *
+         * @param phrase
+         */
+        public Track(Phrase phrase)
+        {
+            this(phrase, new FloatRange(0, Float.MAX_VALUE), phrase.getChannel());
+        }
+    }
+
+    /**
+     * The humanization result for a phrase.
+     *
+     * @param phrase
+     * @param nbReplacedNotes
+     * @param nbRemovedNotes  Notes removed because fully overlapped by another same-pitch note
+     */
+    public record Result(Phrase phrase, int nbReplacedNotes, int nbRemovedNotes)
+            {
+
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private final long seed;
+    private final double maxTimingDeviation;
+    private static final Logger LOGGER = Logger.getLogger(BatchHumanizer.class.getSimpleName());
+
+    /**
+     * Create a BatchHumanizer.
+     *
+     * @param seed  Same seed, tracks and config produce the same results
+     * @param tempo
+     */
+    public BatchHumanizer(long seed, int tempo)
+    {
+        Preconditions.checkArgument(tempo >= 10 && tempo <= 400, "tempo=%s", tempo);
+        this.seed = seed;
+        this.maxTimingDeviation = Humanizer.getMaxTimingDeviation(tempo);
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Humanize the notes of the specified tracks.
+     * <p>
+     * Notes are computed in parallel, then changes are committed to each phrase on the calling thread. Phrases must not be modified by another thread
+     * during this call.
+     *
+     * @param tracks Phrases must be different
+     * @param config
+     * @return One result per track, in the same order
+     */
+    public List<Result> humanize(List<Track> tracks, Humanizer.Config config)
+    {
+        Objects.requireNonNull(tracks);
+        Objects.requireNonNull(config);
+        LOGGER.log(Level.FINE, "humanize() -- tracks.size()={0} config={1}", new Object[]
+        {
+            tracks.size(), config
+        });
+
+
+        // Copy notes on the calling thread
+        List<TrackData> tDatas = new ArrayList<>(tracks.size());
+        for (var track : tracks)
+        {
+            NoteEvent[] notes = track.phrase().stream()
+                    .filter(ne -> !NoteEvent.isAdjustingNote(ne))
+                    .toArray(NoteEvent[]::new);
+            tDatas.add(new TrackData(track, notes));
+        }
+
+
+        // Compute new values in parallel, only primitive arrays are modified
+        tDatas.parallelStream().forEach(td -> 
+        {
+            computeNotes(td, config);
+            fixOverlappedNotes(td);
+        });
+
+
+        // Commit the changes
+        List<Result> res = new ArrayList<>(tracks.size());
+        for (var td : tDatas)
+        {
+            res.add(commit(td));
+        }
+
+        return res;
+    }
+
+
+    // ====================================================================================
+    // Private methods
+    // ====================================================================================    
+    private void computeNotes(TrackData td, Humanizer.Config config)
+    {
+        FloatRange allowedBeatRange = td.track.allowedBeatRange();
+        long trackKey = mix64(seed ^ mix64(td.track.streamId()));
+
+        for (int i = 0; i < td.notes.length; i++)
+        {
+            float posInBeats = td.positions[i];
+            float duration = td.durations[i];
+            float newDuration = duration;
+            long noteKey = trackKey ^ mix64(((long) td.pitches[i] << 32) | (Float.floatToIntBits(posInBeats) & 0xFFFFFFFFL));
+            float timingFactor = getGaussianValue(noteKey, 0);
+            float velocityFactor = getGaussianValue(noteKey, 2);
+
+
+            // New position
+            float posShift = (float) (timingFactor * maxTimingDeviation * config.timingRandomness()
+                    + Humanizer.MAX_TIMING_BIAS_DEVIATION * config.timingBias());
+            float newPosInBeats = posInBeats + posShift;
+
+            // Check that we remain in the allowed range
+            newPosInBeats = Math.max(newPosInBeats, allowedBeatRange.from);
+            newPosInBeats = Math.min(newPosInBeats, allowedBeatRange.to - 0.1f);
+            if (newPosInBeats + duration > allowedBeatRange.to)
+            {
+                // New duration to remain in the range
+                newDuration = allowedBeatRange.to - 0.05f - newPosInBeats;
+            }
+
+
+            // New velocity
+            int velShift = Math.round(velocityFactor * Humanizer.MAX_VELOCITY_DEVIATION * config.velocityRandomness());
+
+
+            td.positions[i] = newPosInBeats;
+            td.durations[i] = newDuration;
+            td.velocities[i] = MidiUtilities.limit(td.velocities[i] + velShift);
+        }
+    }
+
+    /**
+     * Same algorithm than Phrases.fixOverlappedNotes(), but on the primitive arrays.
+     *
+     * @param td
+     */
+    private void fixOverlappedNotes(TrackData td)
+    {
+        int size = td.notes.length;
+        if (size < 2)
+        {
+            return;
+        }
+
+        // Sort notes by pitch then position. Positions are >= 0 so float bits ordering is the float ordering.
+        Preconditions.checkState(size <= 0xFFFFFF, "size=%s", size);
+        long[] sortKeys = new long[size];
+        for (int i = 0; i < size; i++)
+        {
+            assert td.positions[i] >= 0 : "td.positions[i]=" + td.positions[i];
+            sortKeys[i] = ((long) td.pitches[i] << 56) | ((long) Float.floatToIntBits(td.positions[i]) << 24) | i;
+        }
+        Arrays.sort(sortKeys);
+
+
+        int[] noteOnBuffer = new int[size];
+        int nbNoteOns = 0;
+        int lastPitch = -1;
+        for (long sortKey : sortKeys)
+        {
+            int i = (int) (sortKey & 0xFFFFFF);
+            if (td.pitches[i] != lastPitch)
+            {
+                lastPitch = td.pitches[i];
+                nbNoteOns = 0;
+            }
+            float from = td.positions[i];
+            float to = from + td.durations[i];
+
+
+            // Process the noteOn buffer, keeping only the still active notes
+            int nbKept = 0;
+            for (int k = 0; k < nbNoteOns; k++)
+            {
+                int j = noteOnBuffer[k];
+                if (td.removed[i])
+                {
+                    // Note i is removed: keep the remaining noteOns unchanged, like the break in Phrases.fixOverlappedNotes()
+                    noteOnBuffer[nbKept++] = j;
+                    continue;
+                }
+                float fromOn = td.positions[j];
+                float toOn = fromOn + td.durations[j];
+                if (toOn <= from)
+                {
+                    // Remove noteOns which are now Off
+                } else if (toOn >= to)
+                {
+                    // Note is fully overlapped, remove
+                    td.removed[i] = true;
+                    noteOnBuffer[nbKept++] = j;
+                } else if (from == fromOn)
+                {
+                    // 2 notes start in the same time, remove the shortest
+                    if (to - from <= toOn - fromOn)
+                    {
+                        td.removed[i] = true;
+                        noteOnBuffer[nbKept++] = j;
+                    } else
+                    {
+                        td.removed[j] = true;
+                    }
+                } else
+                {
+                    // Note is partially overlapped, shorten it
+                    td.durations[j] = from - fromOn;
+                }
+            }
+            nbNoteOns = nbKept;
+
+            if (!td.removed[i])
+            {
+                noteOnBuffer[nbNoteOns++] = i;
+            }
+        }
+    }
+
+    private Result commit(TrackData td)
+    {
+        Phrase p = td.track.phrase();
+        Map<NoteEvent, NoteEvent> mapOldNew = new HashMap<>();
+        List<NoteEvent> removedNotes = new ArrayList<>();
+
+        for (int i = 0; i < td.notes.length; i++)
+        {
+            NoteEvent ne = td.notes[i];
+            if (td.removed[i])
+            {
+                removedNotes.add(ne);
+            } else if (Float.compare(td.durations[i], ne.getDurationInBeats()) != 0
+                    || td.velocities[i] != ne.getVelocity()
+                    || Float.compare(td.positions[i], ne.getPositionInBeats()) != 0)
+            {
+                mapOldNew.put(ne, ne.setAll(-1, td.durations[i], td.velocities[i], td.positions[i], true));
+            }
+        }
+
+        if (!removedNotes.isEmpty())
+        {
+            p.removeAll(removedNotes, false);
+        }
+        p.replaceAll(mapOldNew, false);
+
+        LOGGER.log(Level.FINE, "commit() channel={0} nbReplacedNotes={1} nbRemovedNotes={2}", new Object[]
+        {
+            p.getChannel(), mapOldNew.size(), removedNotes.size()
+        });
+
+        return new Result(p, mapOldNew.size(), removedNotes.size());
+    }
+
+    /**
+     * Get a gaussian random value between -1 and 1 (standard deviation is 0.3), like Humanizer.
+     * <p>
+     * Value only depends on key and counter (Box-Muller transform of 2 counter-based uniform values).
+     *
+     * @param key
+     * @param counter Uses counter and counter+1
+     * @return
+     */
+    static private float getGaussianValue(long key, int counter)
+    {
+        double u1 = toUniform(mix64(key + counter * GOLDEN_GAMMA));
+        double u2 = toUniform(mix64(key + (counter + 1) * GOLDEN_GAMMA));
+        double res = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2) * 0.3;
+        res = Math.max(res, -1);
+        res = Math.min(res, 1);
+        return (float) res;
+    }
+
+    /**
+     *
+     * @param x
+     * @return A value in ]0;1]
+     */
+    static private double toUniform(long x)
+    {
+        return ((x >>> 11) + 1) * 0x1.0p-53;
+    }
+
+    /**
+     * The SplitMix64 finalizer.
+     *
+     * @param z
+     * @return
+     */
+    static private long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // ====================================================================================
+    // Inner classes
+    // ====================================================================================  
+    /**
+     * The primitive note data of a track.
+     */
+    private static class TrackData
+    {
+
+        private final Track track;
+        private final NoteEvent[] notes;
+        private final byte[] pitches;
+        private final float[] positions;
+        private final float[] durations;
+        private final int[] velocities;
+        private final boolean[] removed;
+
+        private TrackData(Track track, NoteEvent[] notes)
+        {
+            this.track = track;
+            this.notes = notes;
+            pitches = new byte[notes.length];
+            positions = new float[notes.length];
+            durations = new float[notes.length];
+            velocities = new int[notes.length];
+            removed = new boolean[notes.length];
+            for (int i = 0; i < notes.length; i++)
+            {
+                var ne = notes[i];
+                pitches[i] = (byte) ne.getPitch();
+                positions[i] = ne.getPositionInBeats();
+                durations[i] = ne.getDurationInBeats();
+                velocities[i] = ne.getVelocity();
+            }
+        }
+    }
+}
@@ -150,9 +150,9 @@ public class Humanizer
          */
         HUMANIZING
     };
-    private static final float MAX_TIMING_DEVIATION = 0.2f;          // +/- 0.2 beat
-    private static final float MAX_TIMING_BIAS_DEVIATION = 0.2f;          // +/- 0.2 beat
-    private static final int MAX_VELOCITY_DEVIATION = 30;         // +/- 30    
+    static final float MAX_TIMING_DEVIATION = 0.2f;          // +/- 0.2 beat
+    static final float MAX_TIMING_BIAS_DEVIATION = 0.2f;          // +/- 0.2 beat
+    static final int MAX_VELOCITY_DEVIATION = 30;         // +/- 30    
 
     private State state;
     private final double maxTimingDeviation;
@@ -224,9 +224,7 @@ public class Humanizer
         state = State.INIT;
 
 
-        // Adjust max timing deviation for slow or fast tempo
-        double tempoDeviationImpact = Math.max(-0.1d, -0.1d + (this.tempo - 50) * 0.001);      // -0.1 for tempo<=50, +0.1 for tempo=250
-        this.maxTimingDeviation = MAX_TIMING_DEVIATION + tempoDeviationImpact;
+        this.maxTimingDeviation = getMaxTimingDeviation(tempo);
 
     }
 
@@ -443,6 +441,21 @@ public class Humanizer
     }
 
 
+    // ====================================================================================
+    // Package methods
+    // ====================================================================================    
+    /**
+     * The max timing deviation adjusted for slow or fast tempo.
+     *
+     * @param tempo
+     * @return
+     */
+    static double getMaxTimingDeviation(int tempo)
+    {
+        double tempoDeviationImpact = Math.max(-0.1d, -0.1d + (tempo - 50) * 0.001);      // -0.1 for tempo<=50, +0.1 for tempo=250
+        return MAX_TIMING_DEVIATION + tempoDeviationImpact;
+    }
+
     // ====================================================================================
     // Private methods
     // ====================================================================================    
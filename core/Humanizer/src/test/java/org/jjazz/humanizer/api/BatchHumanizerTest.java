@@ -0,0 +1,209 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.humanizer.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.jjazz.humanizer.api.BatchHumanizer.Result;
+import org.jjazz.humanizer.api.BatchHumanizer.Track;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.phrase.api.Phrases;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the BatchHumanizer reproducibility and overlapped notes fixing.
+ */
+public class BatchHumanizerTest
+{
+
+    private static final long SEED = 1234;
+    private static final int NB_TRACKS = 6;
+
+    public BatchHumanizerTest()
+    {
+    }
+
+    /**
+     * Same seed gives the same notes whatever the tracks order or the number of threads.
+     */
+    @Test
+    public void testReproducibility() throws Exception
+    {
+        System.out.println("testReproducibility");
+        var config = new Humanizer.Config(0.8f, 0.3f, 0.8f);
+
+        var ref = humanize(createPhrases(), config, false, 1);
+        var reversed = humanize(createPhrases(), config, true, 1);
+        var parallel = humanize(createPhrases(), config, false, 4);
+        var reversedParallel = humanize(createPhrases(), config, true, 4);
+
+        var original = createPhrases();
+        for (int i = 0; i < NB_TRACKS; i++)
+        {
+            assertNotEquals(getValues(original.get(i)), getValues(ref.get(i)));
+            assertEquals(getValues(ref.get(i)), getValues(reversed.get(i)));
+            assertEquals(getValues(ref.get(i)), getValues(parallel.get(i)));
+            assertEquals(getValues(ref.get(i)), getValues(reversedParallel.get(i)));
+        }
+
+
+        // Another seed gives other results
+        var p = createPhrases().get(0);
+        new BatchHumanizer(SEED + 1, 120).humanize(List.of(new Track(p)), config);
+        assertNotEquals(getValues(ref.get(0)), getValues(p));
+    }
+
+    /**
+     * With no randomness only the overlapped notes are fixed, the result must be the same than Phrases.fixOverlappedNotes().
+     */
+    @Test
+    public void testFixOverlappedNotes()
+    {
+        System.out.println("testFixOverlappedNotes");
+
+        // Fully overlapped, same start and partially overlapped notes
+        Phrase p = new Phrase(0);
+        p.add(new NoteEvent(60, 4f, 100, 0f));
+        p.add(new NoteEvent(60, 1f, 90, 1f));          // Fully overlapped: removed
+        p.add(new NoteEvent(62, 1f, 80, 0f));
+        p.add(new NoteEvent(62, 2f, 70, 0f));          // Same start: the shortest is removed
+        p.add(new NoteEvent(64, 2f, 60, 0f));
+        p.add(new NoteEvent(64, 2f, 50, 1f));          // Partially overlapped: the first one is shortened
+        p.add(new NoteEvent(65, 1f, 40, 0f));
+        p.add(new NoteEvent(65, 1f, 30, 1f));          // Not overlapped
+
+        Phrase expected = p.clone();
+        Phrases.fixOverlappedNotes(expected);
+        assertEquals(6, expected.size());
+
+        var results = new BatchHumanizer(SEED, 120).humanize(List.of(new Track(p)), Humanizer.ZERO_CONFIG);
+        assertEquals(2, results.get(0).nbRemovedNotes());
+        assertEquals(1, results.get(0).nbReplacedNotes());
+        assertEquals(getValues(expected), getValues(p));
+
+
+        // Random phrases with many overlaps
+        for (Phrase rp : createPhrases())
+        {
+            expected = rp.clone();
+            var mapRemovedReplaced = Phrases.fixOverlappedNotes(expected);
+            assertFalse(mapRemovedReplaced.isEmpty());
+
+            results = new BatchHumanizer(SEED, 120).humanize(List.of(new Track(rp)), Humanizer.ZERO_CONFIG);
+            assertEquals(getValues(expected), getValues(rp));
+            assertEquals(mapRemovedReplaced.values().stream().filter(ne -> ne == null).count(), results.get(0).nbRemovedNotes());
+        }
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    /**
+     * Humanize the phrases in the specified number of threads.
+     *
+     * @param phrases
+     * @param config
+     * @param reversed If true tracks are passed in the reverse order
+     * @param nbThreads
+     * @return The humanized phrases, in the phrases order
+     * @throws Exception
+     */
+    private List<Phrase> humanize(List<Phrase> phrases, Humanizer.Config config, boolean reversed, int nbThreads) throws Exception
+    {
+        List<Track> tracks = new ArrayList<>();
+        for (var p : phrases)
+        {
+            tracks.add(new Track(p));
+        }
+        if (reversed)
+        {
+            Collections.reverse(tracks);
+        }
+
+        var bh = new BatchHumanizer(SEED, 120);
+        var pool = new ForkJoinPool(nbThreads);
+        try
+        {
+            List<Result> results = pool.submit(() -> bh.humanize(tracks, config)).get();
+            assertEquals(tracks.stream().map(t -> t.phrase()).toList(), results.stream().map(r -> r.phrase()).toList());
+        } finally
+        {
+            pool.shutdown();
+        }
+        return phrases;
+    }
+
+    /**
+     * Create NB_TRACKS random phrases with many same-pitch overlapped notes.
+     *
+     * @return
+     */
+    private List<Phrase> createPhrases()
+    {
+        Random random = new Random(SEED);
+        float[] durations =
+        {
+            0.25f, 0.5f, 1f, 1.5f, 3f
+        };
+        List<Phrase> res = new ArrayList<>();
+        for (int channel = 0; channel < NB_TRACKS; channel++)
+        {
+            Phrase p = new Phrase(channel);
+            var keys = new HashSet<String>();
+            for (int i = 0; i < 200; i++)
+            {
+                int pitch = 60 + random.nextInt(4);
+                float pos = random.nextInt(64) * 0.25f;
+                float dur = durations[random.nextInt(durations.length)];
+                if (keys.add(pitch + " " + pos + " " + dur))
+                {
+                    p.add(new NoteEvent(pitch, dur, 30 + random.nextInt(90), pos));
+                }
+            }
+            res.add(p);
+        }
+        return res;
+    }
+
+    /**
+     * The exact note values of a phrase.
+     *
+     * @param p
+     * @return
+     */
+    private List<String> getValues(Phrase p)
+    {
+        return p.stream()
+                .map(ne -> ne.getPitch() + " " + ne.getVelocity() + " " + ne.getPositionInBeats() + " " + ne.getDurationInBeats())
+                .toList();
+    }
+}
@@ -0,0 +1,587 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.importers.api;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.jjazz.song.api.Song;
+import org.jjazz.song.api.SongCreationException;
+import org.jjazz.utilities.api.Utilities;
+
+/**
+ * Convert collections of lead sheet files (Band-in-a-Box, MusicXML, Impro-Visor, text) into songs using a pool of worker threads.
+ * <p>
+ * Files are first hashed in parallel to detect duplicates by content (the first file in the input order is kept). The remaining files are
+ * then parsed in parallel and optionally saved as .sng files in an output directory, mirroring the input directory tree.
+ * <p>
+ * Imported songs only contain what is available in the files, e.g. they use the default rhythm. Use setPostProcessor() to customize them.
+ * <p>
+ * An instance can be reused but must not be used concurrently.
+ */
+public class BulkSongImporter
+{
+
+    /**
+     * The supported input file formats.
+     */
+    public enum Format
+    {
+        BIAB, MUSICXML, IMPROVISOR, TEXT;
+
+        /**
+         * Get the format of a file from its extension.
+         *
+         * @param f
+         * @return Null if file format is not supported
+         */
+        static public Format of(File f)
+        {
+            String ext = Utilities.getExtension(f.getName()).toLowerCase();
+            if (ext.matches("[sm]g[1-9a-nu]"))
+            {
+                return BIAB;
+            }
+            return switch (ext)
+            {
+                case "xml", "mxl", "musicxml" ->
+                    MUSICXML;
+                case "ls" ->
+                    IMPROVISOR;
+                case "txt" ->
+                    TEXT;
+                default ->
+                    null;
+            };
+        }
+    }
+
+    public enum Status
+    {
+        /**
+         * Song was successfully imported (and saved if an output directory is set).
+         */
+        IMPORTED,
+        /**
+         * File has the same content than a previous file, it was not parsed.
+         */
+        DUPLICATE,
+        /**
+         * The .sng file already exists in the output directory and overwrite is disabled, file was not parsed.
+         */
+        SKIPPED,
+        FAILED
+    }
+
+    /**
+     * The import result for one file.
+     *
+     * @param file
+     * @param format
+     * @param status
+     * @param song        Null if status is not IMPORTED or if songs are not retained
+     * @param songFile    The saved .sng file, null if not saved
+     * @param duplicateOf For a DUPLICATE status, the file with the same content. Null otherwise.
+     * @param error       The error message for a FAILED status, null otherwise
+     * @param durationMs  The processing duration for this file
+     */
+    public record Result(File file, Format format, Status status, Song song, File songFile, File duplicateOf, String error, long durationMs)
+            {
+
+    }
+
+    /**
+     * The report of an import operation.
+     */
+    public static class Report
+    {
+
+        private final List<Result> results;
+        private final long durationMs;
+
+        private Report(List<Result> results, long durationMs)
+        {
+            this.results = Collections.unmodifiableList(results);
+            this.durationMs = durationMs;
+        }
+
+        /**
+         * The results in the order of the input files.
+         *
+         * @return An unmodifiable list
+         */
+        public List<Result> getResults()
+        {
+            return results;
+        }
+
+        public List<Result> getResults(Status status)
+        {
+            return results.stream()
+                    .filter(r -> r.status() == status)
+                    .toList();
+        }
+
+        public int getCount(Status status)
+        {
+            return (int) results.stream()
+                    .filter(r -> r.status() == status)
+                    .count();
+        }
+
+        /**
+         * The total duration of the import operation.
+         *
+         * @return
+         */
+        public long getDurationMs()
+        {
+            return durationMs;
+        }
+
+        /**
+         * A multi-line text report with counts, timings per format and errors.
+         *
+         * @return
+         */
+        public String toText()
+        {
+            StringWriter sw = new StringWriter();
+            PrintWriter pw = new PrintWriter(sw);
+            pw.printf("Bulk song import: %d files in %d ms%n", results.size(), durationMs);
+            for (Status status : Status.values())
+            {
+                pw.printf("  %-10s %d%n", status, getCount(status));
+            }
+
+            Map<Format, long[]> mapFormatStats = new EnumMap<>(Format.class);     // [count, total ms, max ms]
+            for (Result r : results)
+            {
+                if (r.status() == Status.IMPORTED)
+                {
+                    long[] stats = mapFormatStats.computeIfAbsent(r.format(), f -> new long[3]);
+                    stats[0]++;
+                    stats[1] += r.durationMs();
+                    stats[2] = Math.max(stats[2], r.durationMs());
+                }
+            }
+            mapFormatStats.forEach((format, stats) -> pw.printf("  %-10s imported=%d avg=%dms max=%dms%n", format, stats[0], stats[1] / stats[0], stats[2]));
+
+            var errors = getResults(Status.FAILED);
+            if (!errors.isEmpty())
+            {
+                pw.println("Errors:");
+                errors.forEach(r -> pw.printf("  %s: %s%n", r.file().getAbsolutePath(), r.error()));
+            }
+            var duplicates = getResults(Status.DUPLICATE);
+            if (!duplicates.isEmpty())
+            {
+                pw.println("Duplicates:");
+                duplicates.forEach(r -> pw.printf("  %s = %s%n", r.file().getAbsolutePath(), r.duplicateOf().getAbsolutePath()));
+            }
+            pw.flush();
+            return sw.toString();
+        }
+
+        /**
+         * Write the text report to a file.
+         *
+         * @param f
+         * @throws IOException
+         * @see #toText()
+         */
+        public void writeTo(File f) throws IOException
+        {
+            Files.writeString(f.toPath(), toText());
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Report[files=" + results.size() + ", imported=" + getCount(Status.IMPORTED) + ", failed=" + getCount(Status.FAILED) + ", "
+                    + durationMs + "ms]";
+        }
+    }
+
+    public static final int DEFAULT_NB_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private final int nbThreads;
+    private File outputDir;
+    private boolean overwrite;
+    private boolean retainSongs = true;
+    private boolean recursive = true;
+    private BiConsumer<File, Song> postProcessor;
+    private static final Logger LOGGER = Logger.getLogger(BulkSongImporter.class.getSimpleName());
+
+    /**
+     * Create an importer which uses DEFAULT_NB_THREADS worker threads.
+     */
+    public BulkSongImporter()
+    {
+        this(DEFAULT_NB_THREADS);
+    }
+
+    /**
+     *
+     * @param nbThreads The number of worker threads
+     */
+    public BulkSongImporter(int nbThreads)
+    {
+        Preconditions.checkArgument(nbThreads > 0, "nbThreads=%s", nbThreads);
+        this.nbThreads = nbThreads;
+    }
+
+    /**
+     * Set the directory where .sng files are saved.
+     *
+     * @param dir If null (default), songs are not saved.
+     */
+    public void setOutputDirectory(File dir)
+    {
+        this.outputDir = dir;
+    }
+
+    public File getOutputDirectory()
+    {
+        return outputDir;
+    }
+
+    /**
+     * @param b If false (default) input files whose .sng file already exists in the output directory are skipped.
+     */
+    public void setOverwrite(boolean b)
+    {
+        this.overwrite = b;
+    }
+
+    public boolean isOverwrite()
+    {
+        return overwrite;
+    }
+
+    /**
+     * @param b If true (default) the imported songs are kept in the Results. Use false to save memory when importing large collections into
+     *          an output directory.
+     */
+    public void setRetainSongs(boolean b)
+    {
+        this.retainSongs = b;
+    }
+
+    public boolean isRetainSongs()
+    {
+        return retainSongs;
+    }
+
+    /**
+     * @param b If true (default) input directories are scanned recursively.
+     */
+    public void setRecursive(boolean b)
+    {
+        this.recursive = b;
+    }
+
+    public boolean isRecursive()
+    {
+        return recursive;
+    }
+
+    /**
+     * Set an optional operation applied to each imported song before it is saved, e.g. to select a rhythm.
+     * <p>
+     * It is called on a worker thread. A RuntimeException makes the file import fail.
+     *
+     * @param postProcessor Can be null
+     */
+    public void setPostProcessor(BiConsumer<File, Song> postProcessor)
+    {
+        this.postProcessor = postProcessor;
+    }
+
+    /**
+     * Import the supported files found in the specified files and directories.
+     *
+     * @param filesOrDirs
+     * @return
+     * @throws java.lang.InterruptedException
+     */
+    public Report importFiles(List<File> filesOrDirs) throws InterruptedException
+    {
+        Preconditions.checkNotNull(filesOrDirs);
+        long start = System.currentTimeMillis();
+
+        var tasks = collectTasks(filesOrDirs);
+        LOGGER.log(Level.INFO, "importFiles() {0} files to import using {1} threads", new Object[]
+        {
+            tasks.size(), nbThreads
+        });
+
+
+        Result[] results = new Result[tasks.size()];
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads, r -> 
+        {
+            Thread t = new Thread(r, "BulkSongImporter-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try
+        {
+            // Hash the files in parallel
+            var hashes = runAll(executor, tasks.stream()
+                    .map(task -> (Callable<String>) () -> computeHash(task.file()))
+                    .toList());
+
+
+            // Detect duplicates and compute output files in the input order
+            Map<String, File> mapHashFile = new HashMap<>();
+            Set<Path> usedSongPaths = new HashSet<>();
+            List<Callable<Void>> importTasks = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                final int index = i;
+                Task task = tasks.get(i);
+                String hash = hashes.get(i);
+                if (hash == null)
+                {
+                    results[i] = new Result(task.file(), task.format(), Status.FAILED, null, null, null, "Can't read file", 0);
+                    continue;
+                }
+                File first = mapHashFile.putIfAbsent(hash, task.file());
+                if (first != null)
+                {
+                    results[i] = new Result(task.file(), task.format(), Status.DUPLICATE, null, null, first, null, 0);
+                    continue;
+                }
+                File songFile = outputDir == null ? null : getSongFile(task, usedSongPaths);
+                importTasks.add(() -> 
+                {
+                    results[index] = importFile(task, songFile);
+                    return null;
+                });
+            }
+
+
+            // Parse and save the songs in parallel
+            runAll(executor, importTasks);
+
+        } finally
+        {
+            executor.shutdownNow();
+        }
+
+
+        var report = new Report(List.of(results), System.currentTimeMillis() - start);
+        LOGGER.log(Level.INFO, "importFiles() {0}", report);
+        return report;
+    }
+
+    // =================================================================================================
+    // Private methods
+    // =================================================================================================
+    private List<Task> collectTasks(List<File> filesOrDirs)
+    {
+        List<Task> res = new ArrayList<>();
+        for (File f : filesOrDirs)
+        {
+            Path root = f.isDirectory() ? f.toPath() : f.getAbsoluteFile().toPath().getParent();
+            if (f.isDirectory())
+            {
+                try (Stream<Path> paths = recursive ? Files.walk(root) : Files.list(root))
+                {
+                    paths.filter(p -> Files.isRegularFile(p))
+                            .sorted()
+                            .forEach(p -> addTask(res, root, p.toFile()));
+                } catch (IOException ex)
+                {
+                    LOGGER.log(Level.WARNING, "collectTasks() Can''t list {0}. ex={1}", new Object[]
+                    {
+                        f.getAbsolutePath(), ex.getMessage()
+                    });
+                }
+            } else
+            {
+                addTask(res, root, f);
+            }
+        }
+        return res;
+    }
+
+    private void addTask(List<Task> tasks, Path root, File f)
+    {
+        Format format = Format.of(f);
+        if (format != null)
+        {
+            tasks.add(new Task(f, root, format));
+        }
+    }
+
+    /**
+     * The .sng file in the output directory, with the same relative path than in the input directory.
+     * <p>
+     * Input files which map to the same .sng file (they only differ by their extension, or they come from different input
+     * directories) are made unique by appending the extension to the song name, then a counter if needed.
+     */
+    private File getSongFile(Task task, Set<Path> usedSongPaths)
+    {
+        Path relPath = task.root().relativize(task.file().getAbsoluteFile().toPath());
+        String fileName = relPath.getFileName().toString();
+        Path res = outputDir.toPath().resolve(relPath).resolveSibling(Utilities.replaceExtension(fileName, Song.SONG_EXTENSION));
+        String name = Utilities.replaceExtension(fileName, "") + "_" + Utilities.getExtension(fileName);
+        int count = 1;
+        while (!usedSongPaths.add(res))
+        {
+            res = res.resolveSibling(name + (count == 1 ? "" : "_" + count) + "." + Song.SONG_EXTENSION);
+            count++;
+        }
+        return res.toFile();
+    }
+
+    /**
+     * Called on a worker thread.
+     */
+    private Result importFile(Task task, File songFile)
+    {
+        long t = System.currentTimeMillis();
+        File f = task.file();
+        if (songFile != null && songFile.exists() && !overwrite)
+        {
+            return new Result(f, task.format(), Status.SKIPPED, null, songFile, null, null, 0);
+        }
+
+        try
+        {
+            Song song = readSong(task);
+            if (song == null)
+            {
+                throw new SongCreationException("No song data found");
+            }
+            song.setName(Utilities.replaceExtension(f.getName(), ""));
+            if (postProcessor != null)
+            {
+                postProcessor.accept(f, song);
+            }
+            if (songFile != null)
+            {
+                songFile.getParentFile().mkdirs();
+                song.saveToFile(songFile, true);
+            }
+            return new Result(f, task.format(), Status.IMPORTED, retainSongs ? song : null, songFile, null, null, System.currentTimeMillis() - t);
+
+        } catch (IOException | SongCreationException | RuntimeException ex)
+        {
+            String msg = ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+            LOGGER.log(Level.FINE, "importFile() {0} failed. ex={1}", new Object[]
+            {
+                f.getAbsolutePath(), msg
+            });
+            return new Result(f, task.format(), Status.FAILED, null, null, null, msg, System.currentTimeMillis() - t);
+        }
+    }
+
+    private Song readSong(Task task) throws IOException, SongCreationException
+    {
+        File f = task.file();
+        return switch (task.format())
+        {
+            case BIAB ->
+                new BiabFileReader(f, null, false).readFile();
+            case MUSICXML ->
+                new MusicXMLFileReader(f).readSong();
+            case IMPROVISOR ->
+                new ImprovisorFileReader(f).readSong();
+            case TEXT ->
+                new TextReader(f).readSong();
+        };
+    }
+
+    /**
+     * Called on a worker thread.
+     *
+     * @return Null if file could not be read
+     */
+    static private String computeHash(File f)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(Files.readAllBytes(f.toPath())));
+        } catch (IOException | NoSuchAlgorithmException ex)
+        {
+            LOGGER.log(Level.WARNING, "computeHash() f={0} ex={1}", new Object[]
+            {
+                f.getAbsolutePath(), ex.getMessage()
+            });
+            return null;
+        }
+    }
+
+    static private <T> List<T> runAll(ExecutorService executor, List<Callable<T>> callables) throws InterruptedException
+    {
+        List<T> res = new ArrayList<>();
+        for (Future<T> future : executor.invokeAll(callables))
+        {
+            try
+            {
+                res.add(future.get());
+            } catch (ExecutionException ex)
+            {
+                // Callables handle their own errors
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+        return res;
+    }
+
+    // =================================================================================================
+    // Inner classes
+    // =================================================================================================
+    private record Task(File file, Path root, Format format)
+            {
+
+    }
+}
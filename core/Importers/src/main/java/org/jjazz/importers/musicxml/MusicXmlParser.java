@@ -76,7 +76,7 @@ public final class MusicXmlParser
     @StaticResource(relative = true)
     public static final String ZIP_RESOURCE_PATH = "resources/partwise-dtd.zip";
 
-    private static Builder XOM_BUILDER;
+    private Builder xomBuilder;       // Not static: a XOM Builder wraps a SAX XMLReader which can't be shared between threads
     private static File DTD_FILE;
     private Document xomDoc;
     private final CopyOnWriteArrayList<MusicXmlParserListener> parserListeners;
@@ -867,9 +867,9 @@ public final class MusicXmlParser
      */
     private Builder getBuilder() throws ParserConfigurationException, SAXException
     {
-        if (XOM_BUILDER != null)
+        if (xomBuilder != null)
         {
-            return XOM_BUILDER;
+            return xomBuilder;
         }
 
         // Some dtd uri referenced in .musicxml files are not available anymore, like "http://www.musicxml.org/dtds/partwise.dtd", which caused Issue #461
@@ -914,17 +914,19 @@ public final class MusicXmlParser
         });
 
 
-        XOM_BUILDER = new Builder(reader);
-        return XOM_BUILDER;
+        xomBuilder = new Builder(reader);
+        return xomBuilder;
     }
 
     /**
      * Get the local copy of the partwise.dtd file (+ related files in same directory).
+     * <p>
+     * Synchronized because parsers can be used in parallel by different threads (e.g. in batch import mode).
      *
      * @return The existing partwise.dtd file
      * @throws java.io.IOException A problem occured
      */
-    private File getDtdFile() throws IOException
+    private static synchronized File getDtdFile() throws IOException
     {
         if (DTD_FILE != null && DTD_FILE.exists())
         {
@@ -935,13 +937,10 @@ public final class MusicXmlParser
 
         // Create a temporary directory -always the same so it can be reused
         Path tmpDir = Path.of(System.getProperty("java.io.tmpdir")).resolve("jl-musicxml");
-        if (!Files.isDirectory(tmpDir))
-        {
-            Files.createDirectory(tmpDir);
-        }
+        Files.createDirectories(tmpDir);
 
         // Extract the dtd files
-        List<File> res = Utilities.extractZipResource(getClass(), ZIP_RESOURCE_PATH, tmpDir, true);
+        List<File> res = Utilities.extractZipResource(MusicXmlParser.class, ZIP_RESOURCE_PATH, tmpDir, true);
         for (var f : res)
         {
             if (f.getName().equals("partwise.dtd"))
@@ -1068,60 +1067,69 @@ public final class MusicXmlParser
         }
     }
 
-    private void initChordMap()
+    /**
+     * Build XMLtoJJazzChordMap only once, the map is then read by all parser instances.
+     */
+    private static synchronized void initChordMap()
     {
-        XMLtoJJazzChordMap = new TreeMap<String, String>();
+        if (XMLtoJJazzChordMap != null)
+        {
+            return;
+        }
+        var map = new TreeMap<String, String>();
 
         // Triads
-        XMLtoJJazzChordMap.put("major", "");
-        XMLtoJJazzChordMap.put("minor", "m");
-        XMLtoJJazzChordMap.put("augmented", "+");
-        XMLtoJJazzChordMap.put("diminished", "dim");
+        map.put("major", "");
+        map.put("minor", "m");
+        map.put("augmented", "+");
+        map.put("diminished", "dim");
 
         // Sevenths
-        XMLtoJJazzChordMap.put("dominant", "7");
-        XMLtoJJazzChordMap.put("major-seventh", "M7");
-        XMLtoJJazzChordMap.put("minor-seventh", "m7");
-        XMLtoJJazzChordMap.put("diminished-seventh", "dim7");
-        XMLtoJJazzChordMap.put("augmented-seventh", "7#5");
-        XMLtoJJazzChordMap.put("half-diminished", "m7b5");
-        XMLtoJJazzChordMap.put("major-minor", "m7M");       // Not a  mistake!
+        map.put("dominant", "7");
+        map.put("major-seventh", "M7");
+        map.put("minor-seventh", "m7");
+        map.put("diminished-seventh", "dim7");
+        map.put("augmented-seventh", "7#5");
+        map.put("half-diminished", "m7b5");
+        map.put("major-minor", "m7M");       // Not a  mistake!
 
         // Sixths
-        XMLtoJJazzChordMap.put("major-sixth", "6");
-        XMLtoJJazzChordMap.put("minor-sixth", "m6");
+        map.put("major-sixth", "6");
+        map.put("minor-sixth", "m6");
 
         // Ninths
-        XMLtoJJazzChordMap.put("dominant-ninth", "9");
-        XMLtoJJazzChordMap.put("major-ninth", "M9");
-        XMLtoJJazzChordMap.put("minor-ninth", "m9");
+        map.put("dominant-ninth", "9");
+        map.put("major-ninth", "M9");
+        map.put("minor-ninth", "m9");
 
         // 11ths (usually as the basis for accidental):        
-        XMLtoJJazzChordMap.put("dominant-11th", "9sus");
-        XMLtoJJazzChordMap.put("major-11th", "M9");
-        XMLtoJJazzChordMap.put("minor-11th", "m11");
+        map.put("dominant-11th", "9sus");
+        map.put("major-11th", "M9");
+        map.put("minor-11th", "m11");
 
         // 13ths (usually as the basis for accidental):        
-        XMLtoJJazzChordMap.put("dominant-13th", "13");
-        XMLtoJJazzChordMap.put("major-13th", "M13");
-        XMLtoJJazzChordMap.put("minor-13th", "m13");
+        map.put("dominant-13th", "13");
+        map.put("major-13th", "M13");
+        map.put("minor-13th", "m13");
 
         // Suspended Chords
-        XMLtoJJazzChordMap.put("suspended-fourth", "sus");
-        XMLtoJJazzChordMap.put("suspended-second", "sus");
+        map.put("suspended-fourth", "sus");
+        map.put("suspended-second", "sus");
 
         // Functional sixths
-        XMLtoJJazzChordMap.put("Neapolitan", null);      // Not supported
-        XMLtoJJazzChordMap.put("Italian", null); // Not supported
-        XMLtoJJazzChordMap.put("French", null); // Not supported
-        XMLtoJJazzChordMap.put("German", null); // Not supported
+        map.put("Neapolitan", null);      // Not supported
+        map.put("Italian", null); // Not supported
+        map.put("French", null); // Not supported
+        map.put("German", null); // Not supported
 
         // Other
-        XMLtoJJazzChordMap.put("pedal", null);         // Not supported
-        XMLtoJJazzChordMap.put("power", "");           // 1+5
-        XMLtoJJazzChordMap.put("Tristan", null);       // Not supported
-        XMLtoJJazzChordMap.put("other", null);         // Degrees are all added specifically
-        XMLtoJJazzChordMap.put("none", null);          // absence of chord
+        map.put("pedal", null);         // Not supported
+        map.put("power", "");           // 1+5
+        map.put("Tristan", null);       // Not supported
+        map.put("other", null);         // Degrees are all added specifically
+        map.put("none", null);          // absence of chord
+
+        XMLtoJJazzChordMap = map;
 
     }
 
@@ -0,0 +1,231 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.importers.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.jjazz.chordleadsheet.api.item.CLI_ChordSymbol;
+import org.jjazz.importers.api.BulkSongImporter.Result;
+import org.jjazz.importers.api.BulkSongImporter.Status;
+import org.jjazz.rhythmdatabase.api.DefaultRhythmDatabase;
+import org.jjazz.rhythmdatabase.api.RhythmDatabase;
+import org.jjazz.song.api.Song;
+import org.jjazz.utilities.api.Utilities;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Test BulkSongImporter on a temporary directory tree.
+ */
+public class BulkSongImporterTest
+{
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+    private File in1, in2, in3, outDir;
+
+    public BulkSongImporterTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        var rdb = (DefaultRhythmDatabase) RhythmDatabase.getDefault();
+        rdb.addRhythmsFromRhythmProviders(false, true, false);
+    }
+
+    /**
+     * in1/a.txt<br>
+     * in1/bad.txt : no chord symbols<br>
+     * in1/dup.txt : same content as in1/a.txt<br>
+     * in1/notes.doc : not supported<br>
+     * in1/sub/b.txt<br>
+     * in2/a.txt : same output name as in1/a.txt<br>
+     * in3/a.txt : same output name as in1/a.txt
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        in1 = tmpFolder.newFolder("in1");
+        in2 = tmpFolder.newFolder("in2");
+        in3 = tmpFolder.newFolder("in3");
+        outDir = new File(tmpFolder.getRoot(), "out");
+        write(new File(in1, "a.txt"), "| C | F7 | G7 | C |");
+        write(new File(in1, "bad.txt"), "There are no chord symbols here");
+        write(new File(in1, "dup.txt"), "| C | F7 | G7 | C |");
+        write(new File(in1, "notes.doc"), "| C |");
+        write(new File(in1, "sub/b.txt"), "| Dm7 | G7 | C |");
+        write(new File(in2, "a.txt"), "| Eb | Ab |");
+        write(new File(in3, "a.txt"), "| G | C |");
+    }
+
+    @Test
+    public void testImportFiles() throws Exception
+    {
+        System.out.println("testImportFiles");
+        var importer = new BulkSongImporter(3);
+        importer.setOutputDirectory(outDir);
+
+        var report = importer.importFiles(List.of(in1, in2, in3));
+        System.out.println(report.toText());
+
+        var results = report.getResults();
+        assertEquals(List.of(
+                new File(in1, "a.txt"),
+                new File(in1, "bad.txt"),
+                new File(in1, "dup.txt"),
+                new File(in1, "sub/b.txt"),
+                new File(in2, "a.txt"),
+                new File(in3, "a.txt")),
+                results.stream().map(r -> r.file()).toList());
+        assertEquals(List.of(Status.IMPORTED, Status.FAILED, Status.DUPLICATE, Status.IMPORTED, Status.IMPORTED, Status.IMPORTED),
+                results.stream().map(r -> r.status()).toList());
+        assertEquals(4, report.getCount(Status.IMPORTED));
+
+
+        // Duplicate
+        assertEquals(new File(in1, "a.txt"), results.get(2).duplicateOf());
+        assertNull(results.get(2).songFile());
+
+
+        // Parse failure
+        Result failed = results.get(1);
+        assertNotNull(failed.error());
+        assertNull(failed.song());
+        assertNull(failed.songFile());
+
+
+        // Mirrored .sng files, output name collisions are made unique
+        assertEquals(List.of(
+                new File(outDir, "a.sng"),
+                new File(outDir, "sub/b.sng"),
+                new File(outDir, "a_txt.sng"),
+                new File(outDir, "a_txt_2.sng")),
+                report.getResults(Status.IMPORTED).stream().map(r -> r.songFile()).toList());
+        for (var r : report.getResults(Status.IMPORTED))
+        {
+            assertTrue(r.songFile().exists());
+            Song song = Song.loadFromFile(r.songFile());
+            assertEquals(Utilities.replaceExtension(r.songFile().getName(), ""), song.getName());
+            assertEquals(r.song().getChordLeadSheet().getItems().size(), song.getChordLeadSheet().getItems().size());
+        }
+        var cls = report.getResults(Status.IMPORTED).get(2).song().getChordLeadSheet();
+        assertEquals("Eb", cls.getItems(CLI_ChordSymbol.class).get(0).getData().getName());
+
+
+        // Second import without overwrite: existing .sng files are skipped
+        report = importer.importFiles(List.of(in1, in2, in3));
+        assertEquals(List.of(Status.SKIPPED, Status.FAILED, Status.DUPLICATE, Status.SKIPPED, Status.SKIPPED, Status.SKIPPED),
+                report.getResults().stream().map(r -> r.status()).toList());
+        assertEquals(new File(outDir, "a_txt_2.sng"), report.getResults().get(5).songFile());
+    }
+
+    @Test
+    public void testImportMusicXmlFiles() throws Exception
+    {
+        System.out.println("testImportMusicXmlFiles");
+        File xmlDir = tmpFolder.newFolder("xml");
+        String[] roots =
+        {
+            "C", "D", "E", "F", "G", "A", "B", "Bb"
+        };
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < roots.length; i++)
+        {
+            File f = new File(xmlDir, "song" + i + (i % 2 == 0 ? ".musicxml" : ".xml"));
+            write(f, musicXml(roots[i], 4 + i));
+            files.add(f);
+        }
+
+
+        // Several parsers run in parallel, each song must get its own chord symbols
+        var importer = new BulkSongImporter(4);
+        var report = importer.importFiles(List.of(xmlDir));
+        System.out.println(report.toText());
+
+        var results = report.getResults();
+        assertEquals(files, results.stream().map(r -> r.file()).toList());
+        for (int i = 0; i < roots.length; i++)
+        {
+            Result r = results.get(i);
+            assertEquals(r.file().getName() + " error=" + r.error(), Status.IMPORTED, r.status());
+            var cliCs = r.song().getChordLeadSheet().getItems(CLI_ChordSymbol.class);
+            assertEquals(4 + i, cliCs.size());
+            assertEquals(roots[i] + "m7", cliCs.get(0).getData().getName());
+            assertEquals(4 + i, r.song().getSize());
+        }
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    /**
+     * A partwise MusicXML file with a DOCTYPE (so the local dtd is used) and one minor seventh chord per 4/4 measure.
+     */
+    private String musicXml(String root, int nbBars)
+    {
+        var sb = new StringBuilder();
+        sb.append("""
+                  <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+                  <!DOCTYPE score-partwise PUBLIC "-//Recordare//DTD MusicXML 3.1 Partwise//EN" "http://www.musicxml.org/dtds/partwise.dtd">
+                  <score-partwise version="3.1">
+                    <part-list><score-part id="P1"><part-name>Lead</part-name></score-part></part-list>
+                    <part id="P1">
+                  """);
+        for (int bar = 0; bar < nbBars; bar++)
+        {
+            sb.append("<measure number=\"").append(bar + 1).append("\">");
+            if (bar == 0)
+            {
+                sb.append("<attributes><divisions>1</divisions><time><beats>4</beats><beat-type>4</beat-type></time></attributes>");
+            }
+            sb.append("<harmony><root><root-step>").append(root.charAt(0)).append("</root-step>");
+            if (root.length() > 1)
+            {
+                sb.append("<root-alter>-1</root-alter>");
+            }
+            sb.append("</root><kind>minor-seventh</kind></harmony>");
+            sb.append("<note><rest/><duration>4</duration><type>whole</type></note></measure>\n");
+        }
+        sb.append("</part></score-partwise>\n");
+        return sb.toString();
+    }
+
+
+    private void write(File f, String text) throws IOException
+    {
+        f.getParentFile().mkdirs();
+        Files.writeString(f.toPath(), text);
+    }
+}
@@ -183,7 +183,15 @@ public class Instrument implements Serializable
      */
     public void setSubstitute(GM1Instrument ins)
     {
+        if (ins == this.substitute)
+        {
+            return;
+        }
         this.substitute = ins;
+        if (bank != null)
+        {
+            bank.substituteChanged();
+        }
     }
 
     /**
@@ -25,6 +25,7 @@ package org.jjazz.midi.api;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -48,6 +49,8 @@ public class InstrumentBank<T extends Instrument>
     protected BankSelectMethod defaultBsm;
     private MidiSynth synth;
     protected String name;
+    private volatile InstrumentIndex<T> index;
+    private final AtomicInteger substitutesStamp = new AtomicInteger();
     private static final Logger LOGGER = Logger.getLogger(InstrumentBank.class.getSimpleName());
 
     /**
@@ -176,6 +179,7 @@ public class InstrumentBank<T extends Instrument>
             {
                 mapAddressInstrument.put(instrument.getMidiAddress(), instrument);
             }
+            invalidateIndex();
         }
     }
 
@@ -192,6 +196,7 @@ public class InstrumentBank<T extends Instrument>
         }
         instruments.remove(instrument);
         mapAddressInstrument.remove(instrument.getMidiAddress());
+        invalidateIndex();
     }
 
     /**
@@ -237,6 +242,7 @@ public class InstrumentBank<T extends Instrument>
     {
         instruments.clear();
         mapAddressInstrument.clear();
+        invalidateIndex();
     }
 
     /**
@@ -329,14 +335,7 @@ public class InstrumentBank<T extends Instrument>
         {
             throw new IllegalArgumentException("patchName=" + patchName);   
         }
-        for (T i : instruments)
-        {
-            if (i.getPatchName().equalsIgnoreCase(patchName.trim()))
-            {
-                return i;
-            }
-        }
-        return null;
+        return getInstrumentIndex().getInstrument(patchName);
     }
 
     /**
@@ -373,15 +372,7 @@ public class InstrumentBank<T extends Instrument>
      */
     public List<T> getNonDrumsInstruments()
     {
-        ArrayList<T> res = new ArrayList<>();
-        for (T ins : instruments)
-        {
-            if (!ins.isDrumKit())
-            {
-                res.add(ins);
-            }
-        }
-        return res;
+        return getInstrumentIndex().getNonDrumsInstruments();
     }
 
     /**
@@ -391,15 +382,7 @@ public class InstrumentBank<T extends Instrument>
      */
     public List<T> getDrumsInstruments()
     {
-        ArrayList<T> res = new ArrayList<>();
-        for (T ins : instruments)
-        {
-            if (ins.isDrumKit())
-            {
-                res.add(ins);
-            }
-        }
-        return res;
+        return getInstrumentIndex().getDrumsInstruments();
     }
 
     /**
@@ -416,25 +399,12 @@ public class InstrumentBank<T extends Instrument>
         {
             throw new NullPointerException("kit=" + kit + " tryHarder=" + tryHarder);   
         }
-        ArrayList<T> res = new ArrayList<>();
-        List<T> drumsInstruments = getDrumsInstruments();
-        for (T ins : drumsInstruments)
-        {
-            if (kit.equals(ins.getDrumKit()))
-            {
-                res.add(ins);
-            }
-        }
+        var instrumentIndex = getInstrumentIndex();
+        List<T> res = instrumentIndex.getDrumsInstruments(kit);
         if (res.isEmpty() && tryHarder && !kit.getType().equals(DrumKit.Type.STANDARD))
         {
             DrumKit kit2 = new DrumKit(DrumKit.Type.STANDARD, kit.getKeyMap());
-            for (T ins : drumsInstruments)
-            {
-                if (kit2.equals(ins.getDrumKit()))
-                {
-                    res.add(ins);
-                }
-            }
+            res = instrumentIndex.getDrumsInstruments(kit2);
         }
         return res;
     }
@@ -447,15 +417,7 @@ public class InstrumentBank<T extends Instrument>
      */
     public List<T> getInstrumentsFromSubstitute(GM1Instrument sub)
     {
-        ArrayList<T> res = new ArrayList<>();
-        for (T ins : instruments)
-        {
-            if (ins.getSubstitute() == sub)
-            {
-                res.add(ins);
-            }
-        }
-        return res;
+        return getInstrumentIndex().getInstrumentsFromSubstitute(sub);
     }
 
     /**
@@ -483,15 +445,7 @@ public class InstrumentBank<T extends Instrument>
         {
             throw new IllegalArgumentException("f=" + f);   
         }
-        ArrayList<T> res = new ArrayList<>();
-        for (T ins : instruments)
-        {
-            if (ins.getSubstitute() != null && ins.getSubstitute().getFamily().equals(f))
-            {
-                res.add(ins);
-            }
-        }
-        return res;
+        return getInstrumentIndex().getInstrumentsFromFamily(f);
     }
 
     /**
@@ -506,13 +460,58 @@ public class InstrumentBank<T extends Instrument>
         {
             throw new IllegalArgumentException("text=" + text);   
         }
-        ArrayList<T> res = new ArrayList<>();
-        for (T i : instruments)
+        return getInstrumentIndex().findInstruments(text);
+    }
+
+    /**
+     * Discard the lookup index of this bank, and of its MidiSynth if any.
+     * <p>
+     * Must be called by subclasses which directly modify the instruments list.
+     */
+    protected void invalidateIndex()
+    {
+        index = null;
+        if (synth != null)
         {
-            if (i.getPatchName().toLowerCase().contains(text.toLowerCase()))
-            {
-                res.add(i);
-            }
+            synth.invalidateIndex();
+        }
+    }
+
+    /**
+     * Notify that the substitute of one of this bank instruments has changed.
+     * <p>
+     * The indexes which contain instruments of this bank, including the ones of other banks or synths (e.g. favorites), become
+     * obsolete.
+     *
+     * @see Instrument#setSubstitute(org.jjazz.midi.api.synths.GM1Instrument)
+     */
+    void substituteChanged()
+    {
+        substitutesStamp.incrementAndGet();
+    }
+
+    /**
+     * A value which changes each time the substitute of one of this bank instruments changes.
+     *
+     * @return
+     */
+    int getSubstitutesStamp()
+    {
+        return substitutesStamp.get();
+    }
+
+    /**
+     * The lookup index of the bank instruments, built on demand.
+     *
+     * @return
+     */
+    InstrumentIndex<T> getInstrumentIndex()
+    {
+        var res = index;
+        if (res == null || !res.isUpToDate())
+        {
+            res = new InstrumentIndex<>(instruments);
+            index = res;
         }
         return res;
     }
@@ -0,0 +1,237 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.midi.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jjazz.midi.api.synths.GM1Instrument;
+import org.jjazz.midi.api.synths.InstrumentFamily;
+
+/**
+ * An immutable lookup index of a list of instruments.
+ * <p>
+ * Contains hash indexes by MidiAddress, normalized patch name, DrumKit, substitute and family, and a trigram index for
+ * patch name substring search. Index results preserve the order of the indexed list.
+ *
+ * @param <T>
+ */
+class InstrumentIndex<T extends Instrument>
+{
+
+    private static final int NGRAM_SIZE = 3;
+    /**
+     * The substitutes stamp of the banks of the indexed instruments, read before the substitutes are indexed.
+     */
+    private final Map<InstrumentBank<?>, Integer> mapBankStamp = new IdentityHashMap<>();
+    private final List<T> instruments;
+    private final String[] normalizedNames;
+    private final Map<MidiAddress, T> mapAddressInstrument = new HashMap<>();
+    private final Map<String, T> mapNameInstrument = new HashMap<>();
+    private final Map<String, int[]> mapNgramIndexes = new HashMap<>();
+    private final Map<DrumKit, List<T>> mapKitInstruments = new HashMap<>();
+    private final Map<GM1Instrument, List<T>> mapSubstituteInstruments = new HashMap<>();
+    private final Map<InstrumentFamily, List<T>> mapFamilyInstruments = new HashMap<>();
+    private final List<T> drumsInstruments = new ArrayList<>();
+    private final List<T> nonDrumsInstruments = new ArrayList<>();
+
+    /**
+     * Build the index.
+     *
+     * @param instruments If several instruments share the same MidiAddress or patch name, the first one is indexed.
+     */
+    InstrumentIndex(List<T> instruments)
+    {
+        this.instruments = new ArrayList<>(instruments);
+        normalizedNames = new String[this.instruments.size()];
+
+        Map<String, List<Integer>> ngramIndexes = new HashMap<>();
+        for (int i = 0; i < normalizedNames.length; i++)
+        {
+            T ins = this.instruments.get(i);
+            InstrumentBank<?> bank = ins.getBank();
+            if (bank != null)
+            {
+                mapBankStamp.computeIfAbsent(bank, b -> b.getSubstitutesStamp());
+            }
+            String name = normalize(ins.getPatchName());
+            normalizedNames[i] = name;
+            mapAddressInstrument.putIfAbsent(ins.getMidiAddress(), ins);
+            mapNameInstrument.putIfAbsent(name, ins);
+            for (int j = 0; j + NGRAM_SIZE <= name.length(); j++)
+            {
+                List<Integer> indexes = ngramIndexes.computeIfAbsent(name.substring(j, j + NGRAM_SIZE), k -> new ArrayList<>());
+                if (indexes.isEmpty() || indexes.get(indexes.size() - 1) != i)
+                {
+                    indexes.add(i);
+                }
+            }
+
+            if (ins.isDrumKit())
+            {
+                drumsInstruments.add(ins);
+                mapKitInstruments.computeIfAbsent(ins.getDrumKit(), k -> new ArrayList<>()).add(ins);
+            } else
+            {
+                nonDrumsInstruments.add(ins);
+            }
+            GM1Instrument sub = ins.getSubstitute();
+            mapSubstituteInstruments.computeIfAbsent(sub, k -> new ArrayList<>()).add(ins);
+            if (sub != null)
+            {
+                mapFamilyInstruments.computeIfAbsent(sub.getFamily(), k -> new ArrayList<>()).add(ins);
+            }
+        }
+
+        ngramIndexes.forEach((ngram, indexes) -> mapNgramIndexes.put(ngram, indexes.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Check if this index is still valid regarding the substitutes of the indexed instruments.
+     * <p>
+     * Only the banks of the indexed instruments are checked: a substitute change in an unrelated bank does not make this index
+     * obsolete.
+     *
+     * @return
+     * @see InstrumentBank#substituteChanged()
+     */
+    boolean isUpToDate()
+    {
+        for (var entry : mapBankStamp.entrySet())
+        {
+            if (entry.getKey().getSubstitutesStamp() != entry.getValue())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The normalized form of a patch name, as used by the index.
+     *
+     * @param patchName
+     * @return
+     */
+    static String normalize(String patchName)
+    {
+        return patchName.toLowerCase();
+    }
+
+    T getInstrument(MidiAddress address)
+    {
+        return mapAddressInstrument.get(address);
+    }
+
+    /**
+     *
+     * @param patchName
+     * @return The instrument whose patch name matches (ignoring case) the trimmed patchName.
+     */
+    T getInstrument(String patchName)
+    {
+        return mapNameInstrument.get(normalize(patchName.trim()));
+    }
+
+    List<T> getDrumsInstruments()
+    {
+        return new ArrayList<>(drumsInstruments);
+    }
+
+    List<T> getNonDrumsInstruments()
+    {
+        return new ArrayList<>(nonDrumsInstruments);
+    }
+
+    List<T> getDrumsInstruments(DrumKit kit)
+    {
+        return new ArrayList<>(mapKitInstruments.getOrDefault(kit, Collections.emptyList()));
+    }
+
+    List<T> getInstrumentsFromSubstitute(GM1Instrument sub)
+    {
+        return new ArrayList<>(mapSubstituteInstruments.getOrDefault(sub, Collections.emptyList()));
+    }
+
+    List<T> getInstrumentsFromFamily(InstrumentFamily f)
+    {
+        return new ArrayList<>(mapFamilyInstruments.getOrDefault(f, Collections.emptyList()));
+    }
+
+    /**
+     * Find the instruments whose patch name contains text (ignoring case).
+     *
+     * @param text
+     * @return
+     */
+    List<T> findInstruments(String text)
+    {
+        String s = normalize(text);
+        List<T> res = new ArrayList<>();
+
+        if (s.length() < NGRAM_SIZE)
+        {
+            for (int i = 0; i < normalizedNames.length; i++)
+            {
+                if (normalizedNames[i].contains(s))
+                {
+                    res.add(instruments.get(i));
+                }
+            }
+            return res;
+        }
+
+
+        // Use the most selective ngram of text to get the candidates
+        int[] candidates = null;
+        for (int j = 0; j + NGRAM_SIZE <= s.length(); j++)
+        {
+            int[] indexes = mapNgramIndexes.get(s.substring(j, j + NGRAM_SIZE));
+            if (indexes == null)
+            {
+                return res;
+            }
+            if (candidates == null || indexes.length < candidates.length)
+            {
+                candidates = indexes;
+            }
+        }
+        for (int i : candidates)
+        {
+            if (normalizedNames[i].contains(s))
+            {
+                res.add(instruments.get(i));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "InstrumentIndex[size=" + instruments.size() + ", ngrams=" + mapNgramIndexes.size() + "]";
+    }
+}
@@ -124,6 +124,7 @@ public final class JJazzMidiSystem
     private Soundbank lastLoadedSoundbank;
     private File lastLoadedSoundbankFile;
     private float masterVolumeFactor = 1;
+    private MidiOutState midiOutState;
 
     /**
      * The Preferences of this object.
@@ -164,6 +165,8 @@ public final class JJazzMidiSystem
         jjazzMidiOut = new MidiFilter("[JJazz Midi OUT device]");
         transmitterJJazzOut2PhysicalOut = jjazzMidiOut.getTransmitter();
         receiverJJazzOut = jjazzMidiOut.getReceiver();
+        midiOutState = new MidiOutState(receiverJJazzOut);
+        jjazzMidiOut.getTransmitter().setReceiver(midiOutState.getTrackingReceiver());     // Track what goes out
         receiverPhysicalIn2JJazzIn = jjazzMidiIn.getReceiver();
 
         // Connect MidiIn to MidiOut to manage MidiThru
@@ -678,6 +681,7 @@ public final class JJazzMidiSystem
                 s = defaultOutDevice.getDeviceInfo().getName();
             }
         }
+        midiOutState.reset();       // State of the new device is unknown
         prefs.put(PROP_MIDI_OUT, s);
         pcs.firePropertyChange(PROP_MIDI_OUT, oldDevice, defaultOutDevice);
         LOGGER.log(Level.INFO, "setDefaultOutDevice() oldDevice={0} newDevice={1}", new Object[]
@@ -910,6 +914,16 @@ public final class JJazzMidiSystem
         return jjazzMidiOut.getFilterConfig().contains(MidiFilter.Config.FILTER_EVERYTHING);
     }
 
+    /**
+     * Get the model of the Midi state of the JJazzMidiOut device.
+     *
+     * @return
+     */
+    public MidiOutState getMidiOutState()
+    {
+        return midiOutState;
+    }
+
     /**
      * Send the specified MidiMessages on the JJazzMidiOut device with timing -1 (immediate play).
      * <p>
@@ -923,26 +937,7 @@ public final class JJazzMidiSystem
         {
             for (MidiMessage mm : mms)
             {
-                if (masterVolumeFactor != 1f && (mm instanceof ShortMessage))
-                {
-                    ShortMessage sm = (ShortMessage) mm;
-                    if (sm.getCommand() == ShortMessage.CONTROL_CHANGE && sm.getData1() == MidiConst.CTRL_CHG_VOLUME_MSB)
-                    {
-                        // It's a volume change, update the message
-                        int vol = sm.getData2();
-                        int newVol = Math.round(vol * masterVolumeFactor);
-                        newVol = Math.min(127, newVol);
-                        int channel = sm.getChannel();
-                        try
-                        {
-                            sm.setMessage(ShortMessage.CONTROL_CHANGE, channel, MidiConst.CTRL_CHG_VOLUME_MSB, newVol);
-                        } catch (InvalidMidiDataException ex)
-                        {
-                            LOGGER.log(Level.WARNING, "sendMidiMessagesOnJJazzMidiOut() problem applying master volume :{0}",
-                                    ex.getMessage());
-                        }
-                    }
-                }
+                applyMasterVolumeFactor(mm);
                 receiverJJazzOut.send(mm, -1);
             }
         } else
@@ -951,6 +946,41 @@ public final class JJazzMidiSystem
         }
     }
 
+    /**
+     * Same as sendMidiMessagesOnJJazzMidiOut() but only the messages which modify the current state of the JJazzMidiOut device
+     * are sent.
+     * <p>
+     * Use this method for messages which restore a state (instrument, volume, etc.), e.g. when a MidiMix is activated.
+     *
+     * @param mms
+     * @see MidiOutState#sendChanged(javax.sound.midi.MidiMessage...)
+     */
+    public void sendChangedMidiMessagesOnJJazzMidiOut(MidiMessage... mms)
+    {
+        for (MidiMessage mm : mms)
+        {
+            applyMasterVolumeFactor(mm);
+        }
+        midiOutState.sendChanged(mms);
+    }
+
+    /**
+     * Same as sendChangedMidiMessagesOnJJazzMidiOut() but controller changes are rate-limited.
+     * <p>
+     * Use this method for messages sent upon continuous user actions, e.g. a volume slider drag.
+     *
+     * @param mms
+     * @see MidiOutState#sendRateLimited(javax.sound.midi.MidiMessage...)
+     */
+    public void sendRateLimitedMidiMessagesOnJJazzMidiOut(MidiMessage... mms)
+    {
+        for (MidiMessage mm : mms)
+        {
+            applyMasterVolumeFactor(mm);
+        }
+        midiOutState.sendRateLimited(mms);
+    }
+
     /**
      * Find the MidiDevice whose Device.Info.name() is equals to mdName in the devices list.
      *
@@ -1063,6 +1093,31 @@ public final class JJazzMidiSystem
         return res;
     }
 
+    /**
+     * If mm is a volume message, update it using the master volume factor.
+     *
+     * @param mm
+     */
+    private void applyMasterVolumeFactor(MidiMessage mm)
+    {
+        if (masterVolumeFactor != 1f && (mm instanceof ShortMessage sm)
+                && sm.getCommand() == ShortMessage.CONTROL_CHANGE && sm.getData1() == MidiConst.CTRL_CHG_VOLUME_MSB)
+        {
+            // It's a volume change, update the message
+            int vol = sm.getData2();
+            int newVol = Math.round(vol * masterVolumeFactor);
+            newVol = Math.min(127, newVol);
+            int channel = sm.getChannel();
+            try
+            {
+                sm.setMessage(ShortMessage.CONTROL_CHANGE, channel, MidiConst.CTRL_CHG_VOLUME_MSB, newVol);
+            } catch (InvalidMidiDataException ex)
+            {
+                LOGGER.log(Level.WARNING, "applyMasterVolumeFactor() problem applying master volume :{0}", ex.getMessage());
+            }
+        }
+    }
+
     // ========================================================================================================
     // Private classes
     // ========================================================================================================
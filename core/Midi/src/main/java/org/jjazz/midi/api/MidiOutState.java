@@ -0,0 +1,436 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *  as published by the Free Software Foundation, either version 3 of the License,
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *  Contributor(s):
+ */
+package org.jjazz.midi.api;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.SysexMessage;
+
+/**
+ * A per-channel model of the Midi state of the JJazzLab Midi OUT device.
+ * <p>
+ * The state (program change and controller values per channel) is updated from the Midi messages which actually went out of the
+ * JJazzLab Midi OUT device, whatever their origin (sequencer, Midi thru, direct sends...). It is used to send only the Midi
+ * messages which change the state of the output device, and to rate-limit continuous controller changes (e.g. a volume slider
+ * drag) to a maximum output rate.
+ * <p>
+ * The state is unknown at startup. It is reset when the Midi OUT device changes, and updated when a Reset All Controllers or a
+ * SysEx message (GM/GS/XG reset...) goes out.
+ *
+ * @see JJazzMidiSystem#sendChangedMidiMessagesOnJJazzMidiOut(javax.sound.midi.MidiMessage...)
+ * @see JJazzMidiSystem#sendRateLimitedMidiMessagesOnJJazzMidiOut(javax.sound.midi.MidiMessage...)
+ */
+public class MidiOutState
+{
+
+    /**
+     * The default maximum number of messages per second sent for a given channel and controller by sendRateLimited().
+     * <p>
+     * Can be changed with the jjazz.midiout.controllerRateHz system property.
+     */
+    public static final int DEFAULT_CONTROLLER_RATE_HZ = Integer.getInteger("jjazz.midiout.controllerRateHz", 50);
+    /**
+     * Value returned for an unknown state.
+     */
+    public static final int UNKNOWN = -1;
+    private static final int NB_CHANNELS = MidiConst.CHANNEL_MAX - MidiConst.CHANNEL_MIN + 1;
+    private final int[][] controllers = new int[NB_CHANNELS][128];
+    private final int[] programs = new int[NB_CHANNELS];
+    private final int[][] pendingControllers = new int[NB_CHANNELS][128];
+    private final long[][] controllerSendTimes = new long[NB_CHANNELS][128];
+    private int controllerRateHz = DEFAULT_CONTROLLER_RATE_HZ;
+    private ScheduledExecutorService flushExecutor;
+    private ScheduledFuture<?> flushTask;
+    private final Receiver outReceiver;
+    private final Receiver trackingReceiver = new TrackingReceiver();
+    private static final Logger LOGGER = Logger.getLogger(MidiOutState.class.getSimpleName());
+
+    /**
+     *
+     * @param outReceiver The receiver used to send the Midi messages. Messages must reach trackingReceiver once they went out.
+     */
+    MidiOutState(Receiver outReceiver)
+    {
+        Preconditions.checkNotNull(outReceiver);
+        this.outReceiver = outReceiver;
+        long longAgo = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+        for (int i = 0; i < NB_CHANNELS; i++)
+        {
+            Arrays.fill(pendingControllers[i], UNKNOWN);
+            Arrays.fill(controllerSendTimes[i], longAgo);
+        }
+        reset();
+    }
+
+    /**
+     * Forget the whole state: next sendChanged() calls will send all messages.
+     */
+    public synchronized void reset()
+    {
+        LOGGER.fine("reset()");
+        for (int i = 0; i < NB_CHANNELS; i++)
+        {
+            Arrays.fill(controllers[i], UNKNOWN);
+        }
+        Arrays.fill(programs, UNKNOWN);
+    }
+
+    /**
+     * The last program change value sent on channel.
+     *
+     * @param channel
+     * @return UNKNOWN if not known.
+     */
+    public synchronized int getProgram(int channel)
+    {
+        Preconditions.checkElementIndex(channel, NB_CHANNELS);
+        return programs[channel];
+    }
+
+    /**
+     * The last value sent for a controller on channel.
+     *
+     * @param channel
+     * @param controller
+     * @return UNKNOWN if not known.
+     */
+    public synchronized int getControllerValue(int channel, int controller)
+    {
+        Preconditions.checkElementIndex(channel, NB_CHANNELS);
+        Preconditions.checkElementIndex(controller, 128);
+        return controllers[channel][controller];
+    }
+
+    /**
+     * @return The maximum number of messages per second sent for a given channel and controller by sendRateLimited(). 0 means no
+     *         limit.
+     */
+    public synchronized int getControllerRateHz()
+    {
+        return controllerRateHz;
+    }
+
+    /**
+     * Set the maximum number of messages per second sent for a given channel and controller by sendRateLimited().
+     *
+     * @param hz 0 means no limit.
+     */
+    public synchronized void setControllerRateHz(int hz)
+    {
+        Preconditions.checkArgument(hz >= 0, "hz=%s", hz);
+        controllerRateHz = hz;
+    }
+
+    /**
+     * Send only the messages which modify the known state of the output device.
+     * <p>
+     * Control changes are discarded if the controller already has the same value. A program change is discarded (with its
+     * preceding bank select messages) if program and bank are unchanged. Channel mode messages (all notes off, reset all
+     * controllers...), RPN/NRPN/data entry messages and non-ShortMessages are always sent.
+     * <p>
+     * Messages are sent with timestamp -1.
+     *
+     * @param mms
+     */
+    public void sendChanged(MidiMessage... mms)
+    {
+        var changed = getChangedMessages(mms);
+        for (var mm : changed)
+        {
+            outReceiver.send(mm, -1);
+        }
+        LOGGER.log(Level.FINE, "sendChanged() mms.length={0} changed.size()={1}", new Object[]
+        {
+            mms.length, changed.size()
+        });
+    }
+
+    /**
+     * Same as sendChanged() but controller changes are rate-limited per channel/controller to getControllerRateHz().
+     * <p>
+     * When a controller change comes too early, it is kept aside and replaced by any subsequent value for the same
+     * channel/controller. The last pending value is sent as soon as the rate allows it.
+     *
+     * @param mms
+     */
+    public void sendRateLimited(MidiMessage... mms)
+    {
+        List<MidiMessage> res = new ArrayList<>();
+        synchronized (this)
+        {
+            long periodNs = controllerRateHz == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / controllerRateHz;
+            long now = System.nanoTime();
+            for (var mm : mms)
+            {
+                if (periodNs > 0
+                        && mm instanceof ShortMessage sm
+                        && sm.getCommand() == ShortMessage.CONTROL_CHANGE
+                        && isTrackedController(sm.getData1())
+                        && !isBankSelect(sm.getData1()))
+                {
+                    int channel = sm.getChannel();
+                    int ctrl = sm.getData1();
+                    if (pendingControllers[channel][ctrl] == UNKNOWN && now - controllerSendTimes[channel][ctrl] >= periodNs)
+                    {
+                        controllerSendTimes[channel][ctrl] = now;
+                        res.add(sm);
+                    } else
+                    {
+                        pendingControllers[channel][ctrl] = sm.getData2();
+                        scheduleFlush(periodNs);
+                    }
+                } else
+                {
+                    res.add(mm);
+                }
+            }
+        }
+        sendChanged(res.toArray(MidiMessage[]::new));
+    }
+
+    // ================================================================================
+    // Package methods
+    // ================================================================================
+    /**
+     * The receiver which must be connected to the output of the JJazzLab Midi OUT device to track its state.
+     *
+     * @return
+     */
+    Receiver getTrackingReceiver()
+    {
+        return trackingReceiver;
+    }
+
+    // ================================================================================
+    // Private methods
+    // ================================================================================
+    private synchronized List<MidiMessage> getChangedMessages(MidiMessage... mms)
+    {
+        List<MidiMessage> res = new ArrayList<>(mms.length);
+        List<ShortMessage>[] bankSelects = null;       // Lazily created, per channel
+
+        for (var mm : mms)
+        {
+            if (!(mm instanceof ShortMessage sm))
+            {
+                res.add(mm);
+                continue;
+            }
+            int channel = sm.getChannel();
+            switch (sm.getCommand())
+            {
+                case ShortMessage.CONTROL_CHANGE ->
+                {
+                    int ctrl = sm.getData1();
+                    if (isBankSelect(ctrl))
+                    {
+                        // Wait for the program change to decide
+                        if (bankSelects == null)
+                        {
+                            bankSelects = new List[NB_CHANNELS];
+                        }
+                        if (bankSelects[channel] == null)
+                        {
+                            bankSelects[channel] = new ArrayList<>(2);
+                        }
+                        bankSelects[channel].add(sm);
+                    } else if (!isTrackedController(ctrl) || controllers[channel][ctrl] != sm.getData2())
+                    {
+                        res.add(sm);
+                    }
+                }
+                case ShortMessage.PROGRAM_CHANGE ->
+                {
+                    var banks = bankSelects == null ? null : bankSelects[channel];
+                    boolean bankChanged = banks != null && banks.stream().anyMatch(b -> controllers[channel][b.getData1()] != b.getData2());
+                    if (bankChanged || programs[channel] != sm.getData1())
+                    {
+                        if (banks != null)
+                        {
+                            res.addAll(banks);
+                        }
+                        res.add(sm);
+                    }
+                    if (banks != null)
+                    {
+                        banks.clear();
+                    }
+                }
+                default -> res.add(sm);
+            }
+        }
+
+        // Bank select messages not followed by a program change
+        if (bankSelects != null)
+        {
+            for (int i = 0; i < NB_CHANNELS; i++)
+            {
+                if (bankSelects[i] != null)
+                {
+                    for (var sm : bankSelects[i])
+                    {
+                        if (controllers[i][sm.getData1()] != sm.getData2())
+                        {
+                            res.add(sm);
+                        }
+                    }
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Schedule a flush of the pending controller values, if not already done.
+     *
+     * @param delayNs
+     */
+    private synchronized void scheduleFlush(long delayNs)
+    {
+        if (flushTask != null)
+        {
+            return;
+        }
+        if (flushExecutor == null)
+        {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(r ->
+            {
+                Thread t = new Thread(r, "MidiOutState-flush");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        flushTask = flushExecutor.schedule(this::flushPendingControllers, delayNs, TimeUnit.NANOSECONDS);
+    }
+
+    private void flushPendingControllers()
+    {
+        List<MidiMessage> res = new ArrayList<>();
+        synchronized (this)
+        {
+            flushTask = null;
+            long now = System.nanoTime();
+            for (int channel = 0; channel < NB_CHANNELS; channel++)
+            {
+                for (int ctrl = 0; ctrl < 128; ctrl++)
+                {
+                    int value = pendingControllers[channel][ctrl];
+                    if (value != UNKNOWN)
+                    {
+                        res.add(MidiUtilities.buildMessage(ShortMessage.CONTROL_CHANGE, channel, ctrl, value));
+                        pendingControllers[channel][ctrl] = UNKNOWN;
+                        controllerSendTimes[channel][ctrl] = now;
+                    }
+                }
+            }
+        }
+        sendChanged(res.toArray(MidiMessage[]::new));
+    }
+
+    /**
+     * Update the state from a message which went out of the Midi OUT device.
+     *
+     * @param mm
+     */
+    private synchronized void track(MidiMessage mm)
+    {
+        if (mm instanceof ShortMessage sm)
+        {
+            int channel = sm.getChannel();
+            switch (sm.getCommand())
+            {
+                case ShortMessage.CONTROL_CHANGE ->
+                {
+                    int ctrl = sm.getData1();
+                    if (ctrl == MidiConst.CTRL_CHG_RESET_ALL_CONTROLLERS)
+                    {
+                        // Synths differ on which controllers are actually reset
+                        Arrays.fill(controllers[channel], UNKNOWN);
+                    } else if (isTrackedController(ctrl))
+                    {
+                        controllers[channel][ctrl] = sm.getData2();
+                    }
+                }
+                case ShortMessage.PROGRAM_CHANGE -> programs[channel] = sm.getData1();
+                default ->
+                {
+                    // Nothing
+                }
+            }
+        } else if (mm instanceof SysexMessage)
+        {
+            // Might be a GM/GS/XG reset, or any synth-specific parameter change
+            reset();
+        }
+    }
+
+    /**
+     * True if controller is a state we can track: exclude channel mode messages and RPN/NRPN/data entry whose effect depend on
+     * previous messages.
+     *
+     * @param ctrl
+     * @return
+     */
+    private static boolean isTrackedController(int ctrl)
+    {
+        return ctrl < MidiConst.CTRL_CHG_ALL_SOUND_OFF
+                && ctrl != 6 && ctrl != 38 // Data entry MSB/LSB
+                && (ctrl < 96 || ctrl > 101);     // Data increment/decrement, NRPN, RPN
+    }
+
+    private static boolean isBankSelect(int ctrl)
+    {
+        return ctrl == MidiConst.CTRL_CHG_BANK_SELECT_MSB || ctrl == MidiConst.CTRL_CHG_BANK_SELECT_LSB;
+    }
+
+    // ================================================================================
+    // Private classes
+    // ================================================================================
+    private class TrackingReceiver implements Receiver
+    {
+
+        @Override
+        public void send(MidiMessage message, long timeStamp)
+        {
+            track(message);
+        }
+
+        @Override
+        public void close()
+        {
+            // Nothing
+        }
+    }
+}
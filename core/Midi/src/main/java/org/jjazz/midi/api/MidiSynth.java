@@ -91,6 +91,7 @@ public class MidiSynth
     private String manufacturer;
     private boolean isGMcompatible, isGM2compatible, isXGcompatible, isGScompatible;
     private MidiAddress gmBankBaseMidiAddress;
+    private volatile InstrumentIndex<Instrument> index;
     private static final Logger LOGGER = Logger.getLogger(MidiSynth.class.getSimpleName());
 
     /**
@@ -198,6 +199,10 @@ public class MidiSynth
 
         res.file = file;
 
+        // Build the lookup indexes once the synth is complete
+        res.banks.forEach(b -> b.getInstrumentIndex());
+        res.getInstrumentIndex();
+
         return res;
     }
 
@@ -282,6 +287,7 @@ public class MidiSynth
         {
             bank.setMidiSynth(this);
             banks.add(bank);
+            invalidateIndex();
         }
     }
 
@@ -408,15 +414,8 @@ public class MidiSynth
      */
     public Instrument getInstrument(String patchName)
     {
-        for (InstrumentBank<?> bank : getBanks())
-        {
-            Instrument ins = bank.getInstrument(patchName);
-            if (ins != null)
-            {
-                return ins;
-            }
-        }
-        return null;
+        Preconditions.checkArgument(patchName != null, "patchName=%s", patchName);
+        return getInstrumentIndex().getInstrument(patchName);
     }
 
     /**
@@ -428,15 +427,7 @@ public class MidiSynth
      */
     public final Instrument getInstrument(MidiAddress addr)
     {
-        for (InstrumentBank<?> bank : getBanks())
-        {
-            Instrument ins = bank.getInstrument(addr);
-            if (ins != null)
-            {
-                return ins;
-            }
-        }
-        return null;
+        return getInstrumentIndex().getInstrument(addr);
     }
 
     /**
@@ -621,6 +612,34 @@ public class MidiSynth
         return getName();
     }
 
+    /**
+     * Discard the lookup index of this synth instruments.
+     * <p>
+     * Called when a bank is added or when a bank content changes.
+     */
+    void invalidateIndex()
+    {
+        index = null;
+    }
+
+    /**
+     * The lookup index of all the instruments of this synth, built on demand.
+     * <p>
+     * When several banks have an instrument with the same MidiAddress or patch name, the one from the first bank is indexed.
+     *
+     * @return
+     */
+    private InstrumentIndex<Instrument> getInstrumentIndex()
+    {
+        var res = index;
+        if (res == null || !res.isUpToDate())
+        {
+            res = new InstrumentIndex<>(getInstruments());
+            index = res;
+        }
+        return res;
+    }
+
     public void dump()
     {
         LOGGER.log(Level.INFO, "DUMP synth: {0}({1}) ================================================", new Object[]
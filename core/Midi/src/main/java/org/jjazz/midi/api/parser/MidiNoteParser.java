@@ -0,0 +1,408 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.midi.api.parser;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+/**
+ * A lightweight parser which only extracts notes, for bulk conversions of Midi tracks or Midi files.
+ * <p>
+ * Unlike MidiParser there is no per-event callback nor per-note object: open notes are tracked in fixed [channel][pitch] tables
+ * and parsed notes are delivered in batches to a MidiNoteSink using primitive arrays.
+ * <p>
+ * Overlapping notes with the same pitch and channel are stacked: a NOTE_OFF (or NOTE_ON with velocity 0) closes the most
+ * recent NOTE_ON.
+ * <p>
+ * An instance can be reused but is not thread-safe.
+ *
+ * @see MidiParser
+ */
+public class MidiNoteParser
+{
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    private static final int NO_NOTE = -1;
+    private static final int MTHD = 0x4D546864;
+    private static final int MTRK = 0x4D54726B;
+
+    private final MidiNoteSink sink;
+    /**
+     * Index in the open notes pool of the most recent open note for each channel/pitch, NO_NOTE if none.
+     */
+    private final int[][] openNotes = new int[16][128];
+    // Open notes pool, unused slots are chained in a free list
+    private long[] poolStartTicks = new long[64];
+    private byte[] poolVelocities = new byte[64];
+    private int[] poolNext = new int[64];
+    private int poolSize;
+    private int poolFreeHead;
+    // Batch of parsed notes
+    private final byte[] batchChannels;
+    private final byte[] batchPitches;
+    private final byte[] batchVelocities;
+    private final long[] batchStartTicks;
+    private final long[] batchDurationTicks;
+    private int batchCount;
+    private int trackIndex;
+
+    /**
+     * Create a parser with a batch size of DEFAULT_BATCH_SIZE.
+     *
+     * @param sink
+     */
+    public MidiNoteParser(MidiNoteSink sink)
+    {
+        this(sink, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     *
+     * @param sink
+     * @param batchSize The max number of notes delivered per MidiNoteSink.notesParsed() call
+     */
+    public MidiNoteParser(MidiNoteSink sink, int batchSize)
+    {
+        checkNotNull(sink);
+        checkArgument(batchSize > 0, "batchSize=%s", batchSize);
+        this.sink = sink;
+        batchChannels = new byte[batchSize];
+        batchPitches = new byte[batchSize];
+        batchVelocities = new byte[batchSize];
+        batchStartTicks = new long[batchSize];
+        batchDurationTicks = new long[batchSize];
+    }
+
+    /**
+     * Parse all the tracks of a sequence.
+     *
+     * @param sequence Must use the PPQ division type
+     */
+    public void parse(Sequence sequence)
+    {
+        checkArgument(sequence.getDivisionType() == Sequence.PPQ, "sequence division type is not PPQ: %s", sequence.getDivisionType());
+        Track[] tracks = sequence.getTracks();
+        for (int i = 0; i < tracks.length; i++)
+        {
+            parse(tracks[i], i, sequence.getResolution());
+        }
+    }
+
+    /**
+     * Parse one track.
+     * <p>
+     * Open notes are not carried over from a previous track.
+     *
+     * @param track
+     * @param trackIndex Value passed to the MidiNoteSink
+     * @param resolution Value passed to the MidiNoteSink
+     */
+    public void parse(Track track, int trackIndex, int resolution)
+    {
+        startTrack(trackIndex, resolution);
+        int size = track.size();
+        for (int i = 0; i < size; i++)
+        {
+            var me = track.get(i);
+            MidiMessage mm = me.getMessage();
+            if (mm instanceof ShortMessage sm)
+            {
+                // Don't use MidiMessage.getMessage() which returns a copy of the data
+                shortMessage(sm.getStatus(), sm.getData1(), sm.getData2(), me.getTick());
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Parse the content of a standard Midi file (format 0 or 1).
+     * <p>
+     * Events are decoded directly from the bytes, no Sequence, MidiEvent or MidiMessage is created. The buffer position is not
+     * modified.
+     *
+     * @param smfData
+     * @throws InvalidMidiDataException If data is not a valid standard Midi file or does not use the PPQ division type
+     */
+    public void parse(ByteBuffer smfData) throws InvalidMidiDataException
+    {
+        ByteBuffer buf = smfData.duplicate().order(ByteOrder.BIG_ENDIAN);
+        try
+        {
+            if (buf.getInt() != MTHD)
+            {
+                throw new InvalidMidiDataException("Missing MThd header");
+            }
+            int headerLength = buf.getInt();
+            int headerStart = buf.position();
+            buf.getShort();        // Format
+            int nbTracks = buf.getShort() & 0xFFFF;
+            int division = buf.getShort();
+            if (division <= 0)
+            {
+                throw new InvalidMidiDataException("SMPTE division type is not supported, division=" + division);
+            }
+            buf.position(headerStart + headerLength);
+
+
+            int index = 0;
+            while (index < nbTracks && buf.remaining() >= 8)
+            {
+                int chunkType = buf.getInt();
+                int chunkLength = buf.getInt();
+                int chunkEnd = buf.position() + chunkLength;
+                if (chunkLength < 0 || chunkEnd > buf.limit())
+                {
+                    throw new InvalidMidiDataException("Invalid chunk length=" + chunkLength + " at position " + (buf.position() - 8));
+                }
+                if (chunkType == MTRK)
+                {
+                    parseTrackChunk(buf, chunkEnd, index, division);
+                    index++;
+                }
+                buf.position(chunkEnd);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException ex)
+        {
+            throw new InvalidMidiDataException("Unexpected end of Midi data");
+        }
+    }
+
+    /**
+     * Parse the content of a standard Midi file (format 0 or 1).
+     *
+     * @param smfData
+     * @throws InvalidMidiDataException
+     * @see #parse(java.nio.ByteBuffer)
+     */
+    public void parse(byte[] smfData) throws InvalidMidiDataException
+    {
+        parse(ByteBuffer.wrap(smfData));
+    }
+
+    // ==========================================================================
+    // Private methods
+    // ==========================================================================    
+    private void parseTrackChunk(ByteBuffer buf, int chunkEnd, int index, int resolution) throws InvalidMidiDataException
+    {
+        startTrack(index, resolution);
+
+        long tick = 0;
+        int runningStatus = 0;
+        while (buf.position() < chunkEnd)
+        {
+            tick += readVariableLength(buf);
+            int status = buf.get() & 0xFF;
+            int data1;
+            if (status < 0x80)
+            {
+                // Running status: status byte is omitted
+                if (runningStatus == 0)
+                {
+                    throw new InvalidMidiDataException("Missing status byte at position " + (buf.position() - 1));
+                }
+                data1 = status;
+                status = runningStatus;
+            } else if (status == 0xFF)
+            {
+                // Meta event, cancels running status
+                runningStatus = 0;
+                int type = buf.get() & 0xFF;
+                int length = readVariableLength(buf);
+                buf.position(buf.position() + length);
+                if (type == MidiParser.META_END_OF_TRACK)
+                {
+                    break;
+                }
+                continue;
+            } else if (status == 0xF0 || status == 0xF7)
+            {
+                // Sysex, cancels running status
+                runningStatus = 0;
+                int length = readVariableLength(buf);
+                buf.position(buf.position() + length);
+                continue;
+            } else if (status > 0xF0)
+            {
+                // Other system messages are not expected in a Midi file: skip their data bytes. System common messages cancel running
+                // status, system real time messages don't.
+                if (status < 0xF8)
+                {
+                    runningStatus = 0;
+                }
+                buf.position(buf.position() + getSystemMessageDataLength(status));
+                continue;
+            } else
+            {
+                runningStatus = status;
+                data1 = buf.get() & 0xFF;
+            }
+
+            int command = status & 0xF0;
+            if (command == ShortMessage.PROGRAM_CHANGE || command == ShortMessage.CHANNEL_PRESSURE)
+            {
+                // One data byte only
+                continue;
+            }
+            int data2 = buf.get() & 0xFF;
+            shortMessage(status, data1, data2, tick);
+        }
+
+        flush();
+    }
+
+    /**
+     * The number of data bytes of a system common or system real time message.
+     *
+     * @param status 0xF1 to 0xFE
+     * @return
+     */
+    private int getSystemMessageDataLength(int status)
+    {
+        return switch (status)
+        {
+            case ShortMessage.MIDI_TIME_CODE, ShortMessage.SONG_SELECT ->
+                1;
+            case ShortMessage.SONG_POSITION_POINTER ->
+                2;
+            default ->
+                0;
+        };
+    }
+
+    private int readVariableLength(ByteBuffer buf) throws InvalidMidiDataException
+    {
+        int value = 0;
+        for (int i = 0; i < 4; i++)
+        {
+            int b = buf.get() & 0xFF;
+            value = (value << 7) | (b & 0x7F);
+            if (b < 0x80)
+            {
+                return value;
+            }
+        }
+        throw new InvalidMidiDataException("Invalid variable-length quantity at position " + buf.position());
+    }
+
+    private void startTrack(int index, int resolution)
+    {
+        trackIndex = index;
+        batchCount = 0;
+        for (int[] channelNotes : openNotes)
+        {
+            Arrays.fill(channelNotes, NO_NOTE);
+        }
+        poolSize = 0;
+        poolFreeHead = NO_NOTE;
+        sink.trackStarted(index, resolution);
+    }
+
+    private void shortMessage(int status, int data1, int data2, long tick)
+    {
+        int command = status & 0xF0;
+        if ((command != ShortMessage.NOTE_ON && command != ShortMessage.NOTE_OFF) || data1 > 127 || data2 > 127)
+        {
+            return;
+        }
+        int channel = status & 0x0F;
+        if (command == ShortMessage.NOTE_ON && data2 > 0)
+        {
+            noteOn(channel, data1, data2, tick);
+        } else
+        {
+            noteOff(channel, data1, tick);
+        }
+    }
+
+    private void noteOn(int channel, int pitch, int velocity, long tick)
+    {
+        int slot;
+        if (poolFreeHead != NO_NOTE)
+        {
+            slot = poolFreeHead;
+            poolFreeHead = poolNext[slot];
+        } else
+        {
+            if (poolSize == poolNext.length)
+            {
+                int capacity = poolSize * 2;
+                poolStartTicks = Arrays.copyOf(poolStartTicks, capacity);
+                poolVelocities = Arrays.copyOf(poolVelocities, capacity);
+                poolNext = Arrays.copyOf(poolNext, capacity);
+            }
+            slot = poolSize++;
+        }
+        poolStartTicks[slot] = tick;
+        poolVelocities[slot] = (byte) velocity;
+        poolNext[slot] = openNotes[channel][pitch];
+        openNotes[channel][pitch] = slot;
+    }
+
+    private void noteOff(int channel, int pitch, long tick)
+    {
+        int slot = openNotes[channel][pitch];
+        if (slot == NO_NOTE)
+        {
+            // A note Off without a previous note On, do nothing
+            return;
+        }
+        openNotes[channel][pitch] = poolNext[slot];
+        poolNext[slot] = poolFreeHead;
+        poolFreeHead = slot;
+
+        long duration = tick - poolStartTicks[slot];
+        if (duration <= 0)
+        {
+            return;
+        }
+
+        batchChannels[batchCount] = (byte) channel;
+        batchPitches[batchCount] = (byte) pitch;
+        batchVelocities[batchCount] = poolVelocities[slot];
+        batchStartTicks[batchCount] = poolStartTicks[slot];
+        batchDurationTicks[batchCount] = duration;
+        batchCount++;
+        if (batchCount == batchChannels.length)
+        {
+            flush();
+        }
+    }
+
+    private void flush()
+    {
+        if (batchCount > 0)
+        {
+            sink.notesParsed(trackIndex, batchCount, batchChannels, batchPitches, batchVelocities, batchStartTicks, batchDurationTicks);
+            batchCount = 0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.midi.api.parser;
+
+/**
+ * Receive the notes decoded by a MidiNoteParser in batches.
+ * <p>
+ * The arrays are owned and reused by the parser: they are only valid during the call, copy what must be kept.
+ *
+ * @see MidiNoteParser
+ */
+public interface MidiNoteSink
+{
+
+    /**
+     * Called before the notes of a track are delivered.
+     *
+     * @param trackIndex
+     * @param resolution The PPQ resolution of the tick values
+     */
+    default void trackStarted(int trackIndex, int resolution)
+    {
+        // Nothing
+    }
+
+    /**
+     * Receive a batch of notes, in the order of their NOTE_OFF.
+     * <p>
+     * Only notes with a duration &gt; 0 are delivered. Notes which are never switched off in their track are discarded.
+     *
+     * @param trackIndex
+     * @param count         Number of valid notes in the arrays
+     * @param channels
+     * @param pitches
+     * @param velocities
+     * @param startTicks
+     * @param durationTicks
+     */
+    void notesParsed(int trackIndex, int count, byte[] channels, byte[] pitches, byte[] velocities, long[] startTicks, long[] durationTicks);
+}
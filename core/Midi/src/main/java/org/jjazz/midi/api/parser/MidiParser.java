@@ -47,9 +47,7 @@
 package org.jjazz.midi.api.parser;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -91,7 +89,12 @@ public class MidiParser
         public void parseUnhandledMidiEvent(MidiEvent me, MidiParser mp);
     }
 
-    private List<Map<Byte, TempNote>> noteCache;
+    private static final long NO_NOTE = -1;
+    /**
+     * Start tick of the open notes per channel/pitch, NO_NOTE if none.
+     */
+    private final long[][] openNoteStartTicks = new long[16][128];
+    private final byte[][] openNoteVelocities = new byte[16][128];
     private int resolutionTicksPerBeat;
     private int tempoBPM = 120;
     private int currentChannel = -1;
@@ -156,16 +159,12 @@ public class MidiParser
 
     private void initNoteCache()
     {
-        noteCache = new ArrayList<Map<Byte, TempNote>>();
-        this.currentTimeInBeats = new double[16];
-        this.expectedTimeInBeats = new double[16];
-
-        for (int i = 0; i < 16; i++)
+        for (long[] channelNotes : openNoteStartTicks)
         {
-            noteCache.add(new HashMap<Byte, TempNote>());
-            this.currentTimeInBeats[i] = 0.0d;
-            this.expectedTimeInBeats[i] = 0.0d;
+            Arrays.fill(channelNotes, NO_NOTE);
         }
+        this.currentTimeInBeats = new double[16];
+        this.expectedTimeInBeats = new double[16];
     }
 
     /**
@@ -339,23 +338,26 @@ public class MidiParser
 
     private boolean isNoteOnEvent(int command, int channel, MidiEvent event)
     {
-        return ((command == ShortMessage.NOTE_ON) && !((noteCache.get(channel).get(event.getMessage().getMessage()[1]) != null)
-                && (event.getMessage().getMessage()[2] == 0)));
+        return command == ShortMessage.NOTE_ON && !isDisguisedNoteOff(channel, (ShortMessage) event.getMessage());
     }
 
     private boolean isNoteOffEvent(int command, int channel, MidiEvent event)
     {
         // An event is a NoteOff event if it is actually a NoteOff event, 
         // or if it is a NoteOn event where the note has already been played and the attack velocity is 0. 
-        return ((command == ShortMessage.NOTE_OFF)
-                || ((command == ShortMessage.NOTE_ON)
-                && (noteCache.get(channel).get(event.getMessage().getMessage()[1]) != null)
-                && (event.getMessage().getMessage()[2] == 0)));
+        return command == ShortMessage.NOTE_OFF
+                || (command == ShortMessage.NOTE_ON && isDisguisedNoteOff(channel, (ShortMessage) event.getMessage()));
+    }
+
+    private boolean isDisguisedNoteOff(int channel, ShortMessage sm)
+    {
+        // Use getData1/2() rather than getMessage() which returns a copy of the data 
+        return sm.getData2() == 0 && openNoteStartTicks[channel][sm.getData1()] != NO_NOTE;
     }
 
     private void noteOff(int channel, MidiEvent event)
     {
-        byte note = event.getMessage().getMessage()[1];
+        byte note = (byte) ((ShortMessage) event.getMessage()).getData1();
         if (note < 0)
         {
             // Robustness to corrupted Midi files
@@ -373,26 +375,26 @@ public class MidiParser
             return;
         }
 
-        TempNote tempNote = noteCache.get(channel).get(note);
-        if (tempNote == null)
+        long startTick = openNoteStartTicks[channel][note];
+        if (startTick == NO_NOTE)
         {
             // A note was turned off when that note was never indicated as having been turned on
             return;
         }
-        noteCache.get(channel).remove(note);
-        float startTime = getDurationInBeats(tempNote.startTick);
+        openNoteStartTicks[channel][note] = NO_NOTE;
+        float startTime = getDurationInBeats(startTick);
         this.currentTimeInBeats[this.currentChannel] = startTime;
 
-        long durationInTicks = event.getTick() - tempNote.startTick;
+        long durationInTicks = event.getTick() - startTick;
         assert durationInTicks >= 0 : "channel=" + channel + " durationInTicks=" + durationInTicks + " note=" + note + " event=<" + MidiUtilities.   
-                toString(event.getMessage(), event.getTick()) + "> tempNote=" + tempNote;
+                toString(event.getMessage(), event.getTick()) + "> startTick=" + startTick;
         double durationInBeats = getDurationInBeats(durationInTicks);
         this.expectedTimeInBeats[this.currentChannel] = this.currentTimeInBeats[this.currentChannel] + durationInBeats;
 
         if (durationInBeats > 0)
         {
             // Some corrupted files have a note with abnormally short durations...
-            Note noteObject = new Note(note, (float) durationInBeats, tempNote.noteOnVelocity);
+            Note noteObject = new Note(note, (float) durationInBeats, openNoteVelocities[channel][note]);
             fireNoteParsed(noteObject, startTime);
         }
     }
@@ -406,7 +408,8 @@ public class MidiParser
             return;
         }
 
-        byte note = event.getMessage().getMessage()[1];
+        ShortMessage sm = (ShortMessage) event.getMessage();
+        byte note = (byte) sm.getData1();
         if (note < 0)
         {
             // Robustness to corrupted Midi files
@@ -423,7 +426,7 @@ public class MidiParser
             return;
         }
 
-        byte noteOnVelocity = event.getMessage().getMessage()[2];
+        byte noteOnVelocity = (byte) sm.getData2();
         if (noteOnVelocity == 0)
         {
             // It's not a disguised NoteOFF because isNoteOffEvent() did not recognize it before.
@@ -455,40 +458,39 @@ public class MidiParser
             return;
         }
 
-        if (noteCache.get(channel).get(note) != null)
+        if (openNoteStartTicks[channel][note] != NO_NOTE)
         {
             // The note already existed in the cache! Nothing to do about it now. This shouldn't happen.
         } else
         {
-            noteCache.get(channel).put(note, new TempNote(event.getTick(), noteOnVelocity));
+            openNoteStartTicks[channel][note] = event.getTick();
+            openNoteVelocities[channel][note] = noteOnVelocity;
         }
     }
 
     private void polyphonicAftertouch(int channel, MidiEvent event)
     {
-        firePolyphonicPressureParsed(event.getMessage().getMessage()[1], event.getMessage().getMessage()[2], getDurationInBeats(event.
-                getTick()));
+        firePolyphonicPressureParsed(data1(event), data2(event), getDurationInBeats(event.getTick()));
     }
 
     private void controlChange(int channel, MidiEvent event)
     {
-        fireControllerEventParsed(event.getMessage().getMessage()[1], event.getMessage().getMessage()[2],
-                getDurationInBeats(event.getTick()));
+        fireControllerEventParsed(data1(event), data2(event), getDurationInBeats(event.getTick()));
     }
 
     private void programChange(int channel, MidiEvent event)
     {
-        fireInstrumentParsed(event.getMessage().getMessage()[1], getDurationInBeats(event.getTick()));
+        fireInstrumentParsed(data1(event), getDurationInBeats(event.getTick()));
     }
 
     private void channelAftertouch(int channel, MidiEvent event)
     {
-        fireChannelPressureParsed(event.getMessage().getMessage()[1], getDurationInBeats(event.getTick()));
+        fireChannelPressureParsed(data1(event), getDurationInBeats(event.getTick()));
     }
 
     private void pitchWheel(int channel, MidiEvent event)
     {
-        firePitchWheelParsed(event.getMessage().getMessage()[1], event.getMessage().getMessage()[2], getDurationInBeats(event.getTick()));
+        firePitchWheelParsed(data1(event), data2(event), getDurationInBeats(event.getTick()));
     }
 
     private void tempoChanged(MetaMessage meta, MidiEvent event)
@@ -544,6 +546,16 @@ public class MidiParser
         }
     }
 
+    private byte data1(MidiEvent event)
+    {
+        return (byte) ((ShortMessage) event.getMessage()).getData1();
+    }
+
+    private byte data2(MidiEvent event)
+    {
+        return (byte) ((ShortMessage) event.getMessage()).getData2();
+    }
+
     //
     // Formulas and converters
     //
@@ -720,26 +732,4 @@ public class MidiParser
             listener.onNoteParsed(note, positionInBeats);
         }
     }
-
-    // 
-    // TempNote data structure
-    //
-    class TempNote
-    {
-
-        long startTick;
-        byte noteOnVelocity;
-
-        public TempNote(long startTick, byte noteOnVelocity)
-        {
-            this.startTick = startTick;
-            this.noteOnVelocity = noteOnVelocity;
-        }
-
-        @Override
-        public String toString()
-        {
-            return "TempNote[tick=" + startTick + ",v=" + noteOnVelocity + "]";
-        }
-    }
 }
@@ -138,6 +138,7 @@ public class FavoriteMidiSynth extends MidiSynth implements PropertyChangeListen
             if (!instruments.contains(instrument))
             {
                 instruments.add(instrument);
+                invalidateIndex();
             }
         }
 
@@ -0,0 +1,104 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.midi.api;
+
+import java.util.List;
+import org.jjazz.midi.api.synths.GM1Instrument;
+import org.jjazz.midi.api.synths.GMSynth;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the InstrumentBank lookup index invalidation.
+ */
+public class InstrumentBankTest
+{
+
+    private GM1Instrument piano, guitar;
+    private InstrumentBank<Instrument> bank1, bank2;
+    private Instrument ins1, ins2;
+
+    public InstrumentBankTest()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        var gm1Bank = GMSynth.getInstance().getGM1Bank();
+        piano = gm1Bank.getInstrument(0);
+        guitar = gm1Bank.getInstrument(24);
+        bank1 = new InstrumentBank<>("Bank1", 0, 0);
+        ins1 = new Instrument(0, "Ins1");
+        bank1.addInstrument(ins1);
+        bank2 = new InstrumentBank<>("Bank2", 1, 0);
+        ins2 = new Instrument(0, "Ins2");
+        bank2.addInstrument(ins2);
+    }
+
+    @Test
+    public void testSetSubstitute()
+    {
+        System.out.println("testSetSubstitute");
+        ins1.setSubstitute(piano);
+        ins2.setSubstitute(piano);
+        var index1 = bank1.getInstrumentIndex();
+        var index2 = bank2.getInstrumentIndex();
+        assertEquals(List.of(ins1), bank1.getInstrumentsFromSubstitute(piano));
+
+
+        // Unchanged value: the index is kept
+        ins1.setSubstitute(piano);
+        assertSame(index1, bank1.getInstrumentIndex());
+
+
+        // A change only impacts the bank of the instrument
+        ins1.setSubstitute(guitar);
+        assertSame(index2, bank2.getInstrumentIndex());
+        assertNotSame(index1, bank1.getInstrumentIndex());
+        assertEquals(List.of(), bank1.getInstrumentsFromSubstitute(piano));
+        assertEquals(List.of(ins1), bank1.getInstrumentsFromSubstitute(guitar));
+    }
+
+    @Test
+    public void testSynthIndex()
+    {
+        System.out.println("testSynthIndex");
+        ins1.setSubstitute(piano);
+        ins2.setSubstitute(piano);
+        var synth = new MidiSynth("Synth", "Test");
+        synth.addBank(bank1);
+        synth.addBank(bank2);
+        assertSame(ins2, synth.getInstrument(ins2.getMidiAddress()));
+        assertEquals(List.of(ins1, ins2), synth.getInstrumentsFromSubstitute(piano));
+
+
+        // A substitute change in one bank is seen by the synth
+        ins2.setSubstitute(guitar);
+        assertEquals(List.of(ins1), synth.getInstrumentsFromSubstitute(piano));
+        assertEquals(List.of(ins2), synth.getInstrumentsFromSubstitute(guitar));
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.midi.api.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the MidiNoteParser decoding of standard Midi files.
+ */
+public class MidiNoteParserTest
+{
+
+    private static final int PPQ = 480;
+    private NoteCollector collector;
+    private MidiNoteParser parser;
+
+    public MidiNoteParserTest()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        collector = new NoteCollector();
+        parser = new MidiNoteParser(collector, 2);      // Small batch size to test the batches
+    }
+
+    /**
+     * A NOTE_ON with velocity 0 is a NOTE_OFF, including when the status byte is omitted.
+     */
+    @Test
+    public void testNoteOnVelocityZeroIsNoteOff() throws InvalidMidiDataException
+    {
+        System.out.println("testNoteOnVelocityZeroIsNoteOff");
+        byte[] smf = smf(
+                ev(0, 0x91, 60, 100),
+                ev(0, 64, 90), // Running status
+                ev(PPQ, 60, 0),
+                ev(PPQ, 64, 0),
+                ev(0, 0x81, 67, 0)); // NOTE_OFF without NOTE_ON: ignored
+
+        parser.parse(smf);
+
+        assertEquals(List.of(
+                new Note(0, 1, 60, 100, 0, PPQ),
+                new Note(0, 1, 64, 90, 0, 2 * PPQ)),
+                collector.notes);
+        assertEquals(List.of(0), collector.startedTracks);
+    }
+
+    /**
+     * Running status is valid before and after a meta or sysex event, but it must be restated after it.
+     */
+    @Test
+    public void testRunningStatusAcrossMetaEvents() throws Exception
+    {
+        System.out.println("testRunningStatusAcrossMetaEvents");
+        byte[] smf = smf(
+                ev(0, 0x90, 60, 100),
+                ev(0, 62, 100), // Running status
+                ev(0, 0xFF, 0x01, 3, 'a', 'b', 'c'), // Text meta event
+                ev(0, 0xF0, 2, 0x7E, 0xF7), // Sysex
+                ev(PPQ, 0x80, 60, 0),
+                ev(0, 62, 0)); // Running status restated by the previous event
+
+        parser.parse(smf);
+
+        var expected = List.of(
+                new Note(0, 0, 60, 100, 0, PPQ),
+                new Note(0, 0, 62, 100, 0, PPQ));
+        assertEquals(expected, collector.notes);
+
+
+        // Same result with the Sequence parsing
+        collector.notes.clear();
+        parser.parse(toSequence(smf));
+        assertEquals(expected, collector.notes);
+
+
+        // Running status is cancelled by the meta event
+        byte[] bad = smf(
+                ev(0, 0x90, 60, 100),
+                ev(0, 0xFF, 0x01, 1, 'a'),
+                ev(PPQ, 60, 0));
+        try
+        {
+            parser.parse(bad);
+            fail("Running status after a meta event was accepted");
+        } catch (InvalidMidiDataException ex)
+        {
+            // Expected
+        }
+
+
+        // Running status is cancelled by a sysex
+        byte[] badSysex = smf(
+                ev(0, 0x90, 60, 100),
+                ev(0, 0xF0, 1, 0xF7),
+                ev(PPQ, 60, 0));
+        try
+        {
+            parser.parse(badSysex);
+            fail("Running status after a sysex was accepted");
+        } catch (InvalidMidiDataException ex)
+        {
+            // Expected
+        }
+    }
+
+    /**
+     * System common messages cancel running status and their data bytes are skipped, system real time messages are transparent.
+     */
+    @Test
+    public void testSystemMessages() throws InvalidMidiDataException
+    {
+        System.out.println("testSystemMessages");
+        byte[] smf = smf(
+                ev(0, 0x90, 60, 100),
+                ev(0, 0xF8), // Timing clock: no data, keeps running status
+                ev(PPQ, 60, 0),
+                ev(0, 0xF2, 0x10, 0x20), // Song position pointer: 2 data bytes
+                ev(0, 0xF3, 0x05), // Song select: 1 data byte
+                ev(0, 0x90, 72, 80),
+                ev(PPQ, 0x80, 72, 0));
+
+        parser.parse(smf);
+
+        assertEquals(List.of(
+                new Note(0, 0, 60, 100, 0, PPQ),
+                new Note(0, 0, 72, 80, PPQ, PPQ)),
+                collector.notes);
+
+
+        byte[] bad = smf(
+                ev(0, 0x90, 60, 100),
+                ev(0, 0xF6), // Tune request cancels running status
+                ev(PPQ, 60, 0));
+        try
+        {
+            parser.parse(bad);
+            fail("Running status after a system common message was accepted");
+        } catch (InvalidMidiDataException ex)
+        {
+            // Expected
+        }
+    }
+
+    /**
+     * Overlapping notes with the same pitch are stacked, PROGRAM_CHANGE has only one data byte.
+     */
+    @Test
+    public void testOverlappingNotes() throws Exception
+    {
+        System.out.println("testOverlappingNotes");
+        byte[] smf = smf(
+                ev(0, 0xC0, 5), // Program change
+                ev(0, 0x90, 60, 100),
+                ev(PPQ, 60, 50),
+                ev(PPQ, 0x80, 60, 0), // Closes the second note
+                ev(PPQ, 0x80, 60, 0)); // Closes the first note
+
+        var expected = List.of(
+                new Note(0, 0, 60, 50, PPQ, PPQ),
+                new Note(0, 0, 60, 100, 0, 3 * PPQ));
+        parser.parse(smf);
+        assertEquals(expected, collector.notes);
+
+        collector.notes.clear();
+        parser.parse(toSequence(smf));
+        assertEquals(expected, collector.notes);
+    }
+
+    @Test
+    public void testInvalidData()
+    {
+        System.out.println("testInvalidData");
+        byte[] smf = smf(ev(0, 0x90, 60, 100), ev(PPQ, 0x80, 60, 0));
+        byte[] truncated = Arrays.copyOf(smf, smf.length - 2);
+        for (byte[] data : List.of(new byte[]
+        {
+            1, 2, 3, 4
+        }, truncated))
+        {
+            try
+            {
+                parser.parse(data);
+                fail("Invalid data was accepted");
+            } catch (InvalidMidiDataException ex)
+            {
+                // Expected
+            }
+        }
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    /**
+     * Build a format 0 Midi file.
+     *
+     * @param events Each event is the delta time followed by the event bytes. An end of track meta event is added.
+     * @return
+     */
+    private static byte[] smf(int[]... events)
+    {
+        var track = new ByteArrayOutputStream();
+        for (int[] event : events)
+        {
+            writeVariableLength(track, event[0]);
+            for (int i = 1; i < event.length; i++)
+            {
+                track.write(event[i]);
+            }
+        }
+        track.writeBytes(new byte[]
+        {
+            0, (byte) 0xFF, 0x2F, 0
+        });
+
+        var res = new ByteArrayOutputStream();
+        res.writeBytes(new byte[]
+        {
+            'M', 'T', 'h', 'd', 0, 0, 0, 6, 0, 0, 0, 1, (byte) (PPQ >> 8), (byte) (PPQ & 0xFF)
+        });
+        res.writeBytes(new byte[]
+        {
+            'M', 'T', 'r', 'k'
+        });
+        int length = track.size();
+        res.writeBytes(new byte[]
+        {
+            (byte) (length >> 24), (byte) (length >> 16), (byte) (length >> 8), (byte) length
+        });
+        res.writeBytes(track.toByteArray());
+        return res.toByteArray();
+    }
+
+    private static void writeVariableLength(ByteArrayOutputStream out, int value)
+    {
+        int buffer = value & 0x7F;
+        while ((value >>= 7) > 0)
+        {
+            buffer <<= 8;
+            buffer |= ((value & 0x7F) | 0x80);
+        }
+        while (true)
+        {
+            out.write(buffer & 0xFF);
+            if ((buffer & 0x80) != 0)
+            {
+                buffer >>= 8;
+            } else
+            {
+                break;
+            }
+        }
+    }
+
+    private static int[] ev(int delta, int... bytes)
+    {
+        int[] res = new int[bytes.length + 1];
+        res[0] = delta;
+        System.arraycopy(bytes, 0, res, 1, bytes.length);
+        return res;
+    }
+
+    private static Sequence toSequence(byte[] smf) throws Exception
+    {
+        return MidiSystem.getSequence(new ByteArrayInputStream(smf));
+    }
+
+    // ===================================================================================
+    // Private classes
+    // ===================================================================================
+
+    private record Note(int track, int channel, int pitch, int velocity, long start, long duration)
+            {
+
+    }
+
+    private static class NoteCollector implements MidiNoteSink
+    {
+
+        private final List<Note> notes = new ArrayList<>();
+        private final List<Integer> startedTracks = new ArrayList<>();
+
+        @Override
+        public void trackStarted(int trackIndex, int resolution)
+        {
+            assertEquals(PPQ, resolution);
+            startedTracks.add(trackIndex);
+        }
+
+        @Override
+        public void notesParsed(int trackIndex, int count, byte[] channels, byte[] pitches, byte[] velocities, long[] startTicks,
+                long[] durationTicks)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                notes.add(new Note(trackIndex, channels[i], pitches[i], velocities[i], startTicks[i], durationTicks[i]));
+            }
+        }
+    }
+}
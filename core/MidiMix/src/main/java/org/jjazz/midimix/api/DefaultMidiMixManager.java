@@ -77,7 +77,7 @@ public class DefaultMidiMixManager implements MidiMixManager, PropertyChangeList
 
 
     @Override
-    public MidiMix findMix(Song s) throws MidiUnavailableException
+    public synchronized MidiMix findMix(Song s) throws MidiUnavailableException
     {
         LOGGER.log(Level.FINE, "findMix() -- s={0}", s);
 
@@ -140,7 +140,7 @@ public class DefaultMidiMixManager implements MidiMixManager, PropertyChangeList
     }
 
     @Override
-    public MidiMix findExistingMix(Song s)
+    public synchronized MidiMix findExistingMix(Song s)
     {
         MidiMix mm = mapSongMix.get(s);
         if (mm == null)
@@ -273,7 +273,7 @@ public class DefaultMidiMixManager implements MidiMixManager, PropertyChangeList
     // ==================================================================
     // Private functions
     // ==================================================================
-    private void registerSong(MidiMix mm, Song sg)
+    private synchronized void registerSong(MidiMix mm, Song sg)
     {
         if (mapSongMix.get(sg) == null)
         {
@@ -283,7 +283,7 @@ public class DefaultMidiMixManager implements MidiMixManager, PropertyChangeList
         mapSongMix.put(sg, mm);
     }
 
-    private void unregisterSong(Song song)
+    private synchronized void unregisterSong(Song song)
     {
         song.removePropertyChangeListener(this);
         mapSongMix.remove(song);
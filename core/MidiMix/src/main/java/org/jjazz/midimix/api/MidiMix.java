@@ -33,12 +33,12 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Serializable;
@@ -48,9 +48,11 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sound.midi.MidiUnavailableException;
+import javax.swing.SwingUtilities;
 import javax.swing.event.SwingPropertyChangeSupport;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.event.UndoableEditListener;
@@ -86,6 +88,7 @@ import org.jjazz.songstructure.api.SongPart;
 import org.jjazz.undomanager.api.JJazzUndoManager;
 import org.jjazz.undomanager.api.JJazzUndoManagerFinder;
 import org.jjazz.undomanager.api.SimpleEdit;
+import org.jjazz.utilities.api.BackgroundFileSaver;
 import org.jjazz.utilities.api.ResUtil;
 import org.jjazz.utilities.api.Utilities;
 import org.jjazz.xstream.api.XStreamInstancesManager;
@@ -192,7 +195,16 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
     private transient File file;
     private transient Song song;
     private transient boolean needSave = false;
+    private transient volatile long musicGenerationRevision;
     private final SwingPropertyChangeSupport pcs = new SwingPropertyChangeSupport(this);
+    /**
+     * Estimated memory size of an undoable edit with its presentation name and undo/redo data references.
+     */
+    private static final long EDIT_ESTIMATED_SIZE = 150;
+    /**
+     * Estimated memory size of an InstrumentMix with its InstrumentSettings, retained by an edit when it is replaced.
+     */
+    private static final long INSTRUMENT_MIX_ESTIMATED_SIZE = 500;
     private static final Logger LOGGER = Logger.getLogger(MidiMix.class.getSimpleName());
 
     /**
@@ -495,7 +507,7 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
 
 
         // Prepare the undoable edit
-        UndoableEdit edit = new SimpleEdit("Replace RhythmVoice")
+        UndoableEdit edit = new SimpleEdit("Replace RhythmVoice", EDIT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -561,7 +573,7 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
 
 
         // Prepare the undoable edit
-        UndoableEdit edit = new SimpleEdit("Set RhythmVoice channel")
+        UndoableEdit edit = new SimpleEdit("Set RhythmVoice channel", EDIT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1067,6 +1079,17 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
         }
     }
 
+    /**
+     * A counter incremented each time a PROP_MUSIC_GENERATION change event is fired.
+     *
+     * @return
+     * @see Song#getMusicGenerationRevision()
+     */
+    public long getMusicGenerationRevision()
+    {
+        return musicGenerationRevision;
+    }
+
     /**
      * @return True if MidiMix has some unsaved changes.
      */
@@ -1144,11 +1167,9 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
             file = f;
         }
 
-        try (FileOutputStream fos = new FileOutputStream(f))
+        try
         {
-            XStream xstream = XStreamInstancesManager.getInstance().getSaveMidiMixInstance();
-            Writer w = new BufferedWriter(new OutputStreamWriter(fos, "UTF-8"));        // Needed to support special/accented chars
-            xstream.toXML(this, w);
+            BackgroundFileSaver.writeAtomically(f, os -> writeXml(os));
             if (!isCopy)
             {
                 pcs.firePropertyChange(PROP_MODIFIED_OR_SAVED, true, false);
@@ -1159,17 +1180,45 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
             {
                 file = null;
             }
-            throw new IOException(e);
-        } catch (XStreamException e)
+            throw e;
+        }
+    }
+
+    /**
+     * Save this MidiMix to a file on a background I/O thread.
+     * <p>
+     * A deep copy of this MidiMix is made on the calling thread, the copy is then serialized and atomically written by the BackgroundFileSaver. If isCopy is
+     * false, file is updated and a PROP_MODIFIED_OR_SAVED change event (true=&gt;false) is fired when this method returns. If the save later fails, a
+     * PROP_MODIFIED_OR_SAVED change event (false=&gt;true) is fired on the EDT.
+     * <p>
+     * Must be called on the EDT.
+     *
+     * @param f
+     * @param isCopy Indicate that we save a copy, ie perform the file save but nothing else (eg no PROP_MODIFIED_OR_SAVED state change)
+     * @return A future completed (not on the EDT) with f when the file is written, or completed exceptionally with an IOException.
+     */
+    public CompletableFuture<File> saveToFileAsync(File f, boolean isCopy)
+    {
+        Preconditions.checkNotNull(f);
+        Preconditions.checkState(SwingUtilities.isEventDispatchThread(), "Not on the EDT");
+
+        MidiMix snapshot = getDeepCopy();
+        CompletableFuture<File> res = BackgroundFileSaver.getInstance().save(f, os -> snapshot.writeXml(os));
+
+        if (!isCopy)
         {
-            if (!isCopy)
+            file = f;
+            pcs.firePropertyChange(PROP_MODIFIED_OR_SAVED, true, false);
+            res.whenComplete((ff, ex) -> 
             {
-                file = null;
-            }
-            LOGGER.log(Level.WARNING, "saveToFile() exception={0}", e.getMessage());
-            // Translate into an IOException to be handled by the Netbeans framework 
-            throw new IOException("XStream XML unmarshalling error", e);
+                if (ex != null)
+                {
+                    SwingUtilities.invokeLater(() -> fireIsModified());
+                }
+            });
         }
+
+        return res;
     }
 
     /**
@@ -1269,7 +1318,8 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
     /**
      * Send the midi messages to initialize all the instrument mixes.
      * <p>
-     * Midi messages are sent to the default JJazzLab Midi OUT device.
+     * Midi messages are sent to the default JJazzLab Midi OUT device. Only messages which change the device state are sent, use
+     * JJazzMidiSystem.getMidiOutState().reset() beforehand to force a full resend.
      */
     public void sendAllMidiMixMessages()
     {
@@ -1278,14 +1328,14 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
         {
             InstrumentMix insMix = getInstrumentMix(channel);
             JJazzMidiSystem jms = JJazzMidiSystem.getInstance();
-            jms.sendMidiMessagesOnJJazzMidiOut(insMix.getAllMidiMessages(channel));
+            jms.sendChangedMidiMessagesOnJJazzMidiOut(insMix.getAllMidiMessages(channel));
         }
     }
 
     /**
      * Send the midi messages to set the volume of all instrument mixes.
      * <p>
-     * Midi messages are sent to the default JJazzLab Midi OUT device.
+     * Midi messages are sent to the default JJazzLab Midi OUT device. Only messages which change the device state are sent.
      */
     public void sendAllMidiVolumeMessages()
     {
@@ -1294,7 +1344,7 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
         {
             InstrumentMix insMix = getInstrumentMix(channel);
             InstrumentSettings insSet = insMix.getSettings();
-            JJazzMidiSystem.getInstance().sendMidiMessagesOnJJazzMidiOut(insSet.getVolumeMidiMessages(channel));
+            JJazzMidiSystem.getInstance().sendChangedMidiMessagesOnJJazzMidiOut(insSet.getVolumeMidiMessages(channel));
         }
     }
 
@@ -1838,7 +1888,7 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
         }
 
         // Prepare the undoable edit
-        UndoableEdit edit = new SimpleEdit("Change instrumemt mix")
+        UndoableEdit edit = new SimpleEdit("Change instrumemt mix", EDIT_ESTIMATED_SIZE + INSTRUMENT_MIX_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1918,6 +1968,22 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
 
     }
 
+    private void writeXml(OutputStream os) throws IOException
+    {
+        try
+        {
+            XStream xstream = XStreamInstancesManager.getInstance().getSaveMidiMixInstance();
+            Writer w = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));        // Needed to support special/accented chars
+            xstream.toXML(this, w);
+            w.flush();
+        } catch (XStreamException e)
+        {
+            LOGGER.log(Level.WARNING, "writeXml() exception={0}", e.getMessage());
+            // Translate into an IOException to be handled by the Netbeans framework 
+            throw new IOException("XStream XML marshalling error", e);
+        }
+    }
+
     private void fireIsModified()
     {
         needSave = true;
@@ -1926,6 +1992,7 @@ public class MidiMix implements SgsChangeListener, PropertyChangeListener, Vetoa
 
     private void fireIsMusicGenerationModified(String id, Object data)
     {
+        musicGenerationRevision++;
         pcs.firePropertyChange(PROP_MUSIC_GENERATION, id, data);
     }
 
@@ -24,7 +24,9 @@ package org.jjazz.musiccontrol.api;
 
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sound.midi.InvalidMidiDataException;
@@ -50,6 +52,13 @@ import org.openide.util.Exceptions;
  * - a MetaEvent for each beat changel. <br>
  * <p>
  * Methods are provided to extract the original data from these custom MetaEvents.
+ * <p>
+ * The control track also contains a precomputed beat map: for each natural beat (beat index), the tick, bar, in-bar beat, position in beats, song part
+ * index and current chord symbol are stored in primitive arrays. A beat change MetaEvent only carries its beat index (also encoded in the MetaMessage
+ * data), so that listeners can retrieve the beat data in O(1) without allocation.
+ * <p>
+ * A MetaEvent index is only meaningful for the control track which created it. When the control track of a playback session is replaced, previously
+ * queued MetaEvents may still be received: use {@link #getOwner(javax.sound.midi.MetaMessage)} to retrieve the control track they belong to.
  */
 public class ControlTrack
 {
@@ -60,6 +69,15 @@ public class ControlTrack
     private List<MidiEvent> midiEvents = new ArrayList<>();
     private SongChordSequence contextChordSequence;
     private final int trackId;
+    // The beat map, indexed by beat index
+    private int nbBeats;
+    private final long[] beatTicks;
+    private final int[] beatBars;
+    private final float[] beatInBarBeats;
+    private final float[] beatPositionsInBeats;
+    private final int[] beatSongPartIndexes;
+    private final int[] beatChordSymbolIndexes;
+    private CLI_ChordSymbol[] chordSymbols;
     private static final Logger LOGGER = Logger.getLogger(ControlTrack.class.getSimpleName());
 
     /**
@@ -82,13 +100,30 @@ public class ControlTrack
         // Add track name
         midiEvents.add(new MidiEvent(MidiUtilities.getTrackNameMetaMessage(TRACK_NAME), 0));
 
+        // Allocate the beat map
+        int size = 0;
+        for (SongPart spt : sgContext.getSongParts())
+        {
+            float nbNaturalBeatsPerBar = spt.getRhythm().getTimeSignature().getNbNaturalBeats();
+            size += (int) Math.ceil(sgContext.getSptBarRange(spt).size() * nbNaturalBeatsPerBar);
+        }
+        beatTicks = new long[size];
+        beatBars = new int[size];
+        beatInBarBeats = new float[size];
+        beatPositionsInBeats = new float[size];
+        beatSongPartIndexes = new int[size];
+        beatChordSymbolIndexes = new int[size];
+
+
         long tick = 0;
 
-        // Add the beat change events and update songPositions
+        // Add the beat change events and update the beat map
+        int sptIndex = 0;
         for (SongPart spt : sgContext.getSongParts())
         {
-            tick = addBeatChangeEvents(sgContext, tick, spt);
+            tick = addBeatChangeEvents(sgContext, tick, spt, sptIndex++);
         }
+        assert nbBeats == size : "nbBeats=" + nbBeats + " size=" + size;
 
         // Add the chord symbol marker events
         addChordSymbolEvents(sgContext);
@@ -137,16 +172,44 @@ public class ControlTrack
     }
 
 
+    /**
+     * Get the control track which created the specified MetaMessage.
+     *
+     * @param mm
+     * @return Null if mm was not created by a ControlTrack instance (e.g. it's a clone of a control track MetaMessage).
+     */
+    static public ControlTrack getOwner(MetaMessage mm)
+    {
+        ControlTrack res = null;
+        if (mm instanceof MmPosition mmPos)
+        {
+            res = mmPos.getOwner();
+        } else if (mm instanceof MmChordSymbol mmCs)
+        {
+            res = mmCs.getOwner();
+        }
+        return res;
+    }
+
     /**
      * Retrieve the chord symbol from a control track MetaMessage.
      *
-     * @param mm A MetaMessage with type==CHORD_SYMBOL_META_EVENT_TYPE
-     * @return Can be null if mm is unknown
+     * @param mm A MetaMessage with type==CHORD_SYMBOL_META_EVENT_TYPE, created by this control track or a clone of it.
+     * @return Can be null if mm is unknown or was created by another control track
+     * @see #getOwner(javax.sound.midi.MetaMessage)
      */
     public CLI_ChordSymbol getChordSymbol(MetaMessage mm)
     {
         Preconditions.checkArgument(mm.getType() == CHORD_SYMBOL_META_EVENT_TYPE, "mm=%s", mm);
-        return ((MmChordSymbol) mm).cliCs;
+        int index;
+        if (mm instanceof MmChordSymbol mmCs)
+        {
+            index = mmCs.getOwner() == this ? mmCs.csIndex : -1;
+        } else
+        {
+            index = decodeIndex(mm);
+        }
+        return index >= 0 && index < chordSymbols.length ? chordSymbols[index] : null;
     }
 
     /**
@@ -154,11 +217,12 @@ public class ControlTrack
      *
      * @param mm A MetaMessage with type==POSITION_META_EVENT_TYPE
      * @return Can be null if mm is unknown
+     * @see #getBeatIndex(javax.sound.midi.MetaMessage)
      */
     public Position getPosition(MetaMessage mm)
     {
-        Preconditions.checkArgument(mm.getType() == POSITION_META_EVENT_TYPE, "mm=%s", mm);
-        return ((MmPosition) mm).pos;
+        int beatIndex = getBeatIndex(mm);
+        return beatIndex == -1 ? null : new Position(beatBars[beatIndex], beatInBarBeats[beatIndex]);
     }
 
     /**
@@ -166,11 +230,131 @@ public class ControlTrack
      *
      * @param mm A MetaMessage with type==POSITION_META_EVENT_TYPE
      * @return -1 if mm is unknown
+     * @see #getBeatIndex(javax.sound.midi.MetaMessage)
      */
     public float getPositionInBeats(MetaMessage mm)
+    {
+        int beatIndex = getBeatIndex(mm);
+        return beatIndex == -1 ? -1 : beatPositionsInBeats[beatIndex];
+    }
+
+    /**
+     * Retrieve the beat index from a control track MetaMessage.
+     *
+     * @param mm A MetaMessage with type==POSITION_META_EVENT_TYPE, created by this control track or a clone of it.
+     * @return -1 if mm is unknown or was created by another control track
+     * @see #getOwner(javax.sound.midi.MetaMessage)
+     */
+    public int getBeatIndex(MetaMessage mm)
     {
         Preconditions.checkArgument(mm.getType() == POSITION_META_EVENT_TYPE, "mm=%s", mm);
-        return ((MmPosition) mm).posInBeats;
+        int beatIndex;
+        if (mm instanceof MmPosition mmPos)
+        {
+            beatIndex = mmPos.getOwner() == this ? mmPos.beatIndex : -1;
+        } else
+        {
+            beatIndex = decodeIndex(mm);
+        }
+        return beatIndex >= 0 && beatIndex < nbBeats ? beatIndex : -1;
+    }
+
+    /**
+     * The number of beat change events in this control track.
+     *
+     * @return
+     */
+    public int getNbBeats()
+    {
+        return nbBeats;
+    }
+
+    /**
+     * Get the index of the beat which contains the specified tick.
+     *
+     * @param relativeTick A tick relative to the start of the SongContext
+     * @return -1 if relativeTick is before the first beat
+     */
+    public int getBeatIndex(long relativeTick)
+    {
+        int index = Arrays.binarySearch(beatTicks, 0, nbBeats, relativeTick);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * The tick of the specified beat, relative to the start of the SongContext.
+     *
+     * @param beatIndex
+     * @return
+     */
+    public long getBeatTick(int beatIndex)
+    {
+        Objects.checkIndex(beatIndex, nbBeats);
+        return beatTicks[beatIndex];
+    }
+
+    /**
+     * The absolute bar index of the specified beat.
+     *
+     * @param beatIndex
+     * @return
+     */
+    public int getBar(int beatIndex)
+    {
+        Objects.checkIndex(beatIndex, nbBeats);
+        return beatBars[beatIndex];
+    }
+
+    /**
+     * The beat within the bar of the specified beat.
+     *
+     * @param beatIndex
+     * @return
+     */
+    public float getBeatInBar(int beatIndex)
+    {
+        Objects.checkIndex(beatIndex, nbBeats);
+        return beatInBarBeats[beatIndex];
+    }
+
+    /**
+     * The position in beats of the specified beat, see SongContext.getBeatRange().
+     *
+     * @param beatIndex
+     * @return
+     */
+    public float getPositionInBeats(int beatIndex)
+    {
+        Objects.checkIndex(beatIndex, nbBeats);
+        return beatPositionsInBeats[beatIndex];
+    }
+
+    /**
+     * The song part of the specified beat.
+     * <p>
+     * Note that the control track is usually built from a copy of the original SongContext: the returned index can be used with the original
+     * SongContext.getSongParts().
+     *
+     * @param beatIndex
+     * @return The index of the song part in SongContext.getSongParts()
+     */
+    public int getSongPartIndex(int beatIndex)
+    {
+        Objects.checkIndex(beatIndex, nbBeats);
+        return beatSongPartIndexes[beatIndex];
+    }
+
+    /**
+     * The current chord symbol at the start of the specified beat.
+     *
+     * @param beatIndex
+     * @return Can be null if no chord symbol at or before the beat.
+     */
+    public CLI_ChordSymbol getChordSymbol(int beatIndex)
+    {
+        Objects.checkIndex(beatIndex, nbBeats);
+        int csIndex = beatChordSymbolIndexes[beatIndex];
+        return csIndex == -1 ? null : chordSymbols[csIndex];
     }
 
     @Override
@@ -186,14 +370,15 @@ public class ControlTrack
     /**
      * Create control events for the specified SongPart.
      * <p>
-     * Update the songPositions list.
+     * Update the beat map.
      *
      * @param context
      * @param tickOffset Will be 0 for the first SongPart
      * @param spt
+     * @param sptIndex   The index of spt in context.getSongParts()
      * @return The tick position corresponding to the start of next spt.
      */
-    private long addBeatChangeEvents(SongContext context, long tickOffset, SongPart spt)
+    private long addBeatChangeEvents(SongContext context, long tickOffset, SongPart spt, int sptIndex)
     {
         IntRange sptRange = context.getSptBarRange(spt);    // Use only the relevant bars for the context
         int sptStartBar = sptRange.from;
@@ -213,27 +398,89 @@ public class ControlTrack
             int bar = (int) Math.floor(beat / nbNaturalBeatsPerBar);
             float inbarBeat = beat - (bar * nbNaturalBeatsPerBar);
             float posInBeats = posInBeatsOffset + beat;
-            Position pos = new Position(bar + sptStartBar, inbarBeat);
-            MmPosition mm = new MmPosition(pos, posInBeats);
+
+            beatTicks[nbBeats] = tick;
+            beatBars[nbBeats] = bar + sptStartBar;
+            beatInBarBeats[nbBeats] = inbarBeat;
+            beatPositionsInBeats[nbBeats] = posInBeats;
+            beatSongPartIndexes[nbBeats] = sptIndex;
+            MmPosition mm = new MmPosition(nbBeats);
             midiEvents.add(new MidiEvent(mm, tick));
+            nbBeats++;
         }
 
         return (long) (tickOffset + nbNaturalBeats * MidiConst.PPQ_RESOLUTION);
     }
 
+    /**
+     * Create chord symbol events.
+     * <p>
+     * Update the chord symbols of the beat map.
+     *
+     * @param context
+     */
     private void addChordSymbolEvents(SongContext context)
     {
+        int size = contextChordSequence.size();
+        chordSymbols = new CLI_ChordSymbol[size];
+        long[] chordTicks = new long[size];
+
         int csIndex = 0;
         for (CLI_ChordSymbol cliCs : contextChordSequence)
         {
             long tick = context.toRelativeTick(cliCs.getPosition());
             assert tick != -1 : "cliCs=" + cliCs + " contextChordSequence=" + contextChordSequence + " context=" + context;
-            var mm = new MmChordSymbol(cliCs);
+            chordSymbols[csIndex] = cliCs;
+            chordTicks[csIndex] = tick;
+            var mm = new MmChordSymbol(csIndex);
             // HACK!
             // tick+1 is a hack, otherwise when tick==0 the first Meta event is sometimes not fired! Don't know why
             midiEvents.add(new MidiEvent(mm, tick + 1));
             csIndex++;
         }
+
+
+        // Current chord symbol for each beat
+        csIndex = -1;
+        for (int beatIndex = 0; beatIndex < nbBeats; beatIndex++)
+        {
+            while (csIndex + 1 < size && chordTicks[csIndex + 1] <= beatTicks[beatIndex])
+            {
+                csIndex++;
+            }
+            beatChordSymbolIndexes[beatIndex] = csIndex;
+        }
+    }
+
+    /**
+     * Encode an index in a 3-byte array.
+     *
+     * @param index
+     * @return
+     */
+    static private byte[] encodeIndex(int index)
+    {
+        Preconditions.checkArgument(index >= 0 && index <= 0xFFFFFF, "index=%s", index);
+        return new byte[]
+        {
+            (byte) (index >> 16), (byte) (index >> 8), (byte) index
+        };
+    }
+
+    /**
+     * Decode the index of a MetaMessage which is not one of our instances (e.g. a clone).
+     *
+     * @param mm
+     * @return -1 if no index found
+     */
+    static private int decodeIndex(MetaMessage mm)
+    {
+        byte[] data = mm.getData();
+        if (data.length != 3)
+        {
+            return -1;
+        }
+        return ((data[0] & 0xFF) << 16) | ((data[1] & 0xFF) << 8) | (data[2] & 0xFF);
     }
 
 
@@ -243,40 +490,48 @@ public class ControlTrack
     private class MmPosition extends MetaMessage
     {
 
-        private final float posInBeats;
-        private final Position pos;
+        private final int beatIndex;
 
-        private MmPosition(Position pos, float posInBeats)
+        private MmPosition(int beatIndex)
         {
-            Preconditions.checkNotNull(pos);
-            this.posInBeats = posInBeats;
-            this.pos = pos;
+            this.beatIndex = beatIndex;
             try
             {
-                setMessage(POSITION_META_EVENT_TYPE, new byte[0], 0);
+                byte[] data = encodeIndex(beatIndex);
+                setMessage(POSITION_META_EVENT_TYPE, data, data.length);
             } catch (InvalidMidiDataException ex)
             {
                 Exceptions.printStackTrace(ex);
             }
         }
+
+        private ControlTrack getOwner()
+        {
+            return ControlTrack.this;
+        }
     }
 
     private class MmChordSymbol extends MetaMessage
     {
 
-        private final CLI_ChordSymbol cliCs;
+        private final int csIndex;
 
-        private MmChordSymbol(CLI_ChordSymbol cliCs)
+        private MmChordSymbol(int csIndex)
         {
-            Preconditions.checkNotNull(cliCs);
-            this.cliCs = cliCs;
+            this.csIndex = csIndex;
             try
             {
-                setMessage(CHORD_SYMBOL_META_EVENT_TYPE, new byte[0], 0);
+                byte[] data = encodeIndex(csIndex);
+                setMessage(CHORD_SYMBOL_META_EVENT_TYPE, data, data.length);
             } catch (InvalidMidiDataException ex)
             {
                 Exceptions.printStackTrace(ex);
             }
         }
+
+        private ControlTrack getOwner()
+        {
+            return ControlTrack.this;
+        }
     }
 }
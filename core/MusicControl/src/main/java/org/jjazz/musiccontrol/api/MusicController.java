@@ -72,8 +72,9 @@ import org.jjazz.outputsynth.spi.OutputSynthManager;
  * Property changes are fired for:<br>
  * - start/pause/stop/disabled state changes<br>
  * <p>
- * Use NoteListener to get notified of note ON/OFF events. Use PlaybackListener to get notified of other events (e.g. bar/beat changes) during playback. Note
- * that listeners will be notified out of the Swing EDT.<br>
+ * Use PlaybackActivityMonitor for UI indicators of musical activity. Use NoteListener to get notified of note ON/OFF events. Use
+ * PlaybackListener to get notified of other events (e.g. bar/beat changes) during playback. Note that listeners will be notified out
+ * of the Swing EDT.<br>
  * The current output synth latency is taken into account to fire events to NoteListeners and PlaybackListeners.
  * <p>
  * Use acquireSequencer()/releaseSequencer() if you want to use the Java system sequencer independently.
@@ -784,7 +785,7 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
             {
                 if (playbackSession instanceof ControlTrackProvider ctProvider)
                 {
-                    ControlTrack controlTrack = ctProvider.getControlTrack(); // Might be null for a specific BaseSongSession instance
+                    ControlTrack controlTrack = getControlTrack(ctProvider, meta);
                     if (controlTrack != null)
                     {
                         var cliCs = controlTrack.getChordSymbol(meta);
@@ -802,15 +803,17 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
             {
                 if (playbackSession instanceof ControlTrackProvider ctProvider)
                 {
-                    ControlTrack controlTrack = ctProvider.getControlTrack(); // Might be null for a specific BaseSongSession instance
+                    ControlTrack controlTrack = getControlTrack(ctProvider, meta);
                     if (controlTrack != null && playbackSession.getLoopStartTick() != -1)
                     {
-                        Position pos = controlTrack.getPosition(meta);
-                        float posInBeats = controlTrack.getPositionInBeats(meta);
-                        if (pos != null)
+                        int beatIndex = controlTrack.getBeatIndex(meta);
+                        if (beatIndex != -1)
                         {
-                            // LOGGER.severe("meta() position received pos=" + pos + " posInBeats=" + posInBeats);
-                            updateCurrentPosition(pos.getBar(), pos.getBeat(), posInBeats);
+                            // Use the precomputed beat map
+                            updateCurrentPosition(controlTrack.getBar(beatIndex),
+                                    controlTrack.getBeatInBar(beatIndex),
+                                    controlTrack.getPositionInBeats(beatIndex),
+                                    controlTrack.getSongPartIndex(beatIndex));
                         } else
                         {
                             LOGGER.log(Level.WARNING, "meta() Unexpected null position meta={0}", meta);
@@ -945,6 +948,30 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
         receiver.setEnabled(false);
     }
 
+    /**
+     * Get the control track to be used to decode a control track MetaMessage.
+     * <p>
+     * The control track of the session might have been replaced (e.g. by an UpdatableSongSession) while meta was already queued: meta must be decoded
+     * with the control track which created it.
+     *
+     * @param ctProvider
+     * @param meta
+     * @return Null if control track is disabled for the session
+     */
+    private ControlTrack getControlTrack(ControlTrackProvider ctProvider, MetaMessage meta)
+    {
+        ControlTrack res = ctProvider.getControlTrack(); // Might be null for a specific BaseSongSession instance
+        if (res != null)
+        {
+            ControlTrack owner = ControlTrack.getOwner(meta);
+            if (owner != null)
+            {
+                res = owner;
+            }
+        }
+        return res;
+    }
+
 
     private void setPosition(int fromBar)
     {
@@ -1095,6 +1122,7 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
      */
     private void clearPendingEvents()
     {
+        PlaybackActivityMonitor.getInstance().reset();
         for (Iterator<Timer> it = audioLatencyTimers.iterator(); it.hasNext();)
         {
             it.next().stop();
@@ -1102,6 +1130,16 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
         }
     }
 
+    /**
+     * The audio latency of the current output synth.
+     *
+     * @return In milliseconds
+     */
+    int getAudioLatency()
+    {
+        return audioLatency;
+    }
+
     private SongContext getSongContext(PlaybackSession session)
     {
         SongContext sgContext = session instanceof SongContextProvider ? ((SongContextProvider) session).getSongContext() : null;
@@ -1166,6 +1204,19 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
     }
 
     private void updateCurrentPosition(int bar, float barBeat, float posInBeats)
+    {
+        updateCurrentPosition(bar, barBeat, posInBeats, -1);
+    }
+
+    /**
+     * Update the current position and fire the related events.
+     *
+     * @param bar
+     * @param barBeat
+     * @param posInBeats
+     * @param sptIndex   The index of the song part in SongContext.getSongParts(). If -1 song part is searched from bar.
+     */
+    private void updateCurrentPosition(int bar, float barBeat, float posInBeats, int sptIndex)
     {
         assert !isDisabled();
         Position oldPos = new Position(currentBeatPosition);
@@ -1181,9 +1232,15 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
         SongContext sgContext = getSongContext(playbackSession);
         if (sgContext != null)
         {
-            SongPart newSpt = sgContext.getSongParts().stream()
-                    .filter(spt -> spt.getBarRange().contains(bar))
-                    .findFirst().orElse(null);
+            var spts = sgContext.getSongParts();
+            SongPart newSpt = sptIndex >= 0 && sptIndex < spts.size() ? spts.get(sptIndex) : null;
+            if (newSpt == null || !newSpt.getBarRange().contains(bar))
+            {
+                // Control track might be out of sync with sgContext (e.g. song was structurally modified)
+                newSpt = spts.stream()
+                        .filter(spt -> spt.getBarRange().contains(bar))
+                        .findFirst().orElse(null);
+            }
             if (newSpt != null)
             {
                 fireSongPartChanged(newSpt);
@@ -1311,6 +1368,7 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
 
         // Store the last Note On millisecond position for each note. Use -1 if initialized.
         private final long lastNoteOnMs[] = new long[16];
+        private final PlaybackActivityMonitor activityMonitor = PlaybackActivityMonitor.getInstance();
         private boolean enabled;
 
         public McReceiver()
@@ -1351,7 +1409,7 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
 
             if (msg instanceof ShortMessage sm)
             {
-                if (playbackListeners.isEmpty() && noteListeners.isEmpty())
+                if (playbackListeners.isEmpty() && noteListeners.isEmpty() && !activityMonitor.isActive())
                 {
                     return;
                 }
@@ -1399,17 +1457,27 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
         {
             if (enabled)
             {
+                if (activityMonitor.isActive())
+                {
+                    activityMonitor.noteOn(channel, pitch);
+                }
+
+
                 // Midi activity only once for a given channel in the ACTIVITY_MIN_PERIOD_MS period 
                 long pos = System.currentTimeMillis();
                 long lastPos = lastNoteOnMs[channel];
-                if (lastPos < 0 || (pos - lastPos) > ACTIVITY_MIN_PERIOD_MS)
+                if (!playbackListeners.isEmpty() && (lastPos < 0 || (pos - lastPos) > ACTIVITY_MIN_PERIOD_MS))
                 {
                     fireMidiActivity(-1, channel);
                 }
                 lastNoteOnMs[channel] = pos;
 
 
-                fireNoteOn(-1, channel, pitch, velocity);
+                // Avoid flooding the EDT with useless events
+                if (!noteListeners.isEmpty())
+                {
+                    fireNoteOn(-1, channel, pitch, velocity);
+                }
             }
         }
 
@@ -1417,8 +1485,12 @@ public class MusicController implements PropertyChangeListener, MetaEventListene
         {
             if (enabled)
             {
+                activityMonitor.noteOff(channel, pitch);
                 lastNoteOnMs[channel] = -1;
-                fireNoteOff(-1, channel, pitch);
+                if (!noteListeners.isEmpty())
+                {
+                    fireNoteOff(-1, channel, pitch);
+                }
             }
         }
 
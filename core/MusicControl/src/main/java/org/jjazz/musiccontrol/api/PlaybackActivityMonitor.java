@@ -0,0 +1,320 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.musiccontrol.api;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Aggregate the Midi notes played by the MusicController and publish consolidated activity snapshots on the EDT.
+ * <p>
+ * Notes are accumulated in lock-free per-channel activity bitmasks and note states. Snapshots are published at most FRAME_RATE
+ * times per second, and only when there is a change, whatever the number of notes played. The current output synth latency is
+ * taken into account. The publishing timer runs only while there is some activity.
+ * <p>
+ * This should be preferred to PlaybackListener.midiActivity() or NoteListener for UI indicators.
+ *
+ * @see MusicController
+ */
+public class PlaybackActivityMonitor
+{
+
+    /**
+     * Number of snapshots per second, can be changed with the jjazz.playbackactivity.frameRate system property.
+     */
+    public static final int FRAME_RATE = Integer.getInteger("jjazz.playbackactivity.frameRate", 60);
+
+    /**
+     * A listener of activity snapshots.
+     */
+    public interface ActivityListener
+    {
+
+        /**
+         * Called on the EDT when activity has changed.
+         * <p>
+         * Event handling must be time-efficient.
+         *
+         * @param snapshot
+         */
+        void activityChanged(Snapshot snapshot);
+    }
+
+    /**
+     * An immutable activity state.
+     */
+    static public class Snapshot
+    {
+
+        private final int activeChannels;
+        private final long[] notesOn;
+
+        private Snapshot(int activeChannels, long[] notesOn)
+        {
+            this.activeChannels = activeChannels;
+            this.notesOn = notesOn;
+        }
+
+        /**
+         * The channels which had a note ON since the previous snapshot.
+         *
+         * @return A bitmask, bit 0 for channel 0 etc.
+         */
+        public int getActiveChannels()
+        {
+            return activeChannels;
+        }
+
+        /**
+         * True if a note ON occured on the channel since the previous snapshot.
+         *
+         * @param channel
+         * @return
+         */
+        public boolean isChannelActive(int channel)
+        {
+            Preconditions.checkElementIndex(channel, 16);
+            return (activeChannels & (1 << channel)) != 0;
+        }
+
+        /**
+         * True if the note is currently ON.
+         *
+         * @param channel
+         * @param pitch
+         * @return
+         */
+        public boolean isNoteOn(int channel, int pitch)
+        {
+            Preconditions.checkElementIndex(channel, 16);
+            Preconditions.checkElementIndex(pitch, 128);
+            return (notesOn[channel * 2 + pitch / 64] & (1L << (pitch % 64))) != 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Snapshot[activeChannels=" + Integer.toBinaryString(activeChannels) + "]";
+        }
+    }
+
+    /**
+     * A snapshot waiting for the output synth latency to elapse.
+     */
+    private record PendingSnapshot(long timeMs, int activeChannels, long[] notesOn)
+            {
+
+    }
+
+    private static PlaybackActivityMonitor INSTANCE;
+    private final AtomicInteger activeChannels = new AtomicInteger();
+    private final AtomicLongArray notesOn = new AtomicLongArray(16 * 2);
+    private final CopyOnWriteArrayList<ActivityListener> listeners = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<PendingSnapshot> pendingSnapshots = new ArrayDeque<>();       // Used only on the EDT
+    private long[] lastPublishedNotesOn = new long[16 * 2];
+    private long[] lastQueuedNotesOn = new long[16 * 2];
+    private final Timer timer;
+    private static final Logger LOGGER = Logger.getLogger(PlaybackActivityMonitor.class.getSimpleName());
+
+    public static PlaybackActivityMonitor getInstance()
+    {
+        synchronized (PlaybackActivityMonitor.class)
+        {
+            if (INSTANCE == null)
+            {
+                INSTANCE = new PlaybackActivityMonitor();
+            }
+        }
+        return INSTANCE;
+    }
+
+    private PlaybackActivityMonitor()
+    {
+        timer = new Timer(Math.max(1, 1000 / FRAME_RATE), e -> publish());
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Add a listener.
+     * <p>
+     * Notes are processed only while there is at least one listener.
+     *
+     * @param listener
+     */
+    public void addActivityListener(ActivityListener listener)
+    {
+        Preconditions.checkNotNull(listener);
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeActivityListener(ActivityListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * True if there is at least one listener.
+     *
+     * @return
+     */
+    public boolean isActive()
+    {
+        return !listeners.isEmpty();
+    }
+
+    // =================================================================================
+    // Package private methods, called by the MusicController Midi receiver
+    // =================================================================================
+
+    void noteOn(int channel, int pitch)
+    {
+        activeChannels.getAndAccumulate(1 << channel, (x, y) -> x | y);
+        int index = channel * 2 + pitch / 64;
+        long bit = 1L << (pitch % 64);
+        notesOn.getAndAccumulate(index, bit, (x, y) -> x | y);
+        if (!timer.isRunning())
+        {
+            timer.start();      // Thread-safe, see also publish() which double-checks the state after stopping the timer
+        }
+    }
+
+    void noteOff(int channel, int pitch)
+    {
+        int index = channel * 2 + pitch / 64;
+        long bit = 1L << (pitch % 64);
+        notesOn.getAndAccumulate(index, ~bit, (x, y) -> x & y);
+    }
+
+    /**
+     * Clear the note states, e.g. when playback is stopped.
+     */
+    void reset()
+    {
+        activeChannels.set(0);
+        for (int i = 0; i < notesOn.length(); i++)
+        {
+            notesOn.set(i, 0);
+        }
+        SwingUtilities.invokeLater(() ->
+        {
+            pendingSnapshots.clear();
+            lastQueuedNotesOn = lastPublishedNotesOn;
+        });
+    }
+
+    // =================================================================================
+    // Private methods
+    // =================================================================================
+
+    /**
+     * Called by the timer on the EDT.
+     */
+    private void publish()
+    {
+        // Capture the current state
+        long now = System.currentTimeMillis();
+        long[] notes = new long[notesOn.length()];
+        for (int i = 0; i < notes.length; i++)
+        {
+            notes[i] = notesOn.get(i);
+        }
+        int channels = activeChannels.getAndSet(0);
+        if (channels != 0 || !Arrays.equals(notes, lastQueuedNotesOn))
+        {
+            // Queue only the state changes, so that the queue empties when there is no more activity
+            pendingSnapshots.addLast(new PendingSnapshot(now, channels, notes));
+            lastQueuedNotesOn = notes;
+        }
+
+
+        // Merge the snapshots for which the output synth latency has elapsed
+        long maxTime = now - MusicController.getInstance().getAudioLatency();
+        int mergedActiveChannels = 0;
+        long[] mergedNotesOn = null;
+        while (!pendingSnapshots.isEmpty() && pendingSnapshots.peekFirst().timeMs() <= maxTime)
+        {
+            var ps = pendingSnapshots.pollFirst();
+            mergedActiveChannels |= ps.activeChannels();
+            mergedNotesOn = ps.notesOn();
+        }
+
+
+        if (mergedNotesOn != null && (mergedActiveChannels != 0 || !Arrays.equals(mergedNotesOn, lastPublishedNotesOn)))
+        {
+            lastPublishedNotesOn = mergedNotesOn;
+            var snapshot = new Snapshot(mergedActiveChannels, mergedNotesOn);
+            for (var listener : listeners)
+            {
+                listener.activityChanged(snapshot);
+            }
+        }
+
+
+        // Stop the timer when there is nothing left to publish, it will be restarted on next note ON
+        if ((pendingSnapshots.isEmpty() && mergedActiveChannels == 0 && isAllZero(lastPublishedNotesOn)) || listeners.isEmpty())
+        {
+            timer.stop();
+            pendingSnapshots.clear();
+            lastQueuedNotesOn = lastPublishedNotesOn;
+
+
+            // noteOn() may have updated the state after our capture but checked isRunning() before timer.stop(): restart if needed
+            if (!listeners.isEmpty() && (activeChannels.get() != 0 || !isAllZero(notesOn)))
+            {
+                timer.start();
+            }
+        }
+    }
+
+    private boolean isAllZero(AtomicLongArray values)
+    {
+        for (int i = 0; i < values.length(); i++)
+        {
+            if (values.get(i) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAllZero(long[] values)
+    {
+        for (long v : values)
+        {
+            if (v != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
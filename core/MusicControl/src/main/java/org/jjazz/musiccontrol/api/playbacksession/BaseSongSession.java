@@ -34,6 +34,7 @@ import javax.sound.midi.Sequence;
 import javax.sound.midi.Track;
 import javax.swing.event.SwingPropertyChangeSupport;
 import org.jjazz.musiccontrol.spi.ActiveSongBackgroundMusicBuilder;
+import org.jjazz.musiccontrol.spi.SpeculativeMusicBuilder;
 import org.jjazz.chordleadsheet.api.ClsUtilities;
 import org.jjazz.harmony.api.Position;
 import org.jjazz.midi.api.InstrumentMix;
@@ -189,7 +190,7 @@ public class BaseSongSession implements PropertyChangeListener, PlaybackSession,
 
 
         // Generate music
-        var songSeq = generateSongSequence(workContext, silent, isUseActiveSongBackgroundMusicBuilder);
+        var songSeq = generateSongSequence(workContext, silent, isUseActiveSongBackgroundMusicBuilder, transpose);
 
 
         // Retrieve the data
@@ -607,10 +608,11 @@ public class BaseSongSession implements PropertyChangeListener, PlaybackSession,
      * @param sgContext
      * @param silent
      * @param useBackgroundMusicBuilder
+     * @param transpose                 The chord symbol transposition applied to sgContext
      * @return
      * @throws MusicGenerationException
      */
-    private SongSequenceBuilder.SongSequence generateSongSequence(SongContext sgContext, boolean silent, boolean useBackgroundMusicBuilder) throws MusicGenerationException
+    private SongSequenceBuilder.SongSequence generateSongSequence(SongContext sgContext, boolean silent, boolean useBackgroundMusicBuilder, int transpose) throws MusicGenerationException
     {
         SongSequenceBuilder.SongSequence res = null;
         SongSequenceBuilder seqBuilder = new SongSequenceBuilder(sgContext);
@@ -633,6 +635,18 @@ public class BaseSongSession implements PropertyChangeListener, PlaybackSession,
             }
         }
 
+        // Reuse SpeculativeMusicBuilder phrases when possible
+        var smb = SpeculativeMusicBuilder.getDefault();
+        if (res == null && smb != null)
+        {
+            var mapRvPhrases = smb.getCachedPhrases(songContext, transpose);
+            if (mapRvPhrases != null)
+            {
+                LOGGER.log(Level.FINE, "generateSongSequence() reusing speculatively generated phrases for {0}", songContext.getSong().getName());
+                res = seqBuilder.buildSongSequence(mapRvPhrases);
+            }
+        }
+
         if (res == null)
         {
             // Build from scratch
@@ -52,6 +52,7 @@ import org.jjazz.rhythm.api.MusicGenerationException;
 import org.jjazz.rhythm.api.RhythmVoice;
 import org.jjazz.songcontext.api.SongContext;
 import org.jjazz.utilities.api.IntRange;
+import org.jjazz.utilities.api.PerformanceMonitor;
 
 /**
  * An UpdatableSongSession is a BaseSongSession wrapper which enables on-the-fly updates of the playing sequence using {@link updateSequence(Update)}.
@@ -169,6 +170,8 @@ public class UpdatableSongSession implements PropertyChangeListener, PlaybackSes
     private static final List<UpdatableSongSession> sessions = new ArrayList<>();
 
     private final SwingPropertyChangeSupport pcs = new SwingPropertyChangeSupport(this);
+    private static final PerformanceMonitor.Stage STAGE_UPDATE_SEQUENCE = PerformanceMonitor.getDefault().getStage("UpdatableSongSession.updateSequence");
+    private static final PerformanceMonitor.Stage STAGE_UPDATE_TRACK = PerformanceMonitor.getDefault().getStage("UpdatableSongSession.updateTrack");
     private static final Logger LOGGER = Logger.getLogger(UpdatableSongSession.class.getSimpleName());
 
 
@@ -327,12 +330,13 @@ public class UpdatableSongSession implements PropertyChangeListener, PlaybackSes
      * <p>
      * Fire a PROP_UPDATED_RECEIVED change event.
      * <p>
-     * The method does nothing if session is disabled.
+     * The method does nothing if session is disabled. Method is thread-safe: updates may come from an UpdateProvider thread and from
+     * clients which apply pre-generated music.
      *
      * @param update
      * @throws IllegalArgumentException If a MidiEvent tick position is beyond getOriginalSequenceSize(), or if session is not in the GENERATED state.
      */
-    public void updateSequence(Update update)
+    public synchronized void updateSequence(Update update)
     {
         LOGGER.log(Level.FINE, "updateSequence() ---- update={0} nanoTime()={1}", new Object[]
         {
@@ -349,6 +353,7 @@ public class UpdatableSongSession implements PropertyChangeListener, PlaybackSes
             throw new IllegalStateException("getState()=" + getState() + " update=" + update);
         }
 
+        long perfStart = STAGE_UPDATE_SEQUENCE.start();
 
         // Pre-calculate the optional precount shift
         long precountShift = 0;
@@ -432,6 +437,7 @@ public class UpdatableSongSession implements PropertyChangeListener, PlaybackSes
 
 
         LOGGER.log(Level.FINE, "updateSequence() AFTER: mapTrackIdMuted={0}", mapTrackIdMuted);
+        STAGE_UPDATE_SEQUENCE.stop(perfStart);
 
 
         // Notify our listeners that tracks mute status has changed
@@ -734,6 +740,7 @@ public class UpdatableSongSession implements PropertyChangeListener, PlaybackSes
      */
     private void updateTrack(int trackId, List<MidiEvent> newEvents, long precountTickOffset) throws IllegalArgumentException
     {
+        long perfStart = STAGE_UPDATE_TRACK.start();
         Track bufferTrack = trackSet.getBufferTrack(trackId);
         MidiUtilities.clearTrack(bufferTrack);
 
@@ -764,6 +771,7 @@ public class UpdatableSongSession implements PropertyChangeListener, PlaybackSes
 
         // Finally exchange the active and buffer tracks
         trackSet.swapBufferAndActiveTracks(trackId);
+        STAGE_UPDATE_TRACK.stop(perfStart);
     }
 
 
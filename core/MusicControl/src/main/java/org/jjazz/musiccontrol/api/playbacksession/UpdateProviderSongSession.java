@@ -45,6 +45,7 @@ import org.jjazz.rhythm.api.UserErrorGenerationException;
 import org.jjazz.rhythm.api.rhythmparameters.RP_SYS_TempoFactor;
 import org.jjazz.song.api.Song;
 import org.jjazz.songcontext.api.SongContext;
+import org.jjazz.utilities.api.PerformanceMonitor;
 import org.openide.awt.StatusDisplayer;
 import org.openide.util.*;
 
@@ -85,6 +86,10 @@ public class UpdateProviderSongSession extends BaseSongSession implements Updata
     private MusicGenerationQueue musicGenerationQueue;
     private Consumer<UserErrorGenerationException> userErrorExceptionHandler;
     private static final List<UpdateProviderSongSession> sessions = new ArrayList<>();
+    private static final PerformanceMonitor.Stage STAGE_CONTEXT_COPY = PerformanceMonitor.getDefault().getStage(
+            "UpdateProviderSongSession.songContextCopy");
+    private static final PerformanceMonitor.Stage STAGE_PREPARE_UPDATE = PerformanceMonitor.getDefault().getStage(
+            "UpdateProviderSongSession.prepareUpdate");
     private static final Logger LOGGER = Logger.getLogger(UpdateProviderSongSession.class.getSimpleName());
 
 
@@ -518,7 +523,9 @@ public class UpdateProviderSongSession extends BaseSongSession implements Updata
 
         // Make a copy of the SongContext so it can't be changed by user anymore
         int transpose = isPlaybackTranspositionEnabled() ? PlaybackSettings.getInstance().getPlaybackKeyTransposition() : 0;
+        long perfStart = STAGE_CONTEXT_COPY.start();
         SongContext workContext = getContextCopy(getSongContext(), transpose);
+        STAGE_CONTEXT_COPY.stop(perfStart);
 
 
         // Notify our update handler thread
@@ -612,6 +619,7 @@ public class UpdateProviderSongSession extends BaseSongSession implements Updata
         }
 
         // Create a new control track
+        long perfStart = STAGE_PREPARE_UPDATE.start();
         ControlTrack cTrack = null;
         
         if (isControlTrackEnabled && isControlTrackIncluded())
@@ -626,6 +634,7 @@ public class UpdateProviderSongSession extends BaseSongSession implements Updata
 
         // Create the update
         update = new Update(result.mapRvPhrases(), cTrack);
+        STAGE_PREPARE_UPDATE.stop(perfStart);
 
 
         // Notify listeners, typically an UpdatableSongSession
@@ -0,0 +1,102 @@
+/*
+ * 
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *  
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ * 
+ *   This file is part of the JJazzLab software.
+ *    
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *   as published by the Free Software Foundation, either version 3 of the License, 
+ *   or (at your option) any later version.
+ * 
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *  
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *  
+ *   Contributor(s): 
+ * 
+ */
+package org.jjazz.musiccontrol.spi;
+
+import java.util.Map;
+import org.jjazz.midimix.api.MidiMix;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythm.api.RhythmVoice;
+import org.jjazz.song.api.Song;
+import org.jjazz.songcontext.api.SongContext;
+import org.openide.util.Lookup;
+
+/**
+ * A service provider which speculatively generates, in the background and with a low priority, the musical phrases of songs which
+ * are likely to be played next (e.g. other opened songs, recently played songs).
+ * <p>
+ * Generated phrases are cached within a memory budget. A cache entry is valid only for the song and MidiMix music generation
+ * revisions it was generated from.
+ *
+ * @see Song#getMusicGenerationRevision()
+ * @see MidiMix#getMusicGenerationRevision()
+ */
+public interface SpeculativeMusicBuilder
+{
+
+    /**
+     * Get the default implementation.
+     *
+     * @return Can be null
+     */
+    public static SpeculativeMusicBuilder getDefault()
+    {
+        var res = Lookup.getDefault().lookup(SpeculativeMusicBuilder.class);
+        return res;
+    }
+
+    /**
+     * Add a song for which music should be speculatively generated.
+     * <p>
+     * Music is regenerated each time the song is musically modified, until song is closed or removeCandidate() is called.
+     *
+     * @param song
+     * @param midiMix
+     */
+    void addCandidate(Song song, MidiMix midiMix);
+
+    /**
+     * Stop speculative generation for song and discard its cached phrases.
+     *
+     * @param song
+     */
+    void removeCandidate(Song song);
+
+    /**
+     * Get the cached phrases for the specified context, if available and up to date.
+     * <p>
+     * Only contexts covering the whole song are cached.
+     *
+     * @param sgContext
+     * @param chordSymbolTransposition The playback key transposition used for music generation
+     * @return Null if not available. The returned map and phrases can be modified by caller.
+     */
+    Map<RhythmVoice, Phrase> getCachedPhrases(SongContext sgContext, int chordSymbolTransposition);
+
+    /**
+     * The maximum estimated memory used by cached phrases.
+     *
+     * @return In bytes
+     */
+    long getMemoryBudget();
+
+    /**
+     * Set the maximum estimated memory used by cached phrases.
+     * <p>
+     * Least recently used entries are discarded if needed.
+     *
+     * @param bytes
+     */
+    void setMemoryBudget(long bytes);
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.musiccontrol.api;
+
+import java.text.ParseException;
+import java.util.List;
+import javax.sound.midi.MetaMessage;
+import org.jjazz.chordleadsheet.api.ChordLeadSheet;
+import org.jjazz.chordleadsheet.api.item.CLI_Factory;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.midi.api.MidiConst;
+import org.jjazz.midimix.api.DefaultMidiMixManager;
+import org.jjazz.rhythmdatabase.api.DefaultRhythmDatabase;
+import org.jjazz.rhythmdatabase.api.RhythmDatabase;
+import org.jjazz.song.api.Song;
+import org.jjazz.song.api.SongFactory;
+import org.jjazz.songcontext.api.SongContext;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the ControlTrack beat map and MetaEvents on a song with different time signatures.
+ */
+public class ControlTrackTest
+{
+
+    private SongContext sgContext;
+
+    public ControlTrackTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        var rdb = (DefaultRhythmDatabase) RhythmDatabase.getDefault();
+        rdb.addRhythmsFromRhythmProviders(false, true, false);
+    }
+
+    /**
+     * Bars 0-1 in 4/4: "C" at bar 0 beat 0, "F" at bar 0 beat 2<br>
+     * Bars 2-3 in 3/4: "G7" at bar 2 beat 1.5<br>
+     * Bars 4-5 in 6/8 (2 natural beats per bar): "Am" at bar 4 beat 0, "Dm" at bar 5 beat 1
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        Song song = SongFactory.getInstance().createEmptySong("test", 6, "A", TimeSignature.FOUR_FOUR, "C");
+        ChordLeadSheet cls = song.getChordLeadSheet();
+        var clif = CLI_Factory.getDefault();
+        cls.addSection(clif.createSection("B", TimeSignature.THREE_FOUR, 2, cls));
+        cls.addSection(clif.createSection("C", TimeSignature.SIX_EIGHT, 4, cls));
+        cls.addItem(clif.createChordSymbol("F", 0, 2));
+        cls.addItem(clif.createChordSymbol("G7", 2, 1.5f));
+        cls.addItem(clif.createChordSymbol("Am", 4, 0));
+        cls.addItem(clif.createChordSymbol("Dm", 5, 1));
+        sgContext = new SongContext(song, DefaultMidiMixManager.getInstance().createMix(song));
+        assertEquals(3, sgContext.getSongParts().size());
+    }
+
+    @Test
+    public void testBeatMap()
+    {
+        System.out.println("testBeatMap");
+        ControlTrack ct = new ControlTrack(sgContext, 3);
+        assertEquals(3, ct.getTrackId());
+        assertEquals(2 * 4 + 2 * 3 + 2 * 2, ct.getNbBeats());
+
+        int[] bars =
+        {
+            0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 3, 3, 3, 4, 4, 5, 5
+        };
+        float[] inBarBeats =
+        {
+            0, 1, 2, 3, 0, 1, 2, 3, 0, 1, 2, 0, 1, 2, 0, 1, 0, 1
+        };
+        int[] sptIndexes =
+        {
+            0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 1, 1, 2, 2, 2, 2
+        };
+        String[] chords =
+        {
+            "C", "C", "F", "F", "F", "F", "F", "F", "F", "F", "G7", "G7", "G7", "G7", "Am", "Am", "Am", "Dm"
+        };
+
+        for (int i = 0; i < ct.getNbBeats(); i++)
+        {
+            String msg = "i=" + i;
+            assertEquals(msg, i * MidiConst.PPQ_RESOLUTION, ct.getBeatTick(i));
+            assertEquals(msg, bars[i], ct.getBar(i));
+            assertEquals(msg, inBarBeats[i], ct.getBeatInBar(i), 0.0001f);
+            assertEquals(msg, i, ct.getPositionInBeats(i), 0.0001f);
+            assertEquals(msg, sptIndexes[i], ct.getSongPartIndex(i));
+            assertEquals(msg, chords[i], ct.getChordSymbol(i).getData().getName());
+
+            assertEquals(msg, i, ct.getBeatIndex(i * MidiConst.PPQ_RESOLUTION));
+            assertEquals(msg, i, ct.getBeatIndex(i * MidiConst.PPQ_RESOLUTION + MidiConst.PPQ_RESOLUTION / 2));
+        }
+        assertEquals(-1, ct.getBeatIndex(-1));
+    }
+
+    @Test
+    public void testMetaEvents()
+    {
+        System.out.println("testMetaEvents");
+        ControlTrack ct = new ControlTrack(sgContext, 3);
+        ControlTrack ct2 = new ControlTrack(sgContext, 3);      // e.g. a new control track after a song update
+
+        List<MetaMessage> positionMms = getMetaMessages(ct, ControlTrack.POSITION_META_EVENT_TYPE);
+        assertEquals(ct.getNbBeats(), positionMms.size());
+        for (int i = 0; i < positionMms.size(); i++)
+        {
+            var mm = positionMms.get(i);
+            assertSame(ct, ControlTrack.getOwner(mm));
+            assertEquals(i, ct.getBeatIndex(mm));
+            assertEquals(ct.getPositionInBeats(i), ct.getPositionInBeats(mm), 0.0001f);
+            assertEquals(-1, ct2.getBeatIndex(mm));       // Not created by ct2
+
+            // Clones are decoded by any control track
+            var clone = (MetaMessage) mm.clone();
+            assertNull(ControlTrack.getOwner(clone));
+            assertEquals(i, ct2.getBeatIndex(clone));
+        }
+
+
+        List<MetaMessage> csMms = getMetaMessages(ct, ControlTrack.CHORD_SYMBOL_META_EVENT_TYPE);
+        assertEquals(List.of("C", "F", "G7", "Am", "Dm"), csMms.stream().map(mm -> ct.getChordSymbol(mm).getData().getName()).toList());
+        for (var mm : csMms)
+        {
+            assertSame(ct, ControlTrack.getOwner(mm));
+            assertNull(ct2.getChordSymbol(mm));
+            assertEquals(ct.getChordSymbol(mm).getData(), ct2.getChordSymbol((MetaMessage) mm.clone()).getData());
+        }
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    private List<MetaMessage> getMetaMessages(ControlTrack ct, int type)
+    {
+        return ct.getMidiEvents().stream()
+                .filter(me -> me.getMessage() instanceof MetaMessage mm && mm.getType() == type)
+                .map(me -> (MetaMessage) me.getMessage())
+                .toList();
+    }
+}
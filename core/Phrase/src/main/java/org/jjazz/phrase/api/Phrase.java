@@ -32,7 +32,6 @@ import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -113,6 +112,10 @@ public class Phrase implements Collection<NoteEvent>, SortedSet<NoteEvent>, Navi
      */
     public static final String PARENT_NOTE = "PARENT_NOTE";
 
+    /**
+     * The estimated memory size of a NoteEvent, used to estimate the memory retained by undoable edits.
+     */
+    public static final int NOTE_EVENT_ESTIMATED_SIZE = 120;
     private final int channel;
     private final boolean isDrums;
     private final TreeSet<NoteEvent> noteEvents = new TreeSet<>();
@@ -624,27 +627,10 @@ public class Phrase implements Collection<NoteEvent>, SortedSet<NoteEvent>, Navi
             String PROP_UNDO = isAdjusting ? PROP_NOTES_REMOVED_ADJUSTING : PROP_NOTES_REMOVED;
 
             // Create the undoable event
-            UndoableEdit edit = new SimpleEdit("Add note " + ne)
-            {
-                @Override
-                public void undoBody()
-                {
-                    LOGGER.log(Level.FINER, "add.undoBody() ne={0}", ne);
-                    noteEvents.remove(ne);
-                    pcs.firePropertyChange(PROP_UNDO, null, Arrays.asList(ne));
-                }
-
-                @Override
-                public void redoBody()
-                {
-                    LOGGER.log(Level.FINER, "add.redoBody() ne={0}", ne);
-                    noteEvents.add(ne);
-                    pcs.firePropertyChange(PROP, null, Arrays.asList(ne));
-                }
-            };
+            UndoableEdit edit = new NotesEdit(true, PROP, PROP_UNDO, List.of(ne));
 
             fireUndoableEditHappened(edit);
-            pcs.firePropertyChange(PROP, null, Arrays.asList(ne));
+            pcs.firePropertyChange(PROP, null, List.of(ne));
 
         } else
         {
@@ -691,27 +677,10 @@ public class Phrase implements Collection<NoteEvent>, SortedSet<NoteEvent>, Navi
         if (res)
         {
             // Create the undoable event
-            UndoableEdit edit = new SimpleEdit("Add notes " + addedList)
-            {
-                @Override
-                public void undoBody()
-                {
-                    LOGGER.log(Level.FINER, "add.undoBody() addedList={0}", addedList);
-                    noteEvents.removeAll(addedList);
-                    pcs.firePropertyChange(PROP_UNDO, null, addedList);
-                }
-
-                @Override
-                public void redoBody()
-                {
-                    LOGGER.log(Level.FINER, "add.redoBody() addedList={0}", addedList);
-                    noteEvents.addAll(addedList);
-                    pcs.firePropertyChange(PROP, null, addedList);
-                }
-            };
+            UndoableEdit edit = new NotesEdit(true, PROP, PROP_UNDO, addedList);
 
             fireUndoableEditHappened(edit);
-            pcs.firePropertyChange(PROP, null, addedList);
+            pcs.firePropertyChange(PROP, null, Collections.unmodifiableList(addedList));
         }
 
         return res;
@@ -762,28 +731,11 @@ public class Phrase implements Collection<NoteEvent>, SortedSet<NoteEvent>, Navi
             String PROP_UNDO = isAdjusting ? PROP_NOTES_ADDED_ADJUSTING : PROP_NOTES_ADDED;
 
             // Create the undoable event
-            UndoableEdit edit = new SimpleEdit("Remove note " + ne)
-            {
-                @Override
-                public void undoBody()
-                {
-                    LOGGER.log(Level.FINER, "remove.undoBody() ne={0}", ne);
-                    noteEvents.add(ne);
-                    pcs.firePropertyChange(PROP_UNDO, null, Arrays.asList(ne));
-                }
-
-                @Override
-                public void redoBody()
-                {
-                    LOGGER.log(Level.FINER, "remove.redoBody() ne={0}", ne);
-                    noteEvents.remove(ne);
-                    pcs.firePropertyChange(PROP, null, Arrays.asList(ne));
-                }
-            };
+            UndoableEdit edit = new NotesEdit(false, PROP, PROP_UNDO, List.of(ne));
 
             fireUndoableEditHappened(edit);
 
-            pcs.firePropertyChange(PROP, null, Arrays.asList(ne));
+            pcs.firePropertyChange(PROP, null, List.of(ne));
             return true;
         }
         return false;
@@ -836,27 +788,10 @@ public class Phrase implements Collection<NoteEvent>, SortedSet<NoteEvent>, Navi
         if (res)
         {
             // Create the undoable event
-            UndoableEdit edit = new SimpleEdit("Remove notes " + removedList)
-            {
-                @Override
-                public void undoBody()
-                {
-                    LOGGER.log(Level.FINER, "add.undoBody() removedList={0}", removedList);
-                    noteEvents.addAll(removedList);
-                    pcs.firePropertyChange(PROP_UNDO, null, removedList);
-                }
-
-                @Override
-                public void redoBody()
-                {
-                    LOGGER.log(Level.FINER, "add.redoBody() removedList={0}", removedList);
-                    noteEvents.removeAll(removedList);
-                    pcs.firePropertyChange(PROP, null, removedList);
-                }
-            };
+            UndoableEdit edit = new NotesEdit(false, PROP, PROP_UNDO, removedList);
 
             fireUndoableEditHappened(edit);
-            pcs.firePropertyChange(PROP, null, removedList);
+            pcs.firePropertyChange(PROP, null, Collections.unmodifiableList(removedList));
         }
 
         return res;
@@ -1314,6 +1249,12 @@ public class Phrase implements Collection<NoteEvent>, SortedSet<NoteEvent>, Navi
         // Create the undoable event
         UndoableEdit edit = new SimpleEdit("Replace/Move notes")
         {
+            @Override
+            public long getEstimatedSize()
+            {
+                return SimpleEdit.DEFAULT_ESTIMATED_SIZE + 2L * biMapOldNew.size() * NOTE_EVENT_ESTIMATED_SIZE;
+            }
+
             @Override
             public void undoBody()
             {
@@ -1384,34 +1325,122 @@ public class Phrase implements Collection<NoteEvent>, SortedSet<NoteEvent>, Navi
                     NoteEvent ne = lastNext;
 
                     // Create the undoable event
-                    UndoableEdit edit = new SimpleEdit("IteratorRemove note " + ne)
-                    {
-                        @Override
-                        public void undoBody()
-                        {
-                            LOGGER.log(Level.FINER, "IteratorRemove.undoBody() ne={0}", ne);
-                            noteEvents.add(ne);
-                            pcs.firePropertyChange(PROP_NOTES_ADDED, null, Arrays.asList(ne));
-                        }
-
-                        @Override
-                        public void redoBody()
-                        {
-                            LOGGER.log(Level.FINER, "IteratorRemove.redoBody() ne={0}", ne);
-                            noteEvents.remove(ne);
-                            pcs.firePropertyChange(PROP_NOTES_REMOVED, null, Arrays.asList(ne));
-                        }
-                    };
+                    UndoableEdit edit = new NotesEdit(false, PROP_NOTES_REMOVED, PROP_NOTES_ADDED, List.of(ne));
 
                     fireUndoableEditHappened(edit);
 
-                    pcs.firePropertyChange(PROP_NOTES_REMOVED, null, Arrays.asList(ne));
+                    pcs.firePropertyChange(PROP_NOTES_REMOVED, null, List.of(ne));
                 }
             }
         };
         return res;
     }
 
+    /**
+     * The undoable edit for notes added to or removed from this phrase.
+     * <p>
+     * A NotesEdit absorbs the next NotesEdit of the same type (see addEdit()), so that a run of fine-grained edits, e.g. notes added one by one,
+     * is stored as a single compact edit.
+     */
+    private class NotesEdit extends SimpleEdit
+    {
+
+        private final boolean add;
+        private final String prop;
+        private final String propUndo;
+        private final List<NoteEvent> notes;
+
+        /**
+         *
+         * @param add      True if notes were added, false if removed
+         * @param prop     The property change event fired on redo
+         * @param propUndo The property change event fired on undo
+         * @param notes    A copy is used, since the list grows when this edit absorbs other edits
+         */
+        NotesEdit(boolean add, String prop, String propUndo, List<NoteEvent> notes)
+        {
+            super(add ? "Add notes" : "Remove notes");
+            this.add = add;
+            this.prop = prop;
+            this.propUndo = propUndo;
+            this.notes = new ArrayList<>(notes);
+        }
+
+        @Override
+        public void undoBody()
+        {
+            LOGGER.log(Level.FINER, "NotesEdit.undoBody() add={0} notes={1}", new Object[]
+            {
+                add, notes
+            });
+            if (add)
+            {
+                noteEvents.removeAll(notes);
+            } else
+            {
+                noteEvents.addAll(notes);
+            }
+            pcs.firePropertyChange(propUndo, null, List.copyOf(notes));    // notes might be modified later by addEdit()
+        }
+
+        @Override
+        public void redoBody()
+        {
+            LOGGER.log(Level.FINER, "NotesEdit.redoBody() add={0} notes={1}", new Object[]
+            {
+                add, notes
+            });
+            if (add)
+            {
+                noteEvents.addAll(notes);
+            } else
+            {
+                noteEvents.removeAll(notes);
+            }
+            pcs.firePropertyChange(prop, null, List.copyOf(notes));
+        }
+
+        /**
+         * Absorb anEdit if it's a NotesEdit of the same type on the same phrase, within the same compound edit.
+         *
+         * @param anEdit
+         * @return
+         */
+        @Override
+        public boolean addEdit(UndoableEdit anEdit)
+        {
+            if (isAbsorbingEdits()
+                    && anEdit instanceof NotesEdit ne
+                    && ne.getPhrase() == Phrase.this
+                    && ne.add == add
+                    && ne.prop.equals(prop)
+                    && canUndo()
+                    && ne.canUndo())
+            {
+                notes.addAll(ne.notes);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long getEstimatedSize()
+        {
+            return SimpleEdit.DEFAULT_ESTIMATED_SIZE + (long) notes.size() * NOTE_EVENT_ESTIMATED_SIZE;
+        }
+
+        @Override
+        public String getPresentationName()
+        {
+            return super.getPresentationName() + " n=" + notes.size();
+        }
+
+        private Phrase getPhrase()
+        {
+            return Phrase.this;
+        }
+    }
+
     /**
      * This enables XStream instance configuration even for private classes or classes from non-public packages of Netbeans modules.
      */
@@ -51,6 +51,8 @@ import javax.sound.midi.Track;
 import org.jjazz.harmony.api.Chord;
 import org.jjazz.midi.api.MidiConst;
 import org.jjazz.midi.api.MidiUtilities;
+import org.jjazz.midi.api.parser.MidiNoteParser;
+import org.jjazz.midi.api.parser.MidiNoteSink;
 import org.jjazz.utilities.api.FloatRange;
 import org.jjazz.utilities.api.LongRange;
 import org.jjazz.utilities.api.ResUtil;
@@ -754,7 +756,8 @@ public class Phrases
     /**
      * Parse all tracks to build one phrase per used channel.
      * <p>
-     * A track can use notes from different channels. Notes from a given channel can be on several tracks.
+     * A track can use notes from different channels. Notes from a given channel can be on several tracks. Overlapping notes with
+     * the same pitch are kept, a NOTE_OFF closes the most recent NOTE_ON.
      *
      * @param tracksPPQ The Midi PPQ resolution (pulses per quarter) used in the tracks.
      * @param tracks
@@ -766,25 +769,58 @@ public class Phrases
         Map<Integer, Phrase> mapChannelPhrase = new HashMap<>();
         List<Integer> selectedChannels = channels.length > 0 ? Arrays.asList(channels) : Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11,
                 12, 13, 14, 15);
-        for (Track track : tracks)
+        boolean[] isSelected = new boolean[16];
+        selectedChannels.forEach(ch -> isSelected[ch] = true);
+        double tickRatio = (double) MidiConst.PPQ_RESOLUTION / tracksPPQ;
+
+
+        // Single pass per track, without copying the track events
+        @SuppressWarnings("unchecked")
+        List<NoteEvent>[] channelNotes = new List[16];
+        MidiNoteSink sink = (trackIndex, count, noteChannels, pitches, velocities, startTicks, durationTicks) -> 
         {
-            // Get all the events at the appropriate resolution
-            List<MidiEvent> trackEvents = MidiUtilities.getMidiEvents(track, ShortMessage.class, sm
-                    -> sm.getCommand() == ShortMessage.NOTE_OFF || sm.getCommand() == ShortMessage.NOTE_ON, null);
-            trackEvents = MidiUtilities.getMidiEventsAtPPQ(trackEvents, tracksPPQ, MidiConst.PPQ_RESOLUTION);
-            for (int channel : MidiUtilities.getUsedChannels(track))
+            for (int i = 0; i < count; i++)
             {
-                if (selectedChannels.contains(channel))
+                int channel = noteChannels[i];
+                if (!isSelected[channel])
                 {
-                    Phrase p = mapChannelPhrase.get(channel);
-                    if (p == null)
+                    continue;
+                }
+
+                // Convert to MidiConst.PPQ_RESOLUTION
+                long tickOn = Math.round(tickRatio * startTicks[i]);
+                long tickOff = Math.round(tickRatio * (startTicks[i] + durationTicks[i]));
+                float duration = ((float) tickOff - tickOn) / MidiConst.PPQ_RESOLUTION;
+                if (duration > 0)
+                {
+                    float posInBeats = (float) tickOn / MidiConst.PPQ_RESOLUTION;
+                    if (channelNotes[channel] == null)
                     {
-                        p = new Phrase(channel, channel == MidiConst.CHANNEL_DRUMS);
-                        mapChannelPhrase.put(channel, p);
+                        channelNotes[channel] = new ArrayList<>();
                     }
-                    addMidiEvents(p, trackEvents, 0, false);
+                    channelNotes[channel].add(new NoteEvent(pitches[i], duration, velocities[i], posInBeats));
+                } else
+                {
+                    LOGGER.log(Level.WARNING, "getPhrases() Ignoring zero-length note at tick position={0} pitch={1}", new Object[]
+                    {
+                        tickOn, pitches[i]
+                    });
                 }
             }
+        };
+        var parser = new MidiNoteParser(sink);
+        for (int i = 0; i < tracks.length; i++)
+        {
+            parser.parse(tracks[i], i, tracksPPQ);
+        }
+        for (int channel = 0; channel < 16; channel++)
+        {
+            if (channelNotes[channel] != null)
+            {
+                Phrase p = new Phrase(channel, channel == MidiConst.CHANNEL_DRUMS);
+                p.addAll(channelNotes[channel]);
+                mapChannelPhrase.put(channel, p);
+            }
         }
 
         // Some phrases might be empty
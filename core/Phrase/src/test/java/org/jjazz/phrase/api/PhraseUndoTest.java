@@ -0,0 +1,170 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.phrase.api;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+import org.jjazz.undomanager.api.JJazzUndoManager;
+import org.jjazz.undomanager.api.SimpleEdit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test the Phrase undoable edits with a JJazzUndoManager: absorption of consecutive note edits and memory budget.
+ */
+public class PhraseUndoTest
+{
+
+    private static final long NOTES_EDIT_SIZE_10_NOTES = SimpleEdit.DEFAULT_ESTIMATED_SIZE + 10 * Phrase.NOTE_EVENT_ESTIMATED_SIZE;
+    private JJazzUndoManager um;
+    private Phrase phrase;
+    private List<PropertyChangeEvent> events;
+
+    public PhraseUndoTest()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        um = new JJazzUndoManager();
+        phrase = new Phrase(0);
+        phrase.addUndoableEditListener(um);
+        events = new ArrayList<>();
+        phrase.addPropertyChangeListener(e -> events.add(e));
+    }
+
+    @Test
+    public void testAbsorption()
+    {
+        System.out.println("testAbsorption");
+        var notes = createNotes(0, 4);
+
+        um.startCEdit("add");
+        phrase.add(notes.get(0));
+        phrase.add(notes.get(1));
+        phrase.addAll(notes.subList(2, 4));
+        um.endCEdit("add");
+        assertEquals(4, phrase.size());
+
+
+        // The 3 NotesEdits were merged into one, this must not impact the lists passed to listeners
+        assertEquals(3, events.size());
+        assertEquals(List.of(notes.get(0)), events.get(0).getNewValue());
+        assertEquals(List.of(notes.get(1)), events.get(1).getNewValue());
+        assertEquals(notes.subList(2, 4), events.get(2).getNewValue());
+        assertEquals(SimpleEdit.DEFAULT_ESTIMATED_SIZE + 4 * Phrase.NOTE_EVENT_ESTIMATED_SIZE, um.getEstimatedSize());
+        for (var e : events)
+        {
+            List<NoteEvent> nes = (List<NoteEvent>) e.getNewValue();
+            assertThrows(UnsupportedOperationException.class, () -> nes.add(notes.get(0)));
+        }
+
+
+        // A single undo removes all notes
+        events.clear();
+        um.undo();
+        assertTrue(phrase.isEmpty());
+        assertEquals(1, events.size());
+        assertEquals(Phrase.PROP_NOTES_REMOVED, events.get(0).getPropertyName());
+        assertEquals(notes, events.get(0).getNewValue());
+        um.redo();
+        assertEquals(4, phrase.size());
+
+
+        // Another user action is not absorbed, even if same type
+        um.startCEdit("add2");
+        phrase.add(createNotes(4, 1).get(0));
+        um.endCEdit("add2");
+        um.startCEdit("remove");
+        phrase.remove(notes.get(0));
+        phrase.remove(notes.get(1));
+        um.endCEdit("remove");
+        assertEquals(3, phrase.size());
+        um.undo();
+        assertEquals(5, phrase.size());
+        um.undo();
+        assertEquals(4, phrase.size());
+        um.undo();
+        assertTrue(phrase.isEmpty());
+        assertFalse(um.canUndo());
+    }
+
+    @Test
+    public void testMemoryBudget()
+    {
+        System.out.println("testMemoryBudget");
+        um.setMemoryBudget(3 * NOTES_EDIT_SIZE_10_NOTES + 100);
+
+
+        // 5 user actions adding 10 notes each: the 2 oldest ones are discarded
+        for (int i = 0; i < 5; i++)
+        {
+            um.startCEdit("add" + i);
+            phrase.addAll(createNotes(i * 10, 10));
+            um.endCEdit("add" + i);
+            assertTrue(um.getEstimatedSize() <= um.getMemoryBudget());
+        }
+        assertEquals(50, phrase.size());
+        assertEquals(3 * NOTES_EDIT_SIZE_10_NOTES, um.getEstimatedSize());
+        int nbUndos = 0;
+        while (um.canUndo())
+        {
+            um.undo();
+            nbUndos++;
+        }
+        assertEquals(3, nbUndos);
+        assertEquals(20, phrase.size());
+
+
+        // The last edit is always kept, even if it exceeds the budget
+        um.redo();
+        um.setMemoryBudget(1);
+        assertTrue(um.canUndo());
+        assertTrue(um.canRedo());
+        um.undo();
+        assertEquals(20, phrase.size());
+        assertFalse(um.canUndo());
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    /**
+     * Create nbNotes consecutive notes starting at posInBeats=start.
+     */
+    private List<NoteEvent> createNotes(int start, int nbNotes)
+    {
+        List<NoteEvent> res = new ArrayList<>();
+        for (int i = start; i < start + nbNotes; i++)
+        {
+            res.add(new NoteEvent(60 + (i % 12), 0.5f, 64, i));
+        }
+        return res;
+    }
+}
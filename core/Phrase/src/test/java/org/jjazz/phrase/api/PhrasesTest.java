@@ -28,6 +28,10 @@ import com.google.common.collect.ListMultimap;
 import java.io.File;
 import java.util.List;
 import java.util.function.Predicate;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
 import javax.sound.midi.Track;
 import org.jjazz.harmony.api.Chord;
 import org.jjazz.utilities.api.FloatRange;
@@ -235,19 +239,53 @@ public class PhrasesTest
 
     /**
      * Test of getPhrases method, of class Phrases.
+     * <p>
+     * Overlapping notes with the same pitch are both kept: a NOTE_OFF closes the most recent NOTE_ON. Before the single pass parsing,
+     * the second NOTE_ON replaced the first one, and the second NOTE_OFF was ignored.
      */
-    // @Test
-    public void testGetPhrases()
+    @Test
+    public void testGetPhrases() throws Exception
     {
         System.out.println("getPhrases");
-        int tracksPPQ = 0;
-        Track[] tracks = null;
-        Integer[] channels = null;
-        List<Phrase> expResult = null;
-        List<Phrase> result = Phrases.getPhrases(tracksPPQ, tracks, channels);
-        assertEquals(expResult, result);
-        // TODO review the generated test code and remove the default call to fail.
-        fail("The test case is a prototype.");
+        int tracksPPQ = 480;
+        Sequence sequence = new Sequence(Sequence.PPQ, tracksPPQ);
+        Track track0 = sequence.createTrack();
+        track0.add(noteEvent(ShortMessage.NOTE_ON, 0, 60, 100, 0));
+        track0.add(noteEvent(ShortMessage.NOTE_ON, 0, 60, 50, tracksPPQ));
+        track0.add(noteEvent(ShortMessage.NOTE_OFF, 0, 60, 0, 2 * tracksPPQ));        // Closes the second note
+        track0.add(noteEvent(ShortMessage.NOTE_ON, 0, 60, 0, 3 * tracksPPQ));         // Closes the first note
+        track0.add(noteEvent(ShortMessage.NOTE_ON, 2, 40, 80, 0));
+        track0.add(noteEvent(ShortMessage.NOTE_OFF, 2, 40, 0, tracksPPQ / 2));
+        Track track1 = sequence.createTrack();
+        track1.add(noteEvent(ShortMessage.NOTE_ON, 0, 64, 90, tracksPPQ));
+        track1.add(noteEvent(ShortMessage.NOTE_OFF, 0, 64, 0, 2 * tracksPPQ));
+
+
+        List<Phrase> result = Phrases.getPhrases(tracksPPQ, sequence.getTracks());
+        assertEquals(2, result.size());
+
+        Phrase p0 = new Phrase(0);
+        p0.add(new NoteEvent(60, 3, 100, 0));         // (pitch, dur, velo, pos)
+        p0.add(new NoteEvent(60, 1, 50, 1));
+        p0.add(new NoteEvent(64, 1, 90, 1));
+        assertEquals(0, result.get(0).getChannel());
+        assertTrue(result.get(0).equalsAsNoteNearPosition(p0, 0));
+
+        Phrase p2 = new Phrase(2);
+        p2.add(new NoteEvent(40, 0.5f, 80, 0));
+        assertEquals(2, result.get(1).getChannel());
+        assertTrue(result.get(1).equalsAsNoteNearPosition(p2, 0));
+
+
+        // Channel selection
+        result = Phrases.getPhrases(tracksPPQ, sequence.getTracks(), 2);
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).equalsAsNoteNearPosition(p2, 0));
+    }
+
+    private MidiEvent noteEvent(int command, int channel, int pitch, int velocity, long tick) throws InvalidMidiDataException
+    {
+        return new MidiEvent(new ShortMessage(command, channel, pitch, velocity), tick);
     }
 
 }
@@ -28,12 +28,14 @@ import java.awt.Component;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 import java.util.logging.Logger;
 import org.jjazz.midi.api.DrumKit;
 import org.jjazz.midi.api.MidiUtilities;
 import org.jjazz.phrase.api.CyclicPositions;
 import org.jjazz.phrase.api.NoteEvent;
 import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.phrasetransform.api.NoteMapperPhraseTransform;
 import org.jjazz.phrasetransform.api.PhraseTransform;
 import org.jjazz.phrasetransform.api.PhraseTransforms;
 import org.jjazz.phrasetransform.api.PtProperties;
@@ -46,7 +48,7 @@ import org.jjazz.phrasetransform.spi.PtPropertyEditorFactory;
  * Change velocity of specific drums notes which match cyclic positions.
  * <p>
  */
-public class DrumsAccentsTransform implements PhraseTransform
+public class DrumsAccentsTransform implements NoteMapperPhraseTransform
 {
 
     public static final String PROP_VELOCITY_OFFSET = "VelocityOffset";
@@ -91,9 +93,8 @@ public class DrumsAccentsTransform implements PhraseTransform
 
 
     @Override
-    public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
+    public UnaryOperator<NoteEvent> getNoteMapper(SizedPhrase inPhrase, SongPartContext context)
     {
-        SizedPhrase res = new SizedPhrase(inPhrase.getChannel(), inPhrase.getBeatRange(), inPhrase.getTimeSignature(), inPhrase.isDrums());
         int accentOffset = getAccentVelocityOffset();
 
 
@@ -107,24 +108,17 @@ public class DrumsAccentsTransform implements PhraseTransform
 
 
         // Add the accents 
-        for (var ne : inPhrase)
+        return ne ->
         {
-            NoteEvent nne = ne;
             int pitch = ne.getPitch();
             float pos = ne.getPositionInBeats();
-
             if (validPitches.contains(pitch) && cyclicPositions.matches(pos, POS_WINDOW))
             {
                 int velocity = MidiUtilities.limit(ne.getVelocity() + accentOffset);
-                nne = new NoteEvent(pitch, ne.getDurationInBeats(), velocity, pos);
+                return new NoteEvent(pitch, ne.getDurationInBeats(), velocity, pos);
             }
-
-            res.add(nne);       // No need to use addOrdered()
-
-        }
-
-
-        return res;
+            return ne;
+        };
     }
 
     @Override
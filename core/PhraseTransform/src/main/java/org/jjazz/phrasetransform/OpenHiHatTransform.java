@@ -24,11 +24,14 @@
 package org.jjazz.phrasetransform;
 
 import java.util.Properties;
+import java.util.function.UnaryOperator;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import org.jjazz.midi.api.DrumKit;
 import org.jjazz.midi.api.DrumKit.KeyMap;
+import org.jjazz.phrase.api.NoteEvent;
 import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.phrasetransform.api.NoteMapperPhraseTransform;
 import org.jjazz.phrasetransform.api.PhraseTransformCategory;
 import org.jjazz.phrasetransform.api.PhraseTransform;
 import org.jjazz.phrasetransform.api.PhraseTransforms;
@@ -41,7 +44,7 @@ import org.netbeans.api.annotations.common.StaticResource;
  *
  * Closed hi-hat -> open hi-hat
  */
-public class OpenHiHatTransform implements PhraseTransform
+public class OpenHiHatTransform implements NoteMapperPhraseTransform
 {
     @StaticResource(relative = true)
     private static final String ICON_PATH = "resources/OpenHiHatTransformer-48x24.png";
@@ -67,28 +70,18 @@ public class OpenHiHatTransform implements PhraseTransform
     }
 
     @Override
-    public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
+    public UnaryOperator<NoteEvent> getNoteMapper(SizedPhrase inPhrase, SongPartContext context)
     {
-        SizedPhrase res = new SizedPhrase(inPhrase.getChannel(), inPhrase.getBeatRange(), inPhrase.getTimeSignature(), inPhrase.isDrums());
-
-
         KeyMap keyMap = PhraseTransforms.getDrumKit(inPhrase, context).getKeyMap();
         var srcPitches = keyMap.getKeys(DrumKit.Subset.HI_HAT_CLOSED);
         int destPitch = keyMap.getKeys(DrumKit.Subset.HI_HAT_OPEN).get(0);
 
 
-        for (var ne : inPhrase)
+        return ne ->
         {
             int pitch = ne.getPitch();
-            if (srcPitches.contains(pitch))
-            {
-                pitch = destPitch;
-            }
-            var newNe = ne.setPitch(pitch);
-            res.add(newNe);
-        }
-
-        return res;
+            return srcPitches.contains(pitch) ? ne.setPitch(destPitch) : ne;
+        };
     }
 
     @Override
@@ -24,12 +24,14 @@
 package org.jjazz.phrasetransform;
 
 import java.util.Properties;
+import java.util.function.UnaryOperator;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import org.jjazz.midi.api.DrumKit;
 import org.jjazz.midi.api.DrumKit.KeyMap;
 import org.jjazz.phrase.api.NoteEvent;
 import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.phrasetransform.api.NoteMapperPhraseTransform;
 import org.jjazz.phrasetransform.api.PhraseTransformCategory;
 import org.jjazz.phrasetransform.api.PhraseTransform;
 import org.jjazz.phrasetransform.api.PhraseTransforms;
@@ -42,7 +44,7 @@ import org.netbeans.api.annotations.common.StaticResource;
  *
  * Snare to rimshot.
  */
-public class RimShotToSnareTransform implements PhraseTransform
+public class RimShotToSnareTransform implements NoteMapperPhraseTransform
 {
 
     @StaticResource(relative = true)
@@ -69,37 +71,27 @@ public class RimShotToSnareTransform implements PhraseTransform
     }
 
     @Override
-    public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
+    public UnaryOperator<NoteEvent> getNoteMapper(SizedPhrase inPhrase, SongPartContext context)
     {
-        SizedPhrase res = new SizedPhrase(inPhrase.getChannel(), inPhrase.getBeatRange(), inPhrase.getTimeSignature(), inPhrase.isDrums());
-
-
         KeyMap keyMap = PhraseTransforms.getDrumKit(inPhrase, context).getKeyMap();
         var srcPitches = keyMap.getKeys(DrumKit.Subset.SNARE_RIMSHOT, DrumKit.Subset.SNARE_HANDCLAP);
         if (srcPitches.isEmpty())
         {
-            return res;
+            return ne -> null;
         }
         var destPitches = keyMap.getKeys(DrumKit.Subset.SNARE_DEFAULT);
         if (destPitches.isEmpty())
         {
-            return res;
+            return ne -> null;
         }
         int destPitch = destPitches.get(0);
         
 
-        for (var ne : inPhrase)
+        return ne ->
         {
             int pitch = ne.getPitch();
-            if (srcPitches.contains(pitch))
-            {
-                pitch = destPitch;
-            }
-            var newNe = ne.setPitch(pitch);
-            res.add(newNe);
-        }
-
-        return res;
+            return srcPitches.contains(pitch) ? ne.setPitch(destPitch) : ne;
+        };
     }
 
     @Override
@@ -24,9 +24,12 @@
 package org.jjazz.phrasetransform;
 
 import java.util.Properties;
+import java.util.function.UnaryOperator;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
+import org.jjazz.phrase.api.NoteEvent;
 import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.phrasetransform.api.NoteMapperPhraseTransform;
 import org.jjazz.phrasetransform.api.PhraseTransformCategory;
 import org.jjazz.phrasetransform.api.PhraseTransform;
 import org.jjazz.phrasetransform.api.PtProperties;
@@ -41,7 +44,7 @@ import org.netbeans.api.annotations.common.StaticResource;
  *
  * @author Jerome
  */
-public class SwingTransform implements PhraseTransform
+public class SwingTransform implements NoteMapperPhraseTransform
 {
 
     /**
@@ -83,11 +86,8 @@ public class SwingTransform implements PhraseTransform
     }
 
     @Override
-    public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
+    public UnaryOperator<NoteEvent> getNoteMapper(SizedPhrase inPhrase, SongPartContext context)
     {
-        SizedPhrase res = new SizedPhrase(inPhrase.getChannel(), inPhrase.getBeatRange(), inPhrase.getTimeSignature(), inPhrase.isDrums());
-
-
         // Prepare data
         FloatRange fr = inPhrase.getBeatRange();
         float swingUnit = getSwingUnit();
@@ -96,13 +96,13 @@ public class SwingTransform implements PhraseTransform
 
 
         // Analyze each note
-        for (var ne : inPhrase)
+        return ne ->
         {
             float newDur = ne.getDurationInBeats();
             float newPos = Quantizer.getQuantized(q, ne.getPositionInBeats());
             if (newPos >= fr.to)
             {
-                continue;
+                return null;
             }
 
             boolean makeItSwing = Math.round(newPos / swingUnit) % 2 == 1;
@@ -116,11 +116,8 @@ public class SwingTransform implements PhraseTransform
                     newDur = fr.to - newPos - 0.1f;
                 }
             }
-            var newNe = ne.setAll(-1, newDur, -1, newPos, true);
-            res.add(newNe);
-        }
-
-        return res;
+            return ne.setAll(-1, newDur, -1, newPos, true);
+        };
     }
 
     /**
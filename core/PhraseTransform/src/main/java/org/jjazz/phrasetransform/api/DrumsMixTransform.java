@@ -24,8 +24,11 @@
 package org.jjazz.phrasetransform.api;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.function.UnaryOperator;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import org.jjazz.midi.api.DrumKit;
@@ -39,7 +42,7 @@ import org.jjazz.songcontext.api.SongPartContext;
  * Change velocity of drums notes.
  * <p>
  */
-public class DrumsMixTransform implements PhraseTransform
+public class DrumsMixTransform implements NoteMapperPhraseTransform
 {
 
     public static final String PROP_BD_OFFSET = Subset.BASS.toString();
@@ -159,35 +162,34 @@ public class DrumsMixTransform implements PhraseTransform
     }
 
     @Override
-    public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
+    public UnaryOperator<NoteEvent> getNoteMapper(SizedPhrase inPhrase, SongPartContext context)
     {
-        SizedPhrase res = new SizedPhrase(inPhrase.getChannel(), inPhrase.getBeatRange(), inPhrase.getTimeSignature(), inPhrase.isDrums());
-
-
         DrumKit kit = PhraseTransforms.getDrumKit(inPhrase, context);
         var mapPitchSubset = kit.getSubsetPitches(Subset.BASS, Subset.SNARE, Subset.HI_HAT, Subset.CYMBAL, Subset.CRASH, Subset.TOM, Subset.PERCUSSION);
 
 
-        for (var ne : inPhrase)
+        // Read the property values once
+        Map<Subset, Integer> mapSubsetOffset = new EnumMap<>(Subset.class);
+        for (var subset : mapPitchSubset.values())
         {
-            NoteEvent nne = ne;
-            Subset subset = mapPitchSubset.get(ne.getPitch());
+            mapSubsetOffset.computeIfAbsent(subset, s -> properties.getPropertyAsInteger(s.toString()));
+        }
+
 
+        return ne ->
+        {
+            Subset subset = mapPitchSubset.get(ne.getPitch());
             if (subset != null)
             {
-                int offset = properties.getPropertyAsInteger(subset.toString());
+                int offset = mapSubsetOffset.get(subset);
                 if (offset != 0)
                 {
                     int velocity = MidiUtilities.limit(ne.getVelocity() + offset);
-                    nne = ne.setVelocity(velocity);
+                    return ne.setVelocity(velocity);
                 }
             }
-
-            res.add(nne);           // addOrdered() not needed here
-        }
-
-
-        return res;
+            return ne;
+        };
     }
 
     @Override
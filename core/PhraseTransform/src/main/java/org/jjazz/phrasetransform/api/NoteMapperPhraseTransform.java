@@ -0,0 +1,77 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.phrasetransform.api;
+
+import java.util.function.UnaryOperator;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.songcontext.api.SongPartContext;
+
+/**
+ * A PhraseTransform which processes each note independently.
+ * <p>
+ * Consecutive NoteMapperPhraseTransforms in a PhraseTransformChain are fused: source notes go through all the note mappers in one pass,
+ * without creating an intermediate phrase for each transform.
+ *
+ * @see PhraseTransformChain#transform(org.jjazz.phrase.api.SizedPhrase, org.jjazz.songcontext.api.SongPartContext)
+ */
+public interface NoteMapperPhraseTransform extends PhraseTransform
+{
+
+    /**
+     * Get the function which transforms a note of inPhrase.
+     * <p>
+     * The returned function must only depend on inPhrase channel, beat range, time signature and drums flag, and on context: it must
+     * not depend on the other notes of inPhrase. It returns null if the note must be removed. The returned note must be within the
+     * inPhrase beat range.
+     *
+     * @param inPhrase
+     * @param context  Can be null. An optional context to provide additional information about inPhrase.
+     * @return Can't be null
+     * @see PhraseTransform#transform(org.jjazz.phrase.api.SizedPhrase, org.jjazz.songcontext.api.SongPartContext)
+     */
+    UnaryOperator<NoteEvent> getNoteMapper(SizedPhrase inPhrase, SongPartContext context);
+
+    /**
+     * Apply the note mapper on each note of inPhrase.
+     *
+     * @param inPhrase
+     * @param context
+     * @return
+     */
+    @Override
+    default public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
+    {
+        SizedPhrase res = new SizedPhrase(inPhrase.getChannel(), inPhrase.getBeatRange(), inPhrase.getTimeSignature(), inPhrase.isDrums());
+        var mapper = getNoteMapper(inPhrase, context);
+        for (var ne : inPhrase)
+        {
+            var newNe = mapper.apply(ne);
+            if (newNe != null)
+            {
+                res.add(newNe);
+            }
+        }
+        return res;
+    }
+}
@@ -27,8 +27,10 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jjazz.phrase.api.NoteEvent;
 import org.jjazz.phrase.api.SizedPhrase;
 import org.jjazz.songcontext.api.SongPartContext;
 
@@ -73,26 +75,44 @@ public class PhraseTransformChain extends ArrayList<PhraseTransform>
 
     /**
      * Run all the transforms in the chain.
-     *
+     * <p>
+     * Consecutive NoteMapperPhraseTransforms are fused into a single pass over the notes.
      *
      * @param inPhrase
      * @param context
      * @return
      * @throws IllegalStateException If a transformed phrase has a different beat range than inPhrase.
+     * @see NoteMapperPhraseTransform
      */
     public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
     {
-        SizedPhrase sp = new SizedPhrase(inPhrase);
-        for (var pt : this)
+        SizedPhrase sp = inPhrase;
+        int i = 0;
+        while (i < size())
         {
-            sp = pt.transform(sp, context);
+            var pt = get(i);
+            if (pt instanceof NoteMapperPhraseTransform)
+            {
+                // Collect the note mappers of consecutive NoteMapperPhraseTransforms
+                List<UnaryOperator<NoteEvent>> mappers = new ArrayList<>();
+                while (i < size() && get(i) instanceof NoteMapperPhraseTransform nmpt)
+                {
+                    mappers.add(nmpt.getNoteMapper(sp, context));
+                    i++;
+                }
+                sp = mapNotes(sp, mappers);
+            } else
+            {
+                sp = pt.transform(sp == inPhrase ? new SizedPhrase(inPhrase) : sp, context);
+                i++;
+            }
 
             if (!sp.getBeatRange().equals(inPhrase.getBeatRange()))
             {
                 throw new IllegalStateException("Invalid beatRange modification by pt=" + pt + ", inPhrase=" + inPhrase + ", sp=" + sp);
             }
         }
-        return sp;
+        return sp == inPhrase ? new SizedPhrase(inPhrase) : sp;
     }
 
     /**
@@ -151,4 +171,36 @@ public class PhraseTransformChain extends ArrayList<PhraseTransform>
         return res;
     }
 
+    // =================================================================================================
+    // Private methods
+    // =================================================================================================
+
+    /**
+     * Apply the note mappers in sequence on each note of sp.
+     *
+     * @param sp
+     * @param mappers
+     * @return A new phrase
+     */
+    private SizedPhrase mapNotes(SizedPhrase sp, List<UnaryOperator<NoteEvent>> mappers)
+    {
+        SizedPhrase res = new SizedPhrase(sp.getChannel(), sp.getBeatRange(), sp.getTimeSignature(), sp.isDrums());
+        for (var ne : sp)
+        {
+            NoteEvent newNe = ne;
+            for (var mapper : mappers)
+            {
+                newNe = mapper.apply(newNe);
+                if (newNe == null)
+                {
+                    break;
+                }
+            }
+            if (newNe != null)
+            {
+                res.add(newNe);
+            }
+        }
+        return res;
+    }
 }
@@ -0,0 +1,250 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.phrasetransform.api;
+
+import com.google.common.base.Preconditions;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.midi.api.Instrument;
+import org.jjazz.midimix.api.MidiMix;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.rhythm.api.RhythmVoice;
+import org.jjazz.songcontext.api.SongPartContext;
+import org.jjazz.utilities.api.FloatRange;
+import org.jjazz.utilities.api.IntRange;
+
+/**
+ * A cache for the results of PhraseTransformChain.transform().
+ * <p>
+ * Results are keyed by the input phrase content, the chain save string, and the SongPartContext data a PhraseTransform is expected to
+ * use (bar range, RhythmVoice and Instrument of the phrase channel, see PhraseTransform.transform()). When the music of a song is
+ * regenerated but a song part phrase and its transform chain are unchanged, the transform is not run again.
+ * <p>
+ * Results are softly referenced so they can be reclaimed on memory pressure. The cache is bounded (least recently used entries are
+ * discarded), its maximum number of entries can be set with the jjazz.phrasetransformcache.maxEntries system property.
+ *
+ * @see PhraseTransform#transform(org.jjazz.phrase.api.SizedPhrase, org.jjazz.songcontext.api.SongPartContext)
+ */
+public class PhraseTransformResultCache
+{
+
+    /**
+     * Identify a transform result.
+     *
+     * @param chain         The chain save string
+     * @param channel
+     * @param isDrums
+     * @param beatRange
+     * @param timeSignature
+     * @param barRange      The SongPartContext bar range
+     * @param rhythmVoice   The RhythmVoice of the phrase channel
+     * @param instrument    The Instrument of the phrase channel
+     * @param contentHash   A hash of the input phrase notes
+     */
+    private record Key(String chain, int channel, boolean isDrums, FloatRange beatRange, TimeSignature timeSignature, IntRange barRange,
+            RhythmVoice rhythmVoice, Instrument instrument, long contentHash)
+            {
+
+    }
+
+    /**
+     * The input phrase is kept to protect against content hash collisions.
+     */
+    private record Result(SizedPhrase inPhrase, SizedPhrase outPhrase)
+            {
+
+    }
+
+    public static final int DEFAULT_MAX_ENTRIES = Integer.getInteger("jjazz.phrasetransformcache.maxEntries", 200);
+    private static PhraseTransformResultCache INSTANCE;
+    private final Map<Key, SoftReference<Result>> cache;
+    private int nbHits;
+    private int nbMisses;
+    private static final Logger LOGGER = Logger.getLogger(PhraseTransformResultCache.class.getSimpleName());
+
+    public static PhraseTransformResultCache getInstance()
+    {
+        synchronized (PhraseTransformResultCache.class)
+        {
+            if (INSTANCE == null)
+            {
+                INSTANCE = new PhraseTransformResultCache(DEFAULT_MAX_ENTRIES);
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param maxEntries
+     */
+    public PhraseTransformResultCache(int maxEntries)
+    {
+        Preconditions.checkArgument(maxEntries >= 0, "maxEntries=%s", maxEntries);
+        cache = new LinkedHashMap<>(64, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<Result>> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Same as chain.transform(inPhrase, context) but reuse a previous result if possible.
+     *
+     * @param chain
+     * @param inPhrase
+     * @param context
+     * @return A new phrase
+     * @see PhraseTransformChain#transform(org.jjazz.phrase.api.SizedPhrase, org.jjazz.songcontext.api.SongPartContext)
+     */
+    public SizedPhrase transform(PhraseTransformChain chain, SizedPhrase inPhrase, SongPartContext context)
+    {
+        Preconditions.checkNotNull(chain);
+        Preconditions.checkNotNull(inPhrase);
+        Preconditions.checkNotNull(context);
+
+        if (chain.isEmpty())
+        {
+            return new SizedPhrase(inPhrase);
+        }
+
+        Key key = buildKey(chain, inPhrase, context);
+        synchronized (cache)
+        {
+            var ref = cache.get(key);
+            Result result = ref == null ? null : ref.get();
+            if (result != null && contentEquals(result.inPhrase(), inPhrase))
+            {
+                nbHits++;
+                return new SizedPhrase(result.outPhrase());
+            }
+            nbMisses++;
+        }
+
+        SizedPhrase outPhrase = chain.transform(inPhrase, context);
+        Result result = new Result(new SizedPhrase(inPhrase), new SizedPhrase(outPhrase));
+        synchronized (cache)
+        {
+            cache.put(key, new SoftReference<>(result));
+            purgeClearedEntries();
+        }
+
+        return outPhrase;
+    }
+
+    public void clear()
+    {
+        synchronized (cache)
+        {
+            cache.clear();
+            nbHits = 0;
+            nbMisses = 0;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        synchronized (cache)
+        {
+            return "PhraseTransformResultCache[size=" + cache.size() + ", hits=" + nbHits + ", misses=" + nbMisses + "]";
+        }
+    }
+
+    /**
+     * Log the cache statistics with the specified level.
+     *
+     * @param level
+     */
+    public void logStats(Level level)
+    {
+        LOGGER.log(level, "logStats() {0}", this);
+    }
+
+    // =================================================================================================
+    // Private methods
+    // =================================================================================================
+
+    private Key buildKey(PhraseTransformChain chain, SizedPhrase sp, SongPartContext context)
+    {
+        MidiMix midiMix = context.getMidiMix();
+        int channel = sp.getChannel();
+        RhythmVoice rv = midiMix.getRhythmVoice(channel);
+        var insMix = midiMix.getInstrumentMix(channel);
+        Instrument ins = insMix == null ? null : insMix.getInstrument();
+        return new Key(PhraseTransformChain.saveAsString(chain), channel, sp.isDrums(), sp.getBeatRange(), sp.getTimeSignature(),
+                context.getBarRange(), rv, ins, computeContentHash(sp));
+    }
+
+    private long computeContentHash(SizedPhrase sp)
+    {
+        long h = 1125899906842597L;
+        for (NoteEvent ne : sp)
+        {
+            h = 31 * h + ne.getPitch();
+            h = 31 * h + ne.getVelocity();
+            h = 31 * h + Float.floatToIntBits(ne.getPositionInBeats());
+            h = 31 * h + Float.floatToIntBits(ne.getDurationInBeats());
+        }
+        return h;
+    }
+
+    private boolean contentEquals(SizedPhrase sp1, SizedPhrase sp2)
+    {
+        if (sp1.size() != sp2.size())
+        {
+            return false;
+        }
+        Iterator<NoteEvent> it2 = sp2.iterator();
+        for (NoteEvent ne1 : sp1)
+        {
+            NoteEvent ne2 = it2.next();
+            if (ne1.getPitch() != ne2.getPitch()
+                    || ne1.getVelocity() != ne2.getVelocity()
+                    || Float.compare(ne1.getPositionInBeats(), ne2.getPositionInBeats()) != 0
+                    || Float.compare(ne1.getDurationInBeats(), ne2.getDurationInBeats()) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove the entries whose result was reclaimed by the garbage collector.
+     */
+    private void purgeClearedEntries()
+    {
+        cache.values().removeIf(ref -> ref.get() == null);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * 
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *  
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ * 
+ *   This file is part of the JJazzLab software.
+ *    
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *   as published by the Free Software Foundation, either version 3 of the License, 
+ *   or (at your option) any later version.
+ * 
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *  
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *  
+ */
+package org.jjazz.phrasetransform.api;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.function.UnaryOperator;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.phrasetransform.SwingTransform;
+import org.jjazz.songcontext.api.SongPartContext;
+import org.jjazz.utilities.api.FloatRange;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PhraseTransformChainTest
+{
+
+    SizedPhrase inPhrase;
+
+    public PhraseTransformChainTest()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        inPhrase = new SizedPhrase(9, new FloatRange(0, 16), TimeSignature.FOUR_FOUR, true);
+        for (int i = 0; i < 32; i++)
+        {
+            inPhrase.add(new NoteEvent(36 + i % 12, 0.4f, 60 + i, i * 0.5f));
+        }
+    }
+
+    /**
+     * The fused note mappers must give the same result as applying each transform one by one.
+     */
+    @Test
+    public void testFusedTransform()
+    {
+        System.out.println("testFusedTransform");
+        var chain = new PhraseTransformChain(List.of(
+                new TestNoteMapperTransform("Pitch", ne -> ne.setPitch(ne.getPitch() + 2)),
+                new SwingTransform(),
+                new TestNoteMapperTransform("Remove", ne -> ne.getPitch() % 5 == 0 ? null : ne),
+                new TestNoteMapperTransform("Velocity", ne -> ne.setVelocity(ne.getVelocity() / 2))));
+        checkSameAsOneByOne(chain);
+    }
+
+    /**
+     * Same with a transform which needs the whole phrase between note mappers.
+     */
+    @Test
+    public void testFusedTransformWithPhraseTransform()
+    {
+        System.out.println("testFusedTransformWithPhraseTransform");
+        var chain = new PhraseTransformChain(List.of(
+                new TestPhraseTransform(),
+                new TestNoteMapperTransform("Pitch", ne -> ne.setPitch(ne.getPitch() + 2)),
+                new SwingTransform(),
+                new TestPhraseTransform(),
+                new TestNoteMapperTransform("Velocity", ne -> ne.setVelocity(ne.getVelocity() / 2))));
+        checkSameAsOneByOne(chain);
+    }
+
+    // ===============================================================================
+    // Private methods
+    // ===============================================================================
+
+    private void checkSameAsOneByOne(PhraseTransformChain chain)
+    {
+        var inCopy = new SizedPhrase(inPhrase);
+
+        SizedPhrase expected = inPhrase;
+        for (var pt : chain)
+        {
+            expected = pt.transform(new SizedPhrase(expected), null);
+        }
+
+        SizedPhrase res = chain.transform(inPhrase, null);
+
+        assertNotSame(inPhrase, res);
+        assertTrue(inCopy.equalsAsNoteNearPosition(inPhrase, 0));
+        assertEquals(expected.getBeatRange(), res.getBeatRange());
+        assertTrue("expected=" + expected + "\nres=" + res, expected.equalsAsNoteNearPosition(res, 0));
+    }
+
+    // ===============================================================================
+    // Private classes
+    // ===============================================================================
+
+    private static class TestNoteMapperTransform implements NoteMapperPhraseTransform
+    {
+
+        private final Info info;
+        private final UnaryOperator<NoteEvent> mapper;
+
+        TestNoteMapperTransform(String name, UnaryOperator<NoteEvent> mapper)
+        {
+            info = new Info(name + "Id", name, name, PhraseTransformCategory.DRUMS, null);
+            this.mapper = mapper;
+        }
+
+        @Override
+        public UnaryOperator<NoteEvent> getNoteMapper(SizedPhrase inPhrase, SongPartContext context)
+        {
+            return mapper;
+        }
+
+        @Override
+        public Info getInfo()
+        {
+            return info;
+        }
+
+        @Override
+        public int getFitScore(SizedPhrase inPhrase, SongPartContext context)
+        {
+            return 100;
+        }
+
+        @Override
+        public PhraseTransform getCopy()
+        {
+            return this;
+        }
+
+        @Override
+        public PtProperties getProperties()
+        {
+            return new PtProperties(new Properties());
+        }
+    }
+
+    /**
+     * Remove every other note: needs the whole phrase.
+     */
+    private static class TestPhraseTransform implements PhraseTransform
+    {
+
+        private final Info info = new Info("EveryOtherNoteId", "EveryOtherNote", "EveryOtherNote", PhraseTransformCategory.DRUMS, null);
+
+        @Override
+        public SizedPhrase transform(SizedPhrase inPhrase, SongPartContext context)
+        {
+            var res = new SizedPhrase(inPhrase.getChannel(), inPhrase.getBeatRange(), inPhrase.getTimeSignature(), inPhrase.isDrums());
+            int i = 0;
+            for (var ne : inPhrase)
+            {
+                if (i++ % 2 == 0)
+                {
+                    res.add(ne);
+                }
+            }
+            return res;
+        }
+
+        @Override
+        public Info getInfo()
+        {
+            return info;
+        }
+
+        @Override
+        public int getFitScore(SizedPhrase inPhrase, SongPartContext context)
+        {
+            return 100;
+        }
+
+        @Override
+        public PhraseTransform getCopy()
+        {
+            return this;
+        }
+
+        @Override
+        public PtProperties getProperties()
+        {
+            return new PtProperties(new Properties());
+        }
+    }
+}
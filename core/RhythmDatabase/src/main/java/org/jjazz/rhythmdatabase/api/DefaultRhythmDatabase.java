@@ -121,7 +121,7 @@ public class DefaultRhythmDatabase implements RhythmDatabase
     }
 
     @Override
-    public Rhythm getRhythmInstance(RhythmInfo ri) throws UnavailableRhythmException
+    public synchronized Rhythm getRhythmInstance(RhythmInfo ri) throws UnavailableRhythmException
     {
         Objects.requireNonNull(ri);
 
@@ -251,7 +251,7 @@ public class DefaultRhythmDatabase implements RhythmDatabase
     }
 
     @Override
-    public AdaptedRhythm getAdaptedRhythmInstance(Rhythm r, TimeSignature ts)
+    public synchronized AdaptedRhythm getAdaptedRhythmInstance(Rhythm r, TimeSignature ts)
     {
         if (r == null || ts == null || r.getTimeSignature().equals(ts))
         {
@@ -429,7 +429,7 @@ public class DefaultRhythmDatabase implements RhythmDatabase
     }
 
     @Override
-    public boolean addRhythmInstance(RhythmProvider rp, Rhythm r)
+    public synchronized boolean addRhythmInstance(RhythmProvider rp, Rhythm r)
     {
         RhythmInfo ri = new RhythmInfo(r, rp);
         boolean added = addRhythm(rp, ri);
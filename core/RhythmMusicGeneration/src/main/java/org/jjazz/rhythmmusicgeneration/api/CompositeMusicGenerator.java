@@ -99,4 +99,22 @@ public class CompositeMusicGenerator implements MusicGenerator
         return res;
     }
 
+    /**
+     * @return True if all the combined MusicGenerators are deterministic.
+     */
+    @Override
+    public boolean isDeterministic()
+    {
+        return mapGenRvs.keySet().stream().allMatch(mg -> mg.isDeterministic());
+    }
+
+    /**
+     * @return True if all the combined MusicGenerators are thread-safe.
+     */
+    @Override
+    public boolean isThreadSafe()
+    {
+        return mapGenRvs.keySet().stream().allMatch(mg -> mg.isThreadSafe());
+    }
+
 }
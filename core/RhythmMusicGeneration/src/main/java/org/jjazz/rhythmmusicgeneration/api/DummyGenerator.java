@@ -116,6 +116,24 @@ public class DummyGenerator implements MusicGenerator
         return res;
     }
 
+    /**
+     * @return True, no random choices are made.
+     */
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    /**
+     * @return True, no state is kept between calls.
+     */
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     /**
      * Get a basic bass phrase.
      *
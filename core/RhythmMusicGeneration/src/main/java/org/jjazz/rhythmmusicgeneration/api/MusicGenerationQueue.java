@@ -39,6 +39,7 @@ import org.jjazz.rhythm.api.RhythmVoice;
 import org.jjazz.rhythm.api.UserErrorGenerationException;
 import org.jjazz.songcontext.api.SongContext;
 import org.jjazz.utilities.api.CheckedRunnable;
+import org.jjazz.utilities.api.PerformanceMonitor;
 import org.jjazz.utilities.api.Utilities;
 import org.openide.DialogDisplayer;
 import org.openide.NotifyDescriptor;
@@ -81,6 +82,10 @@ public class MusicGenerationQueue implements Runnable
     private final int postUpdateSleepTimeMs;
     private volatile boolean running;
     private final ChangeSupport cs = new ChangeSupport(this);
+    private static final String COUNTER_REQUESTS = "MusicGenerationQueue.requests";
+    private static final String COUNTER_MERGED_REQUESTS = "MusicGenerationQueue.mergedRequests";
+    private static final PerformanceMonitor.Stage STAGE_GENERATION = PerformanceMonitor.getDefault().getStage("MusicGenerationQueue.generation");
+    private static final PerformanceMonitor.Stage STAGE_NOTIFY = PerformanceMonitor.getDefault().getStage("MusicGenerationQueue.notifyListeners");
     private static final Logger LOGGER = Logger.getLogger(MusicGenerationQueue.class.getSimpleName());
 
     /**
@@ -103,6 +108,7 @@ public class MusicGenerationQueue implements Runnable
     public void add(SongContext sgContext)
     {
         Preconditions.checkNotNull(sgContext);
+        PerformanceMonitor.getDefault().increment(COUNTER_REQUESTS);
         lastAddedSongContext = sgContext;
         writeThreadSharedSongContext(sgContext);
     }
@@ -387,6 +393,7 @@ public class MusicGenerationQueue implements Runnable
             if (!started)
             {
                 this.songContext = sgContext;
+                PerformanceMonitor.getDefault().increment(COUNTER_MERGED_REQUESTS);
                 return true;
             }
             return false;
@@ -403,6 +410,7 @@ public class MusicGenerationQueue implements Runnable
 
 
             long startTime = System.nanoTime();
+            long perfStart = STAGE_GENERATION.start();
             LOGGER.log(Level.FINE, "UpdateGenerationTask.run() >>> STARTING generation nanoTime()={0}", startTime);
             //LOGGER.info("UpdateGenerationTask.run() >>> STARTING generation cls=" + toDebugString(songContext.getSong().getChordLeadSheet()));
 
@@ -437,12 +445,15 @@ public class MusicGenerationQueue implements Runnable
 
 
             lastResult = new Result(songContext, map, throwable);
+            STAGE_GENERATION.stop(perfStart);
 
 
             LOGGER.log(Level.FINE, "UpdateGenerationTask.run() <<< ENDING generation  duration={0}ns", System.nanoTime() - startTime);
 
             // Notify listeners
+            perfStart = STAGE_NOTIFY.start();
             cs.fireChange();
+            STAGE_NOTIFY.stop(perfStart);
 
 
             try
@@ -0,0 +1,225 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * 
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *   
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *  as published by the Free Software Foundation, either version 3 of the License, 
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ *  GNU Lesser General Public License for more details.
+ * 
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ * 
+ *  Contributor(s): 
+ */
+package org.jjazz.rhythmmusicgeneration.api;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jjazz.chordleadsheet.api.item.ExtChordSymbol;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythm.api.Rhythm;
+import org.jjazz.rhythmdatabase.api.RhythmDatabase;
+import org.jjazz.rhythmmusicgeneration.spi.MusicGenerator;
+
+/**
+ * A content-addressed cache for phrases generated for a chord sequence.
+ * <p>
+ * The same rhythm with the same parameters on the same chord progression produces the same music, wherever the chord progression is
+ * in the song (e.g. an AABA song usually generates the same A part 3 times). A deterministic MusicGenerator can store the phrase
+ * generated for a chord sequence, then reuse it at another position when the Key matches.
+ * <p>
+ * Phrases are stored relative to the chord sequence start. The cache is bounded (least recently used entries are discarded), its
+ * maximum number of entries can be set with the jjazz.phrasecache.maxEntries system property.
+ * <p>
+ * Keys identify a rhythm by its unique id: the global instance is cleared when the RhythmDatabase changes, e.g. when a rhythm file is
+ * rescanned.
+ *
+ * @see MusicGenerator#isDeterministic()
+ */
+public class PhraseCache
+{
+
+    /**
+     * A chord symbol position relative to the start of its chord sequence.
+     *
+     * @param bar  Relative bar index
+     * @param beat
+     * @param ecs
+     */
+    public record RelativeChord(int bar, float beat, ExtChordSymbol ecs)
+            {
+
+    }
+
+    /**
+     * Identify a generated phrase by its musical content.
+     *
+     * @param rhythmId      The rhythm unique id
+     * @param timeSignature
+     * @param nbBars        The chord sequence size
+     * @param chords        The chord symbols relative to the chord sequence start
+     * @param parameters    Any other value which impacts the generated phrase (rhythm parameter values, random choices made by the
+     *                      generator, destination channel...). Values can be null, and must implement equals() and hashCode().
+     */
+    public record Key(String rhythmId, TimeSignature timeSignature, int nbBars, List<RelativeChord> chords, List<Object> parameters)
+            {
+
+        /**
+         * Build a key for a phrase generated by rhythm r for cSeq.
+         *
+         * @param r
+         * @param cSeq
+         * @param parameters See Key record description.
+         * @return
+         */
+        public static Key of(Rhythm r, SimpleChordSequence cSeq, Object... parameters)
+        {
+            Preconditions.checkNotNull(r);
+            Preconditions.checkNotNull(cSeq);
+            int startBar = cSeq.getBarRange().from;
+            List<RelativeChord> chords = new ArrayList<>(cSeq.size());
+            for (var cliCs : cSeq)
+            {
+                var pos = cliCs.getPosition();
+                chords.add(new RelativeChord(pos.getBar() - startBar, pos.getBeat(), cliCs.getData()));
+            }
+            return new Key(r.getUniqueId(), cSeq.getTimeSignature(), cSeq.getBarRange().size(), chords, Collections.unmodifiableList(Arrays.asList(parameters.clone())));
+        }
+    }
+
+    public static final int DEFAULT_MAX_ENTRIES = Integer.getInteger("jjazz.phrasecache.maxEntries", 1000);
+    private static PhraseCache INSTANCE;
+    private final Map<Key, Phrase> cache;
+    private int nbHits;
+    private int nbMisses;
+    private static final Logger LOGGER = Logger.getLogger(PhraseCache.class.getSimpleName());
+
+    public static PhraseCache getInstance()
+    {
+        synchronized (PhraseCache.class)
+        {
+            if (INSTANCE == null)
+            {
+                var cache = new PhraseCache(DEFAULT_MAX_ENTRIES);
+                RhythmDatabase.getDefault().addChangeListener(e -> cache.clear());
+                INSTANCE = cache;
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param maxEntries
+     */
+    public PhraseCache(int maxEntries)
+    {
+        Preconditions.checkArgument(maxEntries >= 0, "maxEntries=%s", maxEntries);
+        cache = new LinkedHashMap<>(64, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Phrase> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get a copy of the cached phrase for key, moved to the specified position.
+     *
+     * @param key
+     * @param startPosInBeats The start position of the chord sequence
+     * @return Null if key is not in the cache
+     */
+    public Phrase get(Key key, float startPosInBeats)
+    {
+        Preconditions.checkNotNull(key);
+        Phrase p;
+        synchronized (cache)
+        {
+            p = cache.get(key);
+            if (p == null)
+            {
+                nbMisses++;
+                return null;
+            }
+            nbHits++;
+        }
+        Phrase res = p.clone();
+        res.shiftAllEvents(startPosInBeats);
+        return res;
+    }
+
+    /**
+     * Store a copy of p for key.
+     *
+     * @param key
+     * @param p
+     * @param startPosInBeats The start position of the chord sequence used to generate p. If p has notes before this position, p is
+     *                        not stored.
+     */
+    public void put(Key key, Phrase p, float startPosInBeats)
+    {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(p);
+        if (!p.isEmpty() && p.first().getPositionInBeats() < startPosInBeats)
+        {
+            LOGGER.log(Level.FINE, "put() p starts before startPosInBeats={0}, ignored", startPosInBeats);
+            return;
+        }
+        Phrase pCopy = p.clone();
+        pCopy.shiftAllEvents(-startPosInBeats);
+        synchronized (cache)
+        {
+            cache.put(key, pCopy);
+        }
+    }
+
+    public void clear()
+    {
+        synchronized (cache)
+        {
+            cache.clear();
+            nbHits = 0;
+            nbMisses = 0;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        synchronized (cache)
+        {
+            return "PhraseCache[size=" + cache.size() + ", hits=" + nbHits + ", misses=" + nbMisses + "]";
+        }
+    }
+
+    /**
+     * Log the cache statistics with the specified level.
+     *
+     * @param level
+     */
+    public void logStats(Level level)
+    {
+        LOGGER.log(level, "logStats() {0}", this);
+    }
+}
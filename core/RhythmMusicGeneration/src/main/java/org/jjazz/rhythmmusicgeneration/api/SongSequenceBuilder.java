@@ -61,6 +61,7 @@ import org.jjazz.midimix.api.UserRhythmVoice;
 import org.jjazz.outputsynth.api.OutputSynth;
 import org.jjazz.phrase.api.Phrases;
 import org.jjazz.phrase.api.SizedPhrase;
+import org.jjazz.phrasetransform.api.PhraseTransformResultCache;
 import org.jjazz.phrasetransform.api.rps.RP_SYS_DrumsTransform;
 import org.jjazz.phrasetransform.api.rps.RP_SYS_DrumsTransformValue;
 import org.jjazz.rhythm.api.AdaptedRhythm;
@@ -78,6 +79,7 @@ import org.jjazz.songstructure.api.SongPart;
 import org.jjazz.songstructure.api.SongStructure;
 import org.jjazz.utilities.api.FloatRange;
 import org.jjazz.utilities.api.IntRange;
+import org.jjazz.utilities.api.PerformanceMonitor;
 import org.jjazz.utilities.api.ResUtil;
 import org.openide.util.Exceptions;
 import org.jjazz.outputsynth.spi.OutputSynthManager;
@@ -110,6 +112,14 @@ public class SongSequenceBuilder
 
     private SongContext songContext;
 
+    private static final PerformanceMonitor.Stage STAGE_BUILD_MAP_RV_PHRASE = PerformanceMonitor.getDefault().getStage("SongSequenceBuilder.buildMapRvPhrase");
+    private static final PerformanceMonitor.Stage STAGE_GENERATE_MUSIC = PerformanceMonitor.getDefault().getStage("SongSequenceBuilder.generateMusic");
+    private static final PerformanceMonitor.Stage STAGE_CUSTOM_PHRASES = PerformanceMonitor.getDefault().getStage("SongSequenceBuilder.processCustomPhrases");
+    private static final PerformanceMonitor.Stage STAGE_DRUMS_TRANSFORMS = PerformanceMonitor.getDefault().getStage(
+            "SongSequenceBuilder.processDrumsTransforms");
+    private static final PerformanceMonitor.Stage STAGE_INSTRUMENTS_SETTINGS = PerformanceMonitor.getDefault().getStage(
+            "SongSequenceBuilder.processInstrumentsSettings");
+    private static final PerformanceMonitor.Stage STAGE_BUILD_SONG_SEQUENCE = PerformanceMonitor.getDefault().getStage("SongSequenceBuilder.buildSongSequence");
     private static final Logger LOGGER = Logger.getLogger(SongSequenceBuilder.class.getSimpleName());
 
     /**
@@ -210,6 +220,7 @@ public class SongSequenceBuilder
      */
     public SongSequence buildSongSequence(Map<RhythmVoice, Phrase> rvPhrases)
     {
+        long perfStart = STAGE_BUILD_SONG_SEQUENCE.start();
         SongSequence res = new SongSequence();
         res.mapRvPhrase = new HashMap<>(rvPhrases);
 
@@ -284,6 +295,8 @@ public class SongSequenceBuilder
 
         fixEndOfTracks(songContext, res.sequence);
 
+        STAGE_BUILD_SONG_SEQUENCE.stop(perfStart);
+
         return res;
     }
 
@@ -528,6 +541,7 @@ public class SongSequenceBuilder
     // =========================================================================
     private Map<RhythmVoice, Phrase> buildMapRvPhrase() throws MusicGenerationException
     {
+        long perfStart = STAGE_BUILD_MAP_RV_PHRASE.start();
         Map<RhythmVoice, Phrase> res = new HashMap<>();
 
         checkEmptyRange(songContext);       // throws MusicGenerationException
@@ -557,10 +571,14 @@ public class SongSequenceBuilder
 
 
         // Handle the RP_SYS_CustomPhrase changes
+        long t = STAGE_CUSTOM_PHRASES.start();
         processCustomPhrases(songContext, res);
+        STAGE_CUSTOM_PHRASES.stop(t);
 
         // Handle the RP_SYS_DrumsTransform changes
+        t = STAGE_DRUMS_TRANSFORMS.start();
         processDrumsTransforms(songContext, res);
+        STAGE_DRUMS_TRANSFORMS.stop(t);
 
         // Handle muted instruments via the SongPart's RP_SYS_Mute parameter
         processMutedInstruments(songContext, res);
@@ -624,7 +642,9 @@ public class SongSequenceBuilder
 
 
         // Handle instrument settings which impact the phrases: transposition, velocity shift, ...
+        t = STAGE_INSTRUMENTS_SETTINGS.start();
         processInstrumentsSettings(songContext, res);
+        STAGE_INSTRUMENTS_SETTINGS.stop(t);
 
         // Handle the RP_SYS_Fill with value fade_out
         processFadeOut(songContext, res);
@@ -640,12 +660,16 @@ public class SongSequenceBuilder
             p.shiftAllEvents(-songContext.getBeatRange().from);
         }
 
+        STAGE_BUILD_MAP_RV_PHRASE.stop(perfStart);
+
         return res;
     }
 
 
     /**
      * Ask specified rhythm to generate music.
+     * <p>
+     * No lock is taken: background builders which can run concurrently with the active song generation only use thread-safe MusicGenerators.
      *
      * @param r
      * @return
@@ -661,8 +685,12 @@ public class SongSequenceBuilder
             {
                 r.getName(), Objects.hashCode(r)
             });
+            MusicGenerator.checkInterrupted();
             r.loadResources();
-            return mg.generateMusic(songContext);
+            long t = STAGE_GENERATE_MUSIC.start();
+            var res = mg.generateMusic(songContext);
+            STAGE_GENERATE_MUSIC.stop(t);
+            return res;
         } else
         {
             LOGGER.log(Level.WARNING, "generateRhythmPhrases() r={0} is not a MusicGenerator instance", r);
@@ -905,7 +933,7 @@ public class SongSequenceBuilder
             SizedPhrase inSp = new SizedPhrase(p.getChannel(), sptBeatRange, r.getTimeSignature(), p.isDrums());
             inSp.add(Phrases.getSlice(p, sptBeatRange, false, 1, 0.1f));
             var chain = rpValue.getTransformChain(false);
-            var outSp = chain.transform(inSp, sptContext);
+            var outSp = PhraseTransformResultCache.getInstance().transform(chain, inSp, sptContext);
 
 
             // Replace the old song part phrase by the transformed one            
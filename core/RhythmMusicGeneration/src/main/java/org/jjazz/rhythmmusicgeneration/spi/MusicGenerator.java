@@ -63,4 +63,46 @@ public interface MusicGenerator
      */
 
     Map<RhythmVoice, Phrase> generateMusic(SongContext context, RhythmVoice... rhythmVoices) throws MusicGenerationException;
+
+    /**
+     * Check if this generator is deterministic.
+     * <p>
+     * A deterministic generator always produces the same Phrase for the same input data, provided that all the random choices it
+     * makes are part of the input data. Only deterministic generators can reuse phrases from the PhraseCache.
+     *
+     * @return False by default
+     * @see org.jjazz.rhythmmusicgeneration.api.PhraseCache
+     */
+    default boolean isDeterministic()
+    {
+        return false;
+    }
+
+    /**
+     * Check if generateMusic() can be called concurrently from different threads.
+     * <p>
+     * Background music builders (e.g. speculative generation for songs which are not active) only use thread-safe generators, so that they never
+     * delay the generation for the active song.
+     *
+     * @return False by default
+     */
+    default boolean isThreadSafe()
+    {
+        return false;
+    }
+
+    /**
+     * Throw a MusicGenerationException if the current thread was interrupted.
+     * <p>
+     * Long generations should call this method regularly (e.g. for each song part) so that a cancelled background generation stops quickly.
+     *
+     * @throws MusicGenerationException
+     */
+    static void checkInterrupted() throws MusicGenerationException
+    {
+        if (Thread.currentThread().isInterrupted())
+        {
+            throw new MusicGenerationException("Music generation interrupted");
+        }
+    }
 }
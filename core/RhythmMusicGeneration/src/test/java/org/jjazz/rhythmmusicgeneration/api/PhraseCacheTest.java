@@ -0,0 +1,274 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.rhythmmusicgeneration.api;
+
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.text.ParseException;
+import java.util.EnumSet;
+import java.util.List;
+import org.jjazz.chordleadsheet.api.item.CLI_Factory;
+import org.jjazz.chordleadsheet.api.item.ChordRenderingInfo;
+import org.jjazz.chordleadsheet.api.item.ExtChordSymbol;
+import org.jjazz.harmony.api.Position;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.midi.api.Instrument;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythm.api.Rhythm;
+import org.jjazz.rhythm.api.RhythmFeatures;
+import org.jjazz.rhythm.api.RhythmParameter;
+import org.jjazz.rhythm.api.RhythmVoice;
+import org.jjazz.utilities.api.IntRange;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test PhraseCache keys and the relocation of the cached phrases.
+ */
+public class PhraseCacheTest
+{
+
+    private static final ChordRenderingInfo NO_RENDERING = new ChordRenderingInfo();
+    private Rhythm rhythm;
+    private PhraseCache cache;
+
+    public PhraseCacheTest()
+    {
+    }
+
+    @Before
+    public void setUp()
+    {
+        rhythm = new TestRhythm("rhythmId");
+        cache = new PhraseCache(10);
+    }
+
+    @Test
+    public void testKeyEquality() throws ParseException
+    {
+        System.out.println("testKeyEquality");
+        Instrument drums1 = new Instrument(0, "Standard");
+        Instrument drums2 = new Instrument(8, "Room");
+
+
+        // Same chord progression at different positions in the song
+        var key = PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", NO_RENDERING), "Main A-1", 9, drums1);
+        var key2 = PhraseCache.Key.of(rhythm, cSeq(8, "Cm7", NO_RENDERING), "Main A-1", 9, drums1);
+        assertEquals(key, key2);
+        assertEquals(key.hashCode(), key2.hashCode());
+
+
+        // Rhythm parameter value, destination channel, drums instrument
+        assertNotEquals(key, PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", NO_RENDERING), "Main B-1", 9, drums1));
+        assertNotEquals(key, PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", NO_RENDERING), "Main A-1", 10, drums1));
+        assertNotEquals(key, PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", NO_RENDERING), "Main A-1", 9, drums2));
+        assertNotEquals(key, PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", NO_RENDERING), "Main A-1", 9, null));
+
+
+        // Chord symbols and their rendering info
+        assertNotEquals(key, PhraseCache.Key.of(rhythm, cSeq(0, "Cm6", NO_RENDERING), "Main A-1", 9, drums1));
+        var accent = new ChordRenderingInfo(EnumSet.of(ChordRenderingInfo.Feature.ACCENT));
+        assertNotEquals(key, PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", accent), "Main A-1", 9, drums1));
+        assertEquals(PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", accent), "Main A-1", 9, drums1),
+                PhraseCache.Key.of(rhythm, cSeq(4, "Cm7", new ChordRenderingInfo(EnumSet.of(ChordRenderingInfo.Feature.ACCENT))), "Main A-1", 9, drums1));
+
+
+        // Rhythm
+        assertNotEquals(key, PhraseCache.Key.of(new TestRhythm("otherId"), cSeq(0, "Cm7", NO_RENDERING), "Main A-1", 9, drums1));
+
+
+        // The parameters array can be reused by the caller
+        Object[] params =
+        {
+            "Main A-1", 9
+        };
+        var key3 = PhraseCache.Key.of(rhythm, cSeq(0, "Cm7", NO_RENDERING), params);
+        params[0] = "Main B-1";
+        assertEquals(List.of("Main A-1", 9), key3.parameters());
+    }
+
+    @Test
+    public void testRelocation() throws ParseException
+    {
+        System.out.println("testRelocation");
+        var key = PhraseCache.Key.of(rhythm, cSeq(8, "F7", NO_RENDERING));
+        assertNull(cache.get(key, 0));
+
+
+        // Phrase generated for a chord sequence starting at beat 32
+        Phrase p = new Phrase(0);
+        p.add(new NoteEvent(60, 1, 64, 32));
+        p.add(new NoteEvent(64, 0.5f, 80, 33.5f));
+        cache.put(key, p, 32);
+        p.clear();      // The cache stores a copy
+
+
+        // Reused at beat 4 then at beat 32
+        Phrase p4 = cache.get(key, 4);
+        assertEquals(List.of(4f, 5.5f), p4.stream().map(ne -> ne.getPositionInBeats()).toList());
+        assertEquals(List.of(60, 64), p4.stream().map(ne -> ne.getPitch()).toList());
+        p4.clear();     // A copy is returned
+        Phrase p32 = cache.get(key, 32);
+        assertEquals(List.of(32f, 33.5f), p32.stream().map(ne -> ne.getPositionInBeats()).toList());
+
+
+        // A phrase starting before the chord sequence is not stored
+        var key2 = PhraseCache.Key.of(rhythm, cSeq(8, "Bb7", NO_RENDERING));
+        Phrase p2 = new Phrase(0);
+        p2.add(new NoteEvent(60, 1, 64, 31.5f));
+        cache.put(key2, p2, 32);
+        assertNull(cache.get(key2, 0));
+
+
+        cache.clear();
+        assertNull(cache.get(key, 32));
+    }
+
+    // ===================================================================================
+    // Private methods
+    // ===================================================================================
+
+    /**
+     * A 4/4 chord sequence of 4 bars starting at startBar, with chord cs at bar 0 and Bb7 at bar 2 beat 2.
+     */
+    private SimpleChordSequence cSeq(int startBar, String cs, ChordRenderingInfo cri) throws ParseException
+    {
+        var res = new SimpleChordSequence(new IntRange(startBar, startBar + 3), TimeSignature.FOUR_FOUR);
+        var clif = CLI_Factory.getDefault();
+        res.add(clif.createChordSymbol(ExtChordSymbol.get(cs, cri, null, null), new Position(startBar)));
+        res.add(clif.createChordSymbol("Bb7", startBar + 2, 2));
+        return res;
+    }
+
+    // ===================================================================================
+    // Private classes
+    // ===================================================================================
+
+    /**
+     * Only the rhythm unique id is used by PhraseCache.
+     */
+    private static class TestRhythm implements Rhythm
+    {
+
+        private final String id;
+
+        private TestRhythm(String id)
+        {
+            this.id = id;
+        }
+
+        @Override
+        public RhythmFeatures getFeatures()
+        {
+            return new RhythmFeatures();
+        }
+
+        @Override
+        public void loadResources()
+        {
+            // Nothing
+        }
+
+        @Override
+        public void releaseResources()
+        {
+            // Nothing
+        }
+
+        @Override
+        public boolean isResourcesLoaded()
+        {
+            return true;
+        }
+
+        @Override
+        public List<RhythmVoice> getRhythmVoices()
+        {
+            return List.of();
+        }
+
+        @Override
+        public List<RhythmParameter<?>> getRhythmParameters()
+        {
+            return List.of();
+        }
+
+        @Override
+        public File getFile()
+        {
+            return null;
+        }
+
+        @Override
+        public String getUniqueId()
+        {
+            return id;
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return id;
+        }
+
+        @Override
+        public int getPreferredTempo()
+        {
+            return 120;
+        }
+
+        @Override
+        public TimeSignature getTimeSignature()
+        {
+            return TimeSignature.FOUR_FOUR;
+        }
+
+        @Override
+        public String getName()
+        {
+            return id;
+        }
+
+        @Override
+        public String getAuthor()
+        {
+            return "";
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener l)
+        {
+            // Nothing
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener l)
+        {
+            // Nothing
+        }
+    }
+}
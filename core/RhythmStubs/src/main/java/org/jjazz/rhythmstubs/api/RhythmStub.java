@@ -100,6 +100,18 @@ public class RhythmStub implements Rhythm, MusicGenerator
         return new DummyGenerator(this).generateMusic(context);
     }
 
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
 
     @Override
     public boolean equals(Object o)
@@ -24,6 +24,7 @@ package org.jjazz.song.api;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.XStreamException;
 import java.beans.PropertyChangeEvent;
@@ -36,12 +37,12 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Serializable;
@@ -52,8 +53,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.event.UndoableEditListener;
 import javax.swing.undo.UndoableEdit;
@@ -74,6 +77,7 @@ import org.jjazz.songstructure.api.SgsChangeListener;
 import org.jjazz.songstructure.api.event.SgsActionEvent;
 import org.jjazz.songstructure.api.event.SgsClsActionEvent;
 import org.jjazz.undomanager.api.SimpleEdit;
+import org.jjazz.utilities.api.BackgroundFileSaver;
 import org.jjazz.utilities.api.ResUtil;
 import org.jjazz.utilities.api.StringProperties;
 import org.jjazz.xstream.api.XStreamInstancesManager;
@@ -141,12 +145,17 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
     private transient boolean saveNeeded = false;
     private boolean closed;
     private transient int lastSize;
+    private transient volatile long musicGenerationRevision;
     /**
      * The listeners for undoable edits in this LeadSheet.
      */
     protected transient List<UndoableEditListener> undoListeners = new ArrayList<>();
     private final transient PropertyChangeSupport pcs = new java.beans.PropertyChangeSupport(this);
     private final transient VetoableChangeSupport vcs = new VetoableChangeSupport(this);
+    /**
+     * Estimated memory size of a user phrase undoable edit with its name and undo/redo map copies.
+     */
+    private static final long USER_PHRASE_EDIT_ESTIMATED_SIZE = 400;
     private static final Logger LOGGER = Logger.getLogger(Song.class.getSimpleName());
 
     /**
@@ -226,7 +235,7 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
 
         // Create the undoable event        
         UndoableEdit edit;
-        edit = new SimpleEdit("Rename user phrase")
+        edit = new SimpleEdit("Rename user phrase", USER_PHRASE_EDIT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -322,7 +331,8 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
         if (oldPhrase == null)
         {
             // First time adding this user phrase
-            edit = new SimpleEdit("Add user phrase")
+            edit = new SimpleEdit("Add user phrase",
+                    USER_PHRASE_EDIT_ESTIMATED_SIZE + (long) newPhrase.size() * Phrase.NOTE_EVENT_ESTIMATED_SIZE)
             {
                 @Override
                 public void undoBody()
@@ -373,7 +383,8 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
             // User phrase is replaced
             oldPhrase.removePropertyChangeListener(this);
 
-            edit = new SimpleEdit("Update user phrase")
+            edit = new SimpleEdit("Update user phrase",
+                    USER_PHRASE_EDIT_ESTIMATED_SIZE + (long) oldPhrase.size() * Phrase.NOTE_EVENT_ESTIMATED_SIZE)
             {
                 @Override
                 public void undoBody()
@@ -460,7 +471,7 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Remove user phrase")
+        UndoableEdit edit = new SimpleEdit("Remove user phrase", USER_PHRASE_EDIT_ESTIMATED_SIZE + (long) p.size() * Phrase.NOTE_EVENT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -566,6 +577,18 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
         return songStructure.getSizeInBars();
     }
 
+    /**
+     * A counter incremented each time a PROP_MUSIC_GENERATION change event is fired.
+     * <p>
+     * Can be used as a cheap song content revision, e.g. to check if music generated for this song is still valid.
+     *
+     * @return
+     */
+    public long getMusicGenerationRevision()
+    {
+        return musicGenerationRevision;
+    }
+
     /**
      * Get the preferred tempo for this song.
      *
@@ -807,6 +830,8 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
      * Song's getName() will return f.getName(). <br>
      * <p>
      * The returned song is registered by the SongFactory instance.
+     * <p>
+     * File can use the XML format or the SongContainer binary format.
      *
      * @param f
      * @return
@@ -820,16 +845,12 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
         }
         Song song = null;
 
-        // Read file
-        try (var fis = new FileInputStream(f))
+        if (SongContainer.isContainerFile(f))
         {
-            XStream xstream = XStreamInstancesManager.getInstance().getLoadSongInstance();
-            Reader r = new BufferedReader(new InputStreamReader(fis, "UTF-8"));        // Needed to support special/accented chars
-            song = (Song) xstream.fromXML(r);
-
-        } catch (XStreamException | IOException e)
+            song = SongContainer.read(f);
+        } else
         {
-            throw new SongCreationException(e);
+            song = loadFromXmlFile(f);
         }
 
         // Update song
@@ -866,11 +887,9 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
             file = songFile;
         }
 
-        try (FileOutputStream fos = new FileOutputStream(songFile))
+        try
         {
-            XStream xstream = XStreamInstancesManager.getInstance().getSaveSongInstance();
-            Writer w = new BufferedWriter(new OutputStreamWriter(fos, "UTF-8"));        // Needed to support special/accented chars
-            xstream.toXML(this, w);
+            BackgroundFileSaver.writeAtomically(songFile, os -> writeXml(os));
             if (!isCopy)
             {
                 setName(Song.removeSongExtension(songFile.getName()));
@@ -883,15 +902,46 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
                 file = null;
             }
             throw e;
-        } catch (XStreamException e)
+        }
+    }
+
+    /**
+     * Save this song to a file (XML format) on a background I/O thread.
+     * <p>
+     * A snapshot copy of the song is made on the calling thread, the snapshot is then serialized and atomically written by the BackgroundFileSaver. If
+     * isCopy is false, file and name are updated and the song is marked as saved when this method returns. If the save later fails, the song is marked
+     * again as needing a save.
+     * <p>
+     * Must be called on the EDT.
+     *
+     * @param songFile
+     * @param isCopy   Indicate that the save operation if for a copy, ie just perform the save operation and do nothing else (song name is not set, etc.)
+     * @return A future completed (not on the EDT) with songFile when the file is written, or completed exceptionally with an IOException.
+     * @see BackgroundFileSaver
+     */
+    public CompletableFuture<File> saveToFileAsync(File songFile, boolean isCopy)
+    {
+        checkNotNull(songFile);
+        checkState(SwingUtilities.isEventDispatchThread(), "Not on the EDT");
+
+        Song snapshot = SongFactory.getInstance().getCopy(this, false);
+        CompletableFuture<File> res = BackgroundFileSaver.getInstance().save(songFile, os -> snapshot.writeXml(os));
+
+        if (!isCopy)
         {
-            if (!isCopy)
+            file = songFile;
+            setName(Song.removeSongExtension(songFile.getName()));
+            fireSaved();
+            res.whenComplete((f, ex) -> 
             {
-                file = null;
-            }
-            // Translate into an IOException to be handled by the Netbeans framework 
-            throw new IOException("XStream XML marshalling error", e);
+                if (ex != null)
+                {
+                    SwingUtilities.invokeLater(() -> setSaveNeeded(true));
+                }
+            });
         }
+
+        return res;
     }
 
     /**
@@ -1081,6 +1131,31 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
     // Private methods 
     // ----------------------------------------------------------------------------
 
+    /**
+     * Read a song from an XStream XML file.
+     * <p>
+     * Returned song is not registered, its file and saveNeeded properties are not set.
+     *
+     * @param f
+     * @return
+     * @throws SongCreationException
+     */
+    static Song loadFromXmlFile(File f) throws SongCreationException
+    {
+        Song song;
+        try (var fis = new FileInputStream(f))
+        {
+            XStream xstream = XStreamInstancesManager.getInstance().getLoadSongInstance();
+            Reader r = new BufferedReader(new InputStreamReader(fis, "UTF-8"));        // Needed to support special/accented chars
+            song = (Song) xstream.fromXML(r);
+
+        } catch (XStreamException | IOException e)
+        {
+            throw new SongCreationException(e);
+        }
+        return song;
+    }
+
     /**
      * Fire a PROP_MODIFIED_OR_SAVED_OR_RESET property change event with oldValue=false, newValue=true
      */
@@ -1098,9 +1173,25 @@ public class Song implements Serializable, ClsChangeListener, SgsChangeListener,
      */
     private void fireIsMusicallyModified(String id, Object data)
     {
+        musicGenerationRevision++;
         pcs.firePropertyChange(PROP_MUSIC_GENERATION, id, data);
     }
 
+    private void writeXml(OutputStream os) throws IOException
+    {
+        try
+        {
+            XStream xstream = XStreamInstancesManager.getInstance().getSaveSongInstance();
+            Writer w = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));        // Needed to support special/accented chars
+            xstream.toXML(this, w);
+            w.flush();
+        } catch (XStreamException e)
+        {
+            // Translate into an IOException to be handled by the Netbeans framework 
+            throw new IOException("XStream XML marshalling error", e);
+        }
+    }
+
     /**
      * Fire a PROP_MODIFIED_OR_SAVED_OR_RESET property change event with oldValue=true newValue=false
      */
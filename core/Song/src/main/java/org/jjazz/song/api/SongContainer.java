@@ -0,0 +1,664 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *  as published by the Free Software Foundation, either version 3 of the License,
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *  Contributor(s):
+ */
+package org.jjazz.song.api;
+
+import com.google.common.base.Preconditions;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+import java.beans.PropertyVetoException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.jjazz.chordleadsheet.api.ChordLeadSheet;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythm.api.Rhythm;
+import org.jjazz.songstructure.api.SongStructure;
+import org.jjazz.utilities.api.StringProperties;
+import org.jjazz.xstream.api.XStreamInstancesManager;
+import org.jjazz.xstream.spi.XStreamConfigurator;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * A binary song file format made of separately addressable sections.
+ * <p>
+ * File layout: magic number, format version, table of contents (section id, offset, length), then the compressed section payloads. Each section can be
+ * read without reading the others: for example readHeader() only reads the small HEADER section, which is enough for a song browser.
+ * <p>
+ * ChordLeadSheet and SongStructure are stored together in the MODEL section using the XStream song serialization, because SongParts reference the
+ * ChordLeadSheet sections. User phrase notes are stored as packed primitives (pitch, velocity, position, duration), client properties as strings. The MIDI_MIX section is optional opaque data provided by
+ * the caller, read back with readMidiMixData(): read() ignores it since a Song does not own its MidiMix.
+ * <p>
+ * Song.loadFromFile() automatically detects this format.
+ *
+ * @see Song#loadFromFile(java.io.File)
+ */
+public class SongContainer
+{
+
+    /**
+     * "JJZS".
+     */
+    public static final int MAGIC = 0x4A4A5A53;
+    public static final int VERSION = 1;
+
+    /**
+     * The container sections.
+     */
+    public enum Section
+    {
+        /**
+         * Song name, tempo, comments, tags, size, rhythm names, user phrase names.
+         */
+        HEADER,
+        /**
+         * ChordLeadSheet and SongStructure.
+         */
+        MODEL,
+        USER_PHRASES,
+        CLIENT_PROPERTIES,
+        /**
+         * Optional opaque data.
+         */
+        MIDI_MIX
+    }
+
+    /**
+     * The data of the HEADER section.
+     *
+     * @param name
+     * @param tempo
+     * @param comments
+     * @param tags
+     * @param sizeInBars      The size of the song structure
+     * @param rhythmNames     The names of the rhythms used by the song
+     * @param userPhraseNames
+     */
+    public record Header(String name, int tempo, String comments, List<String> tags, int sizeInBars, List<String> rhythmNames, List<String> userPhraseNames)
+    {
+
+    }
+
+    private static final int HEADER_VERSION = 1;
+    private static final byte USER_PHRASES_VERSION = 1;
+    private static final Logger LOGGER = Logger.getLogger(SongContainer.class.getSimpleName());
+
+
+    /**
+     * Check if f starts with the container magic number.
+     *
+     * @param f
+     * @return
+     */
+    static public boolean isContainerFile(File f)
+    {
+        boolean b = false;
+        try (var dis = new DataInputStream(new FileInputStream(f)))
+        {
+            b = dis.readInt() == MAGIC;
+        } catch (IOException ex)
+        {
+            // Nothing
+        }
+        return b;
+    }
+
+    /**
+     * Save a song in the container format.
+     *
+     * @param song
+     * @param f
+     * @param midiMixData Can be null. Stored as is in the MIDI_MIX section.
+     * @throws IOException
+     */
+    static public void write(Song song, File f, byte[] midiMixData) throws IOException
+    {
+        Preconditions.checkNotNull(song);
+        Preconditions.checkNotNull(f);
+
+        Map<Section, byte[]> payloads = new EnumMap<>(Section.class);
+        payloads.put(Section.HEADER, compress(encodeHeader(song)));
+        payloads.put(Section.MODEL, compress(encodeModel(song)));
+        payloads.put(Section.USER_PHRASES, compress(encodeUserPhrases(song)));
+        payloads.put(Section.CLIENT_PROPERTIES, compress(encodeClientProperties(song.getClientProperties())));
+        if (midiMixData != null)
+        {
+            payloads.put(Section.MIDI_MIX, compress(midiMixData));
+        }
+
+
+        // Compute the size of the magic + version + table of contents
+        long offset = 3 * Integer.BYTES;
+        for (var section : payloads.keySet())
+        {
+            offset += 2 + section.name().length() + Long.BYTES + Integer.BYTES;
+        }
+
+
+        try (var dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f))))
+        {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(payloads.size());
+            for (var section : payloads.keySet())
+            {
+                int length = payloads.get(section).length;
+                dos.writeUTF(section.name());
+                dos.writeLong(offset);
+                dos.writeInt(length);
+                offset += length;
+            }
+            for (var payload : payloads.values())
+            {
+                dos.write(payload);
+            }
+        }
+    }
+
+    /**
+     * Load a song from a container file.
+     * <p>
+     * Returned song is not registered by the SongFactory, its file and saveNeeded properties are not set.
+     *
+     * @param f
+     * @return
+     * @throws SongCreationException
+     * @see Song#loadFromFile(java.io.File)
+     */
+    static public Song read(File f) throws SongCreationException
+    {
+        Preconditions.checkNotNull(f);
+
+        Song song;
+        try (var raf = new RandomAccessFile(f, "r"))
+        {
+            var toc = readTableOfContents(raf);
+            var header = decodeHeader(readSection(raf, toc, Section.HEADER));
+            var model = decodeModel(readSection(raf, toc, Section.MODEL));
+
+            song = new Song(header.name(), model.cls, model.sgs);
+            song.setComments(header.comments());
+            song.setTags(header.tags());
+            song.setTempo(header.tempo());
+
+            var mapPhrases = decodeUserPhrases(readSection(raf, toc, Section.USER_PHRASES));
+            for (var name : mapPhrases.keySet())
+            {
+                try
+                {
+                    song.setUserPhrase(name, mapPhrases.get(name));
+                } catch (PropertyVetoException ex)
+                {
+                    LOGGER.log(Level.WARNING, "read() Can''t add user phrase for name={0}. ex={1}", new Object[]
+                    {
+                        name,
+                        ex.getMessage()
+                    });
+                }
+            }
+
+            var properties = decodeClientProperties(readSection(raf, toc, Section.CLIENT_PROPERTIES));
+            song.getClientProperties().set(properties);
+
+        } catch (IOException | XStreamException ex)
+        {
+            throw new SongCreationException(ex);
+        }
+
+        return song;
+    }
+
+    /**
+     * Read only the HEADER section of a container file.
+     *
+     * @param f
+     * @return
+     * @throws IOException
+     */
+    static public Header readHeader(File f) throws IOException
+    {
+        return decodeHeader(readSection(f, Section.HEADER));
+    }
+
+    /**
+     * Read only the USER_PHRASES section of a container file.
+     *
+     * @param f
+     * @return A map user phrase name to Phrase
+     * @throws IOException
+     */
+    static public Map<String, Phrase> readUserPhrases(File f) throws IOException
+    {
+        return decodeUserPhrases(readSection(f, Section.USER_PHRASES));
+    }
+
+    /**
+     * Read only the CLIENT_PROPERTIES section of a container file.
+     *
+     * @param f
+     * @return
+     * @throws IOException
+     */
+    static public StringProperties readClientProperties(File f) throws IOException
+    {
+        return decodeClientProperties(readSection(f, Section.CLIENT_PROPERTIES));
+    }
+
+    /**
+     * Read only the MIDI_MIX section of a container file.
+     * <p>
+     * The data is returned as provided to write(), it's up to the caller to decode it.
+     *
+     * @param f
+     * @return Null if file has no MIDI_MIX section
+     * @throws IOException
+     * @see #write(org.jjazz.song.api.Song, java.io.File, byte[])
+     */
+    static public byte[] readMidiMixData(File f) throws IOException
+    {
+        return readSection(f, Section.MIDI_MIX);
+    }
+
+    /**
+     * Read the uncompressed data of a section.
+     *
+     * @param f
+     * @param section
+     * @return Null if section is not present in the file.
+     * @throws IOException
+     */
+    static public byte[] readSection(File f, Section section) throws IOException
+    {
+        Preconditions.checkNotNull(f);
+        Preconditions.checkNotNull(section);
+        try (var raf = new RandomAccessFile(f, "r"))
+        {
+            var toc = readTableOfContents(raf);
+            return toc.containsKey(section.name()) ? readSection(raf, toc, section) : null;
+        }
+    }
+
+    /**
+     * Convert a song file from the XStream XML format to the container format.
+     *
+     * @param xmlFile
+     * @param containerFile
+     * @param midiMixData   Can be null
+     * @throws SongCreationException If xmlFile could not be read
+     * @throws IOException
+     */
+    static public void convertFromXml(File xmlFile, File containerFile, byte[] midiMixData) throws SongCreationException, IOException
+    {
+        Song song = Song.loadFromXmlFile(xmlFile);
+        write(song, containerFile, midiMixData);
+        song.close(false);
+    }
+
+    /**
+     * Convert a song file from the container format to the XStream XML format.
+     *
+     * @param containerFile
+     * @param xmlFile
+     * @throws SongCreationException If containerFile could not be read
+     * @throws IOException
+     */
+    static public void convertToXml(File containerFile, File xmlFile) throws SongCreationException, IOException
+    {
+        Song song = read(containerFile);
+        song.saveToFile(xmlFile, true);
+        song.close(false);
+    }
+
+
+    // --------------------------------------------------------------------- 
+    // Private methods
+    // ---------------------------------------------------------------------
+
+    private static Map<String, long[]> readTableOfContents(RandomAccessFile raf) throws IOException
+    {
+        raf.seek(0);
+        if (raf.readInt() != MAGIC)
+        {
+            throw new IOException("Not a song container file");
+        }
+        int version = raf.readInt();
+        if (version > VERSION)
+        {
+            throw new IOException("Unsupported song container version " + version);
+        }
+        int nbSections = raf.readInt();
+        Map<String, long[]> res = new HashMap<>();
+        for (int i = 0; i < nbSections; i++)
+        {
+            String id = raf.readUTF();
+            long offset = raf.readLong();
+            int length = raf.readInt();
+            res.put(id, new long[]
+            {
+                offset, length
+            });
+        }
+        return res;
+    }
+
+    private static byte[] readSection(RandomAccessFile raf, Map<String, long[]> toc, Section section) throws IOException
+    {
+        var entry = toc.get(section.name());
+        if (entry == null)
+        {
+            throw new IOException("Missing section " + section + " in song container");
+        }
+        byte[] data = new byte[(int) entry[1]];
+        raf.seek(entry[0]);
+        raf.readFully(data);
+        return uncompress(data);
+    }
+
+    private static byte[] compress(byte[] data) throws IOException
+    {
+        var baos = new ByteArrayOutputStream(data.length / 2 + 16);
+        try (var dos = new DeflaterOutputStream(baos))
+        {
+            dos.write(data);
+        }
+        return baos.toByteArray();
+    }
+
+    private static byte[] uncompress(byte[] data) throws IOException
+    {
+        try (var iis = new InflaterInputStream(new ByteArrayInputStream(data)))
+        {
+            return iis.readAllBytes();
+        }
+    }
+
+    private static byte[] encodeHeader(Song song) throws IOException
+    {
+        var baos = new ByteArrayOutputStream();
+        try (var dos = new DataOutputStream(baos))
+        {
+            dos.writeInt(HEADER_VERSION);
+            writeString(dos, song.getName());
+            dos.writeInt(song.getTempo());
+            writeString(dos, song.getComments());
+            writeStrings(dos, song.getTags());
+            dos.writeInt(song.getSize());
+            writeStrings(dos, song.getSongStructure().getUniqueRhythms(false, true).stream()
+                    .map(Rhythm::getName)
+                    .toList());
+            writeStrings(dos, song.getUserPhraseNames().stream().sorted().toList());
+        }
+        return baos.toByteArray();
+    }
+
+    private static Header decodeHeader(byte[] data) throws IOException
+    {
+        try (var dis = new DataInputStream(new ByteArrayInputStream(data)))
+        {
+            int version = dis.readInt();
+            if (version > HEADER_VERSION)
+            {
+                throw new IOException("Unsupported song container header version " + version);
+            }
+            String name = readString(dis);
+            int tempo = dis.readInt();
+            String comments = readString(dis);
+            var tags = readStrings(dis);
+            int size = dis.readInt();
+            var rhythmNames = readStrings(dis);
+            var phraseNames = readStrings(dis);
+            return new Header(name, tempo, comments, tags, size, rhythmNames, phraseNames);
+        }
+    }
+
+    private static byte[] encodeModel(Song song) throws IOException
+    {
+        var baos = new ByteArrayOutputStream();
+        try (Writer w = new OutputStreamWriter(baos, StandardCharsets.UTF_8))
+        {
+            XStream xstream = XStreamInstancesManager.getInstance().getSaveSongInstance();
+            xstream.toXML(new Model(song.getChordLeadSheet(), song.getSongStructure()), w);
+        } catch (XStreamException ex)
+        {
+            throw new IOException("XStream XML marshalling error", ex);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Model decodeModel(byte[] data) throws IOException
+    {
+        try (Reader r = new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))
+        {
+            XStream xstream = XStreamInstancesManager.getInstance().getLoadSongInstance();
+            return (Model) xstream.fromXML(r);
+        }
+    }
+
+    /**
+     * Version byte, then for each phrase: name, channel, drums flag, notes count, then the packed notes (pitch, velocity, position, duration).
+     * <p>
+     * Like Phrase.saveAsString(), NoteEvent client properties and accidental display are not saved.
+     */
+    private static byte[] encodeUserPhrases(Song song) throws IOException
+    {
+        var baos = new ByteArrayOutputStream();
+        try (var dos = new DataOutputStream(baos))
+        {
+            dos.writeByte(USER_PHRASES_VERSION);
+            var names = song.getUserPhraseNames().stream().sorted().toList();
+            dos.writeInt(names.size());
+            for (var name : names)
+            {
+                Phrase p = song.getUserPhrase(name);
+                writeString(dos, name);
+                dos.writeByte(p.getChannel());
+                dos.writeBoolean(p.isDrums());
+                dos.writeInt(p.size());
+                for (var ne : p)
+                {
+                    dos.writeByte(ne.getPitch());
+                    dos.writeByte(ne.getVelocity());
+                    dos.writeFloat(ne.getPositionInBeats());
+                    dos.writeFloat(ne.getDurationInBeats());
+                }
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static Map<String, Phrase> decodeUserPhrases(byte[] data) throws IOException
+    {
+        Map<String, Phrase> res = new LinkedHashMap<>();
+        try (var dis = new DataInputStream(new ByteArrayInputStream(data)))
+        {
+            int version = dis.readByte();
+            if (version > USER_PHRASES_VERSION)
+            {
+                throw new IOException("Unsupported song container user phrases version " + version);
+            }
+            int nb = dis.readInt();
+            for (int i = 0; i < nb; i++)
+            {
+                String name = readString(dis);
+                int channel = dis.readByte();
+                boolean drums = dis.readBoolean();
+                int nbNotes = dis.readInt();
+                List<NoteEvent> nes = new ArrayList<>(nbNotes);
+                for (int j = 0; j < nbNotes; j++)
+                {
+                    int pitch = dis.readByte();
+                    int velocity = dis.readByte();
+                    float pos = dis.readFloat();
+                    float duration = dis.readFloat();
+                    nes.add(new NoteEvent(pitch, duration, velocity, pos));
+                }
+                Phrase p = new Phrase(channel, drums);
+                p.addAll(nes);
+                res.put(name, p);
+            }
+        } catch (IllegalArgumentException ex)
+        {
+            throw new IOException(ex);      // Invalid note or phrase data
+        }
+        return res;
+    }
+
+    private static byte[] encodeClientProperties(StringProperties properties) throws IOException
+    {
+        var baos = new ByteArrayOutputStream();
+        try (var dos = new DataOutputStream(baos))
+        {
+            var names = properties.getPropertyNames();
+            dos.writeInt(names.size());
+            for (var name : names)
+            {
+                writeString(dos, name);
+                writeString(dos, properties.get(name));
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static StringProperties decodeClientProperties(byte[] data) throws IOException
+    {
+        var res = new StringProperties();
+        try (var dis = new DataInputStream(new ByteArrayInputStream(data)))
+        {
+            int nb = dis.readInt();
+            for (int i = 0; i < nb; i++)
+            {
+                String name = readString(dis);
+                res.put(name, readString(dis));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Unlike DataOutputStream.writeUTF() there is no 64K limit.
+     */
+    private static void writeString(DataOutputStream dos, String s) throws IOException
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    private static String readString(DataInputStream dis) throws IOException
+    {
+        byte[] bytes = new byte[dis.readInt()];
+        dis.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream dos, List<String> strs) throws IOException
+    {
+        dos.writeInt(strs.size());
+        for (var s : strs)
+        {
+            writeString(dos, s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream dis) throws IOException
+    {
+        int nb = dis.readInt();
+        List<String> res = new ArrayList<>(nb);
+        for (int i = 0; i < nb; i++)
+        {
+            res.add(readString(dis));
+        }
+        return res;
+    }
+
+    // --------------------------------------------------------------------- 
+    // Inner classes
+    // ---------------------------------------------------------------------
+    /**
+     * The content of the MODEL section.
+     * <p>
+     * ChordLeadSheet and SongStructure must be serialized together to preserve the SongPart parent section references.
+     */
+    private static class Model
+    {
+
+        private final ChordLeadSheet cls;
+        private final SongStructure sgs;
+
+        private Model(ChordLeadSheet cls, SongStructure sgs)
+        {
+            this.cls = cls;
+            this.sgs = sgs;
+        }
+    }
+
+    @ServiceProvider(service = XStreamConfigurator.class)
+    public static class XStreamConfig implements XStreamConfigurator
+    {
+
+        @Override
+        public void configure(InstanceId instanceId, XStream xstream)
+        {
+            switch (instanceId)
+            {
+                case SONG_LOAD, SONG_SAVE ->
+                {
+                    xstream.alias("SongContainerModel", Model.class);
+                }
+
+                case MIDIMIX_LOAD ->
+                {
+                    // Nothing
+                }
+                case MIDIMIX_SAVE ->
+                {
+                    // Nothing
+                }
+                default -> throw new AssertionError(instanceId.name());
+            }
+        }
+
+    }
+}
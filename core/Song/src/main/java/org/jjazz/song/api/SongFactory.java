@@ -82,7 +82,7 @@ public class SongFactory implements PropertyChangeListener
      *
      * @return A list of the songs registered by this object.
      */
-    public List<Song> getRegisteredSongs()
+    public synchronized List<Song> getRegisteredSongs()
     {
         return new ArrayList<>(songs.keySet());
     }
@@ -92,7 +92,7 @@ public class SongFactory implements PropertyChangeListener
      *
      * @param sg
      */
-    public void registerSong(Song sg)
+    public synchronized void registerSong(Song sg)
     {
         if (songs.put(sg, 0) == null)
         {
@@ -123,7 +123,7 @@ public class SongFactory implements PropertyChangeListener
      *
      * @param song
      */
-    public void unregisterSong(Song song)
+    public synchronized void unregisterSong(Song song)
     {
         songs.remove(song);
         song.removePropertyChangeListener(this);
@@ -135,7 +135,7 @@ public class SongFactory implements PropertyChangeListener
      * @param sgs
      * @return
      */
-    public Song findSong(SongStructure sgs)
+    public synchronized Song findSong(SongStructure sgs)
     {
         Song res = null;
         for (Song song : songs.keySet())
@@ -155,7 +155,7 @@ public class SongFactory implements PropertyChangeListener
      * @param cls
      * @return
      */
-    public Song findSong(ChordLeadSheet cls)
+    public synchronized Song findSong(ChordLeadSheet cls)
     {
         Song res = null;
         for (Song song : songs.keySet())
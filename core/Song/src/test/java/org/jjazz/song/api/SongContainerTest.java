@@ -0,0 +1,243 @@
+/*
+ * 
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *  
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ * 
+ *   This file is part of the JJazzLab software.
+ *    
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *   as published by the Free Software Foundation, either version 3 of the License, 
+ *   or (at your option) any later version.
+ * 
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *  
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *  
+ */
+package org.jjazz.song.api;
+
+import java.beans.PropertyVetoException;
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.List;
+import org.jjazz.chordleadsheet.api.UnsupportedEditException;
+import org.jjazz.chordleadsheet.api.item.CLI_Factory;
+import org.jjazz.chordleadsheet.api.item.ChordLeadSheetItem;
+import org.jjazz.harmony.api.Position;
+import org.jjazz.harmony.api.TimeSignature;
+import org.jjazz.phrase.api.NoteEvent;
+import org.jjazz.phrase.api.Phrase;
+import org.jjazz.rhythmdatabase.api.DefaultRhythmDatabase;
+import org.jjazz.rhythmdatabase.api.RhythmDatabase;
+import org.jjazz.songstructure.api.SongPart;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SongContainerTest
+{
+
+    Song song;
+    File xmlFile, containerFile, xmlFile2;
+
+    public SongContainerTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        var rdb = (DefaultRhythmDatabase) RhythmDatabase.getDefault();
+        rdb.addRhythmsFromRhythmProviders(false, true, false);
+    }
+
+    @Before
+    public void setUp() throws IOException, ParseException, UnsupportedEditException, PropertyVetoException
+    {
+        xmlFile = File.createTempFile("SongContainerTest", ".sng");
+        containerFile = File.createTempFile("SongContainerTest", ".sng");
+        xmlFile2 = File.createTempFile("SongContainerTest", ".sng");
+
+        song = SongFactory.getInstance().createEmptySong("TestSong", 8, "A", TimeSignature.FOUR_FOUR, "Cm7");
+        var cls = song.getChordLeadSheet();
+        var clif = CLI_Factory.getDefault();
+        cls.addItem(clif.createChordSymbol("F7", new Position(2, 2)));
+        cls.addSection(clif.createSection("B", TimeSignature.FOUR_FOUR, 4, cls));
+        cls.addItem(clif.createChordSymbol("Bb7M", new Position(4)));
+        song.setTempo(137);
+        song.setComments("Some comments\nwith accents éàù");
+        song.setTags(List.of("jazz", "swing"));
+        song.getClientProperties().put("TestProp", "TestValue");
+
+        Phrase p = new Phrase(0, false);
+        for (int i = 0; i < 100; i++)
+        {
+            p.add(new NoteEvent(40 + i % 40, 0.5f, 64 + i % 60, i * 0.5f));
+        }
+        song.setUserPhrase("Piano", p);
+
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File f : List.of(xmlFile, containerFile, xmlFile2))
+        {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        System.out.println("=== testRoundTrip()");
+        SongContainer.write(song, containerFile, null);
+        assertTrue(SongContainer.isContainerFile(containerFile));
+        Song song2 = SongContainer.read(containerFile);
+        assertSameContent(song, song2);
+        assertNull(SongContainer.readSection(containerFile, SongContainer.Section.MIDI_MIX));
+    }
+
+    @Test
+    public void testMidiMixRoundTrip() throws Exception
+    {
+        System.out.println("=== testMidiMixRoundTrip()");
+        byte[] midiMixData = new byte[5000];
+        for (int i = 0; i < midiMixData.length; i++)
+        {
+            midiMixData[i] = (byte) (i * 31);
+        }
+        SongContainer.write(song, containerFile, midiMixData);
+
+        assertArrayEquals(midiMixData, SongContainer.readMidiMixData(containerFile));
+        Song song2 = SongContainer.read(containerFile);     // MIDI_MIX section must not disturb the other sections
+        assertSameContent(song, song2);
+        assertEquals(song.getName(), SongContainer.readHeader(containerFile).name());
+
+        SongContainer.write(song, containerFile, null);
+        assertNull(SongContainer.readMidiMixData(containerFile));
+    }
+
+    @Test
+    public void testXmlConversions() throws Exception
+    {
+        System.out.println("=== testXmlConversions()");
+        song.saveToFile(xmlFile, true);
+        assertFalse(SongContainer.isContainerFile(xmlFile));
+
+        SongContainer.convertFromXml(xmlFile, containerFile, new byte[]
+        {
+            1, 2, 3
+        });
+        SongContainer.convertToXml(containerFile, xmlFile2);
+
+        Song song2 = Song.loadFromFile(containerFile);
+        assertSameContent(song, song2);
+        Song song3 = Song.loadFromFile(xmlFile2);
+        assertSameContent(song, song3);
+        assertArrayEquals(new byte[]
+        {
+            1, 2, 3
+        }, SongContainer.readSection(containerFile, SongContainer.Section.MIDI_MIX));
+    }
+
+    @Test
+    public void testReadSections() throws Exception
+    {
+        System.out.println("=== testReadSections()");
+        SongContainer.write(song, containerFile, null);
+
+        var header = SongContainer.readHeader(containerFile);
+        assertEquals(song.getName(), header.name());
+        assertEquals(137, header.tempo());
+        assertEquals(song.getComments(), header.comments());
+        assertEquals(song.getTags(), header.tags());
+        assertEquals(song.getSize(), header.sizeInBars());
+        assertEquals(List.of("Piano"), header.userPhraseNames());
+        assertEquals(song.getSongStructure().getSongPart(0).getRhythm().getName(), header.rhythmNames().get(0));
+
+        var phrases = SongContainer.readUserPhrases(containerFile);
+        assertEquals(Phrase.saveAsString(song.getUserPhrase("Piano")), Phrase.saveAsString(phrases.get("Piano")));
+
+        var props = SongContainer.readClientProperties(containerFile);
+        assertEquals("TestValue", props.get("TestProp"));
+    }
+
+    @Test
+    public void testUserPhrases() throws Exception
+    {
+        System.out.println("=== testUserPhrases()");
+        Phrase pDrums = new Phrase(9, true);
+        pDrums.add(new NoteEvent(0, 0.01f, 1, 0));
+        pDrums.add(new NoteEvent(127, 1 / 3f, 127, 1 / 3f));
+        pDrums.add(new NoteEvent(36, 1000.25f, 100, 31.999f));
+        song.setUserPhrase("Drums", pDrums);
+        SongContainer.write(song, containerFile, null);
+
+        var phrases = SongContainer.readUserPhrases(containerFile);
+        assertEquals(List.of("Drums", "Piano"), List.copyOf(phrases.keySet()));
+        for (var name : phrases.keySet())
+        {
+            Phrase p = song.getUserPhrase(name);
+            Phrase p2 = phrases.get(name);
+            assertEquals(p.getChannel(), p2.getChannel());
+            assertEquals(p.isDrums(), p2.isDrums());
+            assertEquals(p.size(), p2.size());
+            var it2 = p2.iterator();
+            for (var ne : p)
+            {
+                var ne2 = it2.next();
+                assertEquals(ne.getPitch(), ne2.getPitch());
+                assertEquals(ne.getVelocity(), ne2.getVelocity());
+                assertEquals(ne.getPositionInBeats(), ne2.getPositionInBeats(), 0);     // Floats are stored as is
+                assertEquals(ne.getDurationInBeats(), ne2.getDurationInBeats(), 0);
+            }
+        }
+
+
+        // Packed notes: 10 bytes per note
+        int size = SongContainer.readSection(containerFile, SongContainer.Section.USER_PHRASES).length;
+        assertTrue("size=" + size, size < 10 * (100 + 3) + 100);
+    }
+
+    // =================================================================================================
+    // Private methods
+    // =================================================================================================
+    private void assertSameContent(Song s1, Song s2)
+    {
+        assertEquals(s1.getTempo(), s2.getTempo());
+        assertEquals(s1.getComments(), s2.getComments());
+        assertEquals(s1.getTags(), s2.getTags());
+        assertEquals(s1.getClientProperties().get("TestProp"), s2.getClientProperties().get("TestProp"));
+
+        var items1 = s1.getChordLeadSheet().getItems().stream().map(ChordLeadSheetItem::toString).toList();
+        var items2 = s2.getChordLeadSheet().getItems().stream().map(ChordLeadSheetItem::toString).toList();
+        assertEquals(items1, items2);
+
+        var spts1 = s1.getSongStructure().getSongParts();
+        var spts2 = s2.getSongStructure().getSongParts();
+        assertEquals(spts1.size(), spts2.size());
+        for (int i = 0; i < spts1.size(); i++)
+        {
+            SongPart spt1 = spts1.get(i);
+            SongPart spt2 = spts2.get(i);
+            assertEquals(spt1.getName(), spt2.getName());
+            assertEquals(spt1.getStartBarIndex(), spt2.getStartBarIndex());
+            assertEquals(spt1.getNbBars(), spt2.getNbBars());
+            assertEquals(spt1.getRhythm().getUniqueId(), spt2.getRhythm().getUniqueId());
+            assertSame(s2.getChordLeadSheet().getSection(spt2.getStartBarIndex()), spt2.getParentSection());
+        }
+
+        assertEquals(s1.getUserPhraseNames(), s2.getUserPhraseNames());
+        assertEquals(Phrase.saveAsString(s1.getUserPhrase("Piano")), Phrase.saveAsString(s2.getUserPhrase("Piano")));
+    }
+}
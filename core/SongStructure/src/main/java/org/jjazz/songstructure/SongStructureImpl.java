@@ -106,6 +106,18 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
      * Manage updates from parentChordLeadSheet
      */
     private transient SgsUpdater sgsUpdater;
+    /**
+     * Estimated memory size of an undoable edit with its presentation name and undo/redo data references.
+     */
+    private static final long EDIT_ESTIMATED_SIZE = 150;
+    /**
+     * Estimated memory size of a SongPart with its rhythm parameter values, retained by an edit when the SongPart is removed or replaced.
+     */
+    private static final long SONG_PART_ESTIMATED_SIZE = 800;
+    /**
+     * Estimated memory size of a list or map entry in the data copied for undo/redo.
+     */
+    private static final long ENTRY_ESTIMATED_SIZE = 40;
     private static final Logger LOGGER = Logger.getLogger(SongStructureImpl.class.getSimpleName());
     private static int DEBUG_UNDOEDIT_ID = 0;
 
@@ -660,7 +672,7 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
         }
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Resize SongParts")
+        UndoableEdit edit = new SimpleEdit("Resize SongParts", EDIT_ESTIMATED_SIZE + 2L * oldMap.size() * ENTRY_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -785,7 +797,8 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Replace SongParts")
+        UndoableEdit edit = new SimpleEdit("Replace SongParts", EDIT_ESTIMATED_SIZE + oldSpts.size() * SONG_PART_ESTIMATED_SIZE
+                + 2L * newSongParts.size() * ENTRY_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -891,7 +904,7 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Rename SongParts")
+        UndoableEdit edit = new SimpleEdit("Rename SongParts", EDIT_ESTIMATED_SIZE + saveMap.size() * ENTRY_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -969,7 +982,7 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
 
 
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("set Rhythm Parameter Value")
+        UndoableEdit edit = new SimpleEdit("set Rhythm Parameter Value", EDIT_ESTIMATED_SIZE + 2 * ENTRY_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1049,7 +1062,7 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
     {
 
         // Create an undoable event for this event which does nothing but refiring the SgsClsActionEvent
-        UndoableEdit edit = new SimpleEdit("SgsClsActionEventEdit(" + cae.getActionId() + "-complete=" + cae.isActionComplete() + ")")
+        UndoableEdit edit = new SimpleEdit("SgsClsActionEventEdit(" + cae.getActionId() + "-complete=" + cae.isActionComplete() + ")", EDIT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1086,7 +1099,7 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
         }
 
         // Create an undoable event for this event which does nothing but refiring the SgsActionEvent
-        UndoableEdit edit = new SimpleEdit("SgsActionEventEdit(" + actionId + "-complete=" + complete + ")")
+        UndoableEdit edit = new SimpleEdit("SgsActionEventEdit(" + actionId + "-complete=" + complete + ")", EDIT_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1175,7 +1188,8 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
 
         // Create the undoable event
         UndoableEdit edit;
-        edit = new SimpleEdit("Add SongPart id=" + (DEBUG_UNDOEDIT_ID++) + " spt=" + spt)
+        edit = new SimpleEdit("Add SongPart id=" + (DEBUG_UNDOEDIT_ID++) + " spt=" + spt,
+                EDIT_ESTIMATED_SIZE + SONG_PART_ESTIMATED_SIZE + 2L * newSpts.size() * ENTRY_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -1265,7 +1279,8 @@ public class SongStructureImpl implements SongStructure, Serializable, PropertyC
 
         // Save the new state
         // Create the undoable event
-        UndoableEdit edit = new SimpleEdit("Remove SongPart")
+        UndoableEdit edit = new SimpleEdit("Remove SongPart", EDIT_ESTIMATED_SIZE + saveSpts.size() * SONG_PART_ESTIMATED_SIZE
+                + 2L * oldSpts.size() * ENTRY_ESTIMATED_SIZE)
         {
             @Override
             public void undoBody()
@@ -40,10 +40,18 @@ import org.openide.util.ChangeSupport;
 
 /**
  * This is a copy of UndoRedo.Manager with a few convenience methods added to work with CompoundEdits.
+ * <p>
+ * In addition to the UndoManager edit count limit, the oldest edits are discarded when the estimated memory retained by the undo history exceeds a
+ * memory budget.
  */
 public class JJazzUndoManager extends UndoManager implements UndoRedo
 {
 
+    /**
+     * The default memory budget, can be changed with the "jjazz.undomanager.memoryBudgetMB" system property.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = Long.getLong("jjazz.undomanager.memoryBudgetMB", 32) * 1024 * 1024;
+
     /**
      * Listener for JJazzLab user-level undoable edits.
      */
@@ -79,6 +87,7 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
     private boolean undoRedoInProgress = false;
 
     private boolean enabled = true;
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
 
 
     /**
@@ -194,6 +203,8 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
         // Ready for next compoundedit
         currentCEdit = null;
 
+        trimToMemoryBudget();
+
         LOGGER.log(Level.FINE, "endCEdit() POST edits={0}", edits);
 
         // Notify UserEditListeners
@@ -204,11 +215,21 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
 
     /**
      * Overridden for enabled state management.
+     * <p>
+     * A SimpleEdit added outside of a compound edit is a complete user action: it's not allowed to absorb the next edits.
      */
     @Override
     public synchronized boolean addEdit(UndoableEdit anEdit)
     {
-        return enabled ? super.addEdit(anEdit) : false;
+        if (!enabled)
+        {
+            return false;
+        }
+        if (lastEdit() instanceof SimpleEdit se)
+        {
+            se.stopAbsorbingEdits();
+        }
+        return super.addEdit(anEdit);
     }
 
     /**
@@ -242,6 +263,53 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
         this.enabled = enabled;
     }
 
+    /**
+     * Get the memory budget of the undo history.
+     *
+     * @return In bytes
+     * @see #setMemoryBudget(long)
+     */
+    public long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /**
+     * Set the memory budget of the undo history.
+     * <p>
+     * When the estimated size of the undo history exceeds the budget, the oldest edits are discarded. The last edit is always kept.
+     *
+     * @param bytes Must be &gt; 0
+     * @see #getEstimatedSize()
+     * @see SimpleEdit#getEstimatedSize()
+     */
+    public void setMemoryBudget(long bytes)
+    {
+        if (bytes <= 0)
+        {
+            throw new IllegalArgumentException("bytes=" + bytes);
+        }
+        memoryBudget = bytes;
+        trimToMemoryBudget();
+        fireChange();
+    }
+
+    /**
+     * Get the estimated memory retained by the undo history.
+     *
+     * @return In bytes
+     * @see SimpleEdit#getEstimatedSize()
+     */
+    public synchronized long getEstimatedSize()
+    {
+        long res = 0;
+        for (var edit : edits)
+        {
+            res += getEstimatedSize(edit);
+        }
+        return res;
+    }
+
     /**
      * Consume an undoable edit (if the instance is enabled).
      * <p>
@@ -401,6 +469,7 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
                 super.undoableEditHappened(ue);
             }
         }
+        trimToMemoryBudget();
         fireChange();
     }
 
@@ -459,6 +528,48 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
         trimEdits(edits.size() - 1, edits.size() - 1);
     }
 
+    /**
+     * Discard the oldest edits until the estimated size of the undo history fits the memory budget.
+     * <p>
+     * Do nothing if a CEdit is in progress. The last undoable edit is always kept.
+     */
+    private synchronized void trimToMemoryBudget()
+    {
+        if (currentCEdit != null)
+        {
+            return;
+        }
+        long size = getEstimatedSize();
+        int lastUndoableIndex = edits.indexOf(editToBeUndone());      // -1 if no undoable edit
+        int nbTrimmed = 0;
+        while (size > memoryBudget && nbTrimmed < lastUndoableIndex)
+        {
+            size -= getEstimatedSize(edits.get(0));
+            trimEdits(0, 0);
+            nbTrimmed++;
+        }
+        if (nbTrimmed > 0)
+        {
+            LOGGER.log(Level.FINE, "trimToMemoryBudget() {0} oldest edits discarded, size={1} memoryBudget={2}", new Object[]
+            {
+                nbTrimmed, size, memoryBudget
+            });
+        }
+    }
+
+    static private long getEstimatedSize(UndoableEdit edit)
+    {
+        long res = SimpleEdit.DEFAULT_ESTIMATED_SIZE;
+        if (edit instanceof SimpleEdit se)
+        {
+            res = se.getEstimatedSize();
+        } else if (edit instanceof CEdit ce)
+        {
+            res = ce.getEstimatedSize();
+        }
+        return res;
+    }
+
     private void fireUserEditListeners(Object source, String actionName)
     {
         userEditListeners.forEach(l -> l.userAction(this, source, actionName));
@@ -482,6 +593,10 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
 
         private Object source;
         private String name;
+        /**
+         * Computed once the edit has ended.
+         */
+        private long estimatedSize = -1;
 
         public CEdit(Object src, String n)
         {
@@ -498,6 +613,29 @@ public class JJazzUndoManager extends UndoManager implements UndoRedo
             return edits.isEmpty();
         }
 
+        /**
+         * The sum of the estimated size of the contained edits.
+         *
+         * @return In bytes
+         */
+        public long getEstimatedSize()
+        {
+            if (estimatedSize >= 0)
+            {
+                return estimatedSize;
+            }
+            long res = 0;
+            for (var edit : edits)
+            {
+                res += JJazzUndoManager.getEstimatedSize(edit);
+            }
+            if (!isInProgress())
+            {
+                estimatedSize = res;
+            }
+            return res;
+        }
+
         /**
          * The associated source object.
          *
@@ -34,16 +34,34 @@ import javax.swing.undo.AbstractUndoableEdit;
 public abstract class SimpleEdit extends AbstractUndoableEdit
 {
 
+    /**
+     * The default value returned by getEstimatedSize().
+     */
+    public static final long DEFAULT_ESTIMATED_SIZE = 200;
     private String presentationName;
+    private final long estimatedSize;
+    private boolean absorbingEdits = true;
     private static final Logger LOGGER = Logger.getLogger(SimpleEdit.class.getName());
 
     public SimpleEdit(String presentationName)
+    {
+        this(presentationName, DEFAULT_ESTIMATED_SIZE);
+    }
+
+    /**
+     * Create an edit with a known estimated size.
+     *
+     * @param presentationName
+     * @param estimatedSize    The value returned by getEstimatedSize(), in bytes
+     */
+    public SimpleEdit(String presentationName, long estimatedSize)
     {
         if (presentationName == null)
         {
             throw new NullPointerException("name=" + presentationName);   
         }
         this.presentationName = presentationName;
+        this.estimatedSize = estimatedSize;
     }
 
     @Override
@@ -72,6 +90,43 @@ public abstract class SimpleEdit extends AbstractUndoableEdit
         return presentationName;
     }
 
+    /**
+     * An estimation of the memory retained by this edit.
+     * <p>
+     * Used by JJazzUndoManager to limit the memory used by the undo history. Subclasses which retain large data (e.g. a collection of notes) should
+     * override this method.
+     *
+     * @return In bytes. Default implementation returns the value passed to the constructor, or DEFAULT_ESTIMATED_SIZE.
+     * @see JJazzUndoManager#setMemoryBudget(long)
+     */
+    public long getEstimatedSize()
+    {
+        return estimatedSize;
+    }
+
+    /**
+     * Check if this edit can still absorb new edits in addEdit().
+     * <p>
+     * Subclasses which merge edits in addEdit() must check this method: absorbing is only legit between edits of the same compound edit.
+     *
+     * @return
+     * @see #stopAbsorbingEdits()
+     */
+    public boolean isAbsorbingEdits()
+    {
+        return absorbingEdits;
+    }
+
+    /**
+     * Called by JJazzUndoManager when this edit was added outside of a compound edit and a new edit arrives.
+     * <p>
+     * The new edit belongs to another user action, it must not be absorbed.
+     */
+    public void stopAbsorbingEdits()
+    {
+        absorbingEdits = false;
+    }
+
     /**
      * Must be embedded in a significant CompoundEdit.
      *
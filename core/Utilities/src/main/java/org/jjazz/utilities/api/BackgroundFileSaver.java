@@ -0,0 +1,276 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *  as published by the Free Software Foundation, either version 3 of the License,
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *  Contributor(s):
+ */
+package org.jjazz.utilities.api;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write files on a background I/O thread, atomically.
+ * <p>
+ * Each file is first written to a temporary file in the same directory, forced to the storage device, then renamed to the target file. A crash during the
+ * save leaves the previous target file untouched.
+ * <p>
+ * Save requests are processed in order on a single thread. If a save request is submitted while another one for the same file is still waiting to be
+ * processed, the requests are coalesced: only the last content writer is used, and both requests share the same CompletableFuture.
+ * <p>
+ * The ContentWriter is called on the I/O thread: it must only access an immutable snapshot of the data to be saved.
+ */
+public class BackgroundFileSaver
+{
+
+    /**
+     * Write the file content.
+     */
+    @FunctionalInterface
+    public interface ContentWriter
+    {
+
+        /**
+         * Write the content to the specified stream.
+         * <p>
+         * The stream must not be closed by the writer.
+         *
+         * @param os
+         * @throws IOException
+         */
+        void write(OutputStream os) throws IOException;
+    }
+
+    private static BackgroundFileSaver INSTANCE;
+    private final ExecutorService executor;
+    private final Map<File, PendingSave> mapFilePendingSave = new HashMap<>();      // Guarded by this
+    private static final Logger LOGGER = Logger.getLogger(BackgroundFileSaver.class.getSimpleName());
+
+    public static BackgroundFileSaver getInstance()
+    {
+        synchronized (BackgroundFileSaver.class)
+        {
+            if (INSTANCE == null)
+            {
+                INSTANCE = new BackgroundFileSaver();
+            }
+        }
+        return INSTANCE;
+    }
+
+    private BackgroundFileSaver()
+    {
+        executor = Executors.newSingleThreadExecutor(r -> 
+        {
+            Thread t = new Thread(r, "BackgroundFileSaver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Asynchronously and atomically save a file.
+     *
+     * @param f
+     * @param writer Called on the I/O thread
+     * @return A future completed with f once the file is saved, or completed exceptionally with an IOException or a RuntimeException.
+     */
+    public CompletableFuture<File> save(File f, ContentWriter writer)
+    {
+        Preconditions.checkNotNull(f);
+        Preconditions.checkNotNull(writer);
+
+        File absFile = f.getAbsoluteFile();
+        PendingSave ps;
+        synchronized (this)
+        {
+            ps = mapFilePendingSave.get(absFile);
+            if (ps != null)
+            {
+                LOGGER.log(Level.FINE, "save() coalescing save request for f={0}", absFile);
+                ps.writer = writer;
+                return ps.future;
+            }
+            ps = new PendingSave(absFile, writer);
+            mapFilePendingSave.put(absFile, ps);
+        }
+
+        final PendingSave fps = ps;
+        executor.execute(() -> process(fps));
+        return ps.future;
+    }
+
+    /**
+     * Wait until all the save requests submitted before this call are processed.
+     *
+     * @param timeout
+     * @param unit
+     * @return False if timeout occured
+     */
+    public boolean waitForPendingSaves(long timeout, TimeUnit unit)
+    {
+        try
+        {
+            executor.submit(() -> 
+            {
+                // Nothing
+            }).get(timeout, unit);
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException ex)
+        {
+            LOGGER.log(Level.WARNING, "waitForPendingSaves() ex={0}", ex.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Synchronously and atomically save a file.
+     * <p>
+     * Content is written to a temporary file in the same directory, forced to the storage device, then moved to f. If the file system does not support
+     * atomic moves, a standard replace is used.
+     *
+     * @param f
+     * @param writer
+     * @throws IOException
+     */
+    static public void writeAtomically(File f, ContentWriter writer) throws IOException
+    {
+        Preconditions.checkNotNull(f);
+        Preconditions.checkNotNull(writer);
+
+        Path target = f.toPath().toAbsolutePath();
+        // Don't use Files.createTempFile(): it restricts permissions to the owner, the saved file would not get the usual default permissions
+        Path tmp = target.resolveSibling("." + target.getFileName() + "-" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try
+        {
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile()))
+            {
+                writer.write(fos);
+                fos.flush();
+                fos.getChannel().force(true);
+            }
+
+            if (Files.exists(target))
+            {
+                copyPosixPermissions(target, tmp);
+            }
+
+            try
+            {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex)
+            {
+                LOGGER.log(Level.FINE, "writeAtomically() atomic move not supported for {0}", target);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException ex)
+        {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+    }
+
+    // =================================================================================================================
+    // Private methods
+    // =================================================================================================================
+    /**
+     * Replacing a file should not change its permissions.
+     *
+     * @param from
+     * @param to
+     */
+    static private void copyPosixPermissions(Path from, Path to)
+    {
+        try
+        {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException | IOException ex)
+        {
+            // Non-POSIX file system or not the file owner: keep default permissions
+            LOGGER.log(Level.FINE, "copyPosixPermissions() from={0} ex={1}", new Object[]
+            {
+                from, ex.getMessage()
+            });
+        }
+    }
+
+    private void process(PendingSave ps)
+    {
+        ContentWriter writer;
+        synchronized (this)
+        {
+            // From now on a new save request for the same file will be processed separately
+            mapFilePendingSave.remove(ps.file);
+            writer = ps.writer;
+        }
+
+        try
+        {
+            writeAtomically(ps.file, writer);
+            LOGGER.log(Level.FINE, "process() saved {0}", ps.file);
+            ps.future.complete(ps.file);
+        } catch (IOException | RuntimeException ex)
+        {
+            LOGGER.log(Level.WARNING, "process() Can''t save {0}. ex={1}", new Object[]
+            {
+                ps.file, ex.getMessage()
+            });
+            ps.future.completeExceptionally(ex);
+        }
+    }
+
+    // =================================================================================================================
+    // Private classes
+    // =================================================================================================================
+    private static class PendingSave
+    {
+
+        private final File file;
+        private final CompletableFuture<File> future = new CompletableFuture<>();
+        private ContentWriter writer;       // Guarded by BackgroundFileSaver.this
+
+        private PendingSave(File file, ContentWriter writer)
+        {
+            this.file = file;
+            this.writer = writer;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *  Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *  This file is part of the JJazzLab software.
+ *
+ *  JJazzLab is free software: you can redistribute it and/or modify
+ *  it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *  as published by the Free Software Foundation, either version 3 of the License,
+ *  or (at your option) any later version.
+ *
+ *  JJazzLab is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *  Contributor(s):
+ */
+package org.jjazz.utilities.api;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Low-overhead instrumentation of processing stages with nanosecond timers and counters.
+ * <p>
+ * Typical use:
+ * <pre>
+ * private static final PerformanceMonitor.Stage STAGE = PerformanceMonitor.getDefault().getStage("MyClass.myMethod");
+ * ...
+ * long t = STAGE.start();
+ * doSomething();
+ * STAGE.stop(t);
+ * </pre>
+ * Each measure updates the stage statistics (count, total/min/max duration), is saved in a fixed-size ring buffer history, and is committed as a
+ * {@link StageEvent} Java Flight Recorder event if JFR is recording.
+ * <p>
+ * Monitoring is disabled by default, set the "jjazz.perfmonitor" system property to true to enable it at startup. When disabled the cost of start()/stop()
+ * is a volatile read.
+ * <p>
+ * This class is thread-safe.
+ */
+public class PerformanceMonitor
+{
+
+    public static final String SYSTEM_PROP_ENABLED = "jjazz.perfmonitor";
+    public static final int DEFAULT_HISTORY_SIZE = 2048;
+
+    /**
+     * One measure saved in the history.
+     *
+     * @param stageName
+     * @param startNanoTime Value of System.nanoTime() when measure started
+     * @param durationNs
+     * @param threadName
+     */
+    public record Sample(String stageName, long startNanoTime, long durationNs, String threadName)
+            {
+
+    }
+
+    private static PerformanceMonitor INSTANCE;
+    private volatile boolean enabled;
+    private final Map<String, Stage> mapNameStage = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> mapNameCounter = new ConcurrentHashMap<>();
+    private final Sample[] history;
+    private long historyIndex;         // Protected by synchronized(history)
+    private static final Logger LOGGER = Logger.getLogger(PerformanceMonitor.class.getSimpleName());
+
+    public static PerformanceMonitor getDefault()
+    {
+        synchronized (PerformanceMonitor.class)
+        {
+            if (INSTANCE == null)
+            {
+                INSTANCE = new PerformanceMonitor(DEFAULT_HISTORY_SIZE);
+                INSTANCE.setEnabled(Boolean.getBoolean(SYSTEM_PROP_ENABLED));
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Create a monitor, disabled by default.
+     *
+     * @param historySize The max number of samples kept in the ring buffer history
+     */
+    public PerformanceMonitor(int historySize)
+    {
+        Preconditions.checkArgument(historySize > 0, "historySize=%s", historySize);
+        history = new Sample[historySize];
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(boolean b)
+    {
+        enabled = b;
+    }
+
+    /**
+     * Get the stage with the specified name, create it if needed.
+     *
+     * @param name
+     * @return Can't be null
+     */
+    public Stage getStage(String name)
+    {
+        Preconditions.checkNotNull(name);
+        return mapNameStage.computeIfAbsent(name, n -> new Stage(n));
+    }
+
+    /**
+     * @return A list ordered by stage name.
+     */
+    public List<Stage> getStages()
+    {
+        var res = new ArrayList<>(mapNameStage.values());
+        res.sort((s1, s2) -> s1.getName().compareTo(s2.getName()));
+        return res;
+    }
+
+    /**
+     * Increment the specified counter by one.
+     * <p>
+     * Does nothing if monitor is disabled.
+     *
+     * @param counterName
+     */
+    public void increment(String counterName)
+    {
+        add(counterName, 1);
+    }
+
+    /**
+     * Add a value to the specified counter.
+     * <p>
+     * Does nothing if monitor is disabled.
+     *
+     * @param counterName
+     * @param value
+     */
+    public void add(String counterName, long value)
+    {
+        if (enabled)
+        {
+            mapNameCounter.computeIfAbsent(counterName, n -> new LongAdder()).add(value);
+        }
+    }
+
+    /**
+     * @param counterName
+     * @return 0 if counter does not exist
+     */
+    public long getCounter(String counterName)
+    {
+        var counter = mapNameCounter.get(counterName);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Get the history samples.
+     *
+     * @return The samples ordered from oldest to newest. Size is limited by the history size.
+     */
+    public List<Sample> getHistory()
+    {
+        List<Sample> res = new ArrayList<>();
+        synchronized (history)
+        {
+            long first = Math.max(0, historyIndex - history.length);
+            for (long i = first; i < historyIndex; i++)
+            {
+                res.add(history[(int) (i % history.length)]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Reset all stages statistics, counters and the history.
+     */
+    public void reset()
+    {
+        mapNameStage.values().forEach(s -> s.reset());
+        mapNameCounter.clear();
+        synchronized (history)
+        {
+            historyIndex = 0;
+            Arrays.fill(history, null);
+        }
+    }
+
+    /**
+     * Export the stage statistics, counters and history in a text file.
+     *
+     * @param f
+     * @throws IOException
+     */
+    public void exportToFile(File f) throws IOException
+    {
+        Preconditions.checkNotNull(f);
+        try (BufferedWriter w = Files.newBufferedWriter(f.toPath()))
+        {
+            w.write("# Stages: name;count;totalNs;minNs;maxNs;avgNs");
+            w.newLine();
+            for (var stage : getStages())
+            {
+                w.write(stage.getName() + ";" + stage.getCount() + ";" + stage.getTotalNs() + ";" + stage.getMinNs() + ";" + stage.getMaxNs() + ";"
+                        + stage.getAverageNs());
+                w.newLine();
+            }
+
+            w.write("# Counters: name;value");
+            w.newLine();
+            var counterNames = new ArrayList<>(mapNameCounter.keySet());
+            Collections.sort(counterNames);
+            for (var name : counterNames)
+            {
+                w.write(name + ";" + getCounter(name));
+                w.newLine();
+            }
+
+            w.write("# History: stage;startNanoTime;durationNs;thread");
+            w.newLine();
+            for (var sample : getHistory())
+            {
+                w.write(sample.stageName() + ";" + sample.startNanoTime() + ";" + sample.durationNs() + ";" + sample.threadName());
+                w.newLine();
+            }
+        }
+        LOGGER.log(Level.INFO, "exportToFile() Performance data exported to {0}", f.getAbsolutePath());
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("PerformanceMonitor[");
+        for (var stage : getStages())
+        {
+            sb.append("\n  ").append(stage);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    // =============================================================================================
+    // Private methods
+    // =============================================================================================
+    private void addToHistory(Sample sample)
+    {
+        synchronized (history)
+        {
+            history[(int) (historyIndex % history.length)] = sample;
+            historyIndex++;
+        }
+    }
+
+    // =============================================================================================
+    // Inner classes
+    // =============================================================================================
+    /**
+     * A named processing stage with its timing statistics.
+     */
+    public class Stage
+    {
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNs = new LongAdder();
+        private final LongAccumulator minNs = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxNs = new LongAccumulator(Math::max, 0);
+        private final AtomicLong lastNs = new AtomicLong();
+
+        private Stage(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Start a measure.
+         *
+         * @return The start time to be passed to stop(), or 0 if monitor is disabled.
+         */
+        public long start()
+        {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Stop a measure.
+         *
+         * @param startTime The value returned by start(). If 0 method does nothing.
+         * @return The measured duration in nanoseconds, or 0 if monitor is disabled.
+         */
+        public long stop(long startTime)
+        {
+            if (startTime == 0 || !enabled)
+            {
+                return 0;
+            }
+            long duration = System.nanoTime() - startTime;
+            count.increment();
+            totalNs.add(duration);
+            minNs.accumulate(duration);
+            maxNs.accumulate(duration);
+            lastNs.set(duration);
+            addToHistory(new Sample(name, startTime, duration, Thread.currentThread().getName()));
+
+            StageEvent event = new StageEvent();
+            if (event.isEnabled())
+            {
+                event.stage = name;
+                event.duration = duration;
+                event.commit();
+            }
+
+            return duration;
+        }
+
+        public long getCount()
+        {
+            return count.sum();
+        }
+
+        public long getTotalNs()
+        {
+            return totalNs.sum();
+        }
+
+        /**
+         * @return 0 if no measure yet.
+         */
+        public long getMinNs()
+        {
+            long res = minNs.get();
+            return res == Long.MAX_VALUE ? 0 : res;
+        }
+
+        public long getMaxNs()
+        {
+            return maxNs.get();
+        }
+
+        public long getLastNs()
+        {
+            return lastNs.get();
+        }
+
+        public long getAverageNs()
+        {
+            long c = getCount();
+            return c == 0 ? 0 : getTotalNs() / c;
+        }
+
+        private void reset()
+        {
+            count.reset();
+            totalNs.reset();
+            minNs.reset();
+            maxNs.reset();
+            lastNs.set(0);
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + " count=" + getCount() + " avg=" + getAverageNs() / 1000 + "us min=" + getMinNs() / 1000 + "us max=" + getMaxNs() / 1000
+                    + "us";
+        }
+    }
+
+    /**
+     * The Java Flight Recorder event committed for each stage measure.
+     */
+    @Name("org.jjazz.Stage")
+    @Label("JJazzLab Stage")
+    @Category("JJazzLab")
+    @Description("Duration of an instrumented JJazzLab processing stage")
+    public static class StageEvent extends Event
+    {
+
+        @Label("Stage")
+        public String stage;
+
+        @Label("Stage duration")
+        @Timespan(Timespan.NANOSECONDS)
+        public long duration;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ *
+ *   This file is part of the JJazzLab software.
+ *
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3)
+ *   as published by the Free Software Foundation, either version 3 of the License,
+ *   or (at your option) any later version.
+ *
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *
+ *   Contributor(s):
+ *
+ */
+package org.jjazz.utilities.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Test the BackgroundFileSaver coalescing and atomic replacement.
+ */
+public class BackgroundFileSaverTest
+{
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+    private BackgroundFileSaver saver;
+    private File dir;
+    private File target;
+
+    public BackgroundFileSaverTest()
+    {
+    }
+
+    @Before
+    public void setUp() throws IOException
+    {
+        saver = BackgroundFileSaver.getInstance();
+        dir = tmpFolder.newFolder();
+        target = new File(dir, "song.sng");
+        Files.writeString(target.toPath(), "old");
+    }
+
+    /**
+     * Requests for the same file waiting to be processed share the same future, only the last writer is used.
+     */
+    @Test
+    public void testCoalescing() throws Exception
+    {
+        System.out.println("testCoalescing");
+
+        // Keep the I/O thread busy until the requests are submitted
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        var blocker = saver.save(new File(dir, "blocker.txt"), os ->
+        {
+            started.countDown();
+            try
+            {
+                release.await();
+            } catch (InterruptedException ex)
+            {
+                throw new IOException(ex);
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        AtomicInteger nbWrites = new AtomicInteger();
+        var future1 = saver.save(target, os ->
+        {
+            nbWrites.incrementAndGet();
+            os.write("first".getBytes(StandardCharsets.UTF_8));
+        });
+        var future2 = saver.save(target, os ->
+        {
+            nbWrites.incrementAndGet();
+            os.write("second".getBytes(StandardCharsets.UTF_8));
+        });
+        assertSame(future1, future2);
+        release.countDown();
+
+        blocker.get(10, TimeUnit.SECONDS);
+        assertEquals(target.getAbsoluteFile(), future1.get(10, TimeUnit.SECONDS));
+        assertEquals(1, nbWrites.get());
+        assertEquals("second", Files.readString(target.toPath()));
+
+
+        // Once processed, a new request is not coalesced anymore
+        var future3 = saver.save(target, os -> os.write("third".getBytes(StandardCharsets.UTF_8)));
+        assertNotSame(future1, future3);
+        future3.get(10, TimeUnit.SECONDS);
+        assertEquals("third", Files.readString(target.toPath()));
+    }
+
+    /**
+     * The target is replaced only once the new content is completely written, no temporary file is left.
+     */
+    @Test
+    public void testAtomicReplace() throws Exception
+    {
+        System.out.println("testAtomicReplace");
+        var future = saver.save(target, os ->
+        {
+            os.write("new".getBytes(StandardCharsets.UTF_8));
+            os.flush();
+            // Target is not modified while writing
+            assertEquals("old", Files.readString(target.toPath()));
+        });
+
+        future.get(10, TimeUnit.SECONDS);
+        assertEquals("new", Files.readString(target.toPath()));
+        assertEquals(List.of("song.sng"), List.of(dir.list()));
+    }
+
+    /**
+     * A write failure leaves the target untouched and removes the temporary file.
+     */
+    @Test
+    public void testFailureLeavesTargetUntouched() throws Exception
+    {
+        System.out.println("testFailureLeavesTargetUntouched");
+        var future = saver.save(target, os ->
+        {
+            os.write("partial".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("Disk full");
+        });
+
+        try
+        {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Save did not fail");
+        } catch (ExecutionException ex)
+        {
+            assertTrue(ex.getCause() instanceof IOException);
+            assertEquals("Disk full", ex.getCause().getMessage());
+        }
+        assertEquals("old", Files.readString(target.toPath()));
+        assertEquals(List.of("song.sng"), List.of(dir.list()));
+
+
+        // Synchronous version
+        try
+        {
+            BackgroundFileSaver.writeAtomically(target, os ->
+            {
+                throw new IllegalStateException("Unexpected");
+            });
+            fail("writeAtomically() did not fail");
+        } catch (IllegalStateException ex)
+        {
+            // Expected
+        }
+        assertEquals("old", Files.readString(target.toPath()));
+        assertEquals(List.of("song.sng"), List.of(dir.list()));
+    }
+}
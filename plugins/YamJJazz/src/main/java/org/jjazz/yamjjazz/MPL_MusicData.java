@@ -28,6 +28,9 @@ import org.jjazz.yamjjazz.rhythm.api.CtabChannelSettings;
 import org.jjazz.yamjjazz.rhythm.api.StylePartType;
 import org.jjazz.yamjjazz.rhythm.api.StylePart;
 import org.jjazz.phrase.api.NoteEvent;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jjazz.harmony.api.Note;
@@ -55,6 +58,8 @@ public class MPL_MusicData extends MidiParserListenerAdapter
     private StylePart currentStylePart;
     private SourcePhraseSet currentSourcePhraseSet;
     private String logName = "";
+    private final Map<StylePartType, Set<AccType>> loadFilter;
+    private final Map<StylePartType, SourcePhraseSet> mapTypeLoadedSourcePhraseSet = new EnumMap<>(StylePartType.class);
     private static final Logger LOGGER = Logger.getLogger(MPL_MusicData.class.getSimpleName());
 
     /**
@@ -62,12 +67,39 @@ public class MPL_MusicData extends MidiParserListenerAdapter
      * @param style The style must have its StyleParts initialized.
      */
     public MPL_MusicData(Style style, String logName)
+    {
+        this(style, logName, null);
+    }
+
+    /**
+     * Create a listener which only retrieves the notes of some StyleParts/AccTypes.
+     * <p>
+     * The sizeInBeats of all the StyleParts is always set. If loadFilter is not null, the StyleParts SourcePhraseSets are not
+     * modified: the notes are stored in new SourcePhraseSets, see getLoadedSourcePhraseSets().
+     *
+     * @param style      The style must have its StyleParts initialized.
+     * @param logName
+     * @param loadFilter The AccTypes to load per StylePartType. If null load everything. If empty only the StyleParts size is
+     *                   retrieved.
+     */
+    public MPL_MusicData(Style style, String logName, Map<StylePartType, Set<AccType>> loadFilter)
     {
         this.style = style;
         if (logName != null)
         {
             this.logName = logName;
         }
+        this.loadFilter = loadFilter;
+    }
+
+    /**
+     * The SourcePhraseSets created for the StyleParts of the loadFilter.
+     *
+     * @return An empty map if loadFilter was null.
+     */
+    public Map<StylePartType, SourcePhraseSet> getLoadedSourcePhraseSets()
+    {
+        return mapTypeLoadedSourcePhraseSet;
     }
 
     @Override
@@ -115,6 +147,16 @@ public class MPL_MusicData extends MidiParserListenerAdapter
             if (currentStylePart != null)
             {
                 stylePartStartPos = posInBeats;
+                if (loadFilter != null && !loadFilter.containsKey(type))
+                {
+                    // Only the size is needed for this StylePart
+                    return;
+                }
+                if (loadFilter != null)
+                {
+                    currentSourcePhraseSet = mapTypeLoadedSourcePhraseSet.computeIfAbsent(type, t -> new SourcePhraseSet(t.toString()));
+                    return;
+                }
                 currentSourcePhraseSet = currentStylePart.getSourcePhraseSet(StylePart.DEFAULT_COMPLEXITY_LEVEL, 0);
                 if (currentSourcePhraseSet == null)
                 {
@@ -147,6 +189,17 @@ public class MPL_MusicData extends MidiParserListenerAdapter
             // Eg CASM does not define Main A, but there is a Main A marker in the Midi section
             return;
         }
+        if (currentSourcePhraseSet == null)
+        {
+            // StylePart filtered out
+            return;
+        }
+        AccType at = currentStylePart.getAccType(currentChannel);
+        if (loadFilter != null && at != null && !loadFilter.get(currentStylePart.getType()).contains(at))
+        {
+            // AccType filtered out
+            return;
+        }
 
         assert stylePartStartPos != -1;   //NOI18N
         float relativePosInBeats = posInBeats - stylePartStartPos;
@@ -186,7 +239,6 @@ public class MPL_MusicData extends MidiParserListenerAdapter
             sp = new SourcePhrase(currentChannel, cTab.getSourceChordSymbol());
             currentSourcePhraseSet.setPhrase(currentChannel, sp);
         }
-        AccType at = currentStylePart.getAccType(currentChannel);
         if (!isMegaVoiceNote(at, note.getPitch()))
         {
             sp.add(me);
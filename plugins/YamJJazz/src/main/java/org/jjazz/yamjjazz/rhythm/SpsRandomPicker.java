@@ -25,6 +25,8 @@ package org.jjazz.yamjjazz.rhythm;
 import org.jjazz.yamjjazz.rhythm.api.YamJJazzRhythm;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
 import java.util.logging.Logger;
 import org.jjazz.phrase.api.SourcePhraseSet;
 import org.jjazz.yamjjazz.rhythm.api.StylePart;
@@ -35,6 +37,7 @@ import org.jjazz.songstructure.api.SongStructure;
  * <p>
  * Randomly select the appropriate SourcePhraseSet when there are alternatives depending on context and parameters.
  * <p>
+ * The random choice is seeded: the same song seed and bar index always give the same SourcePhraseSet.
  */
 public class SpsRandomPicker
 {
@@ -86,10 +89,11 @@ public class SpsRandomPicker
      * Randomly pick the next SourcePhraseSet to be used depending on context.
      * <p>
      *
+     * @param songSeed         A seed specific to the song
      * @param sgsStartBarIndex The bar index in the song structure where the phrase will start.
      * @return
      */
-    public SourcePhraseSet pick(int sgsStartBarIndex)
+    public SourcePhraseSet pick(long songSeed, int sgsStartBarIndex)
     {
         SourcePhraseSet sps = null;
         List<SourcePhraseSet> spsList = stylePart.getSourcePhraseSets(complexity);
@@ -103,7 +107,7 @@ public class SpsRandomPicker
         // Decreasing thresholds =   {50, 80} for nbSets=3
         // Constant thresholds =   {33, 66} for nbSets=3
         int[] thresholds = stylePart.getType().isFillOrBreak() ? computeConstantThresholds(nbSets) :computeDecreasingThresholds(nbSets);       
-        double x = Math.round(Math.random() * 100);          // 0-100
+        double x = Math.round(getRandom(songSeed, rhythm.getUniqueId(), stylePart.getType().name(), complexity, sgsStartBarIndex) * 100);          // 0-100
         int index = 0;
         while (index < nbSets - 1 && x > thresholds[index])
         {
@@ -123,6 +127,19 @@ public class SpsRandomPicker
 
     }
 
+    /**
+     * Get a pseudo-random value which only depends on the parameters.
+     *
+     * @param songSeed
+     * @param values   Additional values to build the seed, eg a bar index
+     * @return A value in [0;1[
+     */
+    static public double getRandom(long songSeed, Object... values)
+    {
+        long seed = 31 * songSeed + Objects.hash(values);
+        return new SplittableRandom(seed).nextDouble();
+    }
+
     // =================================================================================================
     // Private methods
     // =================================================================================================    
@@ -91,7 +91,7 @@ public class YamJJazzAdaptedRhythmImpl implements YamJJazzRhythm, AdaptedRhythm
     }
 
     @Override
-    public MusicGenerator getMusicGenerator()
+    public synchronized MusicGenerator getMusicGenerator()
     {
         if (generator == null)
         {
@@ -101,7 +101,7 @@ public class YamJJazzAdaptedRhythmImpl implements YamJJazzRhythm, AdaptedRhythm
     }
 
     @Override
-    public void setMusicGenerator(MusicGenerator mg)
+    public synchronized void setMusicGenerator(MusicGenerator mg)
     {
         Objects.requireNonNull(mg);
         generator = mg;
@@ -144,10 +144,7 @@ public class YamJJazzAdaptedRhythmImpl implements YamJJazzRhythm, AdaptedRhythm
             return;
         }
 
-        if (!yjr.isResourcesLoaded())
-        {
-            yjr.loadResources();
-        }
+        yjr.loadAllStylePartResources();        // All source phrases are copied below
 
         Style oldStyle = yjr.getStyle();
         newStyle = new Style();
@@ -29,14 +29,21 @@ import org.jjazz.yamjjazz.rhythm.api.YamJJazzDefaultRhythms;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.Sequence;
 import javax.swing.event.SwingPropertyChangeSupport;
 import org.jjazz.harmony.api.TimeSignature;
 import org.jjazz.midi.api.DrumKit;
@@ -45,6 +52,7 @@ import org.jjazz.midi.api.InstrumentMix;
 import org.jjazz.midi.api.InstrumentSettings;
 import org.jjazz.midi.api.synths.GMSynth;
 import org.jjazz.phrase.api.Phrase;
+import org.jjazz.phrase.api.SourcePhraseSet;
 import org.jjazz.phrasetransform.api.rps.RP_SYS_DrumsTransform;
 import org.jjazz.rhythm.api.Genre;
 import org.jjazz.rhythm.api.MusicGenerationException;
@@ -107,6 +115,30 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
     private List<RhythmVoice> rhythmVoices;
     private Style style;
     private boolean isExtendedRhythm;
+    /**
+     * Standard style only: true when the StyleParts size is known.
+     */
+    private boolean isStructureLoaded;
+    /**
+     * Standard style only: the music data Midi events of the StyleParts which are not fully loaded yet.
+     * <p>
+     * A StylePart Sequence is removed once all its AccTypes are loaded or when the StylePart is released, it is read again from the style file if
+     * needed.
+     */
+    private Map<StylePartType, Sequence> mapTypeMusicSequence;
+    /**
+     * Standard style only: the AccTypes whose music data is loaded, per StylePart.
+     */
+    private final Map<StylePartType, Set<AccType>> mapTypeLoadedAccTypes = new EnumMap<>(StylePartType.class);
+    private final Map<StylePartType, Long> mapTypeLastUseTime = new EnumMap<>(StylePartType.class);
+    /**
+     * Cleared by the garbage collector when memory is low.
+     */
+    private SoftReference<Object> memoryPressureIndicator = new SoftReference<>(new Object());
+    /**
+     * On memory pressure, StyleParts unused since this delay are released.
+     */
+    private static final long RELEASE_UNUSED_DELAY_MS = 10000;
     private final transient SwingPropertyChangeSupport pcs = new SwingPropertyChangeSupport(this);
     private static final Logger LOGGER = Logger.getLogger(YamJJazzRhythm.class.getSimpleName());
 
@@ -220,7 +252,7 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
     
   
     @Override
-    public MusicGenerator getMusicGenerator()
+    public synchronized MusicGenerator getMusicGenerator()
     {
         if (generator == null)
         {
@@ -230,7 +262,7 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
     }
 
     @Override
-    public void setMusicGenerator(MusicGenerator mg)
+    public synchronized void setMusicGenerator(MusicGenerator mg)
     {
         Objects.requireNonNull(mg);
         generator = mg;
@@ -362,9 +394,19 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
     // ================================================================================================
     // Rhythm implementation
     // ================================================================================================
+    /**
+     * For a standard style, only the StyleParts size is loaded: StyleParts music data is loaded on demand via
+     * loadStylePartResources().
+     *
+     * @return
+     */
     @Override
-    public boolean isResourcesLoaded()
+    public synchronized boolean isResourcesLoaded()
     {
+        if (!isExtendedRhythm)
+        {
+            return isStructureLoaded;
+        }
         StylePart spMainA = style.getStylePart(StylePartType.Main_A);          // Main_A must be always there
         return spMainA == null ? false : spMainA.isMusicLoaded();
     }
@@ -372,9 +414,10 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
     /**
      * If StyleParts Phrases are not loaded, load them.
      * <p>
+     * For a standard style only the StyleParts size is loaded, music data is loaded on demand by loadStylePartResources().
      */
     @Override
-    public void loadResources() throws MusicGenerationException
+    public synchronized void loadResources() throws MusicGenerationException
     {
         if (isResourcesLoaded())
         {
@@ -387,7 +430,8 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
                 style.readMusicData(extFile, stdFile);
             } else
             {
-                style.readMusicData(stdFile);
+                mapTypeMusicSequence = style.readMusicDataIndex(stdFile);
+                isStructureLoaded = true;
             }
         } catch (FormatNotSupportedException | IOException | InvalidMidiDataException ex)
         {
@@ -401,11 +445,103 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
         pcs.firePropertyChange(PROP_RESOURCES_LOADED, false, true);
     }
 
+    /**
+     * Load on demand the music data of the specified StylePart for the specified AccTypes.
+     * <p>
+     * For a standard style, if the JVM cleared our memory pressure indicator, the StyleParts not used recently are released
+     * first. A new SourcePhraseSet is built then published in the StylePart, so that a music generation which uses the previous
+     * SourcePhraseSet is not impacted. For an extended style all the music data is loaded.
+     *
+     * @param type
+     * @param accTypes
+     * @throws MusicGenerationException
+     */
+    @Override
+    public synchronized void loadStylePartResources(StylePartType type, Collection<AccType> accTypes) throws MusicGenerationException
+    {
+        loadResources();
+        if (isExtendedRhythm)
+        {
+            return;
+        }
+
+        StylePart sp = style.getStylePart(type);
+        if (sp == null)
+        {
+            throw new IllegalArgumentException("type=" + type + " this=" + this);
+        }
+
+        releaseUnusedStylePartsIfMemoryPressure(type);
+        mapTypeLastUseTime.put(type, System.currentTimeMillis());
+
+        Set<AccType> loadedAccTypes = mapTypeLoadedAccTypes.computeIfAbsent(type, t -> EnumSet.noneOf(AccType.class));
+        Set<AccType> missingAccTypes = EnumSet.noneOf(AccType.class);
+        for (var at : accTypes)
+        {
+            if (sp.getAccTypes().contains(at) && !loadedAccTypes.contains(at))
+            {
+                missingAccTypes.add(at);
+            }
+        }
+        if (missingAccTypes.isEmpty() && sp.getSourcePhraseSet(StylePart.DEFAULT_COMPLEXITY_LEVEL, 0) != null)
+        {
+            return;
+        }
+
+        LOGGER.log(Level.FINE, "loadStylePartResources() {0} loading type={1} missingAccTypes={2}", new Object[]
+        {
+            getName(), type, missingAccTypes
+        });
+        SourcePhraseSet loadedSps;
+        try
+        {
+            Sequence sequence = mapTypeMusicSequence.get(type);
+            if (sequence == null)
+            {
+                sequence = style.readStylePartMusicDataIndex(stdFile, type);
+                mapTypeMusicSequence.put(type, sequence);
+            }
+            loadedSps = style.readStylePartMusicData(type, sequence, missingAccTypes, getName());
+        } catch (IOException | InvalidMidiDataException ex)
+        {
+            LOGGER.log(Level.SEVERE, "{0} - loadStylePartResources() problem reading file: {1}", new Object[]
+            {
+                getName(), ex.getLocalizedMessage()
+            });
+            throw new MusicGenerationException(ex.getLocalizedMessage());
+        }
+
+        SourcePhraseSet oldSps = sp.getSourcePhraseSet(StylePart.DEFAULT_COMPLEXITY_LEVEL, 0);
+        SourcePhraseSet newSps = new SourcePhraseSet(type.toString());
+        for (var sps : List.of(oldSps, loadedSps))
+        {
+            for (int channel : sps.getSourceChannels())
+            {
+                newSps.setPhrase(channel, sps.getPhrase(channel));
+            }
+        }
+        sp.setSourcePhraseSet(newSps, StylePart.DEFAULT_COMPLEXITY_LEVEL, 0);
+        loadedAccTypes.addAll(missingAccTypes);
+        if (loadedAccTypes.containsAll(sp.getAccTypes()))
+        {
+            mapTypeMusicSequence.remove(type);      // Not needed anymore
+        }
+    }
+
+    @Override
+    public synchronized void loadAllStylePartResources() throws MusicGenerationException
+    {
+        for (var type : style.getStylePartTypes())
+        {
+            loadStylePartResources(type, style.getStylePart(type).getAccTypes());
+        }
+    }
+
     /**
      * If StyleParts Phrases are loaded, unload them.
      */
     @Override
-    public void releaseResources()
+    public synchronized void releaseResources()
     {
         LOGGER.log(Level.FINE, "releaseResources() this={0}", getName());
         if (!isResourcesLoaded())
@@ -416,8 +552,12 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
         for (StylePartType type : style.getStylePartTypes())
         {
             StylePart sp = style.getStylePart(type);
-            sp.clearMusicData(-1);
+            sp.resetMusicData();
         }
+        mapTypeMusicSequence = null;
+        mapTypeLoadedAccTypes.clear();
+        mapTypeLastUseTime.clear();
+        isStructureLoaded = false;
         pcs.firePropertyChange(PROP_RESOURCES_LOADED, true, false);
     }
 
@@ -521,6 +661,39 @@ public class YamJJazzRhythmImpl implements YamJJazzRhythm
     // ================================================================================================
     // Private methods
     // ================================================================================================
+    /**
+     * If memory pressure was detected, release the music data of the StyleParts not used recently.
+     *
+     * @param keepType This StylePart is never released
+     */
+    private void releaseUnusedStylePartsIfMemoryPressure(StylePartType keepType)
+    {
+        if (memoryPressureIndicator.get() != null)
+        {
+            return;
+        }
+        memoryPressureIndicator = new SoftReference<>(new Object());
+
+        long now = System.currentTimeMillis();
+        for (var type : new ArrayList<>(mapTypeLoadedAccTypes.keySet()))
+        {
+            long lastUse = mapTypeLastUseTime.getOrDefault(type, 0L);
+            if (type != keepType && now - lastUse > RELEASE_UNUSED_DELAY_MS)
+            {
+                LOGGER.log(Level.FINE, "releaseUnusedStylePartsIfMemoryPressure() {0} releasing type={1}", new Object[]
+                {
+                    getName(), type
+                });
+                style.getStylePart(type).resetMusicData();
+                mapTypeLoadedAccTypes.remove(type);
+                mapTypeLastUseTime.remove(type);
+            }
+        }
+
+        // Also release the Sequences of the StyleParts not used recently (possibly never loaded)
+        mapTypeMusicSequence.keySet().removeIf(type -> type != keepType && now - mapTypeLastUseTime.getOrDefault(type, 0L) > RELEASE_UNUSED_DELAY_MS);
+    }
+
     /**
      * There is one rhythmVoice per AccPart.
      *
@@ -28,16 +28,25 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
 import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
 import org.jjazz.harmony.api.TimeSignature;
 import org.jjazz.midi.api.MidiConst;
 import org.jjazz.midi.api.parser.MidiParser;
+import org.jjazz.phrase.api.SourcePhraseSet;
 import org.jjazz.rhythm.api.Division;
 import org.jjazz.yamjjazz.CASMDataReader;
 import org.jjazz.yamjjazz.FormatNotSupportedException;
@@ -258,6 +267,139 @@ public class Style
         checkConsistency();
     }
 
+    /**
+     * Read the StyleParts size and index the music data (Midi notes) per StylePart.
+     * <p>
+     * The file is parsed only once: the returned index is used by readStylePartMusicData() to load the music data of one StylePart.
+     * <p>
+     * This method must be called AFTER readNonMusicData() has been called, so that the StyleParts are already created.
+     *
+     * @param stdFile A standard Yamaha style file
+     * @return For each StylePartType of this style, a Sequence with the meta events of stdFile and only the channel events of the
+     *         StylePart.
+     * @throws IOException
+     * @throws FileNotFoundException
+     * @throws InvalidMidiDataException
+     */
+    public Map<StylePartType, Sequence> readMusicDataIndex(File stdFile) throws IOException, FileNotFoundException, InvalidMidiDataException
+    {
+        Sequence sequence;
+        try (FileInputStream in = new FileInputStream(stdFile))
+        {
+            sequence = MidiSystem.getSequence(in);
+        }
+
+
+        // Get the StyleParts size
+        MidiParser midiParser = new MidiParser();
+        MPL_MusicData musicMPL = new MPL_MusicData(this, stdFile.getName(), Collections.emptyMap());
+        midiParser.addParserListener(musicMPL);
+        midiParser.parse(sequence, stdFile.getName());
+        if (musicMPL.IS_BUGGED)
+        {
+            // Data is corrupted
+            throw new InvalidMidiDataException("Invalid Midi data");
+        }
+        checkConsistency();
+
+
+        return splitStylePartSequences(sequence, getStylePartTypes());
+    }
+
+    /**
+     * Read the music data (Midi notes) index of one StylePart.
+     * <p>
+     * Same as readMusicDataIndex(stdFile).get(type), but the StyleParts size is not read again. Used to reload the music data of a StylePart whose
+     * Sequence was released.
+     *
+     * @param stdFile A standard Yamaha style file
+     * @param type
+     * @return A Sequence with the meta events of stdFile and only the channel events of the StylePart.
+     * @throws IOException
+     * @throws FileNotFoundException
+     * @throws InvalidMidiDataException
+     * @see #readMusicDataIndex(java.io.File)
+     */
+    public Sequence readStylePartMusicDataIndex(File stdFile, StylePartType type) throws IOException, FileNotFoundException, InvalidMidiDataException
+    {
+        Sequence sequence;
+        try (FileInputStream in = new FileInputStream(stdFile))
+        {
+            sequence = MidiSystem.getSequence(in);
+        }
+        return splitStylePartSequences(sequence, List.of(type)).get(type);
+    }
+
+    /**
+     * Dispatch the channel events of sequence per StylePart, in the parsing order as MPL_MusicData does.
+     * <p>
+     * Meta events are needed by all StyleParts.
+     *
+     * @param sequence
+     * @param types
+     * @return A Sequence for each of the specified types
+     * @throws InvalidMidiDataException
+     */
+    private Map<StylePartType, Sequence> splitStylePartSequences(Sequence sequence, List<StylePartType> types) throws InvalidMidiDataException
+    {
+        Map<StylePartType, Sequence> res = new EnumMap<>(StylePartType.class);
+        for (var type : types)
+        {
+            res.put(type, new Sequence(sequence.getDivisionType(), sequence.getResolution(), sequence.getTracks().length));
+        }
+        Track[] tracks = sequence.getTracks();
+        StylePartType currentType = null;
+        for (int t = 0; t < tracks.length; t++)
+        {
+            Track track = tracks[t];
+            for (int i = 0; i < track.size(); i++)
+            {
+                MidiEvent me = track.get(i);
+                if (me.getMessage() instanceof MetaMessage mm)
+                {
+                    if (mm.getType() == MidiParser.META_MARKER)
+                    {
+                        currentType = StylePartType.getType(new String(mm.getData()));
+                    }
+                    final int trackIndex = t;
+                    res.values().forEach(seq -> seq.getTracks()[trackIndex].add(me));
+                } else if (me.getMessage() instanceof ShortMessage && currentType != null && res.containsKey(currentType))
+                {
+                    res.get(currentType).getTracks()[t].add(me);
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Read the music data (Midi notes) of a StylePart for the specified AccTypes.
+     * <p>
+     * The StylePart SourcePhraseSets are not modified.
+     *
+     * @param type
+     * @param stylePartSequence The StylePart Sequence returned by readMusicDataIndex() or readStylePartMusicDataIndex()
+     * @param accTypes
+     * @param logName           Used in log messages
+     * @return A new SourcePhraseSet with the phrases of the specified AccTypes
+     * @throws InvalidMidiDataException
+     */
+    public SourcePhraseSet readStylePartMusicData(StylePartType type, Sequence stylePartSequence, Set<AccType> accTypes, String logName) throws InvalidMidiDataException
+    {
+        MidiParser midiParser = new MidiParser();
+        MPL_MusicData musicMPL = new MPL_MusicData(this, logName, Map.of(type, accTypes));
+        midiParser.addParserListener(musicMPL);
+        midiParser.parse(stylePartSequence, logName);
+        if (musicMPL.IS_BUGGED)
+        {
+            // Data is corrupted
+            throw new InvalidMidiDataException("Invalid Midi data");
+        }
+        SourcePhraseSet res = musicMPL.getLoadedSourcePhraseSets().get(type);
+        return res != null ? res : new SourcePhraseSet(type.toString());
+    }
+
     /**
      * Get the non music data by merging data from an extension style file and a base style file.
      * <p>
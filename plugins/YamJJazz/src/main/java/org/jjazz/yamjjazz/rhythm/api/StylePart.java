@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jjazz.harmony.api.Note;
@@ -41,6 +42,9 @@ import org.jjazz.yamjjazz.YamChord;
  * SourcePhraseSets are stored per ComplexityLevel. There can be several SourcePhraseSets variations for one complexity level.
  * Standard Yamaha styles use only one variation at the default complexity level. <br>
  * Cntt data is discarded because not used in this version.
+ * <p>
+ * The SourcePhraseSets lists are copy-on-write: they can be read by a music generation thread while SourcePhraseSets are added or
+ * replaced.
  */
 public class StylePart
 {
@@ -52,9 +56,9 @@ public class StylePart
      */
     private final HashMap<Integer, CtabChannelSettings> mapChannelCtab = new HashMap<>();
     /**
-     * The data structure to hold the SourcePhrases.
+     * The data structure to hold the SourcePhrases. Never modified, replaced on each change.
      */
-    private final HashMap<Integer, List<SourcePhraseSet>> mapComplexity_PhraseList = new HashMap<>();
+    private volatile Map<Integer, List<SourcePhraseSet>> mapComplexity_PhraseList = Map.of();
 
     private float sizeInBeats;
     private static final Logger LOGGER = Logger.getLogger(StylePart.class.getSimpleName());
@@ -141,19 +145,40 @@ public class StylePart
      * @param sps
      * @param complexity An integer &gt 0
      */
-    public void addSourcePhraseSet(SourcePhraseSet sps, int complexity)
+    public synchronized void addSourcePhraseSet(SourcePhraseSet sps, int complexity)
     {
         if (sps == null || complexity < 1)
         {
             throw new IllegalArgumentException("sps=" + sps + " complexity=" + complexity);   //NOI18N
         }
+        List<SourcePhraseSet> list = new ArrayList<>(mapComplexity_PhraseList.getOrDefault(complexity, List.of()));
+        list.add(sps);
+        var map = new HashMap<>(mapComplexity_PhraseList);
+        map.put(complexity, List.copyOf(list));
+        mapComplexity_PhraseList = Map.copyOf(map);
+    }
+
+    /**
+     * Replace an existing SourcePhraseSet.
+     * <p>
+     * The replaced SourcePhraseSet is not modified, so it can still be used by a running music generation.
+     *
+     * @param sps
+     * @param complexity     An integer &gt 0
+     * @param variationIndex The index of an existing variation
+     */
+    public synchronized void setSourcePhraseSet(SourcePhraseSet sps, int complexity, int variationIndex)
+    {
         List<SourcePhraseSet> list = mapComplexity_PhraseList.get(complexity);
-        if (list == null)
+        if (sps == null || list == null || variationIndex < 0 || variationIndex >= list.size())
         {
-            list = new ArrayList<>();
-            mapComplexity_PhraseList.put(complexity, list);
+            throw new IllegalArgumentException("sps=" + sps + " complexity=" + complexity + " variationIndex=" + variationIndex);   //NOI18N
         }
-        list.add(sps);
+        list = new ArrayList<>(list);
+        list.set(variationIndex, sps);
+        var map = new HashMap<>(mapComplexity_PhraseList);
+        map.put(complexity, List.copyOf(list));
+        mapComplexity_PhraseList = Map.copyOf(map);
     }
 
     /**
@@ -240,9 +265,8 @@ public class StylePart
     public boolean isMusicLoaded()
     {
         boolean b = false;
-        for (Integer complexityLevel : mapComplexity_PhraseList.keySet())
+        for (List<SourcePhraseSet> spsList : mapComplexity_PhraseList.values())
         {
-            List<SourcePhraseSet> spsList = mapComplexity_PhraseList.get(complexityLevel);
             for (SourcePhraseSet sps : spsList)
             {
                 if (!sps.getSourceChannels().isEmpty())
@@ -255,6 +279,17 @@ public class StylePart
         return b;
     }
 
+    /**
+     * Restore the initial state: only 1 empty SourcePhraseSet at DEFAULT_COMPLEXITY_LEVEL.
+     * <p>
+     * Unlike clearMusicData(), the previous SourcePhraseSets are not modified, so they can still be used by a running music
+     * generation.
+     */
+    public synchronized void resetMusicData()
+    {
+        mapComplexity_PhraseList = Map.of(DEFAULT_COMPLEXITY_LEVEL, List.of(new SourcePhraseSet(type.toString())));
+    }
+
     /**
      * Remove the music data for the specified complexity level.
      * <p>
@@ -266,9 +301,8 @@ public class StylePart
     {
         if (complexityLevel < 1)
         {
-            for (Integer cl : mapComplexity_PhraseList.keySet())
+            for (List<SourcePhraseSet> spsList : mapComplexity_PhraseList.values())
             {
-                List<SourcePhraseSet> spsList = mapComplexity_PhraseList.get(cl);
                 for (SourcePhraseSet sps : spsList)
                 {
                     sps.clear();
@@ -22,6 +22,7 @@
  */
 package org.jjazz.yamjjazz.rhythm.api;
 
+import java.util.Collection;
 import java.util.Map;
 import org.jjazz.phrase.api.Phrase;
 import org.jjazz.rhythm.api.MusicGenerationException;
@@ -86,6 +87,32 @@ public interface YamJJazzRhythm extends Rhythm, MusicGenerator
 
     void setMusicGenerator(MusicGenerator mg);
 
+    /**
+     * Make sure the music data of the specified StylePart is available for the specified AccTypes.
+     * <p>
+     * Implementations may load music data on demand, StylePart by StylePart. Default implementation calls loadResources().
+     *
+     * @param type
+     * @param accTypes
+     * @throws MusicGenerationException
+     */
+    default void loadStylePartResources(StylePartType type, Collection<AccType> accTypes) throws MusicGenerationException
+    {
+        loadResources();
+    }
+
+    /**
+     * Make sure the music data of all the StyleParts is available.
+     * <p>
+     * Use this method when all the SourcePhraseSets are needed. Default implementation calls loadResources().
+     *
+     * @throws MusicGenerationException
+     */
+    default void loadAllStylePartResources() throws MusicGenerationException
+    {
+        loadResources();
+    }
+
 
     // ==================================================================================================
     // MusicGenerator interface
@@ -96,4 +123,16 @@ public interface YamJJazzRhythm extends Rhythm, MusicGenerator
         return getMusicGenerator().generateMusic(context, rvs);
     }
 
+    @Override
+    default public boolean isDeterministic()
+    {
+        return getMusicGenerator().isDeterministic();
+    }
+
+    @Override
+    default public boolean isThreadSafe()
+    {
+        return getMusicGenerator().isThreadSafe();
+    }
+
 }
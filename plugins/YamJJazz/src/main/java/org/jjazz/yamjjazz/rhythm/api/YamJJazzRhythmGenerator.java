@@ -69,6 +69,7 @@ import org.jjazz.rhythmmusicgeneration.api.Utilities;
 import org.jjazz.rhythm.api.rhythmparameters.RP_STD_Fill;
 import org.jjazz.rhythm.api.rhythmparameters.RP_STD_Intensity;
 import org.jjazz.rhythm.api.rhythmparameters.RP_STD_Variation;
+import org.jjazz.rhythmmusicgeneration.api.PhraseCache;
 import org.jjazz.rhythmmusicgeneration.api.SimpleChordSequence;
 import org.jjazz.rhythmmusicgeneration.api.SongChordSequence.SplitResult;
 import org.jjazz.rhythmmusicgeneration.spi.MusicGenerator;
@@ -108,6 +109,7 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
     private List<RhythmVoice> rhythmVoices;
     private SongContext contextOriginal;
     private SongContext contextWork;
+    private long songSeed;
 
     /**
      * The Chord Sequence with all the chords.
@@ -125,8 +127,48 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
         rhythm = r;
     }
 
+    /**
+     * Generate the music.
+     * <p>
+     * The generation state is stored in the instance fields, so each call uses its own YamJJazzRhythmGenerator instance: the active song session
+     * and the background builders can use the same rhythm concurrently without waiting for each other.
+     *
+     * @param contextOrig
+     * @param rvs
+     * @return
+     * @throws MusicGenerationException
+     */
     @Override
     public HashMap<RhythmVoice, Phrase> generateMusic(SongContext contextOrig, RhythmVoice... rvs) throws MusicGenerationException
+    {
+        return new YamJJazzRhythmGenerator(rhythm).generate(contextOrig, rvs);
+    }
+
+    /**
+     * The generated music only depends on the context: the random choices (SourcePhraseSets, fills) are seeded by the song name and
+     * the bar index.
+     *
+     * @return True
+     */
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    /**
+     * @return True, each generateMusic() call uses its own state.
+     */
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
+    // ===============================================================================
+    // Private methods
+    // ===============================================================================
+    private HashMap<RhythmVoice, Phrase> generate(SongContext contextOrig, RhythmVoice... rvs) throws MusicGenerationException
     {
         Objects.requireNonNull(contextOrig);
         var rhythmRvs = rhythm.getRhythmVoices();
@@ -134,6 +176,7 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
 
         rhythmVoices = rvs.length == 0 ? rhythmRvs : List.of(rvs);
         contextOriginal = contextOrig;
+        songSeed = contextOriginal.getSong().getName().hashCode();
 
         // Prepare a working context because SongStructure/ChordLeadsheet might be modified by preprocessFillParameter
         SongFactory sf = SongFactory.getInstance();
@@ -200,9 +243,6 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
         return res;
     }
 
-    // ===============================================================================
-    // Private methods
-    // ===============================================================================
     /**
      * Get all phrases (all AccTypes) for all SimpleChordSequences using our rhythm.
      * <p>
@@ -223,6 +263,9 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
 
         for (SplitResult<String> splitResult : splitResults)
         {
+            // Stop early if a background generation was cancelled
+            MusicGenerator.checkInterrupted();
+
             // Generate music for each chord sequence
             SimpleChordSequence cSeq = splitResult.simpleChordSequence();
             String rpValue = splitResult.rpValue();
@@ -238,6 +281,12 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
                 throw new MusicGenerationException("Invalid rhythm data for rhythm " + rhythm.getName());
             }
 
+            // Music data might be loaded on demand, only for the requested RhythmVoices
+            var accTypes = stylePart.getAccTypes().stream()
+                    .filter(at -> rhythmVoices.contains(rhythm.getRhythmVoice(at)))
+                    .toList();
+            rhythm.loadStylePartResources(stylePart.getType(), accTypes);
+
             HashMap<AccType, Phrase> mapAccTypePhrase = getAllAccTypesPhrasesOneChordSequence(stylePart, complexity, cSeq);
             ChordSeqPhrases csp = new ChordSeqPhrases(cSeq, mapAccTypePhrase);
             res.add(csp);
@@ -342,7 +391,7 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
 
         // Pick the SourcePhraseSet to be used depending on the context
         SpsRandomPicker srp = SpsRandomPicker.getInstance(contextWork.getSong().getSongStructure(), rhythm, stylePart, complexity);
-        SourcePhraseSet sps = srp.pick(shortcSeq.getBarRange().from);
+        SourcePhraseSet sps = srp.pick(songSeed, shortcSeq.getBarRange().from);
 
 
         // Get the phrase for each AccType = bass, chord1, drums, etc.
@@ -354,13 +403,46 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
                 // Skip the RhythmVoices which are not requested
                 continue;
             }
-            Phrase p = getOneAccTypePhraseOneShortChordSequence(stylePart, sps, at, shortcSeq);
+            Phrase p = getOneAccTypePhraseOneShortChordSequenceCached(stylePart, complexity, sps, at, shortcSeq);
             mapAccTypePhrase.put(at, p);
         }
 
         return mapAccTypePhrase;
     }
 
+    /**
+     * Same as getOneAccTypePhraseOneShortChordSequence() but reuse the PhraseCache when possible.
+     * <p>
+     * The cache key contains everything which impacts the generated phrase: the chord sequence relative to its start, the style
+     * part, the picked SourcePhraseSet, the destination channel and, for drums, the destination instrument (for key mapping).
+     *
+     * @param stylePart
+     * @param complexity
+     * @param sps
+     * @param at
+     * @param shortcSeq
+     * @return
+     * @throws MusicGenerationException
+     */
+    private Phrase getOneAccTypePhraseOneShortChordSequenceCached(StylePart stylePart, int complexity, SourcePhraseSet sps, AccType at, SimpleChordSequence shortcSeq) throws MusicGenerationException
+    {
+        RhythmVoice rv = rhythm.getRhythmVoice(at);
+        int destChannel = getChannelFromMidiMix(rv);
+        Instrument destDrumsIns = at.isDrums() ? contextWork.getMidiMix().getInstrumentMix(destChannel).getInstrument() : null;
+        int spsIndex = stylePart.getSourcePhraseSets(complexity).indexOf(sps);
+        var key = PhraseCache.Key.of(rhythm, shortcSeq, stylePart.getType(), complexity, spsIndex, at, destChannel, destDrumsIns);
+        float cSeqStartPosInBeats = contextWork.getSong().getSongStructure().toPositionInNaturalBeats(shortcSeq.getBarRange().from);
+
+        var cache = PhraseCache.getInstance();
+        Phrase res = cache.get(key, cSeqStartPosInBeats);
+        if (res == null)
+        {
+            res = getOneAccTypePhraseOneShortChordSequence(stylePart, sps, at, shortcSeq);
+            cache.put(key, res, cSeqStartPosInBeats);
+        }
+        return res;
+    }
+
     /**
      * Get the style's source phrase for the specified style's AccType for a "short chordSequence".
      * <p>
@@ -1034,7 +1116,7 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
                 String rpComplexityValue = spt.getRPValue(RP_STD_Variation.getVariationRp(yjr));
                 StylePart sp = yjr.getStylePart(rpComplexityValue);
                 String rpFillValue = spt.getRPValue(RP_STD_Fill.getFillRp(yjr));
-                if (sp.getType().isMain() && needFill(rpFillValue))
+                if (sp.getType().isMain() && needFill(rpFillValue, spt.getStartBarIndex()))
                 {
                     // Change the RP Complexity value to use the appropriate Fill or Break
                     StylePartType breakType;
@@ -1063,13 +1145,14 @@ public class YamJJazzRhythmGenerator implements MusicGenerator
      * Return true if we need to add a Fill In.
      *
      * @param rpFillValue
+     * @param sgsBarIndex The start bar of the fill song part, used to seed the random value
      * @return
      */
-    private boolean needFill(String rpFillValue)
+    private boolean needFill(String rpFillValue, int sgsBarIndex)
     {
         boolean r = false;
         rpFillValue = rpFillValue.toLowerCase();
-        double x = Math.random();
+        double x = SpsRandomPicker.getRandom(songSeed, rhythm.getUniqueId(), "fill", sgsBarIndex);
         if (rpFillValue.contains(RP_STD_Fill.VALUE_ALWAYS) || rpFillValue.contains(RP_STD_Fill.VALUE_BREAK))
         {
             r = true;
@@ -0,0 +1,155 @@
+/*
+ * 
+ *   DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *  
+ *   Copyright @2019 Jerome Lelasseux. All rights reserved.
+ * 
+ *   This file is part of the JJazzLab software.
+ *    
+ *   JJazzLab is free software: you can redistribute it and/or modify
+ *   it under the terms of the Lesser GNU General Public License (LGPLv3) 
+ *   as published by the Free Software Foundation, either version 3 of the License, 
+ *   or (at your option) any later version.
+ * 
+ *   JJazzLab is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *  
+ *   You should have received a copy of the GNU Lesser General Public License
+ *   along with JJazzLab.  If not, see <https://www.gnu.org/licenses/>
+ *  
+ */
+package org.jjazz.yamjjazz.rhythm;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.jjazz.phrase.api.SourcePhraseSet;
+import org.jjazz.yamjjazz.rhythm.api.AccType;
+import org.jjazz.yamjjazz.rhythm.api.Style;
+import org.jjazz.yamjjazz.rhythm.api.StylePart;
+import org.jjazz.yamjjazz.rhythm.api.StylePartType;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class YamJJazzRhythmImplTest
+{
+
+    private static final String STYLE_FILE_NAME = "8Beat.T160.STY";
+    static File styleFile;
+    static SourcePhraseSet refSps;
+
+    public YamJJazzRhythmImplTest()
+    {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception
+    {
+        styleFile = File.createTempFile("YamJJazzRhythmImplTest", ".STY");
+        try (var zis = new ZipInputStream(YamJJazzRhythmImplTest.class.getResourceAsStream("/org/jjazz/yamjjazz/rhythm/api/resources/YamahaDefaultFiles.zip")))
+        {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null && !entry.getName().equals(STYLE_FILE_NAME))
+            {
+                // Skip
+            }
+            assertNotNull(entry);
+            Files.copy(zis, styleFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Reference: all the music data loaded at once
+        Style style = new Style();
+        style.readNonMusicData(styleFile);
+        style.readMusicData(styleFile);
+        refSps = style.getStylePart(StylePartType.Main_A).getSourcePhraseSet(StylePart.DEFAULT_COMPLEXITY_LEVEL, 0);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception
+    {
+        styleFile.delete();
+    }
+
+    @Test
+    public void testLoadStylePartResources() throws Exception
+    {
+        System.out.println("testLoadStylePartResources");
+        var r = new YamJJazzRhythmImpl(styleFile);
+        r.loadResources();
+        StylePart sp = r.getStyle().getStylePart(StylePartType.Main_A);
+        assertFalse(sp.isMusicLoaded());
+
+
+        // A first subset
+        r.loadStylePartResources(StylePartType.Main_A, List.of(AccType.RHYTHM, AccType.BASS));
+        SourcePhraseSet sps1 = sp.getSourcePhraseSet(StylePart.DEFAULT_COMPLEXITY_LEVEL, 0);
+        checkPhrases(sp, sps1, List.of(AccType.RHYTHM, AccType.BASS));
+
+
+        // Another subset: a new SourcePhraseSet is published, the previous one is not modified
+        r.loadStylePartResources(StylePartType.Main_A, List.of(AccType.CHORD1));
+        SourcePhraseSet sps2 = sp.getSourcePhraseSet(StylePart.DEFAULT_COMPLEXITY_LEVEL, 0);
+        assertNotSame(sps1, sps2);
+        checkPhrases(sp, sps1, List.of(AccType.RHYTHM, AccType.BASS));
+        checkPhrases(sp, sps2, List.of(AccType.RHYTHM, AccType.BASS, AccType.CHORD1));
+
+
+        // Release: the published SourcePhraseSets are not modified
+        r.releaseResources();
+        assertFalse(sp.isMusicLoaded());
+        checkPhrases(sp, sps2, List.of(AccType.RHYTHM, AccType.BASS, AccType.CHORD1));
+
+
+        // Reload everything
+        r.loadStylePartResources(StylePartType.Main_A, sp.getAccTypes());
+        checkPhrases(sp, sp.getSourcePhraseSet(StylePart.DEFAULT_COMPLEXITY_LEVEL, 0), sp.getAccTypes());
+    }
+
+    /**
+     * A StylePart Sequence read again from the file (after it was released) gives the same music data.
+     */
+    @Test
+    public void testReadStylePartMusicDataIndex() throws Exception
+    {
+        System.out.println("testReadStylePartMusicDataIndex");
+        Style style = new Style();
+        style.readNonMusicData(styleFile);
+        var mapTypeSequence = style.readMusicDataIndex(styleFile);
+        StylePart sp = style.getStylePart(StylePartType.Main_A);
+        var accTypes = EnumSet.copyOf(sp.getAccTypes());
+
+        var sequence = style.readStylePartMusicDataIndex(styleFile, StylePartType.Main_A);
+        assertNotSame(mapTypeSequence.get(StylePartType.Main_A), sequence);
+        checkPhrases(sp, style.readStylePartMusicData(StylePartType.Main_A, sequence, accTypes, "test"), sp.getAccTypes());
+        checkPhrases(sp, style.readStylePartMusicData(StylePartType.Main_A, mapTypeSequence.get(StylePartType.Main_A), accTypes, "test"),
+                sp.getAccTypes());
+    }
+
+    // ===============================================================================
+    // Private methods
+    // ===============================================================================
+
+    /**
+     * Check that sps contains exactly the reference phrases of the specified AccTypes.
+     */
+    private void checkPhrases(StylePart sp, SourcePhraseSet sps, List<AccType> accTypes)
+    {
+        List<Integer> expectedChannels = refSps.getSourceChannels().stream()
+                .filter(c -> accTypes.contains(sp.getAccType(c)))
+                .toList();
+        assertFalse(expectedChannels.isEmpty());
+        assertEquals(expectedChannels, sps.getSourceChannels());
+        for (int channel : expectedChannels)
+        {
+            assertTrue("channel=" + channel, refSps.getPhrase(channel).equalsAsNoteNearPosition(sps.getPhrase(channel), 0));
+        }
+    }
+}